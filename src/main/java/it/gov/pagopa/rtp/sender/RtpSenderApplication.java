@@ -5,9 +5,11 @@ import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextProps;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import reactor.core.publisher.Hooks;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableConfigurationProperties({
     ActivationPropertiesConfig.class,
     ServiceProviderConfig.class,
@@ -18,7 +20,15 @@ import reactor.core.publisher.Hooks;
     ApplicationInsightsProperties.class,
     PagoPaConfigProperties.class,
     GdpEventHubProperties.class,
+    GdpProcessingProperties.class,
+    GdpDeadLetterProperties.class,
     Oauth2ConfigProperties.class,
+    Oauth2TokenCacheProperties.class,
+    TspResilienceProperties.class,
+    TspConcurrencyLimitProperties.class,
+    EpcRetryProperties.class,
+    EpcHedgingProperties.class,
+    RegistryDataProperties.class,
 })
 public class RtpSenderApplication {
 
@@ -0,0 +1,52 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import java.util.function.Function;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+
+/**
+ * {@link ExchangeFilterFunction} that sets the {@code Authorization: Bearer} header from a token
+ * stored in the Reactor {@link Context} of the call.
+ * <p>
+ * This allows a single, shared client to send a different token on each call, without mutating
+ * default headers.
+ * </p>
+ */
+public class BearerTokenContextFilter implements ExchangeFilterFunction {
+
+  private static final String BEARER_TOKEN_CONTEXT_KEY = BearerTokenContextFilter.class.getName() + ".TOKEN";
+
+
+  /**
+   * Returns a function that stores the given bearer token in the Reactor {@link Context}, to be
+   * used with {@code contextWrite}.
+   *
+   * @param token the bearer token
+   * @return the context modifier
+   */
+  @NonNull
+  public static Function<Context, Context> withBearerToken(@NonNull final String token) {
+    return context -> context.put(BEARER_TOKEN_CONTEXT_KEY, token);
+  }
+
+
+  @NonNull
+  @Override
+  public Mono<ClientResponse> filter(
+      @NonNull final ClientRequest request,
+      @NonNull final ExchangeFunction next) {
+
+    return Mono.deferContextual(context -> next.exchange(
+        context.<String>getOrEmpty(BEARER_TOKEN_CONTEXT_KEY)
+            .map(token -> ClientRequest.from(request)
+                .headers(headers -> headers.setBearerAuth(token))
+                .build())
+            .orElse(request)));
+  }
+}
@@ -1,7 +1,6 @@
 package it.gov.pagopa.rtp.sender.configuration;
 
 import java.util.Objects;
-import java.util.stream.Collectors;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -11,8 +10,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.util.CollectionUtils;
 
-import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.CacheConfigProperties;
-
+/**
+ * Configuration of the Caffeine caches declared under the {@code cache.params} properties, each
+ * built by the {@link CaffeineCacheFactory} with its own eviction and expiration policy.
+ * <p>
+ * The caches record their statistics, which Spring Boot binds to the meter registry as the
+ * {@code cache.*} metrics tagged with the cache name (hits, misses, load duration, evictions and
+ * size). The same data is available through the {@link CaffeineCachesEndpoint}.
+ * </p>
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
@@ -38,22 +44,12 @@ public class CacheConfig {
 
     if (!CollectionUtils.isEmpty(cacheProperties.getParams())) {
 
-      final var cacheMap = cacheProperties.getParams()
+      cacheProperties.getParams()
           .stream()
           .map(cacheConfigProperties -> cacheConfigProperties.withName(
               cacheConfigProperties.name().trim()))
-          .collect(Collectors.toConcurrentMap(
-              CacheConfigProperties::name,
-              cache -> cacheFactory.createCache(
-                  cache.maximumSize(),
-                  cache.expireAfterWrite()
-              )
-          ));
-
-      cacheMap.forEach((key, value) -> cacheManager.registerCustomCache(
-          key,
-          value.buildAsync()
-      ));
+          .forEach(cache -> cacheManager.registerCustomCache(
+              cache.name(), cacheFactory.createCache(cache).buildAsync()));
     }
 
     cacheManager.setAsyncCacheMode(true);
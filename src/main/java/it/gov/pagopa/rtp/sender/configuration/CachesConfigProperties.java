@@ -1,13 +1,17 @@
 package it.gov.pagopa.rtp.sender.configuration;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.time.Duration;
 import java.util.List;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.With;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
 import org.springframework.validation.annotation.Validated;
 
 
@@ -17,9 +21,67 @@ import org.springframework.validation.annotation.Validated;
 @ConfigurationProperties(prefix = "cache")
 public class CachesConfigProperties {
 
-  private final List<CacheConfigProperties> params;
+  private final List<@Valid CacheConfigProperties> params;
 
+  /**
+   * Eviction and expiration policy of a single cache. Unset values leave the corresponding
+   * Caffeine policy disabled. The caches are asynchronous, as required by the reactive callers,
+   * and populated by them, so policies needing a synchronous cache or a loader, such as soft
+   * values and refresh after write, are not supported.
+   *
+   * @param name              the name of the cache
+   * @param maximumSize       the maximum number of entries
+   * @param maximumWeight     the maximum total weight of the entries, measured by {@code weigher};
+   *                          mutually exclusive with {@code maximumSize}
+   * @param weigher           how entries are weighed against {@code maximumWeight}, defaults to
+   *                          {@link WeigherType#SIZE}
+   * @param expireAfterWrite  the time after which an entry expires since it was written
+   * @param expireAfterAccess the time after which an entry expires since it was last accessed
+   * @param initialCapacity   the initial capacity of the cache
+   * @param recordStats       whether the cache records its statistics, defaults to {@code true}
+   */
   @With
-  public record CacheConfigProperties(@NotBlank String name, @Positive Integer maximumSize, Duration expireAfterWrite) {}
-}
+  public record CacheConfigProperties(
+      @NotBlank String name,
+      @Positive Integer maximumSize,
+      @Positive Long maximumWeight,
+      WeigherType weigher,
+      Duration expireAfterWrite,
+      Duration expireAfterAccess,
+      @PositiveOrZero Integer initialCapacity,
+      Boolean recordStats) {
+
+    @ConstructorBinding
+    public CacheConfigProperties {
+    }
+
+    public CacheConfigProperties(String name, Integer maximumSize, Duration expireAfterWrite) {
+      this(name, maximumSize, null, null, expireAfterWrite, null, null, null);
+    }
+
+    /**
+     * @return whether at most one of {@code maximumSize} and {@code maximumWeight} is set
+     */
+    @AssertTrue(message = "maximum-size and maximum-weight are mutually exclusive")
+    public boolean isSingleBound() {
+      return maximumSize == null || maximumWeight == null;
+    }
+  }
 
+  /**
+   * How the entries of a weight-bounded cache are weighed.
+   */
+  public enum WeigherType {
+
+    /**
+     * Every entry weighs 1.
+     */
+    ENTRY,
+
+    /**
+     * Entries weigh as the length of their value, when it is a string, an array, a collection or
+     * a map, and 1 otherwise.
+     */
+    SIZE
+  }
+}
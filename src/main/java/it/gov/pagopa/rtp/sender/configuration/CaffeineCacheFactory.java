@@ -1,17 +1,94 @@
 package it.gov.pagopa.rtp.sender.configuration;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.CacheConfigProperties;
+import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.WeigherType;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import java.time.Duration;
 
 
+/**
+ * Factory of the Caffeine builders backing the application caches.
+ * <p>
+ * Unless disabled by the cache configuration, every cache records its statistics, so that hits,
+ * misses, load times and evictions are exported through the cache metrics and shown by the
+ * {@link CaffeineCachesEndpoint}.
+ * </p>
+ */
 @Component("caffeineCacheFactory")
 public class CaffeineCacheFactory {
 
   public Caffeine<Object, Object> createCache(long maxSize, Duration expireAfterWrite) {
     return Caffeine.newBuilder()
         .maximumSize(maxSize)
-        .expireAfterWrite(expireAfterWrite);
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats();
+  }
+
+
+  /**
+   * Creates the builder of a cache applying every policy set in its configuration.
+   * <p>
+   * Conflicting policies, such as both a maximum size and a maximum weight, are rejected by
+   * Caffeine when the builder is configured.
+   * </p>
+   *
+   * @param cacheConfig the cache configuration
+   * @return the configured {@link Caffeine} builder
+   * @throws NullPointerException  if {@code cacheConfig} is {@code null}
+   * @throws IllegalStateException if the configured policies conflict
+   */
+  @NonNull
+  public Caffeine<Object, Object> createCache(@NonNull final CacheConfigProperties cacheConfig) {
+    Objects.requireNonNull(cacheConfig, "Cache configuration cannot be null");
+
+    final var builder = Caffeine.newBuilder();
+
+    Optional.ofNullable(cacheConfig.initialCapacity()).ifPresent(builder::initialCapacity);
+    Optional.ofNullable(cacheConfig.maximumSize()).ifPresent(builder::maximumSize);
+    Optional.ofNullable(cacheConfig.maximumWeight()).ifPresent(maximumWeight -> builder
+        .maximumWeight(maximumWeight)
+        .weigher(weigherOf(Optional.ofNullable(cacheConfig.weigher()).orElse(WeigherType.SIZE))));
+    Optional.ofNullable(cacheConfig.expireAfterWrite()).ifPresent(builder::expireAfterWrite);
+    Optional.ofNullable(cacheConfig.expireAfterAccess()).ifPresent(builder::expireAfterAccess);
+
+    if (!Boolean.FALSE.equals(cacheConfig.recordStats())) {
+      builder.recordStats();
+    }
+
+    return builder;
+  }
+
+
+  @NonNull
+  private static Weigher<Object, Object> weigherOf(@NonNull final WeigherType weigherType) {
+    return switch (weigherType) {
+      case ENTRY -> Weigher.singletonWeigher();
+      case SIZE -> (key, value) -> sizeOf(value);
+    };
   }
-}
 
+
+  private static int sizeOf(final Object value) {
+    if (value instanceof CharSequence charSequence) {
+      return charSequence.length();
+    }
+    if (value instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (value instanceof Map<?, ?> map) {
+      return map.size();
+    }
+    if (value != null && value.getClass().isArray()) {
+      return Array.getLength(value);
+    }
+    return 1;
+  }
+}
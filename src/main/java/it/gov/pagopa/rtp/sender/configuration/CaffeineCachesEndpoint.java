@@ -0,0 +1,172 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.Policy.FixedExpiration;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Actuator endpoint describing the Caffeine caches of the application.
+ * <p>
+ * For each cache it reports the size, the age of the oldest entry and the statistics recorded
+ * since startup, and it allows invalidating a single cache or all of them. Invalidated entries are
+ * loaded again by their callers on the next access.
+ * </p>
+ */
+@Component("caffeineCachesEndpoint")
+@Endpoint(id = "caffeinecaches")
+@Slf4j
+public class CaffeineCachesEndpoint {
+
+  private final CacheManager cacheManager;
+
+
+  /**
+   * Constructs a new {@link CaffeineCachesEndpoint}.
+   *
+   * @param cacheManager the manager of the caches to describe
+   * @throws NullPointerException if {@code cacheManager} is {@code null}
+   */
+  public CaffeineCachesEndpoint(@NonNull final CacheManager cacheManager) {
+    this.cacheManager = Objects.requireNonNull(cacheManager, "Cache manager cannot be null");
+  }
+
+
+  /**
+   * @return the description of every Caffeine cache, by name
+   */
+  @NonNull
+  @ReadOperation
+  public Map<String, CacheDescriptor> caches() {
+    final var caches = new TreeMap<String, CacheDescriptor>();
+    this.cacheManager.getCacheNames().forEach(name ->
+        this.nativeCache(name).ifPresent(cache -> caches.put(name, describe(cache))));
+    return caches;
+  }
+
+
+  /**
+   * @param name the name of the cache
+   * @return the description of the cache, {@code null} if there is no such Caffeine cache
+   */
+  @Nullable
+  @ReadOperation
+  public CacheDescriptor cache(@Selector final String name) {
+    return this.nativeCache(name)
+        .map(CaffeineCachesEndpoint::describe)
+        .orElse(null);
+  }
+
+
+  /**
+   * Invalidates every entry of the given cache.
+   *
+   * @param name the name of the cache
+   * @return whether the cache exists and has been invalidated
+   */
+  @DeleteOperation
+  public boolean invalidate(@Selector final String name) {
+    return this.nativeCache(name)
+        .map(cache -> {
+          log.info("Invalidating {} entries of cache {}", cache.estimatedSize(), name);
+          cache.invalidateAll();
+          return true;
+        })
+        .orElse(false);
+  }
+
+
+  /**
+   * Invalidates every entry of every Caffeine cache.
+   */
+  @DeleteOperation
+  public void invalidateAll() {
+    this.cacheManager.getCacheNames().forEach(this::invalidate);
+  }
+
+
+  @NonNull
+  private Optional<Cache<Object, Object>> nativeCache(@NonNull final String name) {
+    // looking up an unknown name would create a new cache on a dynamic cache manager
+    return Optional.of(name)
+        .filter(this.cacheManager.getCacheNames()::contains)
+        .map(this.cacheManager::getCache)
+        .filter(CaffeineCache.class::isInstance)
+        .map(cache -> ((CaffeineCache) cache).getNativeCache());
+  }
+
+
+  @NonNull
+  private static CacheDescriptor describe(@NonNull final Cache<Object, Object> cache) {
+    final var stats = cache.stats();
+    final var expiration = cache.policy().expireAfterWrite();
+
+    return new CacheDescriptor(
+        cache.estimatedSize(),
+        cache.policy().eviction().map(Eviction::getMaximum).orElse(null),
+        expiration.map(FixedExpiration::getExpiresAfter).orElse(null),
+        expiration.flatMap(CaffeineCachesEndpoint::oldestEntryAge).orElse(null),
+        stats.hitCount(),
+        stats.missCount(),
+        stats.hitRate(),
+        stats.loadSuccessCount(),
+        stats.loadFailureCount(),
+        Duration.ofNanos((long) stats.averageLoadPenalty()),
+        stats.evictionCount());
+  }
+
+
+  @NonNull
+  private static Optional<Duration> oldestEntryAge(
+      @NonNull final FixedExpiration<Object, Object> expiration) {
+
+    return expiration.oldest(1).keySet().stream()
+        .findFirst()
+        .flatMap(expiration::ageOf);
+  }
+
+
+  /**
+   * Description of a Caffeine cache.
+   *
+   * @param size               the approximate number of entries
+   * @param maximumSize        the maximum number of entries, {@code null} if unbounded
+   * @param expireAfterWrite   the entry time to live, {@code null} if entries never expire
+   * @param oldestEntryAge     the age of the oldest entry, {@code null} if the cache is empty
+   * @param hitCount           the number of lookups returning a cached value
+   * @param missCount          the number of lookups not finding a cached value
+   * @param hitRatio           the ratio of lookups returning a cached value
+   * @param loadSuccessCount   the number of successful loads
+   * @param loadFailureCount   the number of failed loads
+   * @param averageLoadPenalty the average time spent loading a value
+   * @param evictionCount      the number of evicted entries
+   */
+  public record CacheDescriptor(
+      long size,
+      Long maximumSize,
+      Duration expireAfterWrite,
+      Duration oldestEntryAge,
+      long hitCount,
+      long missCount,
+      double hitRatio,
+      long loadSuccessCount,
+      long loadFailureCount,
+      Duration averageLoadPenalty,
+      long evictionCount
+  ) {}
+}
@@ -1,25 +1,39 @@
 package it.gov.pagopa.rtp.sender.configuration;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
 import it.gov.pagopa.rtp.sender.epcClient.invoker.ApiClient;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
 
 
 /**
  * A factory class for creating instances of the {@link DefaultApi} OpenAPI client.
  * This implementation uses a {@link WebClient} and configuration from {@link ServiceProviderConfig}.
+ * <p>
+ * Clients bound to a base path are cached, one per (web client, base path) pair, and are never
+ * mutated after creation, so they can be safely shared between concurrent calls. The bearer token
+ * is sent per call through the {@link BearerTokenContextFilter}. Clients bound to the endpoint of
+ * a technical service provider are dropped on the same events that invalidate its pooled web
+ * client, and the whole cache is cleared when the mTLS key material is rotated.
+ * </p>
  */
 @Component("epcClientFactory")
 @Slf4j
 public class EpcClientFactory implements OpenAPIClientFactory<DefaultApi> {
 
   private final ServiceProviderConfig serviceProviderConfig;
+  private final BearerTokenContextFilter bearerTokenContextFilter = new BearerTokenContextFilter();
+  private final Map<EpcClientKey, DefaultApi> clients = new ConcurrentHashMap<>();
 
 
   /**
@@ -45,20 +59,111 @@ public class EpcClientFactory implements OpenAPIClientFactory<DefaultApi> {
   @NonNull
   @Override
   public DefaultApi createClient(@NonNull final WebClient webClient) {
-    log.debug("Creating EPC client");
-
     final var mockBasePath = Optional.of(serviceProviderConfig)
         .map(ServiceProviderConfig::send)
         .map(ServiceProviderConfig.Send::epcMockUrl)
         .orElseThrow(() -> new IllegalStateException("Couldn't create mock base path"));
 
+    return this.buildClient(webClient, mockBasePath);
+  }
+
+
+  /**
+   * Returns the cached {@link DefaultApi} client for the given {@link WebClient} and base path,
+   * creating it on first access.
+   *
+   * @param webClient the WebClient to be used for making API calls
+   * @param basePath  the base path of the EPC API exposed by the service provider
+   * @return a shared instance of {@link DefaultApi}
+   * @throws IllegalStateException if the EPC client cannot be instantiated
+   */
+  @NonNull
+  @Override
+  public DefaultApi createClient(
+      @NonNull final WebClient webClient,
+      @NonNull final String basePath) {
+
+    return this.clients.computeIfAbsent(
+        new EpcClientKey(webClient, basePath),
+        key -> this.buildClient(key.webClient(), key.basePath()));
+  }
+
+
+  /**
+   * Drops the cached clients bound to the endpoint of a technical service provider that has been
+   * removed or whose endpoint or transport settings changed.
+   *
+   * @param event the technical service provider change event
+   */
+  @EventListener
+  public void onTechnicalServiceProviderChanged(
+      @NonNull final TechnicalServiceProviderChangedEvent event) {
+
+    if (event.previous() == null || !event.connectionChanged()) {
+      return;
+    }
+
+    final var basePath = event.previous().serviceEndpoint();
+    if (this.clients.keySet().removeIf(key -> key.basePath().equals(basePath))) {
+      log.info("Invalidated cached EPC clients for {}", basePath);
+    }
+  }
+
+
+  /**
+   * Drops the cached clients when the mTLS key material is rotated.
+   *
+   * @param event the SSL context reload event
+   */
+  @EventListener
+  public void onSslContextReloaded(@NonNull final SslContextReloadedEvent event) {
+    this.invalidateAll();
+  }
+
+
+  /**
+   * Drops every cached client.
+   */
+  private void invalidateAll() {
+    log.info("Invalidating {} cached EPC clients", this.clients.size());
+    this.clients.clear();
+  }
+
+
+  /**
+   * Builds a new {@link DefaultApi} client bound to the given base path.
+   *
+   * @param webClient the WebClient to be used for making API calls
+   * @param basePath  the base path of the EPC API
+   * @return a new instance of {@link DefaultApi}
+   * @throws IllegalStateException if the EPC client cannot be instantiated
+   */
+  @NonNull
+  private DefaultApi buildClient(
+      @NonNull final WebClient webClient,
+      @NonNull final String basePath) {
+
+    log.debug("Creating EPC client for {}", basePath);
+
     return Optional.of(webClient)
+        .map(client -> client.mutate()
+            .filter(this.bearerTokenContextFilter)
+            .build())
         .map(ApiClient::new)
+        .map(apiClient -> apiClient.setBasePath(basePath))
         .map(DefaultApi::new)
-        .map(defaultApi -> {
-          defaultApi.getApiClient().setBasePath(mockBasePath);
-          return defaultApi;
-        })
         .orElseThrow(() -> new IllegalStateException("Couldn't create EPC client"));
   }
+
+
+  /**
+   * Identifies a cached EPC client.
+   *
+   * @param webClient the WebClient used by the client
+   * @param basePath  the base path of the EPC API
+   */
+  private record EpcClientKey(
+      WebClient webClient,
+      String basePath
+  ) {}
 }
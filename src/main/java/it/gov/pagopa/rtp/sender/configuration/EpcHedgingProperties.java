@@ -0,0 +1,37 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the hedging of latency-critical EPC cancellation requests.
+ * <p>
+ * The hedge delay is the configured percentile of the latencies recently observed for the debtor
+ * service provider, bounded by {@code minDelay} and {@code maxDelay}. Until enough latencies have
+ * been observed, {@code initialDelay} is used.
+ * </p>
+ *
+ * @param enabled      whether hedging is applied to the requests that ask for it
+ * @param percentile   the latency percentile used as hedge delay
+ * @param initialDelay the hedge delay used before enough latencies are observed
+ * @param minDelay     the lowest hedge delay
+ * @param maxDelay     the highest hedge delay
+ * @param minSamples   the number of latencies needed before using the percentile
+ */
+@Validated
+@ConfigurationProperties(prefix = "client.hedging")
+public record EpcHedgingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DecimalMin("0.5") @DecimalMax("1.0") @DefaultValue("0.95") double percentile,
+    @NotNull @DefaultValue("PT1S") Duration initialDelay,
+    @NotNull @DefaultValue("PT0.1S") Duration minDelay,
+    @NotNull @DefaultValue("PT5S") Duration maxDelay,
+    @Min(1) @DefaultValue("20") int minSamples
+) {}
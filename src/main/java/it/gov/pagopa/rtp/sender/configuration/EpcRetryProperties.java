@@ -0,0 +1,31 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the retry budget shared by all the EPC calls and of the handling of the
+ * {@code Retry-After} header. Attempts and backoff are configured in
+ * {@link ServiceProviderConfig.Send.Retry}.
+ *
+ * @param budgetRatio      maximum ratio of retries to requests over the budget window
+ * @param budgetWindow     the sliding window over which retries and requests are counted
+ * @param budgetMinRetries retries always allowed within the window, regardless of the ratio, so
+ *                         that low traffic can still be retried
+ * @param maxRetryAfter    upper bound of the delay honoured from a {@code Retry-After} header
+ */
+@Validated
+@ConfigurationProperties(prefix = "client.retry")
+public record EpcRetryProperties(
+    @DecimalMin("0.0") @DecimalMax("1.0") @DefaultValue("0.1") double budgetRatio,
+    @NotNull @DefaultValue("PT10S") Duration budgetWindow,
+    @Min(0) @DefaultValue("10") int budgetMinRetries,
+    @NotNull @DefaultValue("PT30S") Duration maxRetryAfter
+) {}
@@ -0,0 +1,33 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the dead-letter handling of the GDP messages.
+ * <p>
+ * Messages whose processing fails are published to the dead-letter {@code topic}, from which they
+ * are replayed one at a time, waiting {@code replayInterval} before each of them. A message that
+ * still fails after {@code maxReplayAttempts} replays is moved to the {@code parkingLotTopic},
+ * which is never replayed automatically.
+ * </p>
+ *
+ * @param topic             the dead-letter topic
+ * @param parkingLotTopic   the parking-lot topic
+ * @param maxReplayAttempts the number of replays before a message is parked
+ * @param replayInterval    the delay before each replayed message
+ */
+@Validated
+@ConfigurationProperties(prefix = "gdp.dead-letter")
+public record GdpDeadLetterProperties(
+    @NotBlank String topic,
+    @NotBlank String parkingLotTopic,
+    @Min(0) @DefaultValue("3") int maxReplayAttempts,
+    @NotNull @DefaultValue("PT1S") Duration replayInterval
+) {}
@@ -0,0 +1,62 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the processing of the GDP messages.
+ * <p>
+ * Messages are processed in batches of up to {@code batchSize} messages, collected for at most
+ * {@code batchMaxWait}; the RTPs a batch updates or deletes are read with a single query, and are
+ * read again by the messages processed more than {@code prefetchMaxAge} after it. Messages
+ * are spread over {@code maxConcurrency} lanes by their GDP id, kept across batches: lanes run in
+ * parallel, while the messages of a lane, and therefore all the messages of the same GDP id, are
+ * processed one at a time in arrival order.
+ * </p>
+ * <p>
+ * Offsets are committed only once their messages have been processed, up to the last contiguous
+ * processed offset of each partition. A commit is issued every {@code commitBatchSize} processed
+ * messages and at least every {@code commitInterval}.
+ * </p>
+ * <p>
+ * The consumer binding is paused when the messages received but not processed yet reach
+ * {@code pauseHighWaterMark}, and resumed once they drop to {@code resumeLowWaterMark}, which must
+ * be lower.
+ * </p>
+ *
+ * @param maxConcurrency     the maximum number of messages processed at the same time
+ * @param batchSize          the maximum number of messages of a batch
+ * @param batchMaxWait       the maximum time spent collecting a batch
+ * @param commitBatchSize    the number of processed messages triggering an offset commit
+ * @param commitInterval     the maximum time between two offset commits
+ * @param pauseHighWaterMark the number of in-flight messages pausing the consumption
+ * @param resumeLowWaterMark the number of in-flight messages resuming the consumption
+ * @param prefetchMaxAge     the maximum age of a prefetched RTP served to a message
+ */
+@Validated
+@ConfigurationProperties(prefix = "gdp.processing")
+public record GdpProcessingProperties(
+    @Min(1) @DefaultValue("16") int maxConcurrency,
+    @Min(1) @DefaultValue("100") int batchSize,
+    @NotNull @DefaultValue("PT0.1S") Duration batchMaxWait,
+    @Min(1) @DefaultValue("100") int commitBatchSize,
+    @NotNull @DefaultValue("PT5S") Duration commitInterval,
+    @Min(1) @DefaultValue("1000") int pauseHighWaterMark,
+    @Min(0) @DefaultValue("500") int resumeLowWaterMark,
+    @NotNull @DefaultValue("PT2S") Duration prefetchMaxAge
+) {
+
+  /**
+   * @return whether the consumption resumes below the in-flight messages pausing it
+   */
+  @AssertTrue(message = "resume-low-water-mark must be lower than pause-high-water-mark")
+  public boolean isResumeBelowPause() {
+    return resumeLowWaterMark < pauseHighWaterMark;
+  }
+}
@@ -0,0 +1,28 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the cache of the access tokens issued by the TSP authorization servers.
+ *
+ * @param expirySafetyMargin how long before the declared {@code expires_in} a token is considered
+ *                           expired, to account for clock skew and network latency
+ * @param refreshAheadRatio  fraction of the usable token lifetime after which a new token is
+ *                           fetched in background, while the current one keeps being served
+ * @param maximumSize        the maximum number of cached tokens
+ */
+@Validated
+@ConfigurationProperties(prefix = "client.oauth2.token-cache")
+public record Oauth2TokenCacheProperties(
+    @NotNull @DefaultValue("PT30S") Duration expirySafetyMargin,
+    @DecimalMin("0.0") @DecimalMax("1.0") @DefaultValue("0.75") double refreshAheadRatio,
+    @Min(1) @DefaultValue("1000") long maximumSize
+) {}
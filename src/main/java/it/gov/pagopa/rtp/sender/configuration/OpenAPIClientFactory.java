@@ -16,4 +16,15 @@ public interface OpenAPIClientFactory<T> {
    * @return an instance of the OpenAPI client
    */
   T createClient(WebClient webClient);
-}
\ No newline at end of file
+
+  /**
+   * Returns an instance of the OpenAPI client bound to the given base path, using the provided
+   * WebClient. Implementations may share the returned instance between calls, so callers must not
+   * mutate it.
+   *
+   * @param webClient the WebClient to be used for making API calls
+   * @param basePath  the base path of the API
+   * @return an instance of the OpenAPI client
+   */
+  T createClient(WebClient webClient, String basePath);
+}
@@ -0,0 +1,27 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the in-memory registry snapshot.
+ * <p>
+ * The interval between two background refreshes, {@code registry-data.refresh-interval}, is read
+ * directly by the schedule of {@code RegistryDataServiceImpl#refreshRegistryData()}.
+ * </p>
+ *
+ * @param downloadTimeout   maximum time a download from Blob Storage may take before the refresh
+ *                          is given up and the current snapshot is kept
+ * @param localSnapshotPath file where the last loaded registry is persisted and restored from at
+ *                          startup; blank disables the local copy
+ */
+@Validated
+@ConfigurationProperties(prefix = "registry-data")
+public record RegistryDataProperties(
+    @NotNull @DefaultValue("PT30S") Duration downloadTimeout,
+    @DefaultValue("") String localSnapshotPath
+) {}
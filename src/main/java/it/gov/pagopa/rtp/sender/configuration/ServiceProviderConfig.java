@@ -1,5 +1,8 @@
 package it.gov.pagopa.rtp.sender.configuration;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "service-provider")
@@ -16,7 +19,8 @@ public record ServiceProviderConfig(
   public record Send(
       String epcMockUrl,
       Retry retry,
-      Long timeout
+      Long timeout,
+      ConnectionPool connectionPool
   ) {
 
     public record Retry(
@@ -26,5 +30,74 @@ public record ServiceProviderConfig(
     ) {
 
     }
+
+    /**
+     * Settings of the connection pool and event loop shared by all outbound HTTP clients.
+     * Missing values fall back to the defaults below. The limits of single TSPs can be overridden
+     * in {@code hosts}, keyed by their service endpoint (as in the registry) or by
+     * {@code host[:port]}.
+     *
+     * @param maxConnections        maximum number of connections per remote host (i.e. per TSP)
+     * @param pendingAcquireMaxCount maximum number of requests waiting for a connection, per remote host
+     * @param pendingAcquireTimeout maximum time a request waits for a connection
+     * @param maxIdleTime           time after which an idle connection is closed
+     * @param maxLifeTime           time after which a connection is closed once released
+     * @param evictionInterval      interval of the background eviction of idle and expired connections
+     * @param connectTimeout        TCP connect timeout
+     * @param eventLoopThreads      number of event loop threads; {@code 0} means one per core
+     * @param preferNative          whether to use the native (epoll/kqueue/io_uring) transport when available
+     * @param metricsEnabled        whether to expose the pool metrics
+     * @param hosts                 pool limits overridden for specific remote hosts
+     */
+    public record ConnectionPool(
+        Integer maxConnections,
+        Integer pendingAcquireMaxCount,
+        Duration pendingAcquireTimeout,
+        Duration maxIdleTime,
+        Duration maxLifeTime,
+        Duration evictionInterval,
+        Duration connectTimeout,
+        Integer eventLoopThreads,
+        Boolean preferNative,
+        Boolean metricsEnabled,
+        Map<String, HostPool> hosts
+    ) {
+
+      public ConnectionPool {
+        maxConnections = Optional.ofNullable(maxConnections).orElse(50);
+        pendingAcquireMaxCount = Optional.ofNullable(pendingAcquireMaxCount).orElse(500);
+        pendingAcquireTimeout = Optional.ofNullable(pendingAcquireTimeout).orElse(Duration.ofSeconds(5));
+        maxIdleTime = Optional.ofNullable(maxIdleTime).orElse(Duration.ofSeconds(30));
+        maxLifeTime = Optional.ofNullable(maxLifeTime).orElse(Duration.ofMinutes(5));
+        evictionInterval = Optional.ofNullable(evictionInterval).orElse(Duration.ofSeconds(30));
+        connectTimeout = Optional.ofNullable(connectTimeout).orElse(Duration.ofSeconds(5));
+        eventLoopThreads = Optional.ofNullable(eventLoopThreads).orElse(0);
+        preferNative = Optional.ofNullable(preferNative).orElse(true);
+        metricsEnabled = Optional.ofNullable(metricsEnabled).orElse(true);
+        hosts = Optional.ofNullable(hosts).map(Map::copyOf).orElse(Map.of());
+      }
+
+      /**
+       * @return the connection pool settings with all defaults applied
+       */
+      public static ConnectionPool defaults() {
+        return new ConnectionPool(null, null, null, null, null, null, null, null, null, null, null);
+      }
+
+
+      /**
+       * Pool limits of a single remote host. Missing values fall back to the ones of the
+       * {@link ConnectionPool}.
+       *
+       * @param maxConnections         maximum number of connections to the host
+       * @param pendingAcquireMaxCount maximum number of requests waiting for a connection to the host
+       * @param pendingAcquireTimeout  maximum time a request waits for a connection to the host
+       */
+      public record HostPool(
+          Integer maxConnections,
+          Integer pendingAcquireMaxCount,
+          Duration pendingAcquireTimeout
+      ) {}
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the adaptive (AIMD) concurrency limit applied to the RTPs sent to each debtor
+ * service provider.
+ * <p>
+ * The limit grows by one after every timely, successful exchange made while the limit was in use,
+ * and is multiplied by {@code backoffRatio} after every exchange that failed or took longer than
+ * {@code latencyThreshold}.
+ * </p>
+ *
+ * @param enabled          whether the limit is applied at all
+ * @param initialLimit     the limit of a service provider before any exchange is observed
+ * @param minLimit         the lowest value the limit can shrink to
+ * @param maxLimit         the highest value the limit can grow to
+ * @param backoffRatio     the factor applied to the limit on failures and slow exchanges
+ * @param latencyThreshold the latency above which an exchange is considered slow
+ * @param maxQueueSize     the maximum number of RTPs waiting for the limit, per service provider
+ * @param acquireTimeout   the maximum time an RTP waits for the limit before being rejected
+ */
+@Validated
+@ConfigurationProperties(prefix = "client.concurrency-limit")
+public record TspConcurrencyLimitProperties(
+    @DefaultValue("true") boolean enabled,
+    @Min(1) @DefaultValue("10") int initialLimit,
+    @Min(1) @DefaultValue("1") int minLimit,
+    @Min(1) @DefaultValue("50") int maxLimit,
+    @DecimalMin("0.1") @DecimalMax("0.99") @DefaultValue("0.9") double backoffRatio,
+    @NotNull @DefaultValue("PT2S") Duration latencyThreshold,
+    @Min(0) @DefaultValue("500") int maxQueueSize,
+    @NotNull @DefaultValue("PT5S") Duration acquireTimeout
+) {}
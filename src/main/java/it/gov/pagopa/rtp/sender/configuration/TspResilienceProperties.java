@@ -0,0 +1,30 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+
+/**
+ * Configuration of the circuit breaker and bulkhead guarding the EPC calls towards each debtor
+ * service provider.
+ *
+ * @param enabled            whether calls are guarded at all
+ * @param failureThreshold   number of consecutive failed calls after which the circuit opens
+ * @param openDuration       how long an open circuit rejects calls before letting probes through
+ * @param halfOpenMaxCalls   number of probe calls allowed while half-open; the circuit closes once
+ *                           all of them succeed
+ * @param maxConcurrentCalls maximum number of in-flight calls towards a single service provider
+ */
+@Validated
+@ConfigurationProperties(prefix = "client.resilience")
+public record TspResilienceProperties(
+    @DefaultValue("true") boolean enabled,
+    @Min(1) @DefaultValue("5") int failureThreshold,
+    @NotNull @DefaultValue("PT30S") Duration openDuration,
+    @Min(1) @DefaultValue("1") int halfOpenMaxCalls,
+    @Min(1) @DefaultValue("50") int maxConcurrentCalls
+) {}
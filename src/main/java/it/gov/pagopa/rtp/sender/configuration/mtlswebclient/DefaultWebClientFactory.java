@@ -1,5 +1,6 @@
 package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
 
+import io.netty.channel.ChannelOption;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.instrumentation.spring.webflux.v5_3.SpringWebfluxClientTelemetry;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
@@ -14,7 +15,10 @@ import org.springframework.security.oauth2.client.web.reactive.function.client.S
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
 
 
 /**
@@ -30,6 +34,8 @@ public class DefaultWebClientFactory implements WebClientFactory {
   private final ServiceProviderConfig serviceProviderConfig;
   private final OpenTelemetry openTelemetry;
   private final ServerOAuth2AuthorizedClientExchangeFilterFunction oauth2FilterFunction;
+  private final ConnectionProvider connectionProvider;
+  private final LoopResources loopResources;
 
   /**
    * Constructs an instance of {@code DefaultWebClientFactory}.
@@ -41,17 +47,23 @@ public class DefaultWebClientFactory implements WebClientFactory {
    * @param openTelemetry         dependency needed to instrument the {@link WebClient}
    * @param oauth2FilterFunction the OAuth2 client manager responsible for managing OAuth2
    *                              authentication
+   * @param connectionProvider    the connection pool shared by all outbound HTTP clients
+   * @param loopResources         the event loop shared by all outbound HTTP clients
    */
   public DefaultWebClientFactory(
       @NonNull final SslContextFactory sslContextFactory,
       @NonNull final ServiceProviderConfig serviceProviderConfig,
       @NonNull final OpenTelemetry openTelemetry,
-      @NonNull final ServerOAuth2AuthorizedClientExchangeFilterFunction oauth2FilterFunction
+      @NonNull final ServerOAuth2AuthorizedClientExchangeFilterFunction oauth2FilterFunction,
+      @NonNull final ConnectionProvider connectionProvider,
+      @NonNull final LoopResources loopResources
   ) {
     this.sslContextFactory = Objects.requireNonNull(sslContextFactory);
     this.serviceProviderConfig = Objects.requireNonNull(serviceProviderConfig);
     this.openTelemetry = Objects.requireNonNull(openTelemetry);
     this.oauth2FilterFunction = Objects.requireNonNull(oauth2FilterFunction);
+    this.connectionProvider = Objects.requireNonNull(connectionProvider);
+    this.loopResources = Objects.requireNonNull(loopResources);
   }
 
   /**
@@ -65,14 +77,21 @@ public class DefaultWebClientFactory implements WebClientFactory {
   @NonNull
   @Override
   public WebClient createSimpleWebClient() {
-    final var httpClient = HttpClient.create()
-        .responseTimeout(Duration.ofMillis(serviceProviderConfig.send().timeout()));
+    return this.createSimpleWebClient(false);
+  }
 
-    return createWebClientBuilder()
-        .clientConnector(new ReactorClientHttpConnector(httpClient))
-        .filters(filter ->
-            filter.add(this.oauth2FilterFunction))
-        .build();
+
+  /**
+   * Creates a simple {@link WebClient} instance without mutual TLS (mTLS), optionally negotiating
+   * HTTP/2 through ALPN with fallback to HTTP/1.1.
+   *
+   * @param http2Enabled whether HTTP/2 should be negotiated
+   * @return a non-mTLS configured {@link WebClient} instance
+   */
+  @NonNull
+  @Override
+  public WebClient createSimpleWebClient(final boolean http2Enabled) {
+    return this.buildSimpleWebClient(this.createHttpClient(http2Enabled));
   }
 
   /**
@@ -86,9 +105,26 @@ public class DefaultWebClientFactory implements WebClientFactory {
   @NonNull
   @Override
   public WebClient createMtlsWebClient() {
-    HttpClient httpClient = HttpClient.create()
-        .secure(sslContextSpec -> sslContextSpec.sslContext(sslContextFactory.getSslContext()))
-        .responseTimeout(Duration.ofMillis(serviceProviderConfig.send().timeout()));
+    return this.createMtlsWebClient(false);
+  }
+
+
+  /**
+   * Creates a mutual TLS (mTLS) enabled {@link WebClient} instance, optionally negotiating HTTP/2
+   * through ALPN with fallback to HTTP/1.1.
+   *
+   * @param http2Enabled whether HTTP/2 should be negotiated
+   * @return an mTLS-configured {@link WebClient} instance
+   */
+  @NonNull
+  @Override
+  public WebClient createMtlsWebClient(final boolean http2Enabled) {
+    final var sslContext = http2Enabled
+        ? this.sslContextFactory.getHttp2SslContext()
+        : this.sslContextFactory.getSslContext();
+
+    HttpClient httpClient = this.createHttpClient(http2Enabled)
+        .secure(sslContextSpec -> sslContextSpec.sslContext(sslContext));
 
     return createWebClientBuilder()
         .clientConnector(new ReactorClientHttpConnector(httpClient))
@@ -114,4 +150,47 @@ public class DefaultWebClientFactory implements WebClientFactory {
     return WebClient.builder()
         .filters(springWebfluxClientTelemetry::addFilter);
   }
+
+
+  /**
+   * Builds a non-mTLS {@link WebClient} on top of the given {@link HttpClient}, adding the OAuth2
+   * filter used for authenticated outbound calls.
+   *
+   * @param httpClient the configured Reactor Netty HTTP client
+   * @return the configured {@link WebClient}
+   */
+  @NonNull
+  private WebClient buildSimpleWebClient(@NonNull final HttpClient httpClient) {
+    return createWebClientBuilder()
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .filters(filter ->
+            filter.add(this.oauth2FilterFunction))
+        .build();
+  }
+
+
+  /**
+   * Creates an {@link HttpClient} on top of the shared {@link ConnectionProvider} and
+   * {@link LoopResources}, with HTTP keep-alive and TCP keep-alive enabled, and with the configured
+   * connect and response timeouts. When HTTP/2 is enabled, it is negotiated through ALPN with
+   * fallback to HTTP/1.1, so that concurrent requests can be multiplexed on few connections.
+   *
+   * @param http2Enabled whether HTTP/2 should be negotiated
+   * @return the configured {@link HttpClient}
+   */
+  @NonNull
+  private HttpClient createHttpClient(final boolean http2Enabled) {
+    final var connectionPool = HttpClientResourcesConfig.resolveConnectionPool(this.serviceProviderConfig);
+    final var protocols = http2Enabled
+        ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+        : new HttpProtocol[]{HttpProtocol.HTTP11};
+
+    return HttpClient.create(this.connectionProvider)
+        .protocol(protocols)
+        .runOn(this.loopResources, connectionPool.preferNative())
+        .keepAlive(true)
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectionPool.connectTimeout().toMillis())
+        .responseTimeout(Duration.ofMillis(serviceProviderConfig.send().timeout()));
+  }
 }
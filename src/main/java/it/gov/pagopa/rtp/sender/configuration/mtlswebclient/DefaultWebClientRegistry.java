@@ -0,0 +1,142 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+
+/**
+ * Default implementation of {@link WebClientRegistry}.
+ * <p>
+ * Each technical service provider, identified by a {@link TspClientKey}, gets its own
+ * {@link WebClient} built once through the {@link WebClientFactory}. All clients draw their
+ * connections from the shared outbound connection pool (see {@link HttpClientResourcesConfig}),
+ * which keeps a separate, bounded pool for each remote host.
+ * </p>
+ * <p>
+ * The client of a technical service provider is dropped when a
+ * {@link TechnicalServiceProviderChangedEvent} reports that the provider has been removed or that
+ * its endpoint or transport settings changed; clients of the other providers are kept. The whole
+ * registry is invalidated whenever a {@link SslContextReloadedEvent} is received, since all the
+ * clients hold the previous key material.
+ * Connections opened by dropped clients are released by the pool idle eviction.
+ * </p>
+ */
+@Component("webClientRegistry")
+@Slf4j
+public class DefaultWebClientRegistry implements WebClientRegistry {
+
+  private final WebClientFactory webClientFactory;
+  private final Map<TspClientKey, WebClient> clients = new ConcurrentHashMap<>();
+
+
+  /**
+   * Constructs a new {@link DefaultWebClientRegistry}.
+   *
+   * @param webClientFactory the factory used to build the clients
+   * @throws NullPointerException if {@code webClientFactory} is {@code null}
+   */
+  public DefaultWebClientRegistry(@NonNull final WebClientFactory webClientFactory) {
+    this.webClientFactory = Objects.requireNonNull(webClientFactory);
+  }
+
+
+  /**
+   * Returns the {@link WebClient} for the given technical service provider, creating it on first
+   * access.
+   *
+   * @param technicalServiceProvider the provider the client will talk to
+   * @return the shared {@link WebClient}
+   * @throws NullPointerException if {@code technicalServiceProvider} is {@code null}
+   */
+  @NonNull
+  @Override
+  public WebClient getWebClient(@NonNull final TechnicalServiceProvider technicalServiceProvider) {
+    Objects.requireNonNull(technicalServiceProvider, "Technical service provider cannot be null");
+
+    return this.clients
+        .computeIfAbsent(TspClientKey.of(technicalServiceProvider), this::createWebClient);
+  }
+
+
+  /**
+   * Drops the client bound to the given technical service provider, if any.
+   *
+   * @param technicalServiceProvider the provider whose client must be dropped
+   * @throws NullPointerException if {@code technicalServiceProvider} is {@code null}
+   */
+  @Override
+  public void invalidate(@NonNull final TechnicalServiceProvider technicalServiceProvider) {
+    Objects.requireNonNull(technicalServiceProvider, "Technical service provider cannot be null");
+
+    final var key = TspClientKey.of(technicalServiceProvider);
+    if (this.clients.remove(key) != null) {
+      log.info("Invalidated pooled web client for {}", key.serviceEndpoint());
+    }
+  }
+
+
+  /**
+   * Drops every registered client.
+   */
+  @Override
+  public void invalidateAll() {
+    log.info("Invalidating {} pooled web clients", this.clients.size());
+    this.clients.clear();
+  }
+
+
+  /**
+   * Drops the client of a technical service provider that has been removed or whose endpoint or
+   * transport settings changed.
+   *
+   * @param event the technical service provider change event
+   */
+  @EventListener
+  public void onTechnicalServiceProviderChanged(
+      @NonNull final TechnicalServiceProviderChangedEvent event) {
+
+    if (event.previous() != null && event.connectionChanged()) {
+      log.info("Technical service provider {} changed ({}), invalidating its pooled web client",
+          event.tspId(), event.changes());
+      this.invalidate(event.previous());
+    }
+  }
+
+
+  /**
+   * Invalidates the registry when the mTLS key material is rotated.
+   *
+   * @param event the SSL context reload event
+   */
+  @EventListener
+  public void onSslContextReloaded(@NonNull final SslContextReloadedEvent event) {
+    log.info("SSL context reloaded, invalidating pooled web clients");
+    this.invalidateAll();
+  }
+
+
+  /**
+   * Creates the {@link WebClient} for the given key.
+   *
+   * @param key the key identifying the technical service provider
+   * @return the newly created {@link WebClient}
+   */
+  @NonNull
+  private WebClient createWebClient(@NonNull final TspClientKey key) {
+    log.info("Creating pooled web client for {} (mTLS: {}, HTTP/2: {})",
+        key.serviceEndpoint(), key.mtlsEnabled(), key.http2Enabled());
+
+    return key.mtlsEnabled()
+        ? this.webClientFactory.createMtlsWebClient(key.http2Enabled())
+        : this.webClientFactory.createSimpleWebClient(key.http2Enabled());
+  }
+}
@@ -0,0 +1,153 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.ConnectionPool;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.ConnectionPool.HostPool;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+
+/**
+ * Configuration of the Reactor Netty resources shared by every outbound HTTP client (EPC,
+ * activation and OAuth2 token endpoints).
+ * <p>
+ * A single {@link ConnectionProvider} is used: Reactor Netty keeps a separate pool for each remote
+ * host, so the configured limits apply to each TSP independently. Settings are read from
+ * {@code service-provider.send.connection-pool.*}; the limits of single TSPs are overridden in
+ * {@code service-provider.send.connection-pool.hosts}, keyed by service endpoint or
+ * {@code host[:port]}.
+ * </p>
+ */
+@Configuration
+@Slf4j
+public class HttpClientResourcesConfig {
+
+  private static final String CONNECTION_PROVIDER_NAME = "rtp-sender-outbound";
+  private static final String LOOP_RESOURCES_PREFIX = "rtp-sender-http";
+
+  private final ConnectionPool connectionPool;
+
+
+  /**
+   * Constructs the configuration from the service provider settings.
+   *
+   * @param serviceProviderConfig the service provider configuration
+   */
+  public HttpClientResourcesConfig(@NonNull final ServiceProviderConfig serviceProviderConfig) {
+    this.connectionPool = resolveConnectionPool(Objects.requireNonNull(serviceProviderConfig));
+  }
+
+
+  /**
+   * Resolves the connection pool settings, falling back to the defaults if not configured.
+   *
+   * @param serviceProviderConfig the service provider configuration
+   * @return the connection pool settings
+   */
+  @NonNull
+  public static ConnectionPool resolveConnectionPool(
+      @NonNull final ServiceProviderConfig serviceProviderConfig) {
+
+    return Optional.of(serviceProviderConfig)
+        .map(ServiceProviderConfig::send)
+        .map(ServiceProviderConfig.Send::connectionPool)
+        .orElseGet(ConnectionPool::defaults);
+  }
+
+
+  @Bean(name = "outboundConnectionProvider", destroyMethod = "dispose")
+  public ConnectionProvider outboundConnectionProvider() {
+    log.info("Creating outbound connection provider: {}", this.connectionPool);
+
+    final var builder = this.configure(ConnectionProvider.builder(CONNECTION_PROVIDER_NAME),
+        this.connectionPool.maxConnections(),
+        this.connectionPool.pendingAcquireMaxCount(),
+        this.connectionPool.pendingAcquireTimeout());
+
+    this.connectionPool.hosts().forEach((host, hostPool) -> {
+      final var remoteAddress = remoteAddressOf(host);
+      log.info("Overriding outbound connection pool of {}: {}", remoteAddress, hostPool);
+
+      builder.forRemoteHost(remoteAddress, spec -> this.configure(spec,
+          Optional.ofNullable(hostPool.maxConnections())
+              .orElse(this.connectionPool.maxConnections()),
+          Optional.ofNullable(hostPool.pendingAcquireMaxCount())
+              .orElse(this.connectionPool.pendingAcquireMaxCount()),
+          Optional.ofNullable(hostPool.pendingAcquireTimeout())
+              .orElse(this.connectionPool.pendingAcquireTimeout())));
+    });
+
+    return builder.build();
+  }
+
+
+  @Bean(name = "outboundLoopResources", destroyMethod = "dispose")
+  public LoopResources outboundLoopResources() {
+    final int threads = this.connectionPool.eventLoopThreads() > 0
+        ? this.connectionPool.eventLoopThreads()
+        : LoopResources.DEFAULT_IO_WORKER_COUNT;
+
+    return LoopResources.create(LOOP_RESOURCES_PREFIX, threads, true);
+  }
+
+
+  /**
+   * Applies the pool settings to the global or to a host-specific pool. Host-specific pools start
+   * from the Reactor Netty defaults, so every setting is applied to both.
+   *
+   * @param spec                   the pool specification
+   * @param maxConnections         the maximum number of connections
+   * @param pendingAcquireMaxCount the maximum number of requests waiting for a connection
+   * @param pendingAcquireTimeout  the maximum time a request waits for a connection
+   * @param <S>                    the type of the pool specification
+   * @return the configured pool specification
+   */
+  @NonNull
+  private <S extends ConnectionProvider.ConnectionPoolSpec<S>> S configure(
+      @NonNull final S spec,
+      final int maxConnections,
+      final int pendingAcquireMaxCount,
+      @NonNull final Duration pendingAcquireTimeout) {
+
+    return spec
+        .maxConnections(maxConnections)
+        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+        .pendingAcquireTimeout(pendingAcquireTimeout)
+        .maxIdleTime(this.connectionPool.maxIdleTime())
+        .maxLifeTime(this.connectionPool.maxLifeTime())
+        .evictInBackground(this.connectionPool.evictionInterval())
+        .metrics(this.connectionPool.metricsEnabled());
+  }
+
+
+  /**
+   * Resolves the remote address a host override applies to. The key is either a service endpoint
+   * URL, whose default port depends on its scheme, or a {@code host[:port]} pair, defaulting to
+   * port 443.
+   *
+   * @param host the key of the host override
+   * @return the unresolved remote address, as used by the pool to select the host pool
+   * @throws IllegalArgumentException if the key is not a valid host
+   */
+  @NonNull
+  static InetSocketAddress remoteAddressOf(@NonNull final String host) {
+    final var uri = URI.create(host.contains("://") ? host : "https://" + host);
+    if (uri.getHost() == null) {
+      throw new IllegalArgumentException("Invalid connection pool host: " + host);
+    }
+
+    final var port = uri.getPort() != -1
+        ? uri.getPort()
+        : "http".equalsIgnoreCase(uri.getScheme()) ? 80 : 443;
+    return InetSocketAddress.createUnresolved(uri.getHost(), port);
+  }
+}
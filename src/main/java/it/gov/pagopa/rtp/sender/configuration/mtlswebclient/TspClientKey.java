@@ -0,0 +1,51 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Key identifying a pooled {@link org.springframework.web.reactive.function.client.WebClient}
+ * inside a {@link WebClientRegistry}.
+ *
+ * @param serviceEndpoint the base endpoint of the technical service provider
+ * @param mtlsEnabled     whether the connection towards the endpoint uses mutual TLS
+ * @param http2Enabled    whether HTTP/2 is negotiated through ALPN, with fallback to HTTP/1.1
+ */
+public record TspClientKey(
+    String serviceEndpoint,
+    boolean mtlsEnabled,
+    boolean http2Enabled
+) {
+
+  private static final String HTTP2_PROTOCOL = "h2";
+  private static final String HTTPS_SCHEME = "https://";
+
+  /**
+   * Builds the key for the given technical service provider. HTTP/2 is enabled only if the
+   * provider lists {@code h2} among its {@code protocols} and its endpoint is served over TLS,
+   * since ALPN is needed to negotiate it.
+   *
+   * @param technicalServiceProvider the provider; must not be {@code null}
+   * @return the corresponding {@link TspClientKey}
+   * @throws NullPointerException if {@code technicalServiceProvider} is {@code null}
+   */
+  @NonNull
+  public static TspClientKey of(@NonNull final TechnicalServiceProvider technicalServiceProvider) {
+    Objects.requireNonNull(technicalServiceProvider, "Technical service provider cannot be null");
+
+    final var serviceEndpoint = technicalServiceProvider.serviceEndpoint();
+    final var http2Requested = Optional.ofNullable(technicalServiceProvider.protocols())
+        .map(protocols -> protocols.stream().anyMatch(HTTP2_PROTOCOL::equalsIgnoreCase))
+        .orElse(false);
+    final var secureEndpoint = serviceEndpoint != null
+        && serviceEndpoint.regionMatches(true, 0, HTTPS_SCHEME, 0, HTTPS_SCHEME.length());
+
+    return new TspClientKey(
+        serviceEndpoint,
+        technicalServiceProvider.mtlsEnabled(),
+        http2Requested && secureEndpoint);
+  }
+}
@@ -30,5 +30,22 @@ public interface WebClientFactory {
      * @return an mTLS-configured {@link WebClient} instance
      */
     WebClient createMtlsWebClient();
-}
 
+    /**
+     * Creates a simple {@link WebClient} instance without mutual TLS (mTLS), optionally
+     * negotiating HTTP/2 through ALPN with fallback to HTTP/1.1.
+     *
+     * @param http2Enabled whether HTTP/2 should be negotiated
+     * @return a non-mTLS configured {@link WebClient} instance
+     */
+    WebClient createSimpleWebClient(boolean http2Enabled);
+
+    /**
+     * Creates a mutual TLS (mTLS) enabled {@link WebClient} instance, optionally negotiating
+     * HTTP/2 through ALPN with fallback to HTTP/1.1.
+     *
+     * @param http2Enabled whether HTTP/2 should be negotiated
+     * @return an mTLS-configured {@link WebClient} instance
+     */
+    WebClient createMtlsWebClient(boolean http2Enabled);
+}
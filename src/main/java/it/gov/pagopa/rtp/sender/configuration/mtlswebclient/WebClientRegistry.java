@@ -0,0 +1,38 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import org.springframework.web.reactive.function.client.WebClient;
+
+
+/**
+ * Registry of long-lived {@link WebClient} instances, one for each technical service provider.
+ * <p>
+ * Unlike {@link WebClientFactory}, which builds a brand-new client on every call, implementations
+ * of this interface keep clients (and their connection pools) alive across requests, so that
+ * TCP connections and TLS sessions towards the same provider can be reused.
+ * </p>
+ */
+public interface WebClientRegistry {
+
+  /**
+   * Returns the {@link WebClient} bound to the given technical service provider, creating it on
+   * first access.
+   *
+   * @param technicalServiceProvider the provider the client will talk to
+   * @return the pooled {@link WebClient} for the provider
+   */
+  WebClient getWebClient(TechnicalServiceProvider technicalServiceProvider);
+
+  /**
+   * Drops the client bound to the given technical service provider, if any. A subsequent call to
+   * {@link #getWebClient(TechnicalServiceProvider)} for the same provider builds a fresh client.
+   *
+   * @param technicalServiceProvider the provider whose client must be dropped
+   */
+  void invalidate(TechnicalServiceProvider technicalServiceProvider);
+
+  /**
+   * Drops every registered client. Subsequent calls to {@link #getWebClient(TechnicalServiceProvider)} build fresh clients.
+   */
+  void invalidateAll();
+}
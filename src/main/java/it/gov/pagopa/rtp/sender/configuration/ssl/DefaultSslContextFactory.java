@@ -1,12 +1,18 @@
 package it.gov.pagopa.rtp.sender.configuration.ssl;
 
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -15,14 +21,18 @@ import java.security.cert.CertificateException;
 import java.util.Base64;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
@@ -30,20 +40,38 @@ import org.springframework.stereotype.Component;
  * keystore.
  * <p>
  * This class loads SSL configuration from {@link SslContextProps}, decodes the
- * PFX file, decodes the trust store jks, and initializes the keystore
+ * PFX, given inline or as a mounted file, decodes the trust store jks, and initializes the keystore
  * and trust store. It then sets up a key manager factory and trust manager
  * factory for secure SSL connections.
  * </p>
+ * <p>
+ * The {@link SslContext} is immutable and built only once, then shared by every
+ * mTLS client so that TLS sessions can be resumed across connections. The key
+ * material is periodically checked for changes (modified PFX file or trust store
+ * file): when a change is detected a new context is built, atomically swapped in
+ * and a {@link SslContextReloadedEvent} is published. A PFX given inline through
+ * {@code pfx-file} is bound once at startup, so rotating it requires a restart;
+ * mount it through {@code pfx-path} to have it hot-reloaded.
+ * </p>
  */
 @Component("sslContextFactory")
 @Slf4j
-public class DefaultSslContextFactory implements SslContextFactory {
+public class DefaultSslContextFactory implements SslContextFactory, ApplicationEventPublisherAware {
+
+  private static final long SESSION_CACHE_SIZE = 1024;
+  private static final long SESSION_TIMEOUT_SECONDS = 3600;
+
+  private final SslContextPropsProvider sslContextPropsProvider;
 
   /**
    * Holds SSL context configuration properties such as the PFX file, PFX
    * password, trust store jks and password.
    */
-  private final SslContextProps sslContextProps;
+  private SslContextProps sslContextProps;
+
+  private final AtomicReference<LoadedSslContext> loadedSslContext = new AtomicReference<>();
+
+  private ApplicationEventPublisher eventPublisher;
 
   /**
    * Constructs an instance of {@code DefaultSslContextFactory} using the provided
@@ -55,13 +83,17 @@ public class DefaultSslContextFactory implements SslContextFactory {
    */
   public DefaultSslContextFactory(
       @NonNull final SslContextPropsProvider sslContextPropsProvider) {
-    this.sslContextProps = Optional.of(sslContextPropsProvider)
-        .map(SslContextPropsProvider::getSslContextProps)
-        .orElseThrow(() -> new SslContextCreationException("Error getting SSL context props"));
+    this.sslContextPropsProvider = Objects.requireNonNull(sslContextPropsProvider);
+    this.sslContextProps = this.readSslContextProps();
+  }
+
+  @Override
+  public void setApplicationEventPublisher(@NonNull final ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
   }
 
   /**
-   * Creates and returns an {@link SslContext} instance.
+   * Returns the shared {@link SslContext}, building it on first access.
    *
    * @return an initialized {@link SslContext}.
    * @throws SslContextCreationException if there is an error during SSL context
@@ -70,6 +102,159 @@ public class DefaultSslContextFactory implements SslContextFactory {
   @NonNull
   @Override
   public SslContext getSslContext() {
+    final var current = this.loadedSslContext.get();
+
+    if (current != null) {
+      return current.sslContext();
+    }
+
+    return this.reloadIfChanged();
+  }
+
+  /**
+   * Returns the shared ALPN-enabled {@link SslContext}, negotiating HTTP/2 with
+   * fallback to HTTP/1.1, building it on first access. It is built from the same
+   * key material of {@link #getSslContext()}.
+   *
+   * @return an initialized {@link SslContext}.
+   * @throws SslContextCreationException if there is an error during SSL context
+   *                                     creation.
+   */
+  @NonNull
+  @Override
+  public SslContext getHttp2SslContext() {
+    final var current = this.loadedSslContext.get();
+
+    if (current != null) {
+      return current.http2SslContext();
+    }
+
+    this.reloadIfChanged();
+    return this.loadedSslContext.get().http2SslContext();
+  }
+
+  /**
+   * Periodically checks whether the key material changed and, if so, rebuilds
+   * the {@link SslContext}. The first run happens at startup, so that the context
+   * is ready before the first request. Failures are logged and the previous
+   * context is kept.
+   */
+  @Scheduled(fixedDelayString = "${client.ssl.reload-check-interval:PT1M}")
+  public void checkForRotation() {
+    try {
+      this.reloadIfChanged();
+    } catch (RuntimeException e) {
+      log.error("Error reloading SSL context, keeping the current one: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Rebuilds the {@link SslContext} if the key material changed since the last build.
+   *
+   * @return the current {@link SslContext}.
+   * @throws SslContextCreationException if there is an error during SSL context
+   *                                     creation.
+   */
+  @NonNull
+  synchronized SslContext reloadIfChanged() {
+    this.sslContextProps = this.readSslContextProps();
+
+    final var current = this.loadedSslContext.get();
+    final var fingerprint = this.computeFingerprint();
+
+    if (current != null && current.fingerprint().equals(fingerprint)) {
+      return current.sslContext();
+    }
+
+    final var loaded = this.buildSslContexts(fingerprint);
+    final var sslContext = loaded.sslContext();
+    this.loadedSslContext.set(loaded);
+
+    if (current == null) {
+      log.info("SSL context created");
+    } else {
+      log.info("Key material changed, SSL context reloaded");
+      Optional.ofNullable(this.eventPublisher)
+          .ifPresent(publisher -> publisher.publishEvent(new SslContextReloadedEvent(sslContext)));
+    }
+
+    return sslContext;
+  }
+
+  /**
+   * Retrieves the current SSL context properties from the provider.
+   *
+   * @return the current {@link SslContextProps}.
+   * @throws SslContextCreationException if SSL context properties cannot be
+   *                                     retrieved.
+   */
+  @NonNull
+  private SslContextProps readSslContextProps() {
+    return Optional.of(this.sslContextPropsProvider)
+        .map(SslContextPropsProvider::getSslContextProps)
+        .orElseThrow(() -> new SslContextCreationException("Error getting SSL context props"));
+  }
+
+  /**
+   * Computes a cheap fingerprint of the key material, made of the metadata of the
+   * PFX file, if any, and of the trust store file.
+   *
+   * @return the {@link KeyMaterialFingerprint} of the current key material.
+   */
+  @NonNull
+  private KeyMaterialFingerprint computeFingerprint() {
+    final var jksFile = new FileSystemResource(this.sslContextProps.jksTrustStorePath()).getFile();
+    final var pfxFile = this.pfxPath()
+        .map(path -> new FileSystemResource(path).getFile());
+
+    return new KeyMaterialFingerprint(
+        pfxFile.map(File::lastModified).orElse(0L),
+        pfxFile.map(File::length).orElse(0L),
+        jksFile.lastModified(),
+        jksFile.length());
+  }
+
+  /**
+   * @return the path of the mounted PFX file, or empty if the PFX is given inline.
+   */
+  @NonNull
+  private Optional<String> pfxPath() {
+    return Optional.ofNullable(this.sslContextProps.pfxPath())
+        .filter(path -> !path.isBlank());
+  }
+
+  /**
+   * Reads the Base64-encoded PFX, from the mounted file if configured or from the
+   * inline property otherwise.
+   *
+   * @return the Base64-encoded PFX.
+   * @throws SslContextCreationException if the PFX file cannot be read.
+   */
+  @NonNull
+  private String readPfx() {
+    return this.pfxPath()
+        .map(path -> {
+          try {
+            return Files.readString(Path.of(path));
+          } catch (IOException e) {
+            log.error("Error reading PFX file at path: {}", path, e);
+            throw new SslContextCreationException(e);
+          }
+        })
+        .orElseGet(this.sslContextProps::pfxFile);
+  }
+
+  /**
+   * Creates the new {@link SslContext} instances from the current key material,
+   * parsing the key and trust stores only once.
+   *
+   * @param fingerprint the fingerprint of the current key material.
+   * @return the initialized {@link LoadedSslContext}.
+   * @throws SslContextCreationException if there is an error during SSL context
+   *                                     creation.
+   */
+  @NonNull
+  private LoadedSslContext buildSslContexts(@NonNull final KeyMaterialFingerprint fingerprint) {
     KeyManagerFactory keyManagerFactory = Optional.of(this.initKeyStore())
         .map(this::initKeyManagerFactory)
         .orElseThrow(() -> new SslContextCreationException("Error creating key manager factory"));
@@ -78,7 +263,10 @@ public class DefaultSslContextFactory implements SslContextFactory {
         .map(this::initTrustManagerFactory)
         .orElseThrow(() -> new SslContextCreationException("Error creating trust manager factory"));
 
-    return this.initSSLContext(keyManagerFactory, trustManagerFactory);
+    return new LoadedSslContext(
+        fingerprint,
+        this.initSSLContext(keyManagerFactory, trustManagerFactory, false),
+        this.initSSLContext(keyManagerFactory, trustManagerFactory, true));
   }
 
   /**
@@ -105,8 +293,7 @@ public class DefaultSslContextFactory implements SslContextFactory {
   @NonNull
   private KeyStore initKeyStore() {
 
-    try (final var keyStoreInputStream = this.convertPfxFileToInputStream(
-        this.sslContextProps.pfxFile())) {
+    try (final var keyStoreInputStream = this.convertPfxFileToInputStream(this.readPfx())) {
 
       final var keyStore = KeyStore.getInstance(this.sslContextProps.pfxType());
       final var password = this.sslContextProps.pfxPassword().toCharArray();
@@ -204,25 +391,70 @@ public class DefaultSslContextFactory implements SslContextFactory {
    * Initializes and returns an {@link SslContext} using the given key managers.
    *
    * @param keyManagerFactory an array of {@link KeyManagerFactory} instances.
+   * @param http2             whether to advertise HTTP/2 (with HTTP/1.1 fallback) through ALPN.
    * @return an initialized {@link SslContext}.
    * @throws SslContextCreationException if SSL context initialization fails.
    */
   @NonNull
   private SslContext initSSLContext(@NonNull final KeyManagerFactory keyManagerFactory,
-      @NonNull final TrustManagerFactory trustManagerFactory) {
+      @NonNull final TrustManagerFactory trustManagerFactory,
+      final boolean http2) {
     Objects.requireNonNull(keyManagerFactory, "Key manager factory cannot be null");
     Objects.requireNonNull(trustManagerFactory, "Trust manager factory cannot be null");
 
     try {
-      return SslContextBuilder.forClient()
+      final var sslContextBuilder = SslContextBuilder.forClient()
           .keyManager(keyManagerFactory)
           .trustManager(trustManagerFactory)
           .protocols("TLSv1.2", "TLSv1.3")
-          .build();
+          .sessionCacheSize(SESSION_CACHE_SIZE)
+          .sessionTimeout(SESSION_TIMEOUT_SECONDS);
+
+      if (http2) {
+        sslContextBuilder
+            .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+            .applicationProtocolConfig(new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1));
+      }
+
+      return sslContextBuilder.build();
 
     } catch (SSLException e) {
       log.error("Error creating SSL context", e);
       throw new SslContextCreationException(e);
     }
   }
+
+  /**
+   * Identifies a given version of the key material.
+   *
+   * @param pfxLastModified        the last modification time of the PFX file, {@code 0} if inline
+   * @param pfxLength              the size of the PFX file, {@code 0} if inline
+   * @param trustStoreLastModified the last modification time of the trust store file
+   * @param trustStoreLength       the size of the trust store file
+   */
+  private record KeyMaterialFingerprint(
+      long pfxLastModified,
+      long pfxLength,
+      long trustStoreLastModified,
+      long trustStoreLength
+  ) {}
+
+  /**
+   * The {@link SslContext} instances together with the fingerprint of the key material they were
+   * built from.
+   *
+   * @param fingerprint     the key material fingerprint
+   * @param sslContext      the built {@link SslContext}
+   * @param http2SslContext the built ALPN-enabled {@link SslContext}
+   */
+  private record LoadedSslContext(
+      KeyMaterialFingerprint fingerprint,
+      SslContext sslContext,
+      SslContext http2SslContext
+  ) {}
 }
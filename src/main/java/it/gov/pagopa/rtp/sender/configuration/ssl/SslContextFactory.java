@@ -24,5 +24,13 @@ public interface SslContextFactory {
    */
   SslContext getSslContext();
 
+  /**
+   * Returns a fully initialized {@link SslContext} advertising HTTP/2 through ALPN, with fallback
+   * to HTTP/1.1.
+   *
+   * @return a configured {@link SslContext} instance.
+   */
+  SslContext getHttp2SslContext();
+
 }
 
@@ -1,5 +1,6 @@
 package it.gov.pagopa.rtp.sender.configuration.ssl;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import lombok.With;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -8,14 +9,26 @@ import org.springframework.lang.NonNull;
 import org.springframework.validation.annotation.Validated;
 
 
+/**
+ * SSL settings of the mTLS clients.
+ * <p>
+ * The client certificate is a Base64-encoded PFX, given either inline through {@code pfxFile} or
+ * as a mounted file through {@code pfxPath}, which takes precedence. Only the mounted file is
+ * checked for rotation: the inline value is read once at startup.
+ * </p>
+ */
 @With
 @Validated
 @ConfigurationProperties(prefix = "client.ssl")
 public record SslContextProps(
 
     @NonNull
+    @DefaultValue("")
     String pfxFile,
 
+    @DefaultValue("")
+    String pfxPath,
+
     @DefaultValue("")
     String pfxPassword,
 
@@ -28,4 +41,13 @@ public record SslContextProps(
     @DefaultValue("")
     String jksTrustStorePassword
 
-) {}
+) {
+
+  /**
+   * @return whether the client certificate is given, inline or as a file
+   */
+  @AssertTrue(message = "either pfx-file or pfx-path must be set")
+  public boolean isPfxConfigured() {
+    return (pfxFile != null && !pfxFile.isBlank()) || (pfxPath != null && !pfxPath.isBlank());
+  }
+}
@@ -0,0 +1,13 @@
+package it.gov.pagopa.rtp.sender.configuration.ssl;
+
+import io.netty.handler.ssl.SslContext;
+
+
+/**
+ * Event published when the mTLS {@link SslContext} has been rebuilt after a key material rotation.
+ *
+ * @param sslContext the newly built {@link SslContext}
+ */
+public record SslContextReloadedEvent(
+    SslContext sslContext
+) {}
@@ -0,0 +1,171 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpDeadLetterProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Publishes the GDP messages whose processing failed to the dead-letter topic, or to the
+ * parking-lot topic once they ran out of replay attempts.
+ * <p>
+ * The published message keeps the original payload, keyed by GDP id, and carries the error
+ * metadata as headers: the position of the original message, the exception class and message,
+ * the failure time and the number of replays already attempted.
+ * </p>
+ *
+ * @see GdpDeadLetterReplayHandler
+ */
+@Component("gdpDeadLetterPublisher")
+@Slf4j
+public class GdpDeadLetterPublisher {
+
+  public static final String DEAD_LETTER_BINDING = "gdpDeadLetter-out-0";
+  public static final String PARKING_LOT_BINDING = "gdpParkingLot-out-0";
+
+  public static final String ORIGINAL_TOPIC_HEADER = "x-gdp-original-topic";
+  public static final String ORIGINAL_PARTITION_HEADER = "x-gdp-original-partition";
+  public static final String ORIGINAL_OFFSET_HEADER = "x-gdp-original-offset";
+  public static final String EXCEPTION_CLASS_HEADER = "x-gdp-exception-fqcn";
+  public static final String EXCEPTION_MESSAGE_HEADER = "x-gdp-exception-message";
+  public static final String FAILED_AT_HEADER = "x-gdp-failed-at";
+  public static final String REPLAY_ATTEMPTS_HEADER = "x-gdp-replay-attempts";
+
+  private final StreamBridge streamBridge;
+  private final GdpDeadLetterProperties deadLetterProperties;
+
+
+  /**
+   * Constructs a new {@link GdpDeadLetterPublisher}.
+   *
+   * @param streamBridge         the bridge used to send the messages to the output bindings
+   * @param deadLetterProperties the dead-letter settings, providing the maximum replay attempts
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public GdpDeadLetterPublisher(
+      @NonNull final StreamBridge streamBridge,
+      @NonNull final GdpDeadLetterProperties deadLetterProperties) {
+
+    this.streamBridge = Objects.requireNonNull(streamBridge);
+    this.deadLetterProperties = Objects.requireNonNull(deadLetterProperties);
+  }
+
+
+  /**
+   * Publishes a failed message to the dead-letter topic or, if it has already been replayed
+   * {@link GdpDeadLetterProperties#maxReplayAttempts()} times, to the parking-lot topic.
+   *
+   * @param message        the failed message
+   * @param error          the processing error
+   * @param replayAttempts the number of replays already attempted, {@code 0} for a new message
+   * @return a {@link Mono} completing once the message has been written to the topic, since the
+   *     output bindings are synchronous, or failing if it could not be sent
+   * @throws NullPointerException if {@code message} or {@code error} is {@code null}
+   */
+  @NonNull
+  public Mono<Void> publish(
+      @NonNull final Message<GdpMessage> message,
+      @NonNull final Throwable error,
+      final int replayAttempts) {
+
+    Objects.requireNonNull(message, "Message cannot be null");
+    Objects.requireNonNull(error, "Error cannot be null");
+
+    final var binding = replayAttempts >= this.deadLetterProperties.maxReplayAttempts()
+        ? PARKING_LOT_BINDING
+        : DEAD_LETTER_BINDING;
+    final var deadLetter = this.toDeadLetter(message, error, replayAttempts);
+
+    return Mono.fromCallable(() -> this.streamBridge.send(binding, deadLetter))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(sent -> Boolean.TRUE.equals(sent)
+            ? Mono.<Void>empty()
+            : Mono.error(new IllegalStateException("Unable to send GDP message to " + binding)))
+        .doOnSuccess(ignored -> log.warn("GDP message {} published to {} after {} replays",
+            message.getPayload().id(), binding, replayAttempts));
+  }
+
+
+  /**
+   * Reads the number of replays already attempted from a dead-letter message.
+   *
+   * @param message the dead-letter message
+   * @return the number of replays, {@code 0} if the header is missing or malformed
+   */
+  public static int replayAttemptsOf(@NonNull final Message<?> message) {
+    return Optional.ofNullable(headerAsString(message.getHeaders(), REPLAY_ATTEMPTS_HEADER))
+        .map(value -> {
+          try {
+            return Integer.parseInt(value);
+          } catch (NumberFormatException e) {
+            return 0;
+          }
+        })
+        .orElse(0);
+  }
+
+
+  /**
+   * Builds the dead-letter message. The position of the original message is kept across
+   * replays.
+   */
+  @NonNull
+  private Message<GdpMessage> toDeadLetter(
+      @NonNull final Message<GdpMessage> message,
+      @NonNull final Throwable error,
+      final int replayAttempts) {
+
+    final var headers = message.getHeaders();
+
+    return MessageBuilder.withPayload(message.getPayload())
+        .setHeader(KafkaHeaders.KEY, String.valueOf(message.getPayload().id()))
+        .setHeader(ORIGINAL_TOPIC_HEADER, originalHeader(
+            headers, ORIGINAL_TOPIC_HEADER, KafkaHeaders.RECEIVED_TOPIC))
+        .setHeader(ORIGINAL_PARTITION_HEADER, originalHeader(
+            headers, ORIGINAL_PARTITION_HEADER, KafkaHeaders.RECEIVED_PARTITION))
+        .setHeader(ORIGINAL_OFFSET_HEADER, originalHeader(
+            headers, ORIGINAL_OFFSET_HEADER, KafkaHeaders.OFFSET))
+        .setHeader(EXCEPTION_CLASS_HEADER, error.getClass().getName())
+        .setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(error.getMessage()))
+        .setHeader(FAILED_AT_HEADER, Instant.now().toString())
+        .setHeader(REPLAY_ATTEMPTS_HEADER, String.valueOf(replayAttempts))
+        .build();
+  }
+
+
+  @Nullable
+  private static String originalHeader(
+      @NonNull final MessageHeaders headers,
+      @NonNull final String deadLetterHeader,
+      @NonNull final String kafkaHeader) {
+
+    return Optional.ofNullable(headerAsString(headers, deadLetterHeader))
+        .orElseGet(() -> headerAsString(headers, kafkaHeader));
+  }
+
+
+  @Nullable
+  private static String headerAsString(
+      @NonNull final MessageHeaders headers,
+      @NonNull final String name) {
+
+    return switch (headers.get(name)) {
+      case null -> null;
+      case byte[] bytes -> new String(bytes, StandardCharsets.UTF_8);
+      case Object value -> String.valueOf(value);
+    };
+  }
+}
@@ -0,0 +1,120 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpDeadLetterProperties;
+import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import java.util.Objects;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Configuration class that defines the reactive Kafka consumer replaying the GDP messages parked
+ * on the dead-letter topic.
+ *
+ * <p>Messages are replayed one at a time, each after
+ * {@link GdpDeadLetterProperties#replayInterval()}, so that the replay never competes with the
+ * consumption of the live GDP messages. A replayed message that fails again goes back to the
+ * dead-letter topic, or to the parking-lot topic once it exhausted
+ * {@link GdpDeadLetterProperties#maxReplayAttempts()}.</p>
+ *
+ * <p>A replayed message waits for the live messages with the same GDP id received before it, and
+ * the live messages received after it wait for the replay, through the
+ * {@link GdpMessageSequencer}, so that a replay never races with the live consumer.</p>
+ *
+ * <p>Offsets are committed by the {@link GdpOffsetCommitter} only once their messages have been
+ * replayed or published again, so that a message whose replay was interrupted is delivered again
+ * after a restart or a rebalance.</p>
+ *
+ * <p>The binding is not started by default: operations enable it once the cause of the failures
+ * has been fixed.</p>
+ */
+@Configuration("gdpDeadLetterReplayHandler")
+@Slf4j
+public class GdpDeadLetterReplayHandler {
+
+  private final MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor;
+  private final GdpDeadLetterPublisher deadLetterPublisher;
+  private final GdpOffsetCommitter offsetCommitter;
+  private final GdpMessageSequencer messageSequencer;
+  private final GdpDeadLetterProperties deadLetterProperties;
+
+
+  /**
+   * Constructs a new {@link GdpDeadLetterReplayHandler}.
+   *
+   * @param gdProcessor          the processor responsible for handling {@link GdpMessage} payloads
+   * @param deadLetterPublisher  the publisher of the messages failing again
+   * @param offsetCommitter      the committer of the offsets of the replayed messages
+   * @param messageSequencer     the sequencer serializing the messages with the same GDP id
+   * @param deadLetterProperties the dead-letter settings, providing the replay rate
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public GdpDeadLetterReplayHandler(
+      @NonNull final MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor,
+      @NonNull final GdpDeadLetterPublisher deadLetterPublisher,
+      @NonNull final GdpOffsetCommitter offsetCommitter,
+      @NonNull final GdpMessageSequencer messageSequencer,
+      @NonNull final GdpDeadLetterProperties deadLetterProperties) {
+
+    this.gdProcessor = Objects.requireNonNull(gdProcessor);
+    this.deadLetterPublisher = Objects.requireNonNull(deadLetterPublisher);
+    this.offsetCommitter = Objects.requireNonNull(offsetCommitter);
+    this.messageSequencer = Objects.requireNonNull(messageSequencer);
+    this.deadLetterProperties = Objects.requireNonNull(deadLetterProperties);
+  }
+
+
+  /**
+   * Defines a Spring Cloud Stream consumer function named {@code gdpDeadLetterReplay} that
+   * replays the dead-letter GDP messages.
+   *
+   * @return a {@link Function} that takes a {@link Flux} of dead-letter {@link Message}s and returns
+   *         a {@link Mono<Void>} when the stream is consumed.
+   *
+   * @implNote This bean must be named {@code gdpDeadLetterReplay} to match the Spring Cloud Stream
+   * binding configuration.
+   */
+  @Bean("gdpDeadLetterReplay")
+  @NonNull
+  public Function<Flux<Message<GdpMessage>>, Mono<Void>> gdpDeadLetterReplay() {
+    return deadLetters -> deadLetters
+        .doOnNext(this.offsetCommitter::track)
+        .concatMap(message -> Mono.delay(this.deadLetterProperties.replayInterval())
+            .then(Mono.defer(() -> this.messageSequencer.acquire(message.getPayload().id())
+                .run(this.replay(message)))))
+        .then();
+  }
+
+
+  /**
+   * Replays a single dead-letter message. Errors are published back to the dead-letter handling;
+   * if publishing fails too, the error is logged and the message is left incomplete, so that its
+   * offset is not committed.
+   *
+   * @param message the dead-letter message
+   * @return a {@link Mono} completing once the message has been replayed or published again
+   */
+  @NonNull
+  private Mono<Void> replay(@NonNull final Message<GdpMessage> message) {
+    final var payload = message.getPayload();
+    final var replayAttempts = GdpDeadLetterPublisher.replayAttemptsOf(message) + 1;
+
+    return Mono.defer(() -> this.gdProcessor.processMessage(payload))
+        .doOnSuccess(rtp -> log.info("Replayed dead-letter GDP message {} at attempt {}",
+            payload.id(), replayAttempts))
+        .then()
+        .onErrorResume(error -> this.deadLetterPublisher.publish(message, error, replayAttempts))
+        .doOnSuccess(ignored -> this.offsetCommitter.complete(message))
+        .onErrorResume(error -> {
+          log.error("Unable to replay dead-letter GDP message {}, leaving its offset uncommitted",
+              payload.id(), error);
+          return Mono.empty();
+        });
+  }
+}
@@ -1,6 +1,9 @@
 package it.gov.pagopa.rtp.sender.domain.gdp;
 
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import it.gov.pagopa.rtp.sender.service.rtp.PrefetchedRtps;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
@@ -22,24 +25,73 @@ import reactor.core.publisher.Mono;
  * <p>This class registers a Spring Cloud Function bean named {@code gdpMessageConsumer} that consumes
  * Kafka messages with {@link GdpMessage} payloads. The payloads are processed via a generic
  * {@link MessageProcessor}, which produces {@link Rtp} results in a reactive, non-blocking manner.</p>
+ *
+ * <p>Messages are collected in batches, and the RTPs a batch updates or deletes are read upfront
+ * with a single query by the {@link GdpRtpPrefetcher}; the next batches are prefetched while the
+ * previous ones are still being processed. Messages are then spread by their GDP id over
+ * {@link GdpProcessingProperties#maxConcurrency()} lanes, kept across batches: lanes run in
+ * parallel, so that a slow message only holds back the later messages of its own lane. Messages
+ * with the same GDP id are processed one after the other, in arrival order, also with respect to
+ * the dead-letter replay, by the {@link GdpMessageSequencer}, so that an update or a delete never
+ * races with the creation of the same RTP.</p>
+ *
+ * <p>Offsets are committed by the {@link GdpOffsetCommitter} only after their messages have been
+ * processed, so that the messages in flight are delivered again after a restart or a
+ * rebalance.</p>
+ *
+ * <p>Messages whose processing fails are published by the {@link GdpDeadLetterPublisher} to the
+ * dead-letter topic, from which they are replayed at a controlled rate, instead of being retried
+ * on the live consumer.</p>
+ *
+ * <p>The {@link GdpFlowController} pauses the consumption while too many messages are in
+ * flight.</p>
  */
 @Configuration("gdpEventHandler")
 @RegisterReflectionForBinding(GdpMessage.class)
 @Slf4j
 public class GdpEventHandler {
 
+  /**
+   * The number of batches whose RTPs are prefetched at the same time, ahead of their processing.
+   */
+  private static final int BATCHES_PREFETCHED = 2;
+
   private final MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor;
+  private final GdpRtpPrefetcher rtpPrefetcher;
+  private final GdpOffsetCommitter offsetCommitter;
+  private final GdpDeadLetterPublisher deadLetterPublisher;
+  private final GdpFlowController flowController;
+  private final GdpMessageSequencer messageSequencer;
+  private final GdpProcessingProperties processingProperties;
 
 
   /**
    * Constructs a new {@link GdpEventHandler} with the provided {@link MessageProcessor}.
    *
-   * @param gdProcessor the processor responsible for handling {@link GdpMessage} payloads
-   * @throws NullPointerException if {@code gdProcessor} is {@code null}
+   * @param gdProcessor          the processor responsible for handling {@link GdpMessage} payloads
+   * @param rtpPrefetcher        the prefetcher reading the RTPs of a batch with a single query
+   * @param offsetCommitter      the committer of the offsets of the processed messages
+   * @param deadLetterPublisher  the publisher of the messages whose processing failed
+   * @param flowController       the controller pausing the consumption under load
+   * @param messageSequencer     the sequencer serializing the messages with the same GDP id
+   * @param processingProperties the processing settings, providing batch size and concurrency
+   * @throws NullPointerException if any argument is {@code null}
    */
   public GdpEventHandler(
-      @NonNull final MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor) {
+      @NonNull final MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor,
+      @NonNull final GdpRtpPrefetcher rtpPrefetcher,
+      @NonNull final GdpOffsetCommitter offsetCommitter,
+      @NonNull final GdpDeadLetterPublisher deadLetterPublisher,
+      @NonNull final GdpFlowController flowController,
+      @NonNull final GdpMessageSequencer messageSequencer,
+      @NonNull final GdpProcessingProperties processingProperties) {
     this.gdProcessor = Objects.requireNonNull(gdProcessor);
+    this.rtpPrefetcher = Objects.requireNonNull(rtpPrefetcher);
+    this.offsetCommitter = Objects.requireNonNull(offsetCommitter);
+    this.deadLetterPublisher = Objects.requireNonNull(deadLetterPublisher);
+    this.flowController = Objects.requireNonNull(flowController);
+    this.messageSequencer = Objects.requireNonNull(messageSequencer);
+    this.processingProperties = Objects.requireNonNull(processingProperties);
   }
 
 
@@ -50,9 +102,16 @@ public class GdpEventHandler {
    * <p>Each message is processed by:</p>
    * <ul>
    *   <li>Logging Kafka metadata such as partition, offset, and timestamp.</li>
+   *   <li>Tracking the message offset and the in-flight messages until the message has been
+   *   processed.</li>
    *   <li>Logging the GDP message payload.</li>
-   *   <li>Delegating message handling to the injected {@link MessageProcessor}.</li>
+   *   <li>Acquiring the turn of the message among the messages with the same GDP ID.</li>
+   *   <li>Collecting the messages in batches and prefetching the RTPs of each batch.</li>
+   *   <li>Delegating message handling to the injected {@link MessageProcessor}, in the lane
+   *   selected by the GDP message ID.</li>
    *   <li>Handling errors gracefully and logging the failed {@link Rtp} context if possible.</li>
+   *   <li>Publishing the failed messages to the dead-letter topic.</li>
+   *   <li>Marking the message as processed, so that its offset can be committed.</li>
    * </ul>
    *
    * <p>Any errors encountered during processing are logged, but do not interrupt the stream.</p>
@@ -71,6 +130,8 @@ public class GdpEventHandler {
   @Bean("gdpMessageConsumer")
   @NonNull
   public Function<Flux<Message<GdpMessage>>, Mono<Void>> gdpMessageConsumer() {
+    final var lanes = this.processingProperties.maxConcurrency();
+
     return gdpMessage -> gdpMessage
         .doOnNext(message -> log.info(
             "New GDP message received. partition: {}, offset: {}, enqueued time: {}",
@@ -79,17 +140,99 @@ public class GdpEventHandler {
             message.getHeaders().get(KafkaHeaders.TIMESTAMP)
         ))
 
-        .map(Message::getPayload)
+        .doOnNext(this.offsetCommitter::track)
+        .doOnNext(message -> this.flowController.onReceived())
         .switchIfEmpty(Mono.fromRunnable(() -> log.warn("Payload is null")))
-        .doOnNext(payload -> log.info("Payload: {}", payload))
+        .doOnNext(message -> log.info("Payload: {}", message.getPayload()))
+        .map(message -> new SequencedMessage(
+            message, this.messageSequencer.acquire(message.getPayload().id()), null))
 
-        .flatMap(this.gdProcessor::processMessage)
+        .bufferTimeout(
+            this.processingProperties.batchSize(), this.processingProperties.batchMaxWait(), true)
+        .flatMapSequential(this::prefetchBatch, BATCHES_PREFETCHED)
+        .groupBy(sequenced -> Math.floorMod(sequenced.message().getPayload().id(), lanes))
+        .flatMap(lane -> lane.concatMap(this::processMessage), lanes)
 
+        .doOnDiscard(SequencedMessage.class, sequenced -> sequenced.turn().release())
         .onErrorContinue(this::handleError)
         .then();
   }
 
 
+  /**
+   * Prefetches the RTPs of a batch of messages, to be served to the processors through the Reactor
+   * context. The messages whose GDP id was already in flight when they were received read their
+   * own RTP, since it may still be changed by the earlier messages. If the prefetch fails, every
+   * message reads its own RTP.
+   *
+   * @param batch the messages of the batch
+   * @return a {@link Flux} emitting the messages of the batch with their prefetched RTPs
+   */
+  @NonNull
+  private Flux<SequencedMessage> prefetchBatch(@NonNull final List<SequencedMessage> batch) {
+    final var payloads = batch.stream()
+        .filter(sequenced -> sequenced.turn().isFirst())
+        .map(sequenced -> sequenced.message().getPayload())
+        .toList();
+
+    return Mono.defer(() -> this.rtpPrefetcher.prefetch(payloads))
+        .doOnError(error -> log.warn("Unable to prefetch the RTPs of {} GDP messages", batch.size(), error))
+        .onErrorResume(error -> Mono.empty())
+        .map(prefetched -> batch.stream()
+            .map(sequenced -> new SequencedMessage(sequenced.message(), sequenced.turn(), prefetched))
+            .toList())
+        .defaultIfEmpty(batch)
+        .flatMapIterable(Function.identity());
+  }
+
+
+  /**
+   * Processes a message in its turn, serving it the RTPs prefetched for its batch, if any.
+   *
+   * @param sequenced the message with its turn
+   * @return a {@link Mono} emitting the resulting {@link Rtp}, or empty if the processing failed
+   */
+  @NonNull
+  private Mono<Rtp> processMessage(@NonNull final SequencedMessage sequenced) {
+    final var processing = sequenced.turn().run(this.processMessage(sequenced.message()));
+
+    return Optional.ofNullable(sequenced.prefetched())
+        .map(prefetched -> processing.contextWrite(ctx -> ctx.put(PrefetchedRtps.CONTEXT_KEY, prefetched)))
+        .orElse(processing);
+  }
+
+
+  /**
+   * Processes a single message. Errors are logged and the message is published to the dead-letter
+   * topic, so that they do not stop the lane the message belongs to. Once processed or
+   * dead-lettered, the message is marked as completed for the offset commit. A message that could
+   * not be dead-lettered is left incomplete, so that its offset is not committed and the message
+   * is delivered again after a restart or a rebalance.
+   *
+   * @param message the Kafka message carrying the GDP message
+   * @return a {@link Mono} emitting the resulting {@link Rtp}, or empty if the processing failed
+   */
+  @NonNull
+  private Mono<Rtp> processMessage(@NonNull final Message<GdpMessage> message) {
+    final var payload = message.getPayload();
+
+    return Mono.defer(() -> this.gdProcessor.processMessage(payload))
+        .doOnSuccess(rtp -> this.offsetCommitter.complete(message))
+        .onErrorResume(error -> {
+          this.handleError(error, payload);
+          return this.deadLetterPublisher.publish(message, error, 0)
+              .doOnSuccess(ignored -> this.offsetCommitter.complete(message))
+              .onErrorResume(publishError -> {
+                log.error("Unable to dead-letter GDP message, leaving its offset uncommitted: GDP id: {}",
+                    payload.id(), publishError);
+                return Mono.empty();
+              })
+              .then(Mono.<Rtp>empty());
+        })
+        .doFinally(signal -> this.flowController.onCompleted());
+  }
+
+
   /**
    * Handles errors that occur during message processing by logging the error details
    * along with context-specific information based on the type of the payload.
@@ -125,5 +268,15 @@ public class GdpEventHandler {
             () -> log.error("Error processing message.", error));
   }
 
+
+  /**
+   * A received message, with its turn among the messages with the same GDP id and the RTPs
+   * prefetched for its batch.
+   */
+  private record SequencedMessage(
+      @NonNull Message<GdpMessage> message,
+      @NonNull GdpMessageSequencer.Turn turn,
+      @Nullable PrefetchedRtps prefetched
+  ) {}
 }
 
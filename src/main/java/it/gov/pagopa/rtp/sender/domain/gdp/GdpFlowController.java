@@ -0,0 +1,143 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController.State;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Applies backpressure to the GDP consumer by pausing its binding while too many messages are in
+ * flight.
+ * <p>
+ * A message is in flight from its reception until its processing completes, including the time
+ * spent waiting for its batch. When the in-flight messages reach
+ * {@link GdpProcessingProperties#pauseHighWaterMark()} the binding is paused, so that the consumer
+ * keeps polling, and keeps its partitions, without fetching further records; it is resumed once
+ * they drop to {@link GdpProcessingProperties#resumeLowWaterMark()}. The pause state is flipped
+ * and applied to the binding under the same lock, so that the binding sees pauses and resumes in
+ * the order they were decided.
+ * </p>
+ * <p>
+ * The in-flight messages and the pause state are exported as gauges, and the pauses as a counter.
+ * The consumer lag is exported by the Kafka binder metrics.
+ * </p>
+ */
+@Component("gdpFlowController")
+@Slf4j
+public class GdpFlowController {
+
+  static final String BINDING_NAME = "gdpMessageConsumer-in-0";
+
+  static final String IN_FLIGHT_METRIC = "rtp.sender.gdp.inflight";
+  static final String PAUSED_METRIC = "rtp.sender.gdp.paused";
+  static final String PAUSES_METRIC = "rtp.sender.gdp.pauses";
+
+  private final GdpProcessingProperties processingProperties;
+  private final BindingsLifecycleController bindingsLifecycleController;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicBoolean paused = new AtomicBoolean();
+  private final Counter pauses;
+
+
+  /**
+   * Constructs a new {@link GdpFlowController}.
+   *
+   * @param processingProperties        the processing settings, providing the water marks
+   * @param bindingsLifecycleController the controller used to pause and resume the binding
+   * @param meterRegistry               the registry the flow metrics are exported to
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public GdpFlowController(
+      @NonNull final GdpProcessingProperties processingProperties,
+      @NonNull final BindingsLifecycleController bindingsLifecycleController,
+      @NonNull final MeterRegistry meterRegistry) {
+
+    this.processingProperties = Objects.requireNonNull(processingProperties);
+    this.bindingsLifecycleController = Objects.requireNonNull(bindingsLifecycleController);
+    Objects.requireNonNull(meterRegistry);
+
+    Gauge.builder(IN_FLIGHT_METRIC, this.inFlight, AtomicInteger::get)
+        .description("GDP messages received and not processed yet")
+        .register(meterRegistry);
+    Gauge.builder(PAUSED_METRIC, this.paused, state -> state.get() ? 1 : 0)
+        .description("Whether the consumption of the GDP messages is paused")
+        .register(meterRegistry);
+    this.pauses = Counter.builder(PAUSES_METRIC)
+        .description("Pauses of the consumption of the GDP messages")
+        .register(meterRegistry);
+  }
+
+
+  /**
+   * Records a received message, pausing the binding if the high-water mark is reached.
+   */
+  public void onReceived() {
+    if (this.inFlight.incrementAndGet() >= this.processingProperties.pauseHighWaterMark()) {
+      this.updateState();
+    }
+  }
+
+
+  /**
+   * Records a processed message, resuming the binding if the low-water mark is reached.
+   */
+  public void onCompleted() {
+    if (this.inFlight.decrementAndGet() <= this.processingProperties.resumeLowWaterMark()) {
+      this.updateState();
+    }
+  }
+
+
+  /**
+   * @return the number of messages received and not processed yet
+   */
+  public int inFlight() {
+    return this.inFlight.get();
+  }
+
+
+  /**
+   * @return whether the binding is paused
+   */
+  public boolean isPaused() {
+    return this.paused.get();
+  }
+
+
+  /**
+   * Pauses or resumes the binding according to the current in-flight messages. The count is read
+   * again under the lock, since it may have crossed back the water mark in the meantime.
+   */
+  private synchronized void updateState() {
+    final var current = this.inFlight.get();
+
+    if (!this.paused.get() && current >= this.processingProperties.pauseHighWaterMark()) {
+      log.warn("{} GDP messages in flight, pausing the consumption", current);
+      this.paused.set(true);
+      this.pauses.increment();
+      this.changeState(State.PAUSED);
+    } else if (this.paused.get() && current <= this.processingProperties.resumeLowWaterMark()) {
+      log.info("{} GDP messages in flight, resuming the consumption", current);
+      this.paused.set(false);
+      this.changeState(State.RESUMED);
+    }
+  }
+
+
+  private void changeState(@NonNull final State state) {
+    try {
+      this.bindingsLifecycleController.changeState(BINDING_NAME, state);
+    } catch (RuntimeException e) {
+      log.error("Unable to change the state of {} to {}", BINDING_NAME, state, e);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+
+/**
+ * Serializes the processing of the {@link GdpMessage}s with the same GDP id, across the live
+ * consumer and the dead-letter replay.
+ * <p>
+ * A {@link Turn} is acquired for each message when it is received, in arrival order, and the
+ * processing run in that turn starts only once the processing of the previous turn of the same
+ * GDP id has terminated. Messages with different GDP ids never wait for each other.
+ * </p>
+ * <p>
+ * Every acquired turn must be either run or {@link Turn#release() released}, otherwise the later
+ * messages of its GDP id are never processed.
+ * </p>
+ */
+@Component("gdpMessageSequencer")
+public class GdpMessageSequencer {
+
+  private final Map<Long, Turn> lastTurns = new ConcurrentHashMap<>();
+
+
+  /**
+   * Acquires the next turn of a GDP id.
+   *
+   * @param id the GDP id of the message
+   * @return the {@link Turn} of the message
+   */
+  @NonNull
+  public Turn acquire(final long id) {
+    return this.lastTurns.compute(id, (key, last) -> new Turn(key, last));
+  }
+
+
+  /**
+   * @return the number of GDP ids with a message in flight
+   */
+  public int size() {
+    return this.lastTurns.size();
+  }
+
+
+  /**
+   * The turn of a single message, following the previous turn of the same GDP id.
+   */
+  public final class Turn {
+
+    private final Long id;
+    private final boolean first;
+    private final Mono<Void> previousTerminated;
+    private final Sinks.Empty<Void> terminated = Sinks.empty();
+
+
+    private Turn(@NonNull final Long id, @Nullable final Turn previous) {
+      this.id = Objects.requireNonNull(id);
+      this.first = previous == null;
+      this.previousTerminated = previous == null ? Mono.empty() : previous.terminated.asMono();
+    }
+
+
+    /**
+     * @return whether no other message with the same GDP id was in flight when the turn was
+     *     acquired
+     */
+    public boolean isFirst() {
+      return this.first;
+    }
+
+
+    /**
+     * Runs a processing in this turn, releasing the turn once it terminates.
+     *
+     * @param processing the processing of the message
+     * @param <T>        the type of the processing result
+     * @return a {@link Mono} subscribing to {@code processing} once the previous turn terminated
+     */
+    @NonNull
+    public <T> Mono<T> run(@NonNull final Mono<T> processing) {
+      Objects.requireNonNull(processing, "Processing cannot be null");
+
+      return this.previousTerminated
+          .then(processing)
+          .doFinally(signal -> this.release());
+    }
+
+
+    /**
+     * Releases this turn, letting the next message of the same GDP id be processed.
+     */
+    public void release() {
+      this.terminated.tryEmitEmpty();
+      GdpMessageSequencer.this.lastTurns.remove(this.id, this);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Commits the offsets of the GDP messages once they have been processed.
+ * <p>
+ * Every received message is tracked until its processing completes. Since messages complete out
+ * of order, only the last offset of the contiguous run of completed messages at the head of each
+ * partition is committed, by acknowledging its message: a message still in flight holds back the
+ * commit of every later offset of its partition, so that it is delivered again after a restart or
+ * a rebalance. Commits are issued every {@link GdpProcessingProperties#commitBatchSize()} completed
+ * messages and at least every {@link GdpProcessingProperties#commitInterval()}.
+ * </p>
+ * <p>
+ * Messages without an {@link Acknowledgment} header, i.e. consumed with automatic commits, are
+ * ignored.
+ * </p>
+ */
+@Component("gdpOffsetCommitter")
+@Slf4j
+public class GdpOffsetCommitter {
+
+  private final GdpProcessingProperties processingProperties;
+  private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+  private final AtomicInteger completedSinceCommit = new AtomicInteger();
+
+
+  /**
+   * Constructs a new {@link GdpOffsetCommitter}.
+   *
+   * @param processingProperties the processing settings, providing the commit thresholds
+   * @throws NullPointerException if {@code processingProperties} is {@code null}
+   */
+  public GdpOffsetCommitter(@NonNull final GdpProcessingProperties processingProperties) {
+    this.processingProperties = Objects.requireNonNull(processingProperties);
+  }
+
+
+  /**
+   * Starts tracking a received message. Must be called in arrival order.
+   *
+   * @param message the received message
+   */
+  public void track(@NonNull final Message<?> message) {
+    this.offsetOf(message)
+        .ifPresent(offset -> this.partitions
+            .computeIfAbsent(offset.partition(), partition -> new PartitionOffsets())
+            .track(offset.offset(), offset.acknowledgment()));
+  }
+
+
+  /**
+   * Marks a tracked message as processed, committing the offsets if enough messages completed
+   * since the last commit.
+   *
+   * @param message the processed message
+   */
+  public void complete(@NonNull final Message<?> message) {
+    final var completed = this.offsetOf(message)
+        .map(offset -> Optional.ofNullable(this.partitions.get(offset.partition()))
+            .map(partition -> partition.complete(offset.offset()))
+            .orElse(false))
+        .orElse(false);
+
+    if (completed
+        && this.completedSinceCommit.incrementAndGet() >= this.processingProperties.commitBatchSize()) {
+      this.commit();
+    }
+  }
+
+
+  /**
+   * Commits, for each partition, the last offset of the contiguous run of processed messages.
+   */
+  @Scheduled(fixedDelayString = "${gdp.processing.commit-interval:PT5S}")
+  public void commit() {
+    this.completedSinceCommit.set(0);
+    this.partitions.forEach((partition, offsets) -> offsets.commit()
+        .ifPresent(offset -> log.debug("Committed GDP offset {} of {}", offset, partition)));
+  }
+
+
+  /**
+   * @param message the message
+   * @return the position of the message, or empty if it cannot be acknowledged
+   */
+  @NonNull
+  private Optional<MessageOffset> offsetOf(@NonNull final Message<?> message) {
+    final var headers = message.getHeaders();
+    final var acknowledgment = headers.get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+    final var topic = headers.get(KafkaHeaders.RECEIVED_TOPIC, String.class);
+    final var partition = headers.get(KafkaHeaders.RECEIVED_PARTITION, Integer.class);
+    final var offset = headers.get(KafkaHeaders.OFFSET, Long.class);
+
+    if (acknowledgment == null || topic == null || partition == null || offset == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new MessageOffset(new TopicPartition(topic, partition), offset, acknowledgment));
+  }
+
+
+  private record MessageOffset(
+      TopicPartition partition,
+      long offset,
+      Acknowledgment acknowledgment
+  ) {}
+
+
+  /**
+   * The in-flight offsets of a single partition.
+   */
+  private static final class PartitionOffsets {
+
+    private final NavigableMap<Long, Acknowledgment> inFlight = new TreeMap<>();
+    private final Set<Long> completed = new HashSet<>();
+    private long lastTracked = -1L;
+
+    @Nullable
+    private Acknowledgment committable;
+    private long committableOffset;
+
+
+    /**
+     * Tracks a received offset. An offset not above the last tracked one means that the partition
+     * has been rewound, e.g. after a rebalance, and the offsets tracked so far are dropped.
+     */
+    synchronized void track(final long offset, @NonNull final Acknowledgment acknowledgment) {
+      if (offset <= this.lastTracked) {
+        this.inFlight.clear();
+        this.completed.clear();
+        this.committable = null;
+      }
+      this.lastTracked = offset;
+      this.inFlight.put(offset, acknowledgment);
+    }
+
+
+    /**
+     * Marks an offset as processed and moves the commit point past the completed head.
+     *
+     * @return {@code true} if the offset was being tracked
+     */
+    synchronized boolean complete(final long offset) {
+      if (!this.inFlight.containsKey(offset)) {
+        return false;
+      }
+      this.completed.add(offset);
+
+      while (!this.inFlight.isEmpty() && this.completed.remove(this.inFlight.firstKey())) {
+        final var head = this.inFlight.pollFirstEntry();
+        this.committable = head.getValue();
+        this.committableOffset = head.getKey();
+      }
+      return true;
+    }
+
+
+    /**
+     * Acknowledges the last offset of the completed head, if it has not been committed yet.
+     *
+     * @return the committed offset, or empty if there was nothing to commit
+     */
+    synchronized Optional<Long> commit() {
+      if (this.committable == null) {
+        return Optional.empty();
+      }
+      this.committable.acknowledge();
+      this.committable = null;
+      return Optional.of(this.committableOffset);
+    }
+  }
+}
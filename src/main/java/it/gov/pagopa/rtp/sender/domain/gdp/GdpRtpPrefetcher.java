@@ -0,0 +1,84 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpEventHubProperties;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import it.gov.pagopa.rtp.sender.domain.gdp.GdpMessage.Operation;
+import it.gov.pagopa.rtp.sender.service.rtp.PrefetchedRtps;
+import it.gov.pagopa.rtp.sender.service.rtp.SendRTPService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Reads in bulk the RTPs a batch of {@link GdpMessage}s is going to update or delete.
+ * <p>
+ * Only the first message of each GDP id is considered, and only if it is an
+ * {@link Operation#UPDATE} or a {@link Operation#DELETE}: later messages for the same id must see
+ * the RTP as left by the earlier ones, so they read it when they are processed. The prefetched
+ * RTPs are served for at most {@link GdpProcessingProperties#prefetchMaxAge()}, then read again.
+ * </p>
+ *
+ * @see PrefetchedRtps
+ */
+@Component("gdpRtpPrefetcher")
+@Slf4j
+public class GdpRtpPrefetcher {
+
+  private final SendRTPService sendRTPService;
+  private final GdpEventHubProperties gdpEventHubProperties;
+  private final GdpProcessingProperties gdpProcessingProperties;
+
+
+  /**
+   * Constructs a new {@link GdpRtpPrefetcher}.
+   *
+   * @param sendRTPService          the service used to read the RTPs
+   * @param gdpEventHubProperties   the GDP Event Hub configuration, providing the event dispatcher
+   * @param gdpProcessingProperties the GDP processing configuration, providing the prefetch max age
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public GdpRtpPrefetcher(
+      @NonNull final SendRTPService sendRTPService,
+      @NonNull final GdpEventHubProperties gdpEventHubProperties,
+      @NonNull final GdpProcessingProperties gdpProcessingProperties) {
+
+    this.sendRTPService = Objects.requireNonNull(sendRTPService);
+    this.gdpEventHubProperties = Objects.requireNonNull(gdpEventHubProperties);
+    this.gdpProcessingProperties = Objects.requireNonNull(gdpProcessingProperties);
+  }
+
+
+  /**
+   * Reads the RTPs of a batch of messages with a single query.
+   *
+   * @param batch the messages about to be processed
+   * @return a {@link Mono} emitting the {@link PrefetchedRtps}
+   * @throws NullPointerException if {@code batch} is {@code null}
+   */
+  @NonNull
+  public Mono<PrefetchedRtps> prefetch(@NonNull final List<GdpMessage> batch) {
+    Objects.requireNonNull(batch, "Batch cannot be null");
+
+    final var eventDispatcher = this.gdpEventHubProperties.eventDispatcher();
+    final var firstOperations = new HashMap<Long, Operation>();
+    batch.forEach(message -> firstOperations.putIfAbsent(message.id(), message.operation()));
+
+    final var operationIds = firstOperations.entrySet().stream()
+        .filter(entry -> entry.getValue() == Operation.UPDATE || entry.getValue() == Operation.DELETE)
+        .map(Map.Entry::getKey)
+        .toList();
+
+    return this.sendRTPService.findRtpsByCompositeKeys(operationIds, eventDispatcher)
+        .collectList()
+        .map(rtps -> PrefetchedRtps.of(
+            eventDispatcher, rtps, this.gdpProcessingProperties.prefetchMaxAge()))
+        .doOnNext(prefetched -> log.debug("Prefetched {} of {} RTPs for a batch of {} GDP messages",
+            prefetched.size(), operationIds.size(), batch.size()));
+  }
+}
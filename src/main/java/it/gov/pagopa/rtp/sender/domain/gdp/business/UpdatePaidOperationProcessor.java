@@ -94,8 +94,8 @@ public class UpdatePaidOperationProcessor extends UpdateOperationProcessor {
   @NonNull
   private Mono<String> retrieveServiceProviderIdByPspTaxCode(@NonNull final String pspTaxCode) {
     return Mono.just(this.registryDataService)
-        .flatMap(RegistryDataService::getServiceProvidersByPspTaxCode)
-        .mapNotNull(serviceProviders -> serviceProviders.get(pspTaxCode))
+        .flatMap(RegistryDataService::getRegistrySnapshot)
+        .flatMap(snapshot -> Mono.justOrEmpty(snapshot.findServiceProviderByPspTaxCode(pspTaxCode)))
         .map(ServiceProvider::id)
         .switchIfEmpty(Mono.error(new ServiceProviderNotFoundException("No service provider found for tax code " + pspTaxCode)));
   }
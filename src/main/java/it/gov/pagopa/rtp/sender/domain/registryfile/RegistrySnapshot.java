@@ -0,0 +1,68 @@
+package it.gov.pagopa.rtp.sender.domain.registryfile;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Immutable, consistent view of the service provider registry, built from a single download of
+ * the registry file.
+ *
+ * @param serviceProvidersById          service provider ID (BIC) to full registry data
+ * @param serviceProvidersByPspTaxCode  PSP tax code to service provider
+ * @param certificateSerialNumbersByBic service provider ID (BIC) to the certificate serial number
+ *                                      of its technical service provider
+ */
+public record RegistrySnapshot(
+    Map<String, ServiceProviderFullData> serviceProvidersById,
+    Map<String, ServiceProvider> serviceProvidersByPspTaxCode,
+    Map<String, String> certificateSerialNumbersByBic
+) {
+
+  public RegistrySnapshot {
+    serviceProvidersById = Collections.unmodifiableMap(
+        new HashMap<>(Objects.requireNonNull(serviceProvidersById)));
+    serviceProvidersByPspTaxCode = Collections.unmodifiableMap(
+        new HashMap<>(Objects.requireNonNull(serviceProvidersByPspTaxCode)));
+    certificateSerialNumbersByBic = Collections.unmodifiableMap(
+        new HashMap<>(Objects.requireNonNull(certificateSerialNumbersByBic)));
+  }
+
+
+  /**
+   * @param serviceProviderId the service provider ID (BIC)
+   * @return the registry data of the service provider, if registered
+   */
+  @NonNull
+  public Optional<ServiceProviderFullData> findServiceProvider(final String serviceProviderId) {
+    return Optional.ofNullable(serviceProviderId)
+        .map(this.serviceProvidersById::get);
+  }
+
+
+  /**
+   * @param pspTaxCode the PSP tax code
+   * @return the service provider with the given PSP tax code, if registered
+   */
+  @NonNull
+  public Optional<ServiceProvider> findServiceProviderByPspTaxCode(final String pspTaxCode) {
+    return Optional.ofNullable(pspTaxCode)
+        .map(this.serviceProvidersByPspTaxCode::get);
+  }
+
+
+  /**
+   * @param bic the service provider ID (BIC)
+   * @return the certificate serial number of the technical service provider serving the given
+   *     service provider, if any
+   */
+  @NonNull
+  public Optional<String> findCertificateSerialNumber(final String bic) {
+    return Optional.ofNullable(bic)
+        .map(this.certificateSerialNumbersByBic::get);
+  }
+}
@@ -3,6 +3,7 @@ package it.gov.pagopa.rtp.sender.domain.registryfile;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
+import java.util.List;
 import lombok.With;
 import org.springframework.validation.annotation.Validated;
 
@@ -25,6 +26,9 @@ public record TechnicalServiceProvider(
     OAuth2 oauth2,
 
     @JsonProperty("mtls_enabled")
-    boolean mtlsEnabled
+    boolean mtlsEnabled,
+
+    @JsonProperty("protocols")
+    List<String> protocols
 ) {}
 
@@ -1,5 +1,6 @@
 package it.gov.pagopa.rtp.sender.domain.rtp;
 
+import java.util.Collection;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -11,6 +12,7 @@ import reactor.core.publisher.Mono;
  *   <li>Save an RTP</li>
  *   <li>Retrieve an RTP by its resource ID</li>
  *   <li>Retrieve an RTP by operation ID and event dispatcher</li>
+ *   <li>Retrieve the RTPs of several operation IDs of the same event dispatcher</li>
  *   <li>Retrieve an RTP by notice number</li>
  * </ul>
  * </p>
@@ -44,6 +46,16 @@ public interface RtpRepository {
    */
   Mono<Rtp> findByOperationIdAndEventDispatcher(Long operationId, String eventDispatcher);
 
+  /**
+   * Retrieves, with a single query, the {@link Rtp}s of the given operation IDs and event
+   * dispatcher.
+   *
+   * @param operationIds    the operation IDs to search for
+   * @param eventDispatcher the event dispatcher identifier
+   * @return a {@link Flux} emitting the found RTPs, in no particular order
+   */
+  Flux<Rtp> findByOperationIdsAndEventDispatcher(Collection<Long> operationIds, String eventDispatcher);
+
   /**
    * Retrieves an {@link Rtp} by its associated notice number.
    *
@@ -6,5 +6,12 @@ import reactor.core.publisher.Mono;
  * Used to access to blob storage account.
  */
 public interface BlobStorageClient {
+
+    /**
+     * Downloads the registry data, unless it has not changed since the last successful download.
+     *
+     * @return a {@link Mono} emitting the registry data, or empty if the blob has not been
+     *         modified since the last successful download
+     */
     Mono<ServiceProviderDataResponse> getServiceProviderData();
 }
@@ -1,12 +1,17 @@
 package it.gov.pagopa.rtp.sender.integration.blobstorage;
 
 import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
 import com.azure.storage.blob.specialized.BlobAsyncClientBase;
 import it.gov.pagopa.rtp.sender.configuration.BlobStorageConfig;
 import it.gov.pagopa.rtp.sender.domain.registryfile.OAuth2;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.time.OffsetDateTime;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.lang.NonNull;
@@ -18,7 +23,14 @@ import reactor.core.publisher.Mono;
  * Azure-based implementation of {@link BlobStorageClient} for interacting with Azure Blob Storage using the Azure SDK.
  * <p>
  * This component is responsible for downloading and deserializing JSON blob content into Java objects
- * defined in the domain (e.g., {@link ServiceProviderDataResponse}).
+ * defined in the domain (e.g., {@link ServiceProviderDataResponse}). The content is streamed and
+ * parsed chunk by chunk by a {@link ServiceRegistryStreamParser}, without buffering the whole blob.
+ * </p>
+ * <p>
+ * The ETag and last-modified time of the last downloaded blob are kept, and subsequent downloads
+ * are conditional: when the blob has not changed,
+ * the storage answers {@code 304 Not Modified} with no body and nothing is emitted, so that callers
+ * can skip any further work on the unchanged content.
  * </p>
  */
 @Component
@@ -33,6 +45,8 @@ public class BlobStorageClientAzure implements BlobStorageClient {
 
   private final BlobStorageConfig blobStorageConfig;
   private final BlobServiceAsyncClient blobServiceClient;
+  private final ServiceRegistryStreamParser registryParser;
+  private final AtomicReference<FetchedBlob> lastFetchedBlob = new AtomicReference<>();
 
 
   /**
@@ -40,14 +54,17 @@ public class BlobStorageClientAzure implements BlobStorageClient {
    *
    * @param blobStorageConfig      the configuration for accessing the Blob Storage (container and blob name)
    * @param blobServiceClient      the asynchronous Azure Blob Storage client
+   * @param objectMapper           the mapper used to deserialize the registry entries
    * @throws NullPointerException if any argument is {@code null}
    */
   public BlobStorageClientAzure(
       @NonNull final BlobStorageConfig blobStorageConfig,
-      @NonNull final BlobServiceAsyncClient blobServiceClient) {
+      @NonNull final BlobServiceAsyncClient blobServiceClient,
+      @NonNull final ObjectMapper objectMapper) {
 
     this.blobStorageConfig = Objects.requireNonNull(blobStorageConfig);
     this.blobServiceClient = Objects.requireNonNull(blobServiceClient);
+    this.registryParser = new ServiceRegistryStreamParser(objectMapper);
   }
 
 
@@ -57,12 +74,13 @@ public class BlobStorageClientAzure implements BlobStorageClient {
    * This method performs the following:
    * <ul>
    *   <li>Retrieves the target container and blob client based on configuration</li>
-   *   <li>Downloads the blob content as binary data</li>
-   *   <li>Converts the binary data to a {@link ServiceProviderDataResponse} object</li>
+   *   <li>Streams the blob content, unless it has not changed since the last download</li>
+   *   <li>Parses the streamed content into a {@link ServiceProviderDataResponse} object</li>
    * </ul>
    * </p>
    *
-   * @return a {@link Mono} emitting the deserialized {@link ServiceProviderDataResponse}
+   * @return a {@link Mono} emitting the deserialized {@link ServiceProviderDataResponse}, or empty
+   *     if the blob has not changed since the last download
    */
   @Override
   public Mono<ServiceProviderDataResponse> getServiceProviderData() {
@@ -75,11 +93,85 @@ public class BlobStorageClientAzure implements BlobStorageClient {
             serviceClient.getBlobContainerAsyncClient(blobStorageConfig.containerName()))
         .map(containerClient ->
             containerClient.getBlobAsyncClient(blobStorageConfig.blobName()))
-        .flatMap(BlobAsyncClientBase::downloadContent)
-        .map(binaryData ->
-            binaryData.toObject(ServiceProviderDataResponse.class))
-        .doOnSuccess(data -> log.info("Successfully retrieved blob data"))
+        .flatMap(this::downloadIfModified)
+        .doOnNext(data -> log.info("Successfully retrieved blob data"))
         .doOnError(error -> log.error("Error downloading blob: {}", error.getMessage(), error));
   }
 
+
+  /**
+   * Streams and parses the blob, conditionally on it having changed since the last
+   * download. If the storage reports the blob as not modified, nothing is emitted.
+   *
+   * @param blobClient the client of the registry blob
+   * @return a {@link Mono} emitting the new {@link ServiceProviderDataResponse}, or empty if the
+   *     blob has not been modified
+   */
+  @NonNull
+  private Mono<ServiceProviderDataResponse> downloadIfModified(
+      @NonNull final BlobAsyncClientBase blobClient) {
+
+    final var lastFetched = this.lastFetchedBlob.get();
+
+    return blobClient.downloadStreamWithResponse(null, null, requestConditions(lastFetched), false)
+        .flatMap(response -> {
+          final var headers = response.getDeserializedHeaders();
+
+          return this.registryParser.parse(response.getValue())
+              .doOnNext(data -> this.lastFetchedBlob.set(
+                  new FetchedBlob(headers.getETag(), headers.getLastModified())));
+        })
+        .onErrorResume(
+            error -> lastFetched != null && isNotModified(error),
+            error -> {
+              log.info("Blob not modified since last download");
+              return Mono.empty();
+            });
+  }
+
+
+  /**
+   * Builds the conditions of the next download from the last downloaded blob. The ETag is
+   * preferred; the last-modified time is used only when no ETag is known.
+   *
+   * @param lastFetched the last downloaded blob, may be {@code null}
+   * @return the {@link BlobRequestConditions} to use
+   */
+  @NonNull
+  private static BlobRequestConditions requestConditions(final FetchedBlob lastFetched) {
+    final var conditions = new BlobRequestConditions();
+
+    if (lastFetched == null) {
+      return conditions;
+    }
+
+    if (lastFetched.eTag() != null) {
+      return conditions.setIfNoneMatch(lastFetched.eTag());
+    }
+
+    return conditions.setIfModifiedSince(lastFetched.lastModified());
+  }
+
+
+  /**
+   * @param error the download error
+   * @return whether the error is the {@code 304 Not Modified} answer to a conditional download
+   */
+  private static boolean isNotModified(@NonNull final Throwable error) {
+    return error instanceof BlobStorageException storageException
+        && storageException.getStatusCode() == 304;
+  }
+
+
+  /**
+   * The last downloaded blob.
+   *
+   * @param eTag         the ETag of the blob
+   * @param lastModified the last-modified time of the blob
+   */
+  private record FetchedBlob(
+      String eTag,
+      OffsetDateTime lastModified
+  ) {}
+
 }
\ No newline at end of file
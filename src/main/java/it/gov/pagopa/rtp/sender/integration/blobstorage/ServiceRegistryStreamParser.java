@@ -0,0 +1,219 @@
+package it.gov.pagopa.rtp.sender.integration.blobstorage;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Streaming parser of the service registry file.
+ * <p>
+ * The content is fed chunk by chunk to a non-blocking Jackson parser, and each element of the
+ * {@code tsps} and {@code sps} arrays is deserialized as soon as it is complete. Only the element
+ * being parsed is buffered, so the peak memory does not depend on the size of the file. Unknown
+ * top-level fields are skipped.
+ * </p>
+ */
+final class ServiceRegistryStreamParser {
+
+  private static final String TSPS_FIELD = "tsps";
+  private static final String SPS_FIELD = "sps";
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader tspReader;
+  private final ObjectReader spReader;
+
+
+  /**
+   * Constructs a new {@link ServiceRegistryStreamParser}.
+   *
+   * @param objectMapper the mapper used to deserialize the registry entries
+   * @throws NullPointerException if {@code objectMapper} is {@code null}
+   */
+  ServiceRegistryStreamParser(@NonNull final ObjectMapper objectMapper) {
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+    this.tspReader = objectMapper.readerFor(TechnicalServiceProvider.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.spReader = objectMapper.readerFor(ServiceProvider.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+
+  /**
+   * Parses the registry file from its content chunks.
+   *
+   * @param content the content of the registry file
+   * @return a {@link Mono} emitting the parsed {@link ServiceProviderDataResponse}
+   */
+  @NonNull
+  Mono<ServiceProviderDataResponse> parse(@NonNull final Flux<ByteBuffer> content) {
+    return Mono.using(
+        this::newParsing,
+        parsing -> content
+            .doOnNext(parsing::feed)
+            .then(Mono.fromCallable(parsing::finish)),
+        Parsing::close);
+  }
+
+
+  /**
+   * @return a new parsing of a registry file
+   * @throws IOException if the non-blocking parser cannot be created
+   */
+  @NonNull
+  private Parsing newParsing() throws IOException {
+    return new Parsing(this.objectMapper.getFactory().createNonBlockingByteBufferParser());
+  }
+
+
+  /**
+   * The state of a single parsing.
+   */
+  private final class Parsing {
+
+    private final JsonParser parser;
+    private final List<TechnicalServiceProvider> tsps = new ArrayList<>();
+    private final List<ServiceProvider> sps = new ArrayList<>();
+
+    private int depth;
+    private boolean rootSeen;
+    private String currentField;
+    private String currentArray;
+    private TokenBuffer element;
+    private int elementDepth;
+
+
+    private Parsing(@NonNull final JsonParser parser) {
+      this.parser = parser;
+    }
+
+
+    /**
+     * Feeds a chunk of content and processes every token it completes.
+     *
+     * @param chunk the chunk of content
+     */
+    void feed(@NonNull final ByteBuffer chunk) {
+      try {
+        ((ByteBufferFeeder) this.parser.getNonBlockingInputFeeder()).feedInput(chunk);
+        this.drain();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+
+    /**
+     * Signals the end of the content and returns the parsed registry.
+     *
+     * @return the parsed {@link ServiceProviderDataResponse}
+     * @throws IOException if the content is not a complete registry file
+     */
+    @NonNull
+    ServiceProviderDataResponse finish() throws IOException {
+      this.parser.getNonBlockingInputFeeder().endOfInput();
+      this.drain();
+
+      if (!this.rootSeen || this.depth != 0) {
+        throw new JsonParseException(this.parser, "Unexpected end of registry content");
+      }
+
+      return new ServiceProviderDataResponse(this.tsps, this.sps);
+    }
+
+
+    void close() {
+      try {
+        this.parser.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+
+    private void drain() throws IOException {
+      JsonToken token;
+      while ((token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+        this.onToken(token);
+      }
+    }
+
+
+    private void onToken(@NonNull final JsonToken token) throws IOException {
+      if (this.element != null) {
+        this.copyToElement(token);
+        return;
+      }
+
+      if (this.depth == 2 && this.currentArray != null && token == JsonToken.START_OBJECT) {
+        this.element = new TokenBuffer(this.parser);
+        this.copyToElement(token);
+        return;
+      }
+
+      switch (token) {
+        case START_OBJECT, START_ARRAY -> {
+          if (this.depth == 0) {
+            this.rootSeen = true;
+          } else if (this.depth == 1 && token == JsonToken.START_ARRAY
+              && (TSPS_FIELD.equals(this.currentField) || SPS_FIELD.equals(this.currentField))) {
+            this.currentArray = this.currentField;
+          }
+          this.depth++;
+        }
+        case END_OBJECT, END_ARRAY -> {
+          this.depth--;
+          if (this.depth == 1) {
+            this.currentArray = null;
+          }
+        }
+        case FIELD_NAME -> {
+          if (this.depth == 1) {
+            this.currentField = this.parser.currentName();
+          }
+        }
+        default -> {
+          // scalar values outside the registry entries are ignored
+        }
+      }
+    }
+
+
+    private void copyToElement(@NonNull final JsonToken token) throws IOException {
+      this.element.copyCurrentEvent(this.parser);
+
+      if (token.isStructStart()) {
+        this.elementDepth++;
+      } else if (token.isStructEnd()) {
+        this.elementDepth--;
+      }
+
+      if (this.elementDepth == 0) {
+        try (final var elementParser = this.element.asParser()) {
+          if (TSPS_FIELD.equals(this.currentArray)) {
+            this.tsps.add(tspReader.readValue(elementParser));
+          } else {
+            this.sps.add(spReader.readValue(elementParser));
+          }
+        }
+        this.element = null;
+      }
+    }
+  }
+}
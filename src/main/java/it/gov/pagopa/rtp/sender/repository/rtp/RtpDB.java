@@ -7,6 +7,7 @@ import it.gov.pagopa.rtp.sender.telemetry.TraceMongo;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -14,5 +15,6 @@ import java.util.UUID;
 public interface RtpDB extends ReactiveMongoRepository<RtpEntity, UUID> {
 
     Mono<RtpEntity> findByOperationIdAndEventDispatcher(Long operationId, String eventDispatcher);
+    Flux<RtpEntity> findAllByOperationIdInAndEventDispatcher(Collection<Long> operationIds, String eventDispatcher);
     Flux<RtpEntity> findAllByNoticeNumber(String noticeNumber);
 }
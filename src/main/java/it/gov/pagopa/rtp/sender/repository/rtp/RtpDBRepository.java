@@ -1,5 +1,6 @@
 package it.gov.pagopa.rtp.sender.repository.rtp;
 
+import java.util.Collection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
@@ -87,6 +88,31 @@ public class RtpDBRepository implements RtpRepository {
   }
 
 
+  /**
+   * Retrieves the RTPs of several operation IDs of the same event dispatcher, with a single
+   * {@code $in} query.
+   *
+   * @param operationIds    the operation IDs; must not be {@code null}
+   * @param eventDispatcher the event dispatcher ID; must not be {@code null}
+   * @return a {@link Flux} emitting the found RTPs, or an empty Flux if none is found
+   */
+  @NonNull
+  @Override
+  public Flux<Rtp> findByOperationIdsAndEventDispatcher(
+          @NonNull final Collection<Long> operationIds,
+          @NonNull final String eventDispatcher) {
+
+    if (operationIds.isEmpty()) {
+      return Flux.empty();
+    }
+
+    return rtpDB.findAllByOperationIdInAndEventDispatcher(operationIds, eventDispatcher)
+            .doFirst(() -> log.info("Retrieving RTPs of {} operationIds and eventDispatcher {}", operationIds.size(), eventDispatcher))
+            .map(rtpMapper::toDomain)
+            .doOnError(error -> log.error("Error while retrieving RTPs: {}", error.getMessage(), error));
+  }
+
+
   /**
    * Retrieves an RTP using the given notice number.
    *
@@ -0,0 +1,30 @@
+package it.gov.pagopa.rtp.sender.service.activation;
+
+import it.gov.pagopa.rtp.sender.activateClient.model.ActivationDto;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Lookup of the activation of a payer, which tells the debtor service provider RTPs addressed to
+ * the payer are sent to.
+ */
+public interface ActivationLookup {
+
+  /**
+   * Finds the activation of a payer.
+   *
+   * @param payerId the fiscal code of the payer
+   * @return a {@link Mono} emitting the activation, or empty if the payer is not activated
+   */
+  @NonNull
+  Mono<ActivationDto> findActivationByPayerId(@NonNull String payerId);
+
+  /**
+   * Forgets what is known about the activation of a payer, so that the next lookup reaches the
+   * activation service.
+   *
+   * @param payerId the fiscal code of the payer
+   */
+  void invalidate(@NonNull String payerId);
+}
@@ -0,0 +1,168 @@
+package it.gov.pagopa.rtp.sender.service.activation;
+
+import it.gov.pagopa.rtp.sender.activateClient.api.ReadApi;
+import it.gov.pagopa.rtp.sender.activateClient.model.ActivationDto;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import it.gov.pagopa.rtp.sender.service.registryfile.ServiceProviderChangedEvent;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * {@link ActivationLookup} caching the answers of the activation service.
+ * <p>
+ * Activations are kept in the {@value #ACTIVATIONS_CACHE} cache and payers found not to be
+ * activated in the {@value #NOT_FOUND_CACHE} cache, both declared under {@code cache.params} with
+ * their own size and time to live. Failed calls are not cached. When a cache is not declared, the
+ * corresponding answers are not cached.
+ * </p>
+ * <p>
+ * Whether or not the answers are cached, concurrent lookups of the same payer share a single
+ * in-flight call to the activation service, so that a burst of RTPs for the same payer results
+ * in one call.
+ * </p>
+ * <p>
+ * Cached activations are dropped when a service provider is removed from the registry, since
+ * some of them may point to it, and the activation of a single payer is dropped through
+ * {@link #invalidate(String)} when the send path finds that its service provider cannot be
+ * resolved.
+ * </p>
+ */
+@Component("activationLookup")
+@Slf4j
+public class CachedActivationLookup implements ActivationLookup {
+
+  static final String ACTIVATIONS_CACHE = "activations";
+  static final String NOT_FOUND_CACHE = "activations-not-found";
+
+  private final ReadApi activationApi;
+  private final ServiceProviderConfig serviceProviderConfig;
+  private final Cache activations;
+  private final Cache notFound;
+  private final Map<String, Mono<ActivationDto>> inFlightCalls = new ConcurrentHashMap<>();
+
+
+  /**
+   * Constructs a new {@link CachedActivationLookup}.
+   *
+   * @param activationApi         the client of the activation service
+   * @param serviceProviderConfig the service provider configuration, providing the API version
+   * @param cacheManager          the manager of the activation caches
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public CachedActivationLookup(
+      @NonNull final ReadApi activationApi,
+      @NonNull final ServiceProviderConfig serviceProviderConfig,
+      @NonNull final CacheManager cacheManager) {
+
+    this.activationApi = Objects.requireNonNull(activationApi);
+    this.serviceProviderConfig = Objects.requireNonNull(serviceProviderConfig);
+    Objects.requireNonNull(cacheManager);
+
+    this.activations = declaredCache(cacheManager, ACTIVATIONS_CACHE);
+    this.notFound = declaredCache(cacheManager, NOT_FOUND_CACHE);
+  }
+
+
+  @NonNull
+  @Override
+  public Mono<ActivationDto> findActivationByPayerId(@NonNull final String payerId) {
+    Objects.requireNonNull(payerId, "Payer id cannot be null");
+
+    return Mono.defer(() -> {
+          if (this.notFound != null && this.notFound.get(payerId) != null) {
+            log.debug("Payer known not to be activated");
+            return Mono.empty();
+          }
+
+          return this.activations == null
+              ? this.sharedActivationCall(payerId)
+              : Mono.fromFuture(() -> this.activations.retrieve(payerId,
+                  () -> this.sharedActivationCall(payerId).toFuture()), true);
+        })
+        .onErrorResume(CachedActivationLookup::isNotFound, error -> {
+          Optional.ofNullable(this.notFound).ifPresent(cache -> cache.put(payerId, Boolean.TRUE));
+          return Mono.empty();
+        });
+  }
+
+
+  @Override
+  public void invalidate(@NonNull final String payerId) {
+    Objects.requireNonNull(payerId, "Payer id cannot be null");
+
+    Optional.ofNullable(this.activations).ifPresent(cache -> cache.evict(payerId));
+    Optional.ofNullable(this.notFound).ifPresent(cache -> cache.evict(payerId));
+  }
+
+
+  /**
+   * Drops the cached activations when a service provider is removed from the registry.
+   *
+   * @param event the service provider change event
+   */
+  @EventListener
+  public void onServiceProviderChanged(@NonNull final ServiceProviderChangedEvent event) {
+    if (event.removed() && this.activations != null) {
+      log.info("Service provider {} removed, invalidating cached activations",
+          event.serviceProviderId());
+      this.activations.clear();
+    }
+  }
+
+
+  /**
+   * Returns the in-flight call to the activation service for the given payer, starting one if
+   * there is none. The call is forgotten as soon as it terminates or all its subscribers cancel.
+   *
+   * @param payerId the fiscal code of the payer
+   * @return a {@link Mono} shared by all the concurrent lookups of the payer
+   */
+  @NonNull
+  private Mono<ActivationDto> sharedActivationCall(@NonNull final String payerId) {
+    return Mono.defer(() -> this.inFlightCalls.computeIfAbsent(payerId, id -> {
+      final var call = new AtomicReference<Mono<ActivationDto>>();
+      call.set(this.callActivationService(id)
+          .doFinally(signal -> this.inFlightCalls.remove(id, call.get()))
+          .share());
+      return call.get();
+    }));
+  }
+
+
+  @NonNull
+  private Mono<ActivationDto> callActivationService(@NonNull final String payerId) {
+    return this.activationApi.findActivationByPayerId(
+        UUID.randomUUID(), payerId, this.serviceProviderConfig.activation().apiVersion());
+  }
+
+
+  private static boolean isNotFound(@NonNull final Throwable error) {
+    return error instanceof WebClientResponseException exception
+        && exception.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND);
+  }
+
+
+  @Nullable
+  private static Cache declaredCache(
+      @NonNull final CacheManager cacheManager,
+      @NonNull final String name) {
+
+    // looking up an undeclared name would create a new cache on a dynamic cache manager
+    return cacheManager.getCacheNames().contains(name) ? cacheManager.getCache(name) : null;
+  }
+}
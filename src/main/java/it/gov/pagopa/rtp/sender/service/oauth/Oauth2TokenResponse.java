@@ -0,0 +1,17 @@
+package it.gov.pagopa.rtp.sender.service.oauth;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+
+/**
+ * Successful response of an OAuth2 {@code client_credentials} token request.
+ *
+ * @param accessToken the issued access token
+ * @param expiresIn   the lifetime of the token in seconds, if provided by the authorization server
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Oauth2TokenResponse(
+    @JsonProperty("access_token") String accessToken,
+    @JsonProperty("expires_in") Long expiresIn
+) {}
@@ -1,27 +1,71 @@
 package it.gov.pagopa.rtp.sender.service.oauth;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
 
+import it.gov.pagopa.rtp.sender.configuration.Oauth2TokenCacheProperties;
 import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
+/**
+ * Retrieves OAuth2 access tokens through the {@code client_credentials} grant.
+ * <p>
+ * Tokens are cached per (token endpoint, client id, scope, client secret, mTLS) until
+ * {@code expires_in} minus a safety margin; the secret is part of the key only as a SHA-256 hash,
+ * so that a rotated secret never serves a token issued for the previous one. The cache holds at
+ * most {@link Oauth2TokenCacheProperties#maximumSize()} tokens. Concurrent requests for a missing
+ * token share a single call to the authorization server, and tokens close to expiry are refreshed
+ * in background while the current one keeps being served. The tokens of a technical service
+ * provider are evicted when the provider is removed from the registry or its OAuth2 settings
+ * change.
+ * </p>
+ * <p>
+ * The web clients used to reach the token endpoints are built once; the mTLS one is rebuilt
+ * after a {@link SslContextReloadedEvent}.
+ * </p>
+ */
 @Slf4j
 @Component
 public class Oauth2TokenServiceImpl implements Oauth2TokenService {
   private final WebClientFactory webClientFactory;
+  private final Oauth2TokenCacheProperties tokenCacheProperties;
+  private final Map<TokenCacheKey, Mono<CachedToken>> tokenCache;
+  private final AtomicReference<WebClient> simpleWebClient = new AtomicReference<>();
+  private final AtomicReference<WebClient> mtlsWebClient = new AtomicReference<>();
 
-  public Oauth2TokenServiceImpl(WebClientFactory webClientFactory) {
-    this.webClientFactory = webClientFactory;
+  public Oauth2TokenServiceImpl(
+      @NonNull final WebClientFactory webClientFactory,
+      @NonNull final Oauth2TokenCacheProperties tokenCacheProperties) {
+    this.webClientFactory = Objects.requireNonNull(webClientFactory);
+    this.tokenCacheProperties = Objects.requireNonNull(tokenCacheProperties);
+    this.tokenCache = Caffeine.newBuilder()
+        .maximumSize(tokenCacheProperties.maximumSize())
+        .<TokenCacheKey, Mono<CachedToken>>build()
+        .asMap();
   }
 
 
@@ -33,31 +77,244 @@ public class Oauth2TokenServiceImpl implements Oauth2TokenService {
       return Mono.error(new IllegalStateException("OAuth2 configuration params not complete"));
     }
 
-    log.debug("Is mTLS enabled: {}", isMtlsEnabled);
-    final var webClient = isMtlsEnabled
-        ? this.webClientFactory.createMtlsWebClient()
-        : this.webClientFactory.createSimpleWebClient();
+    final var key = new TokenCacheKey(tokenUri, clientId, scope, sha256(clientSecret), isMtlsEnabled);
 
-    MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-    formData.add("grant_type", "client_credentials");
-    if (scope != null) {
-      formData.add("scope", scope);
+    return this.tokenCache
+        .computeIfAbsent(key, k -> this.cachedTokenRequest(k, clientSecret, isMtlsEnabled))
+        .doOnNext(token -> this.refreshIfDue(key, token, clientSecret, isMtlsEnabled))
+        .map(CachedToken::accessToken);
+  }
+
+
+  /**
+   * Evicts the cached tokens of a technical service provider that has been removed or whose OAuth2
+   * settings changed, whatever secret and transport they were issued with.
+   *
+   * @param event the technical service provider change event
+   */
+  @EventListener
+  public void onTechnicalServiceProviderChanged(
+      @NonNull final TechnicalServiceProviderChangedEvent event) {
+
+    if (event.previous() == null || event.previous().oauth2() == null
+        || !(event.changes().contains(Change.REMOVED)
+            || event.changes().contains(Change.OAUTH2_CHANGED))) {
+      return;
     }
 
-    String credential = clientId + ":" + clientSecret;
-    String encodedCredentials = Base64.getUrlEncoder().encodeToString(credential.getBytes(StandardCharsets.UTF_8));
-    String authHeader = "Basic " + encodedCredentials;
+    final var oauth2 = event.previous().oauth2();
+    if (this.tokenCache.keySet().removeIf(key -> key.identifies(
+        oauth2.tokenEndpoint(), oauth2.clientId(), oauth2.scope()))) {
+      log.info("Evicted cached OAuth2 tokens of technical service provider {}", event.tspId());
+    }
+  }
+
+
+  /**
+   * Drops the mTLS web client, which holds the previous key material.
+   *
+   * @param event the SSL context reload event
+   */
+  @EventListener
+  public void onSslContextReloaded(@NonNull final SslContextReloadedEvent event) {
+    this.mtlsWebClient.set(null);
+  }
+
+
+  /**
+   * Creates a token request whose result is shared by all subscribers until the token expires.
+   * Errors are not cached.
+   *
+   * @param key           the cache key identifying the token
+   * @param clientSecret  the client secret
+   * @param isMtlsEnabled whether the token endpoint requires mTLS
+   * @return a cached {@link Mono} emitting the token
+   */
+  @NonNull
+  private Mono<CachedToken> cachedTokenRequest(
+      @NonNull final TokenCacheKey key,
+      @NonNull final String clientSecret,
+      final boolean isMtlsEnabled) {
+
+    return this.requestToken(key, clientSecret, isMtlsEnabled)
+        .cache(
+            token -> token.timeToLive(Instant.now()),
+            error -> Duration.ZERO,
+            () -> Duration.ZERO);
+  }
+
+
+  /**
+   * Fetches a new token in background when the served one has reached its refresh time.
+   * Only one refresh per token is started; if it fails, the current token is served until
+   * it expires and is then fetched again on demand.
+   *
+   * @param key           the cache key identifying the token
+   * @param token         the token just served
+   * @param clientSecret  the client secret
+   * @param isMtlsEnabled whether the token endpoint requires mTLS
+   */
+  private void refreshIfDue(
+      @NonNull final TokenCacheKey key,
+      @NonNull final CachedToken token,
+      @NonNull final String clientSecret,
+      final boolean isMtlsEnabled) {
+
+    if (!token.isRefreshDue(Instant.now()) || !token.refreshStarted().compareAndSet(false, true)) {
+      return;
+    }
+
+    log.debug("Refreshing OAuth2 token for {} in background", key.tokenUri());
+    final var refreshed = this.cachedTokenRequest(key, clientSecret, isMtlsEnabled);
+
+    refreshed.subscribe(
+        newToken -> this.tokenCache.put(key, refreshed),
+        error -> log.warn("Background refresh of OAuth2 token failed: {}", error.getMessage()));
+  }
+
+
+  /**
+   * Performs the {@code client_credentials} request to the token endpoint.
+   *
+   * @param key           the cache key identifying the token
+   * @param clientSecret  the client secret
+   * @param isMtlsEnabled whether the token endpoint requires mTLS
+   * @return a {@link Mono} emitting the issued token
+   */
+  @NonNull
+  private Mono<CachedToken> requestToken(
+      @NonNull final TokenCacheKey key,
+      @NonNull final String clientSecret,
+      final boolean isMtlsEnabled) {
+
+    return Mono.defer(() -> {
+      log.debug("Is mTLS enabled: {}", isMtlsEnabled);
+      final var webClient = isMtlsEnabled
+          ? this.mtlsWebClient.updateAndGet(client -> client != null
+              ? client : this.webClientFactory.createMtlsWebClient())
+          : this.simpleWebClient.updateAndGet(client -> client != null
+              ? client : this.webClientFactory.createSimpleWebClient());
+
+      MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+      formData.add("grant_type", "client_credentials");
+      if (key.scope() != null) {
+        formData.add("scope", key.scope());
+      }
+
+      String credential = key.clientId() + ":" + clientSecret;
+      String encodedCredentials = Base64.getUrlEncoder().encodeToString(credential.getBytes(StandardCharsets.UTF_8));
+      String authHeader = "Basic " + encodedCredentials;
 
-    return webClient
-        .post()
-        .uri(tokenUri)
-        .header(HttpHeaders.AUTHORIZATION, authHeader)
-        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-        .body(BodyInserters.fromFormData(formData))
-        .retrieve()
-        .bodyToMono(Map.class)
-        .map(response -> (String) response.get("access_token"))
-        .doOnError(e -> log.error("Failed to obtain OAuth2 token {}", e.getMessage()));
+      return webClient
+          .post()
+          .uri(key.tokenUri())
+          .header(HttpHeaders.AUTHORIZATION, authHeader)
+          .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+          .body(BodyInserters.fromFormData(formData))
+          .retrieve()
+          .bodyToMono(Oauth2TokenResponse.class)
+          .map(this::toCachedToken)
+          .doOnError(e -> log.error("Failed to obtain OAuth2 token {}", e.getMessage()));
+    });
+  }
+
+
+  /**
+   * Computes expiry and refresh instants of a freshly issued token. Tokens without
+   * {@code expires_in} are not cached.
+   *
+   * @param response the token endpoint response
+   * @return the {@link CachedToken}
+   * @throws NullPointerException if the response has no access token
+   */
+  @NonNull
+  private CachedToken toCachedToken(@NonNull final Oauth2TokenResponse response) {
+    final var accessToken = Objects.requireNonNull(response.accessToken(), "Access token cannot be null");
+    final var issuedAt = Instant.now();
+
+    final var usableLifetime = response.expiresIn() == null
+        ? Duration.ZERO
+        : Duration.ofSeconds(response.expiresIn())
+            .minus(this.tokenCacheProperties.expirySafetyMargin());
+
+    if (usableLifetime.isNegative() || usableLifetime.isZero()) {
+      return new CachedToken(accessToken, issuedAt, issuedAt, new AtomicBoolean(true));
+    }
+
+    final var refreshAfter = Duration.ofMillis(
+        (long) (usableLifetime.toMillis() * this.tokenCacheProperties.refreshAheadRatio()));
+
+    return new CachedToken(
+        accessToken,
+        issuedAt.plus(usableLifetime),
+        issuedAt.plus(refreshAfter),
+        new AtomicBoolean(false));
+  }
+
+
+  /**
+   * @param value the value to hash
+   * @return the hex-encoded SHA-256 hash of the value
+   */
+  @NonNull
+  private static String sha256(@NonNull final String value) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+          .digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+
+  /**
+   * Identifies a token in the cache.
+   *
+   * @param tokenUri         the token endpoint
+   * @param clientId         the client id
+   * @param scope            the requested scope, may be {@code null}
+   * @param clientSecretHash the SHA-256 hash of the client secret
+   * @param mtlsEnabled      whether the token endpoint is reached through mTLS
+   */
+  private record TokenCacheKey(
+      String tokenUri,
+      String clientId,
+      String scope,
+      String clientSecretHash,
+      boolean mtlsEnabled
+  ) {
+
+    boolean identifies(final String tokenUri, final String clientId, final String scope) {
+      return Objects.equals(this.tokenUri, tokenUri)
+          && Objects.equals(this.clientId, clientId)
+          && Objects.equals(this.scope, scope);
+    }
+  }
+
+
+  /**
+   * An issued access token together with its cache timings.
+   *
+   * @param accessToken    the access token
+   * @param expiresAt      the instant after which the token must not be served anymore
+   * @param refreshAt      the instant after which a background refresh is started
+   * @param refreshStarted whether a background refresh has already been started
+   */
+  private record CachedToken(
+      String accessToken,
+      Instant expiresAt,
+      Instant refreshAt,
+      AtomicBoolean refreshStarted
+  ) {
+
+    Duration timeToLive(@NonNull final Instant now) {
+      final var ttl = Duration.between(now, this.expiresAt);
+      return ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+
+    boolean isRefreshDue(@NonNull final Instant now) {
+      return !now.isBefore(this.refreshAt) && now.isBefore(this.expiresAt);
+    }
   }
 
 }
@@ -0,0 +1,117 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import it.gov.pagopa.rtp.sender.configuration.RegistryDataProperties;
+import it.gov.pagopa.rtp.sender.integration.blobstorage.ServiceProviderDataResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * {@link RegistrySnapshotStore} keeping the registry in a local file, as compact JSON.
+ * <p>
+ * The file is written to a temporary sibling and then atomically moved in place, so that a crash
+ * during the write never leaves a truncated registry behind. File I/O runs on the bounded
+ * elastic scheduler. When {@code registry-data.local-snapshot-path} is blank the store is
+ * disabled: nothing is loaded and nothing is saved.
+ * </p>
+ */
+@Component("registrySnapshotStore")
+@Slf4j
+public class FileRegistrySnapshotStore implements RegistrySnapshotStore {
+
+  private final Path snapshotPath;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+
+  /**
+   * Constructs a new {@link FileRegistrySnapshotStore}.
+   *
+   * @param registryDataProperties the registry configuration, providing the file location
+   * @param objectMapper           the mapper used to (de)serialize the registry
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public FileRegistrySnapshotStore(
+      @NonNull final RegistryDataProperties registryDataProperties,
+      @NonNull final ObjectMapper objectMapper) {
+
+    Objects.requireNonNull(registryDataProperties);
+    Objects.requireNonNull(objectMapper);
+
+    this.snapshotPath = Optional.ofNullable(registryDataProperties.localSnapshotPath())
+        .filter(StringUtils::isNotBlank)
+        .map(Path::of)
+        .orElse(null);
+    this.reader = objectMapper.readerFor(ServiceProviderDataResponse.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.writer = objectMapper.writerFor(ServiceProviderDataResponse.class)
+        .without(SerializationFeature.INDENT_OUTPUT);
+  }
+
+
+  /**
+   * Loads the registry from the local file, if the store is enabled and the file exists.
+   *
+   * @return a {@link Mono} emitting the persisted registry, or empty if none is available
+   */
+  @NonNull
+  @Override
+  public Mono<ServiceProviderDataResponse> load() {
+    if (this.snapshotPath == null) {
+      return Mono.empty();
+    }
+
+    return Mono.fromCallable(() -> Files.exists(this.snapshotPath)
+            ? this.reader.<ServiceProviderDataResponse>readValue(this.snapshotPath.toFile())
+            : null)
+        .subscribeOn(Schedulers.boundedElastic())
+        .doOnNext(data -> log.info("Loaded local registry snapshot from {}", this.snapshotPath));
+  }
+
+
+  /**
+   * Writes the registry to the local file, if the store is enabled.
+   *
+   * @param registryData the registry to persist
+   * @return a {@link Mono} completing when the registry has been persisted
+   */
+  @NonNull
+  @Override
+  public Mono<Void> save(@NonNull final ServiceProviderDataResponse registryData) {
+    if (this.snapshotPath == null) {
+      return Mono.empty();
+    }
+
+    return Mono.fromCallable(() -> {
+          final var directory = this.snapshotPath.toAbsolutePath().getParent();
+          Files.createDirectories(directory);
+
+          final var temporaryFile = Files.createTempFile(
+              directory, this.snapshotPath.getFileName().toString(), ".tmp");
+          try {
+            this.writer.writeValue(temporaryFile.toFile(), registryData);
+            return Files.move(temporaryFile, this.snapshotPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          } finally {
+            Files.deleteIfExists(temporaryFile);
+          }
+        })
+        .subscribeOn(Schedulers.boundedElastic())
+        .doOnNext(path -> log.info("Saved local registry snapshot to {}", path))
+        .then();
+  }
+}
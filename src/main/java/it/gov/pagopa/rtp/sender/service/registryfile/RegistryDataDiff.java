@@ -0,0 +1,109 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Differences between two versions of the registry, expressed as the typed events to publish.
+ * <p>
+ * Technical service providers are compared by ID among those referenced by at least one service
+ * provider, since unreferenced ones are never called.
+ * </p>
+ *
+ * @param serviceProviderChanges          added, removed and changed service providers
+ * @param technicalServiceProviderChanges added, removed and changed technical service providers
+ */
+public record RegistryDataDiff(
+    List<ServiceProviderChangedEvent> serviceProviderChanges,
+    List<TechnicalServiceProviderChangedEvent> technicalServiceProviderChanges
+) {
+
+  public RegistryDataDiff {
+    serviceProviderChanges = List.copyOf(serviceProviderChanges);
+    technicalServiceProviderChanges = List.copyOf(technicalServiceProviderChanges);
+  }
+
+
+  /**
+   * Computes the differences between two registry snapshots.
+   *
+   * @param previous the snapshot before the reload
+   * @param current  the snapshot after the reload
+   * @return the {@link RegistryDataDiff}
+   */
+  @NonNull
+  public static RegistryDataDiff between(
+      @NonNull final RegistrySnapshot previous,
+      @NonNull final RegistrySnapshot current) {
+
+    final var previousServiceProviders = previous.serviceProvidersById();
+    final var currentServiceProviders = current.serviceProvidersById();
+
+    final var serviceProviderChanges = new ArrayList<ServiceProviderChangedEvent>();
+    unionOfKeys(previousServiceProviders, currentServiceProviders).forEach(id -> {
+      final var before = previousServiceProviders.get(id);
+      final var after = currentServiceProviders.get(id);
+      if (!Objects.equals(before, after)) {
+        serviceProviderChanges.add(new ServiceProviderChangedEvent(id, before, after));
+      }
+    });
+
+    final var previousTsps = technicalServiceProvidersById(previousServiceProviders);
+    final var currentTsps = technicalServiceProvidersById(currentServiceProviders);
+
+    final var technicalServiceProviderChanges = new ArrayList<TechnicalServiceProviderChangedEvent>();
+    unionOfKeys(previousTsps, currentTsps).forEach(id -> {
+      final var before = previousTsps.get(id);
+      final var after = currentTsps.get(id);
+      final var changes = TechnicalServiceProviderChangedEvent.between(before, after);
+      if (!changes.isEmpty()) {
+        technicalServiceProviderChanges.add(
+            new TechnicalServiceProviderChangedEvent(id, before, after, changes));
+      }
+    });
+
+    return new RegistryDataDiff(serviceProviderChanges, technicalServiceProviderChanges);
+  }
+
+
+  /**
+   * @return whether the two versions of the registry are equivalent
+   */
+  public boolean isEmpty() {
+    return this.serviceProviderChanges.isEmpty() && this.technicalServiceProviderChanges.isEmpty();
+  }
+
+
+  @NonNull
+  private static Set<String> unionOfKeys(
+      @NonNull final Map<String, ?> first,
+      @NonNull final Map<String, ?> second) {
+
+    final var keys = new HashSet<String>(first.keySet());
+    keys.addAll(second.keySet());
+    return keys;
+  }
+
+
+  @NonNull
+  private static Map<String, TechnicalServiceProvider> technicalServiceProvidersById(
+      @NonNull final Map<String, ServiceProviderFullData> serviceProviders) {
+
+    final var technicalServiceProviders = new HashMap<String, TechnicalServiceProvider>();
+    serviceProviders.values().stream()
+        .map(ServiceProviderFullData::tsp)
+        .filter(Objects::nonNull)
+        .forEach(tsp -> technicalServiceProviders.put(tsp.id(), tsp));
+    return technicalServiceProviders;
+  }
+}
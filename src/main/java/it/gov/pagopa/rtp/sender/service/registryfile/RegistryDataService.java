@@ -1,5 +1,6 @@
 package it.gov.pagopa.rtp.sender.service.registryfile;
 
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import java.util.Map;
 
@@ -15,6 +16,14 @@ import reactor.core.publisher.Mono;
  */
 public interface RegistryDataService {
 
+  /**
+   * Retrieves the current registry snapshot. All the views it exposes are built from the same
+   * version of the registry.
+   *
+   * @return a {@link Mono} emitting the current {@link RegistrySnapshot}
+   */
+  Mono<RegistrySnapshot> getRegistrySnapshot();
+
   /**
    * Retrieves the full registry data as a mapping from service provider IDs to enriched
    * service provider information.
@@ -1,21 +1,27 @@
 package it.gov.pagopa.rtp.sender.service.registryfile;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aot.hint.annotation.RegisterReflection;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import it.gov.pagopa.rtp.sender.configuration.RegistryDataProperties;
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.integration.blobstorage.BlobStorageClient;
 import it.gov.pagopa.rtp.sender.integration.blobstorage.ServiceProviderDataResponse;
 import it.gov.pagopa.rtp.sender.utils.ExceptionUtils;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
@@ -23,16 +29,28 @@ import reactor.core.publisher.Mono;
  * Implementation of {@link RegistryDataService} responsible for retrieving and transforming
  * registry data for service providers and their associated technical service providers.
  * <p>
- * This service loads raw registry data from Azure Blob Storage, processes it into structured
- * formats, and caches the results to improve performance.
+ * This service loads raw registry data from Azure Blob Storage and processes it into an
+ * immutable in-memory {@link RegistrySnapshot} holding the full registry mapping, the service
+ * providers indexed by PSP tax code and the certificate serial numbers indexed by BIC, all built
+ * from a single download and published atomically. The snapshot is loaded at startup and
+ * refreshed in background every {@code registry-data.refresh-interval}, so that callers are
+ * served from memory and never wait on blob I/O. If a refresh fails, or its download takes longer
+ * than {@code registry-data.download-timeout}, the previous snapshot keeps being served.
  * </p>
  *
  * <p>
- * Uses Spring Cache abstraction to cache results:
- * <ul>
- *   <li><code>registry-data</code>: full registry mapping</li>
- *   <li><code>service-providers-by-psp-tax-code</code>: service providers indexed by PSP tax code</li>
- * </ul>
+ * Every new or changed registry is also persisted through a {@link RegistrySnapshotStore}, and the
+ * persisted copy is restored at startup, so that a restarted instance serves registry data
+ * immediately and keeps working through short storage outages while the blob is reconciled in
+ * background. Only while no snapshot is available at all, callers trigger the load themselves;
+ * concurrent callers share a single download.
+ * </p>
+ *
+ * <p>
+ * Whenever a reload produces registry data different from the previous load, a
+ * {@link ServiceProviderChangedEvent} or {@link TechnicalServiceProviderChangedEvent} is published
+ * for each affected entry, so that dependent
+ * components can drop only the stale state.
  * </p>
  */
 @Service("registryDataService")
@@ -41,6 +59,11 @@ import reactor.core.publisher.Mono;
 public class RegistryDataServiceImpl implements RegistryDataService {
 
   private final BlobStorageClient blobStorageClient;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RegistrySnapshotStore snapshotStore;
+  private final RegistryDataProperties registryDataProperties;
+  private final AtomicReference<RegistrySnapshot> snapshot = new AtomicReference<>();
+  private final Mono<RegistrySnapshot> snapshotLoad;
 
 
   /**
@@ -48,73 +71,155 @@ public class RegistryDataServiceImpl implements RegistryDataService {
    *
    * @param blobStorageClient the client used to fetch raw registry data from Azure Blob Storage.
    *                          Must not be null.
+   * @param eventPublisher    the publisher used to notify registry changes. Must not be null.
+   * @param snapshotStore     the local copy of the last loaded registry. Must not be null.
+   * @param registryDataProperties the registry configuration, providing the download timeout.
+   *                          Must not be null.
    */
   public RegistryDataServiceImpl(
-      @NonNull final BlobStorageClient blobStorageClient) {
+      @NonNull final BlobStorageClient blobStorageClient,
+      @NonNull final ApplicationEventPublisher eventPublisher,
+      @NonNull final RegistrySnapshotStore snapshotStore,
+      @NonNull final RegistryDataProperties registryDataProperties) {
 
     this.blobStorageClient = Objects.requireNonNull(
         blobStorageClient, "Blob storage client cannot be null");
+    this.eventPublisher = Objects.requireNonNull(
+        eventPublisher, "Event publisher cannot be null");
+    this.snapshotStore = Objects.requireNonNull(
+        snapshotStore, "Snapshot store cannot be null");
+    this.registryDataProperties = Objects.requireNonNull(
+        registryDataProperties, "Registry data properties cannot be null");
+
+    this.snapshotLoad = Mono.defer(this::loadSnapshot)
+        .cache(
+            loaded -> Duration.ZERO,
+            error -> Duration.ZERO,
+            () -> Duration.ZERO);
+  }
+
+
+  /**
+   * Retrieves the current registry snapshot.
+   *
+   * @return a {@link Mono} emitting the current {@link RegistrySnapshot}.
+   */
+  @Override
+  @NonNull
+  public Mono<RegistrySnapshot> getRegistrySnapshot() {
+    return Mono.fromSupplier(this.snapshot::get)
+        .switchIfEmpty(this.snapshotLoad);
   }
 
 
   /**
-   * Retrieves and transforms the full registry data, mapping each {@link ServiceProvider} ID
-   * to a {@link ServiceProviderFullData} object enriched with its corresponding
+   * Retrieves the full registry data, mapping each {@link ServiceProvider} ID to a
+   * {@link ServiceProviderFullData} object enriched with its corresponding
    * {@link TechnicalServiceProvider}.
    * <p>
-   * Result is cached under the key {@code registry-data}.
+   * Result is served from the current registry snapshot.
    * </p>
    *
    * @return a {@link Mono} emitting a map of service provider ID to full registry data.
    */
   @Override
   @NonNull
-  @Cacheable("registry-data")
   public Mono<Map<String, ServiceProviderFullData>> getRegistryData() {
-    return this.getRawRegistryData()
-        .flatMap(this::transformRegistryFileData)
-        .onErrorMap(ExceptionUtils::gracefullyHandleError)
-        .doOnSuccess(data -> log.info("Successfully transformed registry data"))
-        .doOnError(error -> log.error("Error retrieving registry data: {}", error.getMessage(), error));
+    return this.getRegistrySnapshot()
+        .map(RegistrySnapshot::serviceProvidersById);
   }
 
 
   /**
    * Retrieves the service providers from the registry data and maps them by PSP tax code.
    * <p>
-   * Result is cached under the key {@code service-providers-by-psp-tax-code}.
+   * Result is served from the current registry snapshot.
    * </p>
    *
    * @return a {@link Mono} emitting a map of PSP tax code to {@link ServiceProvider}.
    */
   @Override
   @NonNull
-  @Cacheable("service-providers-by-psp-tax-code")
   public Mono<Map<String, ServiceProvider>> getServiceProvidersByPspTaxCode() {
-    return this.getRawRegistryData()
+    return this.getRegistrySnapshot()
         .doFirst(() -> log.debug("Retrieving service provider data map by PSP tax code"))
+        .map(RegistrySnapshot::serviceProvidersByPspTaxCode);
+  }
 
-        .map(ServiceProviderDataResponse::sps)
-        .flatMapMany(Flux::fromIterable)
-        .collectMap(ServiceProvider::pspTaxCode, Function.identity())
 
+  /**
+   * Periodically reloads the registry snapshot from Azure Blob Storage. The first run happens at
+   * startup, so that the snapshot is ready before the first request. Failures are logged and the
+   * previous snapshot is kept.
+   *
+   * @return a {@link Mono} completing when the refresh is over.
+   */
+  @NonNull
+  @Scheduled(fixedDelayString = "${registry-data.refresh-interval:PT5M}")
+  public Mono<Void> refreshRegistryData() {
+    return this.snapshotLoad
+        .doOnError(error -> log.error(
+            "Error refreshing registry data, keeping the current snapshot: {}", error.getMessage()))
+        .onErrorComplete()
+        .then();
+  }
+
+
+  /**
+   * Restores the registry snapshot persisted by a previous run, unless a snapshot has already
+   * been loaded from Blob Storage. Failures are logged and the snapshot is then loaded from Blob
+   * Storage only.
+   */
+  @EventListener(ApplicationStartedEvent.class)
+  public void restoreLocalSnapshot() {
+    this.snapshotStore.load()
+        .map(this::transformRegistryFileData)
+        .filter(local -> this.snapshot.compareAndSet(null, local))
+        .doOnNext(local -> log.info("Serving registry data from the local snapshot"))
+        .doOnError(error -> log.warn(
+            "Couldn't restore the local registry snapshot: {}", error.getMessage()))
+        .onErrorComplete()
+        .block();
+  }
+
+
+  /**
+   * Downloads the raw registry data and builds a new snapshot from it. New or changed registries
+   * are persisted locally. If the blob has not changed since the last download, the current
+   * snapshot is kept as is, without rebuilding, comparing or persisting it.
+   *
+   * @return a {@link Mono} emitting the freshly loaded {@link RegistrySnapshot}.
+   */
+  @NonNull
+  private Mono<RegistrySnapshot> loadSnapshot() {
+    return this.getRawRegistryData()
+        .flatMap(rawData -> {
+          final var loaded = this.transformRegistryFileData(rawData);
+
+          return this.publishChangeIfAny(loaded)
+              ? this.persistLocally(rawData).thenReturn(loaded)
+              : Mono.just(loaded);
+        })
+        .switchIfEmpty(Mono.fromSupplier(this.snapshot::get)
+            .doOnNext(current -> log.debug("Registry data not modified, keeping the current snapshot")))
         .onErrorMap(ExceptionUtils::gracefullyHandleError)
-        .doOnSuccess(serviceProvidersMap ->
-            log.info("Successfully retrieved service provider data map by PSP tax code"))
-        .doOnError(error ->
-            log.error("Error retrieving service provider data: {}", error.getMessage(), error));
+        .doOnSuccess(data -> log.info("Successfully transformed registry data"))
+        .doOnError(error -> log.error("Error retrieving registry data: {}", error.getMessage(), error));
   }
 
 
   /**
-   * Fetches the raw registry data from Azure Blob Storage.
+   * Fetches the raw registry data from Azure Blob Storage, failing with a
+   * {@link java.util.concurrent.TimeoutException} if it takes longer than the download timeout.
    *
-   * @return a {@link Mono} emitting the raw {@link ServiceProviderDataResponse}.
+   * @return a {@link Mono} emitting the raw {@link ServiceProviderDataResponse}, or empty if it has
+   *     not changed since the last download.
    */
   @NonNull
   private Mono<ServiceProviderDataResponse> getRawRegistryData() {
     return this.blobStorageClient.getServiceProviderData()
         .doFirst(() -> log.info("Starting getServiceProviderData"))
+        .timeout(this.registryDataProperties.downloadTimeout())
         .onErrorMap(ExceptionUtils::gracefullyHandleError)
         .doOnNext(rawData -> log.debug("Successfully retrieved registry raw data"))
         .doOnError(error -> log.error("Error retrieving registry data: {}", error.getMessage()));
@@ -122,35 +227,97 @@ public class RegistryDataServiceImpl implements RegistryDataService {
 
 
   /**
-   * Transforms the raw registry data by mapping each service provider ID to a full data object
-   * that includes both the service provider and its corresponding technical service provider.
+   * Stores the freshly loaded snapshot and publishes the change events if its registry data
+   * differs from the previously loaded one. The very first load is not
+   * considered a change.
+   *
+   * @param loaded the freshly loaded snapshot
+   * @return whether the snapshot is the first one or differs from the previous one
+   */
+  private boolean publishChangeIfAny(@NonNull final RegistrySnapshot loaded) {
+    final var previous = this.snapshot.getAndSet(loaded);
+
+    if (previous != null) {
+      this.publishDiff(RegistryDataDiff.between(previous, loaded));
+    }
+
+    return !loaded.equals(previous);
+  }
+
+
+  /**
+   * Publishes one typed event for every added, removed or changed service provider and technical
+   * service provider, if anything changed.
+   *
+   * @param diff the differences with the previous snapshot
+   */
+  private void publishDiff(@NonNull final RegistryDataDiff diff) {
+
+    if (diff.isEmpty()) {
+      return;
+    }
+
+    log.info("Registry data changed ({} service providers, {} technical service providers), "
+            + "publishing change events",
+        diff.serviceProviderChanges().size(), diff.technicalServiceProviderChanges().size());
+
+    diff.technicalServiceProviderChanges().forEach(this.eventPublisher::publishEvent);
+    diff.serviceProviderChanges().forEach(this.eventPublisher::publishEvent);
+  }
+
+
+  /**
+   * Persists the raw registry data locally. Failures are logged and do not affect the refresh.
+   *
+   * @param rawData the raw registry data
+   * @return a {@link Mono} completing when the data has been persisted
+   */
+  @NonNull
+  private Mono<Void> persistLocally(@NonNull final ServiceProviderDataResponse rawData) {
+    return this.snapshotStore.save(rawData)
+        .doOnError(error -> log.warn(
+            "Couldn't persist the local registry snapshot: {}", error.getMessage()))
+        .onErrorComplete();
+  }
+
+
+  /**
+   * Transforms the raw registry data into a {@link RegistrySnapshot}, in a single pass over the
+   * technical service providers and a single pass over the service providers. Each service
+   * provider ID is mapped to a full data object that includes both the service provider and its
+   * corresponding technical service provider.
    *
    * @param serviceProviderDataResponse the raw registry data
-   * @return a {@link Mono} emitting a map of service provider ID to {@link ServiceProviderFullData}
+   * @return the {@link RegistrySnapshot}
    */
   @NonNull
-  private Mono<Map<String, ServiceProviderFullData>> transformRegistryFileData(
+  private RegistrySnapshot transformRegistryFileData(
       @NonNull final ServiceProviderDataResponse serviceProviderDataResponse) {
 
-    return Mono.just(serviceProviderDataResponse)
-        .doOnNext(rawData -> log.debug("Transforming registry data"))
-        .flatMap(data -> {
-          final var technicalServiceProviderMap = Flux.fromIterable(data.tsps())
-              .collectMap(TechnicalServiceProvider::id);
-
-          return technicalServiceProviderMap.flatMap(
-              tspMap ->
-                  Flux.fromIterable(data.sps())
-                      .collectMap(
-                          ServiceProvider::id,
-                          sp -> new ServiceProviderFullData(
-                              sp.id(),
-                              sp.name(),
-                              sp.pspTaxCode(),
-                              tspMap.get(sp.tspId())
-                          )
-                      ));
-        });
+    log.debug("Transforming registry data");
+
+    final var technicalServiceProviders = new HashMap<String, TechnicalServiceProvider>();
+    serviceProviderDataResponse.tsps()
+        .forEach(tsp -> technicalServiceProviders.put(tsp.id(), tsp));
+
+    final var serviceProvidersById = new HashMap<String, ServiceProviderFullData>();
+    final var serviceProvidersByPspTaxCode = new HashMap<String, ServiceProvider>();
+    final var certificateSerialNumbersByBic = new HashMap<String, String>();
+
+    serviceProviderDataResponse.sps().forEach(sp -> {
+      final var tsp = technicalServiceProviders.get(sp.tspId());
+
+      serviceProvidersById.put(sp.id(),
+          new ServiceProviderFullData(sp.id(), sp.name(), sp.pspTaxCode(), tsp));
+      serviceProvidersByPspTaxCode.put(sp.pspTaxCode(), sp);
+
+      if (tsp != null && tsp.certificateSerialNumber() != null) {
+        certificateSerialNumbersByBic.put(sp.id(), tsp.certificateSerialNumber());
+      }
+    });
+
+    return new RegistrySnapshot(
+        serviceProvidersById, serviceProvidersByPspTaxCode, certificateSerialNumbersByBic);
   }
 
 }
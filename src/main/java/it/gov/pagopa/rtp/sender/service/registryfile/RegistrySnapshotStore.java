@@ -0,0 +1,27 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import it.gov.pagopa.rtp.sender.integration.blobstorage.ServiceProviderDataResponse;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Local copy of the last validated registry, used to serve registry data at startup without
+ * waiting for Blob Storage.
+ */
+public interface RegistrySnapshotStore {
+
+  /**
+   * Loads the last persisted registry.
+   *
+   * @return a {@link Mono} emitting the persisted registry, or empty if none is available
+   */
+  Mono<ServiceProviderDataResponse> load();
+
+  /**
+   * Persists the given registry, replacing the previous one.
+   *
+   * @param registryData the registry to persist
+   * @return a {@link Mono} completing when the registry has been persisted
+   */
+  Mono<Void> save(ServiceProviderDataResponse registryData);
+}
@@ -0,0 +1,55 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
+import java.util.Optional;
+
+
+/**
+ * Application event published for every service provider added, removed or changed by a registry
+ * reload, including changes of the technical service provider serving it.
+ * <p>
+ * Components that cache state per service provider (e.g. circuit breakers) can listen to this
+ * event to evict only the entries affected by the change.
+ * </p>
+ *
+ * @param serviceProviderId the ID of the service provider
+ * @param previous          the provider before the reload, {@code null} if it has been added
+ * @param current           the provider after the reload, {@code null} if it has been removed
+ */
+public record ServiceProviderChangedEvent(
+    String serviceProviderId,
+    ServiceProviderFullData previous,
+    ServiceProviderFullData current
+) {
+
+  /**
+   * @return whether the provider has been removed from the registry
+   */
+  public boolean removed() {
+    return this.current == null;
+  }
+
+
+  /**
+   * @return whether the provider is now reached at a different endpoint or with different
+   *     transport settings than before
+   */
+  public boolean connectionChanged() {
+    final var changes = TechnicalServiceProviderChangedEvent.between(
+        tspOf(this.previous), tspOf(this.current));
+
+    return changes.contains(Change.ADDED)
+        || changes.contains(Change.REMOVED)
+        || changes.contains(Change.ENDPOINT_CHANGED)
+        || changes.contains(Change.TRANSPORT_CHANGED);
+  }
+
+
+  private static TechnicalServiceProvider tspOf(final ServiceProviderFullData serviceProvider) {
+    return Optional.ofNullable(serviceProvider)
+        .map(ServiceProviderFullData::tsp)
+        .orElse(null);
+  }
+}
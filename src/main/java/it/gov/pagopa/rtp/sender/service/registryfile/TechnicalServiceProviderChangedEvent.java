@@ -0,0 +1,100 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Application event published for every technical service provider added, removed or changed
+ * by a registry reload.
+ * <p>
+ * Components that cache state per technical service provider (e.g. pooled HTTP clients or
+ * OAuth2 tokens) can listen to this event to evict only the entries affected by the change.
+ * </p>
+ *
+ * @param tspId    the ID of the technical service provider
+ * @param previous the provider before the reload, {@code null} if it has been added
+ * @param current  the provider after the reload, {@code null} if it has been removed
+ * @param changes  what changed
+ */
+public record TechnicalServiceProviderChangedEvent(
+    String tspId,
+    TechnicalServiceProvider previous,
+    TechnicalServiceProvider current,
+    Set<Change> changes
+) {
+
+  /**
+   * The kind of change of a technical service provider.
+   */
+  public enum Change {
+    ADDED,
+    REMOVED,
+    CERTIFICATE_ROTATED,
+    ENDPOINT_CHANGED,
+    OAUTH2_CHANGED,
+    TRANSPORT_CHANGED,
+    DETAILS_CHANGED
+  }
+
+  public TechnicalServiceProviderChangedEvent {
+    changes = Set.copyOf(Objects.requireNonNull(changes));
+  }
+
+
+  /**
+   * Computes the changes between two versions of the same technical service provider.
+   *
+   * @param previous the provider before the reload, {@code null} if it has been added
+   * @param current  the provider after the reload, {@code null} if it has been removed
+   * @return the changes, empty if the provider did not change
+   */
+  @NonNull
+  public static Set<Change> between(
+      final TechnicalServiceProvider previous,
+      final TechnicalServiceProvider current) {
+
+    if (previous == null && current == null) {
+      return Set.of();
+    }
+    if (previous == null) {
+      return Set.of(Change.ADDED);
+    }
+    if (current == null) {
+      return Set.of(Change.REMOVED);
+    }
+
+    final var changes = EnumSet.noneOf(Change.class);
+    if (!Objects.equals(previous.certificateSerialNumber(), current.certificateSerialNumber())) {
+      changes.add(Change.CERTIFICATE_ROTATED);
+    }
+    if (!Objects.equals(previous.serviceEndpoint(), current.serviceEndpoint())) {
+      changes.add(Change.ENDPOINT_CHANGED);
+    }
+    if (!Objects.equals(previous.oauth2(), current.oauth2())) {
+      changes.add(Change.OAUTH2_CHANGED);
+    }
+    if (previous.mtlsEnabled() != current.mtlsEnabled()
+        || !Objects.equals(previous.protocols(), current.protocols())) {
+      changes.add(Change.TRANSPORT_CHANGED);
+    }
+    if (!Objects.equals(previous.name(), current.name())) {
+      changes.add(Change.DETAILS_CHANGED);
+    }
+    return changes;
+  }
+
+
+  /**
+   * @return whether connections towards the previous version of the provider can no longer be
+   *     used, i.e. the provider has been removed or its endpoint or transport settings changed
+   */
+  public boolean connectionChanged() {
+    return this.changes.contains(Change.REMOVED)
+        || this.changes.contains(Change.ENDPOINT_CHANGED)
+        || this.changes.contains(Change.TRANSPORT_CHANGED);
+  }
+}
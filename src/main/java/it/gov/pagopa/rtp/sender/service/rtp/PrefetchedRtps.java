@@ -0,0 +1,94 @@
+package it.gov.pagopa.rtp.sender.service.rtp;
+
+import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * RTPs read in bulk ahead of the processing of a batch of messages, indexed by operation ID.
+ * <p>
+ * When found in the Reactor context under {@link #CONTEXT_KEY},
+ * {@link SendRTPService#findRtpByCompositeKey(Long, String)} serves the RTP from here instead of
+ * reading it. Each RTP is served at most once, so that a second message for the same operation
+ * reads the RTP as updated by the first one.
+ * </p>
+ * <p>
+ * The RTPs are served only within {@code maxAge} from the read: a message processed later, e.g.
+ * behind a slow message in its lane, reads the RTP again, so that it does not overwrite with a
+ * stale copy the changes made meanwhile by other writers. This bounds, without removing, the
+ * window in which such changes can be lost.
+ * </p>
+ */
+public final class PrefetchedRtps {
+
+  public static final String CONTEXT_KEY = "prefetchedRtps";
+
+  private final String eventDispatcher;
+  private final long maxAgeNanos;
+  private final long prefetchedAtNanos = System.nanoTime();
+  private final Map<Long, Rtp> rtpsByOperationId = new ConcurrentHashMap<>();
+
+
+  private PrefetchedRtps(@NonNull final String eventDispatcher, @NonNull final Duration maxAge) {
+    this.eventDispatcher = Objects.requireNonNull(eventDispatcher);
+    this.maxAgeNanos = Objects.requireNonNull(maxAge).toNanos();
+  }
+
+
+  /**
+   * @param eventDispatcher the event dispatcher the RTPs belong to
+   * @param rtps            the prefetched RTPs
+   * @param maxAge          how long after now the RTPs can be served
+   * @return the {@link PrefetchedRtps}
+   */
+  @NonNull
+  public static PrefetchedRtps of(
+      @NonNull final String eventDispatcher,
+      @NonNull final Collection<Rtp> rtps,
+      @NonNull final Duration maxAge) {
+
+    final var prefetched = new PrefetchedRtps(eventDispatcher, maxAge);
+    rtps.stream()
+        .filter(rtp -> rtp.operationId() != null)
+        .forEach(rtp -> prefetched.rtpsByOperationId.putIfAbsent(rtp.operationId(), rtp));
+    return prefetched;
+  }
+
+
+  /**
+   * Removes and returns the prefetched RTP of an operation.
+   *
+   * @param operationId     the operation ID
+   * @param eventDispatcher the event dispatcher
+   * @return the RTP, or empty if it was not prefetched, has already been served or is older than
+   *     the max age
+   */
+  @NonNull
+  public Optional<Rtp> take(@NonNull final Long operationId, @NonNull final String eventDispatcher) {
+    if (!this.eventDispatcher.equals(eventDispatcher)) {
+      return Optional.empty();
+    }
+
+    final var rtp = this.rtpsByOperationId.remove(operationId);
+    return this.isExpired() ? Optional.empty() : Optional.ofNullable(rtp);
+  }
+
+
+  private boolean isExpired() {
+    return System.nanoTime() - this.prefetchedAtNanos >= this.maxAgeNanos;
+  }
+
+
+  /**
+   * @return the number of RTPs not served yet
+   */
+  public int size() {
+    return this.rtpsByOperationId.size();
+  }
+}
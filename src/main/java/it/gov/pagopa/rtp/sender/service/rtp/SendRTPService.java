@@ -5,6 +5,7 @@ import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 public interface SendRTPService {
@@ -20,4 +21,6 @@ public interface SendRTPService {
   Flux<Rtp> findRtpsByNoticeNumber(String noticeNumber);
 
   Mono<Rtp> findRtpByCompositeKey(Long operationId, String eventDispatcher);
+
+  Flux<Rtp> findRtpsByCompositeKeys(Collection<Long> operationIds, String eventDispatcher);
 }
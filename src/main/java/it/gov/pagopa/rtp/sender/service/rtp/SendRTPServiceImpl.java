@@ -4,12 +4,11 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import it.gov.pagopa.rtp.sender.activateClient.api.ReadApi;
 import it.gov.pagopa.rtp.sender.activateClient.model.ActivationDto;
-import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
 import it.gov.pagopa.rtp.sender.domain.errors.MessageBadFormed;
 import it.gov.pagopa.rtp.sender.domain.errors.PayerNotActivatedException;
 import it.gov.pagopa.rtp.sender.domain.errors.RtpNotFoundException;
+import it.gov.pagopa.rtp.sender.domain.errors.ServiceProviderNotFoundException;
 import it.gov.pagopa.rtp.sender.domain.rtp.*;
 import it.gov.pagopa.rtp.sender.epcClient.model.ActiveOrHistoricCurrencyAndAmountEPC25922V30DS02WrapperDto;
 import it.gov.pagopa.rtp.sender.epcClient.model.ExternalOrganisationIdentification1CodeEPC25922V30DS022WrapperDto;
@@ -24,8 +23,11 @@ import it.gov.pagopa.rtp.sender.epcClient.model.SepaRequestToPayCancellationRequ
 import it.gov.pagopa.rtp.sender.epcClient.model.SepaRequestToPayRequestResourceDto;
 import it.gov.pagopa.rtp.sender.epcClient.model.SynchronousRequestToPayCancellationResponseDto;
 import it.gov.pagopa.rtp.sender.epcClient.model.SynchronousSepaRequestToPayCreationResponseDto;
+import it.gov.pagopa.rtp.sender.service.activation.ActivationLookup;
+import it.gov.pagopa.rtp.sender.service.rtp.handler.EpcHedgingPolicy;
 import it.gov.pagopa.rtp.sender.service.rtp.handler.SendRtpProcessor;
 import it.gov.pagopa.rtp.sender.utils.LoggingUtils;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
@@ -55,20 +57,19 @@ import reactor.core.publisher.Mono;
 public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
 
   private final SepaRequestToPayMapper sepaRequestToPayMapper;
-  private final ReadApi activationApi;
+  private final ActivationLookup activationLookup;
   private final ObjectMapper objectMapper;
-  private final ServiceProviderConfig serviceProviderConfig;
   private final RtpRepository rtpRepository;
   private final SendRtpProcessor sendRtpProcessor;
   private final RtpStatusUpdater rtpStatusUpdater;
 
-  public SendRTPServiceImpl(SepaRequestToPayMapper sepaRequestToPayMapper, ReadApi activationApi,
-                            ServiceProviderConfig serviceProviderConfig, RtpRepository rtpRepository,
+  public SendRTPServiceImpl(SepaRequestToPayMapper sepaRequestToPayMapper,
+                            ActivationLookup activationLookup,
+                            RtpRepository rtpRepository,
                             ObjectMapper objectMapper, SendRtpProcessor sendRtpProcessor,
                             RtpStatusUpdater rtpStatusUpdater) {
     this.sepaRequestToPayMapper = sepaRequestToPayMapper;
-    this.activationApi = activationApi;
-    this.serviceProviderConfig = serviceProviderConfig;
+    this.activationLookup = activationLookup;
     this.rtpRepository = rtpRepository;
     this.objectMapper = objectMapper;
     this.sendRtpProcessor = sendRtpProcessor;
@@ -80,11 +81,9 @@ public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
   public Mono<Rtp> send(@NonNull final Rtp rtp) {
     Objects.requireNonNull(rtp, "Rtp cannot be null");
 
-    final var activationData = activationApi.findActivationByPayerId(UUID.randomUUID(),
-            rtp.payerId(),
-            serviceProviderConfig.activation().apiVersion())
+    final var activationData = activationLookup.findActivationByPayerId(rtp.payerId())
         .doFirst(() -> log.info("Finding activation data for resourceId: {}", rtp.resourceID().getId()))
-        .doOnSuccess(act -> log.info("Activation data found for the requested payerId"))
+        .doOnNext(act -> log.info("Activation data found for the requested payerId"))
         .doOnError(
             error -> log.error("Error finding activation data with resourceId: {}", rtp.resourceID().getId(),
                 error))
@@ -103,6 +102,10 @@ public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
             error -> log.error("Error saving Rtp to be sent: {}", error.getMessage(), error));
 
     return rtpToSend.flatMap(this.sendRtpProcessor::sendRtpToServiceProviderDebtor)
+        .doOnError(ServiceProviderNotFoundException.class, error -> {
+          log.warn("Service provider of the activation not found, invalidating the cached activation");
+          this.activationLookup.invalidate(rtp.payerId());
+        })
         .onErrorMap(WebClientResponseException.class, this::mapExternalSendResponseToException)
         .switchIfEmpty(Mono.error(new PayerNotActivatedException()));
   }
@@ -181,7 +184,10 @@ public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
   public Mono<Rtp> findRtpByCompositeKey(@NonNull final Long operationId,
                                          @NonNull final String eventDispatcher) {
 
-    return rtpRepository.findByOperationIdAndEventDispatcher(operationId, eventDispatcher)
+    return Mono.deferContextual(ctx -> ctx.<PrefetchedRtps>getOrEmpty(PrefetchedRtps.CONTEXT_KEY)
+                .flatMap(prefetched -> prefetched.take(operationId, eventDispatcher))
+                .map(Mono::just)
+                .orElseGet(() -> rtpRepository.findByOperationIdAndEventDispatcher(operationId, eventDispatcher)))
             .doFirst(()->log.info("Attempting to find RTP by composite key: operationId={}, eventDispatcher={}",
                     operationId, eventDispatcher))
             .doOnNext(rtp -> log.info("Successfully found RTP with id: {}", rtp.resourceID().getId()))
@@ -189,6 +195,17 @@ public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
   }
 
 
+  @NonNull
+  @Override
+  public Flux<Rtp> findRtpsByCompositeKeys(@NonNull final Collection<Long> operationIds,
+                                           @NonNull final String eventDispatcher) {
+
+    return rtpRepository.findByOperationIdsAndEventDispatcher(operationIds, eventDispatcher)
+            .doFirst(() -> log.info("Attempting to find RTPs by composite keys: {} operationIds, eventDispatcher={}",
+                    operationIds.size(), eventDispatcher));
+  }
+
+
   @Override
   @NonNull
   public Mono<Rtp> updateRtpPaid(@NonNull final Rtp rtp) {
@@ -206,7 +223,8 @@ public class SendRTPServiceImpl implements SendRTPService, UpdateRtpService {
   public Mono<Rtp> updateRtpCancelPaid(@NonNull final Rtp rtp) {
     return Mono.just(rtp)
         .doFirst(() -> log.info("Cancelling RTP with id: {}", rtp.resourceID().getId()))
-        .flatMap(this::cancelRtp)
+        .flatMap(rtpToCancel -> this.cancelRtp(rtpToCancel)
+            .contextWrite(EpcHedgingPolicy.withHedging()))
         .doOnNext(cancelledRtp -> log.info("Successfully cancelled RTP with id: {}", rtp.resourceID().getId()))
 
         .doOnNext(cancelledRtp -> log.info("Updating cancelled paid RTP with id: {}", rtp.resourceID().getId()))
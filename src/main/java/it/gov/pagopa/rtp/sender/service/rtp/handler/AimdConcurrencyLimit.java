@@ -0,0 +1,182 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+
+/**
+ * Adaptive concurrency limit of a single debtor service provider, following an
+ * additive-increase/multiplicative-decrease (AIMD) strategy.
+ * <p>
+ * Callers acquire a permit before calling the provider and release it with the observed outcome.
+ * Timely successful exchanges made while at least half of the limit is in use raise the limit by
+ * one; failed or slow exchanges shrink it by {@code backoffRatio}. Callers exceeding the limit wait
+ * in a bounded FIFO queue and are admitted as permits are released.
+ * </p>
+ */
+final class AimdConcurrencyLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyThresholdNanos;
+  private final int maxQueueSize;
+
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+
+
+  AimdConcurrencyLimit(
+      final int initialLimit,
+      final int minLimit,
+      final int maxLimit,
+      final double backoffRatio,
+      @NonNull final Duration latencyThreshold,
+      final int maxQueueSize) {
+
+    this.minLimit = minLimit;
+    this.maxLimit = Math.max(minLimit, maxLimit);
+    this.backoffRatio = backoffRatio;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.maxQueueSize = maxQueueSize;
+    this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+  }
+
+
+  /**
+   * Acquires a permit, waiting in the queue if the limit is reached. Cancelling the returned
+   * {@link Mono} gives the permit back, whether or not it was already granted.
+   *
+   * @return a {@link Mono} completing once the permit is granted, or failing with a
+   *     {@link TspCallNotPermittedException} if the queue is full
+   */
+  @NonNull
+  Mono<Void> acquire() {
+    return Mono.create(sink -> {
+      final var waiter = new Waiter(sink);
+      sink.onCancel(() -> this.cancel(waiter));
+
+      final boolean granted;
+      synchronized (this) {
+        if (this.waiters.isEmpty() && this.inFlight < this.currentLimit()) {
+          this.inFlight++;
+          waiter.granted = true;
+          granted = true;
+        } else if (this.waiters.size() >= this.maxQueueSize) {
+          granted = false;
+        } else {
+          this.waiters.addLast(waiter);
+          return;
+        }
+      }
+
+      if (granted) {
+        sink.success();
+      } else {
+        sink.error(new TspCallNotPermittedException("Concurrency limit queue full"));
+      }
+    });
+  }
+
+
+  /**
+   * Releases a permit, adjusting the limit with the outcome of the exchange.
+   *
+   * @param latencyNanos the observed latency of the exchange
+   * @param dropped      whether the exchange failed
+   */
+  void release(final long latencyNanos, final boolean dropped) {
+    final List<Waiter> admitted;
+    synchronized (this) {
+      if (dropped || latencyNanos > this.latencyThresholdNanos) {
+        this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+      } else if (this.inFlight * 2 >= this.currentLimit()) {
+        this.limit = Math.min(this.maxLimit, this.limit + 1);
+      }
+      this.inFlight--;
+      admitted = this.admitWaiters();
+    }
+    admitted.forEach(waiter -> waiter.sink.success());
+  }
+
+
+  /**
+   * Releases a permit without adjusting the limit, for exchanges that ended without an outcome.
+   */
+  void release() {
+    final List<Waiter> admitted;
+    synchronized (this) {
+      this.inFlight--;
+      admitted = this.admitWaiters();
+    }
+    admitted.forEach(waiter -> waiter.sink.success());
+  }
+
+
+  /**
+   * @return the current limit
+   */
+  synchronized int currentLimit() {
+    return Math.max(this.minLimit, (int) this.limit);
+  }
+
+
+  /**
+   * @return the number of permits currently granted
+   */
+  synchronized int inFlight() {
+    return this.inFlight;
+  }
+
+
+  /**
+   * @return the number of callers waiting for a permit
+   */
+  synchronized int queueSize() {
+    return this.waiters.size();
+  }
+
+
+  private void cancel(@NonNull final Waiter waiter) {
+    final boolean granted;
+    synchronized (this) {
+      granted = !this.waiters.remove(waiter) && waiter.granted;
+    }
+    if (granted) {
+      this.release();
+    }
+  }
+
+
+  private List<Waiter> admitWaiters() {
+    final var admitted = new ArrayList<Waiter>();
+    while (!this.waiters.isEmpty() && this.inFlight < this.currentLimit()) {
+      final var waiter = this.waiters.removeFirst();
+      waiter.granted = true;
+      this.inFlight++;
+      admitted.add(waiter);
+    }
+    return admitted;
+  }
+
+
+  /**
+   * A caller waiting for a permit.
+   */
+  private static final class Waiter {
+
+    private final MonoSink<Void> sink;
+    private boolean granted;
+
+    private Waiter(@NonNull final MonoSink<Void> sink) {
+      this.sink = sink;
+    }
+  }
+}
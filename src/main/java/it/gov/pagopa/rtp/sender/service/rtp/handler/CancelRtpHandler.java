@@ -13,11 +13,10 @@ import org.springframework.stereotype.Component;
 
 import it.gov.pagopa.rtp.sender.configuration.OpenAPIClientFactory;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
-import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientRegistry;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
 import it.gov.pagopa.rtp.sender.service.rtp.SepaRequestToPayMapper;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 
 
@@ -32,30 +31,44 @@ import reactor.core.publisher.Mono;
 public class CancelRtpHandler extends EpcApiInvokerHandler implements RequestHandler<EpcRequest> {
 
     private final PagoPaConfigProperties pagoPaConfigProperties;
+    private final EpcHedgingPolicy hedgingPolicy;
   /**
    * Constructs a {@code CancelRtpHandler} with required dependencies.
    *
-   * @param webClientFactory       Factory for creating web clients (with or without mTLS).
+   * @param webClientRegistry      Registry of pooled web clients (with or without mTLS).
    * @param epcClientFactory       Factory for creating API clients for EPC (European Payments
    *                               Council) communication.
    * @param sepaRequestToPayMapper Mapper for converting RTP cancellation requests into EPC-compliant format.
    * @param serviceProviderConfig  Configuration settings for the service provider.
+   * @param tspCallGuard           Circuit breaker and bulkhead guarding the calls to each debtor
+   *                               service provider.
+   * @param retryPolicyFactory     Factory of the retry policy of the EPC calls.
+   * @param concurrencyLimiter     Limiter bounding the concurrent calls to each debtor service
+   *                               provider.
+   * @param hedgingPolicy          Policy hedging the cancellations that request it.
    */
   public CancelRtpHandler(
-      @NonNull final WebClientFactory webClientFactory,
+      @NonNull final WebClientRegistry webClientRegistry,
       @NonNull final OpenAPIClientFactory<DefaultApi> epcClientFactory,
       @NonNull final SepaRequestToPayMapper sepaRequestToPayMapper,
       @NonNull final ServiceProviderConfig serviceProviderConfig,
-      @NonNull final PagoPaConfigProperties pagoPaConfigProperties) {
+      @NonNull final PagoPaConfigProperties pagoPaConfigProperties,
+      @NonNull final TspCallGuard tspCallGuard,
+      @NonNull final EpcRetryPolicyFactory retryPolicyFactory,
+      @NonNull final TspConcurrencyLimiter concurrencyLimiter,
+      @NonNull final EpcHedgingPolicy hedgingPolicy) {
 
-    super(webClientFactory, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig);
+    super(webClientRegistry, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, tspCallGuard,
+        retryPolicyFactory, concurrencyLimiter);
     this.pagoPaConfigProperties = Objects.requireNonNull(pagoPaConfigProperties);
+    this.hedgingPolicy = Objects.requireNonNull(hedgingPolicy);
   }
 
   /**
    * Handles an incoming EPC request by sending an RTP cancellation request to the external service provider.
    * The request follows multiple steps, including creating an EPC API client, setting API credentials,
-   * and handling retries in case of failures.
+   * and handling retries in case of failures. Latency-critical cancellations may be hedged, see
+   * {@link EpcHedgingPolicy}.
    *
    * @param request The EPC request containing RTP cancellation details.
    * @return A {@code Mono} containing the updated EPC request with response data.
@@ -68,20 +81,23 @@ public class CancelRtpHandler extends EpcApiInvokerHandler implements RequestHan
         .flatMap(epcClient -> {
           final var rtpToSend = request.rtpToSend();
           final var sepaRequest = this.sepaRequestToPayMapper.toEpcRequestToCancel(rtpToSend);
-          final var basePath = request.serviceProviderFullData().tsp().serviceEndpoint();
           final var idempotencyKey = IdentifierUtils.generateDeterministicIdempotencyKey(
                   this.pagoPaConfigProperties.operationSlug().cancel(),
                   request.rtpToSend().resourceID().getId()
           );
 
-          epcClient.getApiClient().setBasePath(basePath);
-          this.injectTokenIntoEpcRequest(epcClient, request);
+          final var tokenContext = this.injectTokenIntoEpcContext(request);
 
-          return Mono.defer(() -> epcClient.postRequestToPayCancellationRequest(
+          final var epcCall = Mono.defer(() -> epcClient.postRequestToPayCancellationRequest(
                   idempotencyKey,
                   UUID.randomUUID().toString(),
                   request.rtpToSend().resourceID().getId().toString(),
-                  sepaRequest))
+                  sepaRequest));
+
+          final var debtor = rtpToSend.serviceProviderDebtor();
+
+          return this.hedgingPolicy.hedge(debtor, this.guardedAttempt(debtor, epcCall))
+              .contextWrite(tokenContext)
               .doFirst(() -> log.info("Sending RTP cancellation request to {}", rtpToSend.serviceProviderDebtor()))
               .doOnError(error -> {
                 log.error("Error occurred while cancelling RTP: {}", error);
@@ -91,13 +107,34 @@ public class CancelRtpHandler extends EpcApiInvokerHandler implements RequestHan
         .map(resp -> request.withResponse(TransactionStatus.CNCL))
         .doOnNext(resp -> log.info("Mapping sent RFC to {}", TransactionStatus.CNCL))
         .switchIfEmpty(Mono.just(request))
-        .onErrorResume(IllegalStateException.class, ex -> this.handleRetryError(ex, request))
+        .onErrorResume(TspCallNotPermittedException.class, ex -> this.handleNotPermitted(ex, request))
+        .onErrorResume(ex -> this.handleRetryError(ex, request))
         .doOnNext(resp -> log.info("Response: {}", resp.response()));
   }
 
+
+  /**
+   * Handles a call rejected by the {@link TspCallGuard} because the circuit of the debtor service
+   * provider is open or its bulkhead is full, updating the request with a
+   * {@code TransactionStatus.ERROR} status without contacting the provider.
+   *
+   * @param ex      The {@link TspCallNotPermittedException} raised by the guard
+   * @param request The {@link EpcRequest} that was being processed
+   * @return A {@code Mono<EpcRequest>} containing the updated {@code request}
+   */
+  @NonNull
+  private Mono<EpcRequest> handleNotPermitted(
+      @NonNull final TspCallNotPermittedException ex,
+      @NonNull final EpcRequest request) {
+
+    log.warn("Skipped cancelling RTP to {}: {}", request.rtpToSend().serviceProviderDebtor(), ex.getMessage());
+    return Mono.just(request.withResponse(TransactionStatus.ERROR));
+  }
+
   /**
-   * Handles errors that occur during the retry process of sending an RTP cancellation request. It
-   * distinguishes between different types of errors and returns the appropriate transaction status.
+   * Handles errors that occur when sending an RTP cancellation request, either after exhausting the
+   * retries or straight away for failures that are not retried. It distinguishes between different
+   * types of errors and returns the appropriate transaction status.
    *
    * @param ex The exception thrown during the retry process.
    * @param request The original EPC request.
@@ -106,13 +143,11 @@ public class CancelRtpHandler extends EpcApiInvokerHandler implements RequestHan
    */
   @NonNull
   private Mono<EpcRequest> handleRetryError(
-      @NonNull final IllegalStateException ex, @NonNull final EpcRequest request) {
+      @NonNull final Throwable ex, @NonNull final EpcRequest request) {
 
     log.warn("Handling error upon sending RFC to {}", request.serviceProviderFullData().tsp().serviceEndpoint());
 
-    return Optional.of(ex)
-        .filter(Exceptions::isRetryExhausted)
-        .map(Throwable::getCause)
+    return Optional.of(unwrapRetryExhausted(ex))
         .filter(WebClientResponseException.class::isInstance)
         .map(WebClientResponseException.class::cast)
         .map(WebClientResponseException::getStatusCode)
@@ -0,0 +1,158 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import it.gov.pagopa.rtp.sender.configuration.TspResilienceProperties;
+import it.gov.pagopa.rtp.sender.service.registryfile.ServiceProviderChangedEvent;
+import it.gov.pagopa.rtp.sender.service.rtp.handler.TspCircuitBreaker.Permission;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Default implementation of {@link TspCallGuard}.
+ * <p>
+ * Each debtor service provider gets its own {@link TspCircuitBreaker}, created on first call.
+ * Client errors ({@code 4xx}) prove that the provider is reachable and count as successes; any
+ * other error, timeouts included, counts as a failure. Calls rejected by the bulkhead do not
+ * affect the circuit. The circuit breaker of a service provider is dropped when the provider is
+ * removed from the registry or is now reached at a different endpoint, so that the new endpoint
+ * starts with a closed circuit.
+ * </p>
+ */
+@Component("tspCallGuard")
+@Slf4j
+public class DefaultTspCallGuard implements TspCallGuard {
+
+  private final TspResilienceProperties properties;
+  private final Map<String, TspCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+
+  /**
+   * Constructs a new {@link DefaultTspCallGuard}.
+   *
+   * @param properties the circuit breaker and bulkhead settings
+   * @throws NullPointerException if {@code properties} is {@code null}
+   */
+  public DefaultTspCallGuard(@NonNull final TspResilienceProperties properties) {
+    this.properties = Objects.requireNonNull(properties);
+  }
+
+
+  /**
+   * Drops the circuit breaker of a service provider that has been removed or whose connection
+   * settings changed.
+   *
+   * @param event the service provider change event
+   */
+  @EventListener
+  public void onServiceProviderChanged(@NonNull final ServiceProviderChangedEvent event) {
+    if ((event.removed() || event.connectionChanged())
+        && this.circuitBreakers.remove(event.serviceProviderId()) != null) {
+      log.info("Dropped circuit breaker of service provider {}", event.serviceProviderId());
+    }
+  }
+
+
+  @NonNull
+  @Override
+  public <T> Mono<T> guard(@NonNull final String serviceProviderDebtor, @NonNull final Mono<T> call) {
+    Objects.requireNonNull(serviceProviderDebtor, "Service provider debtor cannot be null");
+    Objects.requireNonNull(call, "Call cannot be null");
+
+    if (!this.properties.enabled()) {
+      return call;
+    }
+
+    return Mono.defer(() -> {
+      final var circuitBreaker = this.circuitBreakers
+          .computeIfAbsent(serviceProviderDebtor, this::createCircuitBreaker);
+
+      final var permission = circuitBreaker.acquirePermission(Instant.now());
+      if (permission == Permission.DENIED) {
+        log.warn("Circuit open for {}, rejecting call", serviceProviderDebtor);
+        return Mono.error(new TspCallNotPermittedException(
+            "Circuit open for service provider " + serviceProviderDebtor));
+      }
+
+      if (!circuitBreaker.tryAcquireSlot()) {
+        circuitBreaker.releasePermission(permission);
+        log.warn("Bulkhead full for {}, rejecting call", serviceProviderDebtor);
+        return Mono.error(new TspCallNotPermittedException(
+            "Too many concurrent calls to service provider " + serviceProviderDebtor));
+      }
+
+      final var outcomeRecorded = new AtomicBoolean();
+
+      return call
+          .doOnSuccess(result -> {
+            if (outcomeRecorded.compareAndSet(false, true)) {
+              circuitBreaker.onSuccess(permission);
+            }
+          })
+          .doOnError(error -> {
+            if (outcomeRecorded.compareAndSet(false, true)) {
+              this.recordError(serviceProviderDebtor, circuitBreaker, permission, error);
+            }
+          })
+          .doFinally(signal -> {
+            if (outcomeRecorded.compareAndSet(false, true)) {
+              circuitBreaker.releasePermission(permission);
+            }
+            circuitBreaker.releaseSlot();
+          });
+    });
+  }
+
+
+  /**
+   * Records a failed call on the circuit, unless the error is a client error.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @param circuitBreaker        the circuit of the provider
+   * @param permission            the permission the call was granted
+   * @param error                 the error raised by the call
+   */
+  private void recordError(
+      @NonNull final String serviceProviderDebtor,
+      @NonNull final TspCircuitBreaker circuitBreaker,
+      @NonNull final Permission permission,
+      @NonNull final Throwable error) {
+
+    if (error instanceof WebClientResponseException responseException
+        && responseException.getStatusCode().is4xxClientError()) {
+      circuitBreaker.onSuccess(permission);
+      return;
+    }
+
+    circuitBreaker.onFailure(permission, Instant.now());
+    if (circuitBreaker.state() == TspCircuitBreaker.State.OPEN) {
+      log.warn("Circuit for {} is open", serviceProviderDebtor);
+    }
+  }
+
+
+  /**
+   * Creates the circuit of a debtor service provider.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @return the new {@link TspCircuitBreaker}
+   */
+  @NonNull
+  private TspCircuitBreaker createCircuitBreaker(@NonNull final String serviceProviderDebtor) {
+    log.debug("Creating circuit breaker for {}", serviceProviderDebtor);
+
+    return new TspCircuitBreaker(
+        this.properties.failureThreshold(),
+        this.properties.openDuration(),
+        this.properties.halfOpenMaxCalls(),
+        this.properties.maxConcurrentCalls());
+  }
+}
@@ -0,0 +1,185 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.gov.pagopa.rtp.sender.configuration.TspConcurrencyLimitProperties;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Default implementation of {@link TspConcurrencyLimiter}, keeping an
+ * {@link AimdConcurrencyLimit} for each debtor service provider.
+ * <p>
+ * For each provider the current limit, the in-flight exchanges and the queued RTPs are exported
+ * as gauges, and the rejected RTPs as a counter, all tagged with the provider identifier.
+ * </p>
+ */
+@Component("tspConcurrencyLimiter")
+@Slf4j
+public class DefaultTspConcurrencyLimiter implements TspConcurrencyLimiter {
+
+  static final String LIMIT_METRIC = "rtp.sender.tsp.concurrency.limit";
+  static final String IN_FLIGHT_METRIC = "rtp.sender.tsp.concurrency.inflight";
+  static final String QUEUE_METRIC = "rtp.sender.tsp.concurrency.queued";
+  static final String REJECTIONS_METRIC = "rtp.sender.tsp.concurrency.rejections";
+  static final String SERVICE_PROVIDER_TAG = "service_provider_debtor";
+
+  private final TspConcurrencyLimitProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, LimitedProvider> providers = new ConcurrentHashMap<>();
+
+
+  /**
+   * Constructs a new {@link DefaultTspConcurrencyLimiter}.
+   *
+   * @param properties    the concurrency limit settings
+   * @param meterRegistry the registry the limiter metrics are exported to
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public DefaultTspConcurrencyLimiter(
+      @NonNull final TspConcurrencyLimitProperties properties,
+      @NonNull final MeterRegistry meterRegistry) {
+
+    this.properties = Objects.requireNonNull(properties);
+    this.meterRegistry = Objects.requireNonNull(meterRegistry);
+  }
+
+
+  @NonNull
+  @Override
+  public <T> Mono<T> limit(
+      @NonNull final String serviceProviderDebtor,
+      @NonNull final Mono<T> exchange,
+      @NonNull final Predicate<? super Throwable> isDropped) {
+
+    Objects.requireNonNull(serviceProviderDebtor, "Service provider debtor cannot be null");
+    Objects.requireNonNull(exchange, "Exchange cannot be null");
+    Objects.requireNonNull(isDropped, "Dropped predicate cannot be null");
+
+    if (!this.properties.enabled()) {
+      return exchange;
+    }
+
+    return Mono.defer(() -> {
+      final var provider = this.providers
+          .computeIfAbsent(serviceProviderDebtor, this::createLimitedProvider);
+
+      return provider.limit().acquire()
+          .timeout(this.properties.acquireTimeout())
+          .onErrorMap(TimeoutException.class, ex -> new TspCallNotPermittedException(
+              "Concurrency limit not acquired in time for service provider " + serviceProviderDebtor))
+          .doOnError(TspCallNotPermittedException.class, ex -> {
+            provider.rejections().increment();
+            log.warn("Rejecting RTP to {}: {}", serviceProviderDebtor, ex.getMessage());
+          })
+          .then(Mono.defer(() -> this.runWithinLimit(provider.limit(), exchange, isDropped)));
+    });
+  }
+
+
+  /**
+   * Runs the exchange while holding a permit, releasing it with the observed outcome. Exchanges
+   * rejected by the {@link TspCallGuard} never reached the provider, so they release the permit
+   * without adjusting the limit.
+   *
+   * @param limit     the limit the permit was acquired from
+   * @param exchange  the exchange to run
+   * @param isDropped tells whether a failure denotes an overloaded provider
+   * @param <T>       the type emitted by the exchange
+   * @return the exchange
+   */
+  @NonNull
+  private <T> Mono<T> runWithinLimit(
+      @NonNull final AimdConcurrencyLimit limit,
+      @NonNull final Mono<T> exchange,
+      @NonNull final Predicate<? super Throwable> isDropped) {
+
+    final var startNanos = System.nanoTime();
+    final var released = new AtomicBoolean();
+
+    return exchange
+        .doOnSuccess(result -> {
+          if (released.compareAndSet(false, true)) {
+            limit.release(System.nanoTime() - startNanos, false);
+          }
+        })
+        .doOnError(error -> {
+          if (!released.compareAndSet(false, true)) {
+            return;
+          }
+
+          if (error instanceof TspCallNotPermittedException) {
+            limit.release();
+          } else {
+            limit.release(System.nanoTime() - startNanos, isDropped.test(error));
+          }
+        })
+        .doFinally(signal -> {
+          if (released.compareAndSet(false, true)) {
+            limit.release();
+          }
+        });
+  }
+
+
+  /**
+   * Creates the limit of a debtor service provider and registers its metrics.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @return the new {@link LimitedProvider}
+   */
+  @NonNull
+  private LimitedProvider createLimitedProvider(@NonNull final String serviceProviderDebtor) {
+    log.debug("Creating concurrency limit for {}", serviceProviderDebtor);
+
+    final var limit = new AimdConcurrencyLimit(
+        this.properties.initialLimit(),
+        this.properties.minLimit(),
+        this.properties.maxLimit(),
+        this.properties.backoffRatio(),
+        this.properties.latencyThreshold(),
+        this.properties.maxQueueSize());
+
+    Gauge.builder(LIMIT_METRIC, limit, AimdConcurrencyLimit::currentLimit)
+        .description("Current concurrency limit towards the debtor service provider")
+        .tag(SERVICE_PROVIDER_TAG, serviceProviderDebtor)
+        .register(this.meterRegistry);
+    Gauge.builder(IN_FLIGHT_METRIC, limit, AimdConcurrencyLimit::inFlight)
+        .description("In-flight exchanges with the debtor service provider")
+        .tag(SERVICE_PROVIDER_TAG, serviceProviderDebtor)
+        .register(this.meterRegistry);
+    Gauge.builder(QUEUE_METRIC, limit, AimdConcurrencyLimit::queueSize)
+        .description("RTPs waiting for the concurrency limit of the debtor service provider")
+        .tag(SERVICE_PROVIDER_TAG, serviceProviderDebtor)
+        .register(this.meterRegistry);
+
+    final var rejections = Counter.builder(REJECTIONS_METRIC)
+        .description("RTPs rejected by the concurrency limit of the debtor service provider")
+        .tag(SERVICE_PROVIDER_TAG, serviceProviderDebtor)
+        .register(this.meterRegistry);
+
+    return new LimitedProvider(limit, rejections);
+  }
+
+
+  /**
+   * The concurrency limit of a debtor service provider together with its rejection counter.
+   *
+   * @param limit      the concurrency limit
+   * @param rejections the counter of rejected RTPs
+   */
+  private record LimitedProvider(
+      AimdConcurrencyLimit limit,
+      Counter rejections
+  ) {}
+}
@@ -1,31 +1,33 @@
 package it.gov.pagopa.rtp.sender.service.rtp.handler;
 
-import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 
+import it.gov.pagopa.rtp.sender.configuration.BearerTokenContextFilter;
 import it.gov.pagopa.rtp.sender.configuration.OpenAPIClientFactory;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
-import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientRegistry;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
 import it.gov.pagopa.rtp.sender.service.rtp.SepaRequestToPayMapper;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
-import reactor.util.retry.RetryBackoffSpec;
+import reactor.util.context.Context;
 
 
 /**
  * Abstract base class for handling EPC API invocations.
  * <p>
  * This class provides common functionalities for interacting with the EPC (European Payments Council)
- * API, including selecting the appropriate web client (mTLS or simple), injecting authentication tokens,
- * and implementing a retry policy for failed requests.
+ * API, including retrieving the pooled web client of the target provider, injecting authentication tokens,
+ * guarding calls with the circuit breaker and bulkhead of the debtor service provider, bounding them
+ * with its adaptive concurrency limit, and implementing a retry policy for failed requests.
  * </p>
  * <p>
  * Subclasses should implement request-specific logic while leveraging the provided helper methods
@@ -35,93 +37,140 @@ import reactor.util.retry.RetryBackoffSpec;
 @Slf4j
 public abstract class EpcApiInvokerHandler implements RequestHandler<EpcRequest> {
 
-  protected final WebClientFactory webClientFactory;
+  protected final WebClientRegistry webClientRegistry;
   protected final OpenAPIClientFactory<DefaultApi> epcClientFactory;
   protected final SepaRequestToPayMapper sepaRequestToPayMapper;
   protected final ServiceProviderConfig serviceProviderConfig;
+  protected final TspCallGuard tspCallGuard;
+  protected final EpcRetryPolicyFactory retryPolicyFactory;
+  protected final TspConcurrencyLimiter concurrencyLimiter;
 
   /**
    * Constructs a {@code EpcApiInvokerHandler} with required dependencies.
    *
-   * @param webClientFactory       Factory for creating web clients (with or without mTLS).
+   * @param webClientRegistry      Registry of pooled web clients (with or without mTLS), one per
+   *                               technical service provider.
    * @param epcClientFactory       Factory for creating API clients for EPC (European Payments
    *                               Council) communication.
    * @param sepaRequestToPayMapper Mapper for converting RTP requests into EPC-compliant format.
    * @param serviceProviderConfig  Configuration settings for the service provider.
+   * @param tspCallGuard           Circuit breaker and bulkhead guarding the calls to each debtor
+   *                               service provider.
+   * @param retryPolicyFactory     Factory of the retry policy of the EPC calls.
+   * @param concurrencyLimiter     Limiter bounding the concurrent calls to each debtor service
+   *                               provider.
    */
-  protected EpcApiInvokerHandler(@NonNull final WebClientFactory webClientFactory,
+  protected EpcApiInvokerHandler(@NonNull final WebClientRegistry webClientRegistry,
       @NonNull final OpenAPIClientFactory<DefaultApi> epcClientFactory,
       @NonNull final SepaRequestToPayMapper sepaRequestToPayMapper,
-      @NonNull final ServiceProviderConfig serviceProviderConfig) {
-    this.webClientFactory = Objects.requireNonNull(webClientFactory);
+      @NonNull final ServiceProviderConfig serviceProviderConfig,
+      @NonNull final TspCallGuard tspCallGuard,
+      @NonNull final EpcRetryPolicyFactory retryPolicyFactory,
+      @NonNull final TspConcurrencyLimiter concurrencyLimiter) {
+    this.webClientRegistry = Objects.requireNonNull(webClientRegistry);
     this.epcClientFactory = Objects.requireNonNull(epcClientFactory);
     this.sepaRequestToPayMapper = Objects.requireNonNull(sepaRequestToPayMapper);
     this.serviceProviderConfig = Objects.requireNonNull(serviceProviderConfig);
+    this.tspCallGuard = Objects.requireNonNull(tspCallGuard);
+    this.retryPolicyFactory = Objects.requireNonNull(retryPolicyFactory);
+    this.concurrencyLimiter = Objects.requireNonNull(concurrencyLimiter);
   }
 
   /**
-   * Creates an EPC API client based on the provided request. Determines whether to use mTLS or a
-   * simple web client based on service provider settings.
+   * Retrieves the EPC API client for the provided request. The underlying web client is taken
+   * from the {@link WebClientRegistry}, which keeps one pooled client (mTLS or simple, depending on
+   * service provider settings) for each technical service provider, and the API client bound to
+   * the service provider endpoint is shared between calls.
    *
    * @param request The EPC request containing service provider details.
-   * @return A {@code Mono} containing the created {@code DefaultApi} client.
+   * @return A {@code Mono} containing the {@code DefaultApi} client.
    */
   @NonNull
   protected Mono<DefaultApi> createEpcClient(@NonNull final EpcRequest request) {
     return Mono.just(request)
-        .filter(this::checkMtlsEnabled)
-        .doOnNext(req -> log.info("Using mTLS for sending RTP to {}",
+        .doOnNext(req -> log.info("Using {} web client for sending RTP to {}",
+            this.checkMtlsEnabled(req) ? "mTLS" : "simple",
             req.rtpToSend().serviceProviderDebtor()))
-        .map(req -> this.webClientFactory.createMtlsWebClient())
-        .switchIfEmpty(Mono.fromSupplier(() -> {
-          log.info("Using simple web client for sending RTP to {}",
-              request.rtpToSend().serviceProviderDebtor());
-          return this.webClientFactory.createSimpleWebClient();
-        }))
-        .map(this.epcClientFactory::createClient);
+        .map(req -> {
+          final var tsp = req.serviceProviderFullData().tsp();
+          return this.epcClientFactory.createClient(
+              this.webClientRegistry.getWebClient(tsp),
+              tsp.serviceEndpoint());
+        });
   }
 
   /**
-   * Injects an OAuth2 token into the EPC API request if available.
+   * Returns the context modifier carrying the OAuth2 token of the request, if available, to be
+   * applied with {@code contextWrite} on the EPC API call. The shared EPC client reads it from
+   * the Reactor context, so no default header is set on the client.
    *
-   * @param epcClient The EPC API client.
-   * @param request   The EPC request containing the token and RTP details.
+   * @param request The EPC request containing the token and RTP details.
+   * @return The context modifier; the identity function if no token is available.
    */
-  protected void injectTokenIntoEpcRequest(
-      @NonNull final DefaultApi epcClient,
-      @NonNull final EpcRequest request) {
-
+  @NonNull
+  protected Function<Context, Context> injectTokenIntoEpcContext(@NonNull final EpcRequest request) {
     final var rtpToSend = request.rtpToSend();
 
-    Optional.of(request)
+    return Optional.of(request)
         .map(EpcRequest::token)
         .map(StringUtils::trimToNull)
-        .ifPresentOrElse(
-            token -> {
-              log.info("Using OAuth2 token for sending RTP to {}",
-                  rtpToSend.serviceProviderDebtor());
-              epcClient.getApiClient()
-                  .addDefaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
-            },
-            () -> log.info("No OAuth2 token found for sending RTP to {}",
-                rtpToSend.serviceProviderDebtor()));
+        .map(token -> {
+          log.info("Using OAuth2 token for sending RTP to {}", rtpToSend.serviceProviderDebtor());
+          return BearerTokenContextFilter.withBearerToken(token);
+        })
+        .orElseGet(() -> {
+          log.info("No OAuth2 token found for sending RTP to {}", rtpToSend.serviceProviderDebtor());
+          return Function.identity();
+        });
+  }
+
+  /**
+   * Defines a retry policy for handling failed RTP requests. Only failures that are safe to retry
+   * (I/O errors, timeouts, {@code 5xx} and {@code 429} responses) are retried, with exponential
+   * backoff and jitter or as requested by {@code Retry-After}, within a retry budget shared by all
+   * the EPC calls. Other failures, including calls rejected by the {@link TspCallGuard}, are
+   * propagated right away.
+   *
+   * @return A {@code Retry} defining the retry strategy.
+   * @see EpcRetryPolicyFactory
+   */
+  @NonNull
+  protected Retry sendRetryPolicy() {
+    return this.retryPolicyFactory.create();
   }
 
   /**
-   * Defines a retry policy for handling failed RTP requests. Uses exponential backoff with jitter
-   * to reduce contention in case of failures.
+   * Guards a single attempt of an EPC call with the {@link TspCallGuard} and runs it within the
+   * concurrency limit of the debtor service provider, so that the limit samples the latency of the
+   * attempt alone. Only the failures that would be retried, such as timeouts and {@code 5xx}
+   * responses, lower the limit.
    *
-   * @return A {@code RetryBackoffSpec} defining the retry strategy.
+   * @param serviceProviderDebtor The identifier of the debtor service provider.
+   * @param epcCall               The attempt of the EPC call.
+   * @param <T>                   The type emitted by the call.
+   * @return The guarded and limited attempt.
    */
   @NonNull
-  protected RetryBackoffSpec sendRetryPolicy() {
-    final var maxAttempts = serviceProviderConfig.send().retry().maxAttempts();
-    final var minDurationMillis = serviceProviderConfig.send().retry().backoffMinDuration();
-    final var jitter = serviceProviderConfig.send().retry().backoffJitter();
+  protected <T> Mono<T> guardedAttempt(
+      @NonNull final String serviceProviderDebtor,
+      @NonNull final Mono<T> epcCall) {
+    return this.concurrencyLimiter.limit(
+        serviceProviderDebtor,
+        this.tspCallGuard.guard(serviceProviderDebtor, epcCall),
+        EpcRetryPolicyFactory::isRetryable);
+  }
 
-    return Retry.backoff(maxAttempts, Duration.ofMillis(minDurationMillis))
-        .jitter(jitter)
-        .doAfterRetry(signal -> log.info("Retry number {}", signal.totalRetries()));
+  /**
+   * Returns the failure behind an exhausted retry, or the failure itself if it was not retried.
+   *
+   * @param error The error raised by the EPC call.
+   * @return The underlying failure.
+   */
+  @NonNull
+  protected static Throwable unwrapRetryExhausted(@NonNull final Throwable error) {
+    return Exceptions.isRetryExhausted(error) && error.getCause() != null
+        ? error.getCause()
+        : error;
   }
 
   /**
@@ -0,0 +1,221 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import it.gov.pagopa.rtp.sender.configuration.EpcHedgingProperties;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+
+/**
+ * Hedges latency-critical EPC calls: if a call has not completed within the hedge delay of the
+ * debtor service provider, a second identical call is sent, the first one to succeed is used and
+ * the other one is cancelled.
+ * <p>
+ * Hedging only applies to the calls whose Reactor {@link Context} was marked with
+ * {@link #withHedging()}, and only if enabled in {@link EpcHedgingProperties}. The hedged calls
+ * must be idempotent: EPC calls carry a deterministic idempotency key, so the provider processes
+ * at most one of them.
+ * </p>
+ * <p>
+ * The hedge delay is a percentile of the latencies recently observed for each provider. If the
+ * first call fails before the hedge is sent, no hedge is sent and the failure is propagated right
+ * away; if both calls fail, the failure of the first one is propagated.
+ * </p>
+ */
+@Component("epcHedgingPolicy")
+@Slf4j
+public class EpcHedgingPolicy {
+
+  private static final String HEDGING_CONTEXT_KEY = EpcHedgingPolicy.class.getName() + ".ENABLED";
+  private static final int LATENCY_SAMPLES = 100;
+
+  private final EpcHedgingProperties properties;
+  private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+
+  /**
+   * Constructs a new {@link EpcHedgingPolicy}.
+   *
+   * @param properties the hedging settings
+   * @throws NullPointerException if {@code properties} is {@code null}
+   */
+  public EpcHedgingPolicy(@NonNull final EpcHedgingProperties properties) {
+    this.properties = Objects.requireNonNull(properties);
+  }
+
+
+  /**
+   * Returns a function that marks the calls made within a Reactor {@link Context} as eligible for
+   * hedging, to be used with {@code contextWrite}.
+   *
+   * @return the context modifier
+   */
+  @NonNull
+  public static Function<Context, Context> withHedging() {
+    return context -> context.put(HEDGING_CONTEXT_KEY, true);
+  }
+
+
+  /**
+   * Applies hedging to the given call, if requested by the context. Each subscription to
+   * {@code call} must send a new request.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @param call                  the call to hedge
+   * @param <T>                   the type emitted by the call
+   * @return the possibly hedged call
+   */
+  @NonNull
+  public <T> Mono<T> hedge(@NonNull final String serviceProviderDebtor, @NonNull final Mono<T> call) {
+    Objects.requireNonNull(serviceProviderDebtor, "Service provider debtor cannot be null");
+    Objects.requireNonNull(call, "Call cannot be null");
+
+    if (!this.properties.enabled()) {
+      return call;
+    }
+
+    final var latencyWindow = this.latencies
+        .computeIfAbsent(serviceProviderDebtor, key -> new LatencyWindow(LATENCY_SAMPLES));
+    final var timedCall = timed(call, latencyWindow);
+
+    return Mono.deferContextual(context -> {
+      if (!context.getOrDefault(HEDGING_CONTEXT_KEY, false)) {
+        return timedCall;
+      }
+
+      final var delay = this.hedgeDelay(latencyWindow);
+      log.debug("Hedging call to {} after {} ms", serviceProviderDebtor, delay.toMillis());
+
+      return hedged(timedCall, delay, serviceProviderDebtor);
+    });
+  }
+
+
+  /**
+   * Computes the hedge delay from the observed latencies.
+   *
+   * @param latencyWindow the latencies of the service provider
+   * @return the hedge delay
+   */
+  @NonNull
+  Duration hedgeDelay(@NonNull final LatencyWindow latencyWindow) {
+    return latencyWindow.percentile(this.properties.percentile(), this.properties.minSamples())
+        .map(latency -> latency.compareTo(this.properties.minDelay()) < 0 ? this.properties.minDelay() : latency)
+        .map(latency -> latency.compareTo(this.properties.maxDelay()) > 0 ? this.properties.maxDelay() : latency)
+        .orElse(this.properties.initialDelay());
+  }
+
+
+  /**
+   * Races the call against a copy sent after the given delay, unless the call has already
+   * terminated by then. A failure of the call before the delay cancels the hedge, so that it is
+   * not held until the delay elapses.
+   */
+  @NonNull
+  private static <T> Mono<T> hedged(
+      @NonNull final Mono<T> call,
+      @NonNull final Duration delay,
+      @NonNull final String serviceProviderDebtor) {
+
+    return Mono.defer(() -> {
+      final var primaryTerminated = new AtomicBoolean();
+      final var primaryFailed = Sinks.<Boolean>one();
+
+      final var primary = call
+          .map(Optional::of)
+          .defaultIfEmpty(Optional.empty())
+          .doOnError(error -> primaryFailed.tryEmitValue(true))
+          .doFinally(signal -> primaryTerminated.set(true));
+
+      final var hedge = Mono.delay(delay)
+          .takeUntilOther(primaryFailed.asMono())
+          .filter(tick -> !primaryTerminated.get())
+          .doOnNext(tick -> log.info("Sending hedged request to {}", serviceProviderDebtor))
+          .flatMap(tick -> call
+              .map(Optional::of)
+              .defaultIfEmpty(Optional.empty()));
+
+      return Mono.firstWithValue(primary, hedge)
+          .onErrorMap(NoSuchElementException.class, EpcHedgingPolicy::firstFailure)
+          .flatMap(Mono::justOrEmpty);
+    });
+  }
+
+
+  /**
+   * Records the latency of the successful calls.
+   */
+  @NonNull
+  private static <T> Mono<T> timed(@NonNull final Mono<T> call, @NonNull final LatencyWindow latencyWindow) {
+    return Mono.defer(() -> {
+      final var startNanos = System.nanoTime();
+      return call.doOnSuccess(result -> latencyWindow.record(System.nanoTime() - startNanos));
+    });
+  }
+
+
+  /**
+   * Extracts the first actual failure from the error raised when no hedged call succeeded.
+   */
+  @NonNull
+  private static Throwable firstFailure(@NonNull final NoSuchElementException error) {
+    final var causes = Optional.ofNullable(error.getCause())
+        .map(Exceptions::unwrapMultiple)
+        .orElse(List.of());
+
+    return Stream.concat(causes.stream(), Stream.of(error.getSuppressed()))
+        .filter(cause -> !(cause instanceof NoSuchElementException))
+        .findFirst()
+        .orElse(error);
+  }
+
+
+  /**
+   * Sliding window of the latest observed latencies of a service provider.
+   */
+  static final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+
+    LatencyWindow(final int capacity) {
+      this.samples = new long[capacity];
+    }
+
+
+    synchronized void record(final long latencyNanos) {
+      this.samples[this.next] = latencyNanos;
+      this.next = (this.next + 1) % this.samples.length;
+      this.size = Math.min(this.size + 1, this.samples.length);
+    }
+
+
+    synchronized Optional<Duration> percentile(final double percentile, final int minSamples) {
+      if (this.size < minSamples) {
+        return Optional.empty();
+      }
+
+      final var sorted = Arrays.copyOf(this.samples, this.size);
+      Arrays.sort(sorted);
+      final var index = Math.max(0, (int) Math.ceil(percentile * this.size) - 1);
+      return Optional.of(Duration.ofNanos(sorted[index]));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Sliding-window retry budget: retries are allowed as long as they stay below a fixed number plus
+ * a ratio of the requests observed in the window. The window is split in buckets, so counts expire
+ * gradually.
+ */
+final class EpcRetryBudget {
+
+  private static final int BUCKETS = 10;
+
+  private final double ratio;
+  private final int minRetries;
+  private final long bucketNanos;
+
+  private final long[] bucketIds = new long[BUCKETS];
+  private final long[] requests = new long[BUCKETS];
+  private final long[] retries = new long[BUCKETS];
+
+
+  EpcRetryBudget(final double ratio, @NonNull final Duration window, final int minRetries) {
+    this.ratio = ratio;
+    this.minRetries = minRetries;
+    this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+    Arrays.fill(this.bucketIds, Long.MIN_VALUE);
+  }
+
+
+  /**
+   * Records a request, which increases the retries allowed in the window.
+   */
+  synchronized void recordRequest() {
+    this.requests[this.currentBucket()]++;
+  }
+
+
+  /**
+   * Consumes a retry from the budget, if any is left.
+   *
+   * @return {@code true} if the retry is allowed, {@code false} if the budget is exhausted
+   */
+  synchronized boolean tryAcquireRetry() {
+    final var bucket = this.currentBucket();
+    final var oldestBucketId = this.bucketIds[bucket] - BUCKETS + 1;
+
+    long windowRequests = 0;
+    long windowRetries = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      if (this.bucketIds[i] >= oldestBucketId) {
+        windowRequests += this.requests[i];
+        windowRetries += this.retries[i];
+      }
+    }
+
+    if (windowRetries >= this.minRetries + this.ratio * windowRequests) {
+      return false;
+    }
+
+    this.retries[bucket]++;
+    return true;
+  }
+
+
+  /**
+   * Returns the bucket of the current instant, resetting it if it still holds expired counts.
+   */
+  private int currentBucket() {
+    final var bucketId = System.nanoTime() / this.bucketNanos;
+    final var bucket = (int) Math.floorMod(bucketId, BUCKETS);
+
+    if (this.bucketIds[bucket] != bucketId) {
+      this.bucketIds[bucket] = bucketId;
+      this.requests[bucket] = 0;
+      this.retries[bucket] = 0;
+    }
+    return bucket;
+  }
+}
@@ -0,0 +1,220 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import it.gov.pagopa.rtp.sender.configuration.EpcRetryProperties;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.Retry.RetrySignal;
+
+
+/**
+ * Creates the retry policy of the EPC calls.
+ * <p>
+ * Only failures that are safe to retry, since every EPC call carries an idempotency key, are
+ * retried: I/O errors and timeouts, {@code 5xx} responses and {@code 429 Too Many Requests}. Other
+ * failures, such as {@code 400 Bad Request}, are propagated as they are. Retries are delayed by an
+ * exponential backoff with jitter or, for {@code 429} and {@code 503} responses, by the
+ * {@code Retry-After} header when present.
+ * </p>
+ * <p>
+ * All the policies share a retry budget, so that retries cannot amplify the load on service
+ * providers during an incident. Once the budget or the attempts are exhausted, the last failure
+ * is propagated wrapped as in {@link Exceptions#retryExhausted(String, Throwable)}.
+ * </p>
+ */
+@Component("epcRetryPolicyFactory")
+@Slf4j
+public class EpcRetryPolicyFactory {
+
+  private final ServiceProviderConfig serviceProviderConfig;
+  private final EpcRetryProperties retryProperties;
+  private final EpcRetryBudget retryBudget;
+
+
+  /**
+   * Constructs a new {@link EpcRetryPolicyFactory}.
+   *
+   * @param serviceProviderConfig the service provider configuration holding attempts and backoff
+   * @param retryProperties       the retry budget settings
+   * @throws NullPointerException if any argument is {@code null}
+   */
+  public EpcRetryPolicyFactory(
+      @NonNull final ServiceProviderConfig serviceProviderConfig,
+      @NonNull final EpcRetryProperties retryProperties) {
+
+    this.serviceProviderConfig = Objects.requireNonNull(serviceProviderConfig);
+    this.retryProperties = Objects.requireNonNull(retryProperties);
+    this.retryBudget = new EpcRetryBudget(
+        retryProperties.budgetRatio(),
+        retryProperties.budgetWindow(),
+        retryProperties.budgetMinRetries());
+  }
+
+
+  /**
+   * Creates a retry policy, to be used with {@code retryWhen} on a single EPC call. Each
+   * subscription counts as one request for the retry budget.
+   *
+   * @return the {@link Retry} policy
+   */
+  @NonNull
+  public Retry create() {
+    final var retryConfig = this.serviceProviderConfig.send().retry();
+
+    return Retry.from(signals -> {
+      this.retryBudget.recordRequest();
+      return signals.concatMap(signal -> this.nextRetry(signal, retryConfig));
+    });
+  }
+
+
+  /**
+   * Tells whether a failure of an EPC call can be retried.
+   *
+   * @param failure the failure
+   * @return {@code true} if the call can be retried
+   */
+  static boolean isRetryable(@NonNull final Throwable failure) {
+    if (failure instanceof WebClientResponseException responseException) {
+      final var statusCode = responseException.getStatusCode();
+      return statusCode.is5xxServerError()
+          || statusCode.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    return failure instanceof WebClientRequestException
+        || failure instanceof TimeoutException
+        || failure instanceof IOException;
+  }
+
+
+  /**
+   * Decides whether and when the failed call is retried.
+   *
+   * @param signal      the retry signal of the failed attempt
+   * @param retryConfig the attempts and backoff settings
+   * @return a {@link Mono} emitting after the retry delay, or failing if no retry must be made
+   */
+  @NonNull
+  private Mono<Long> nextRetry(
+      @NonNull final RetrySignal signal,
+      @NonNull final ServiceProviderConfig.Send.Retry retryConfig) {
+
+    final var failure = signal.failure();
+    final var retries = signal.totalRetries();
+
+    if (!isRetryable(failure)) {
+      log.debug("Not retrying non retryable failure: {}", failure.getMessage());
+      return Mono.error(failure);
+    }
+
+    if (retries >= retryConfig.maxAttempts()) {
+      return Mono.error(Exceptions.retryExhausted(
+          "Retries exhausted: " + retries + "/" + retryConfig.maxAttempts(), failure));
+    }
+
+    if (!this.retryBudget.tryAcquireRetry()) {
+      log.warn("Retry budget exhausted, not retrying: {}", failure.getMessage());
+      return Mono.error(Exceptions.retryExhausted("Retry budget exhausted", failure));
+    }
+
+    final var delay = this.retryAfter(failure)
+        .orElseGet(() -> backoff(retries, retryConfig));
+
+    log.info("Retry number {} in {} ms", retries + 1, delay.toMillis());
+    return Mono.delay(delay).thenReturn(retries);
+  }
+
+
+  /**
+   * Reads the delay requested by a {@code 429} or {@code 503} response through its
+   * {@code Retry-After} header, expressed either in seconds or as an HTTP date, bounded by the
+   * configured maximum.
+   *
+   * @param failure the failure
+   * @return the requested delay, if any
+   */
+  @NonNull
+  private Optional<Duration> retryAfter(@NonNull final Throwable failure) {
+    return Optional.of(failure)
+        .filter(WebClientResponseException.class::isInstance)
+        .map(WebClientResponseException.class::cast)
+        .filter(ex -> ex.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+            || ex.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE))
+        .map(ex -> ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+        .flatMap(EpcRetryPolicyFactory::parseRetryAfter)
+        .map(delay -> delay.compareTo(this.retryProperties.maxRetryAfter()) > 0
+            ? this.retryProperties.maxRetryAfter()
+            : delay);
+  }
+
+
+  /**
+   * Parses a {@code Retry-After} header value.
+   *
+   * @param value the header value
+   * @return the delay, if the value is valid
+   */
+  @NonNull
+  static Optional<Duration> parseRetryAfter(@NonNull final String value) {
+    final var trimmed = value.trim();
+
+    try {
+      return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed))));
+    } catch (NumberFormatException ignored) {
+      // not delta-seconds, try HTTP date
+    }
+
+    try {
+      final var retryAt = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant();
+      final var delay = Duration.between(Instant.now(), retryAt);
+      return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+    } catch (DateTimeParseException e) {
+      log.debug("Ignoring invalid Retry-After header: {}", value);
+      return Optional.empty();
+    }
+  }
+
+
+  /**
+   * Computes the exponential backoff with jitter of the given retry.
+   *
+   * @param retries     the number of retries already made
+   * @param retryConfig the backoff settings
+   * @return the delay of the retry
+   */
+  @NonNull
+  private static Duration backoff(
+      final long retries,
+      @NonNull final ServiceProviderConfig.Send.Retry retryConfig) {
+
+    final var minMillis = retryConfig.backoffMinDuration();
+    final var baseMillis = retries >= 62 || minMillis > (Long.MAX_VALUE >> retries)
+        ? Long.MAX_VALUE / 2
+        : minMillis << retries;
+    final var jitterMillis = (long) (baseMillis * retryConfig.backoffJitter());
+    final var delayMillis = jitterMillis > 0
+        ? baseMillis + ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1)
+        : baseMillis;
+
+    return Duration.ofMillis(Math.max(minMillis, delayMillis));
+  }
+}
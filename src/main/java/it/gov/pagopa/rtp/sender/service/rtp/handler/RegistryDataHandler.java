@@ -43,10 +43,11 @@ public class RegistryDataHandler implements RequestHandler<EpcRequest> {
   @NonNull
   @Override
   public Mono<EpcRequest> handle(@NonNull final EpcRequest request) {
-    return this.registryDataService.getRegistryData()
+    return this.registryDataService.getRegistrySnapshot()
         .doFirst(() -> log.info("Calling registry data service"))
         .doOnNext(data -> log.info("Successfully called registry data."))
-        .flatMap(data -> Mono.justOrEmpty(data.get(request.rtpToSend().serviceProviderDebtor())))
+        .flatMap(snapshot -> Mono.justOrEmpty(
+            snapshot.findServiceProvider(request.rtpToSend().serviceProviderDebtor())))
         .doOnNext(data -> log.info("Successfully extracted service provider data."))
         .switchIfEmpty(Mono.error(new ServiceProviderNotFoundException(
             "No service provider found for creditor: " + request.rtpToSend().serviceProviderDebtor())))
@@ -3,7 +3,7 @@ package it.gov.pagopa.rtp.sender.service.rtp.handler;
 import it.gov.pagopa.rtp.sender.configuration.OpenAPIClientFactory;
 import it.gov.pagopa.rtp.sender.configuration.PagoPaConfigProperties;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
-import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientRegistry;
 import it.gov.pagopa.rtp.sender.domain.rtp.TransactionStatus;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
 import it.gov.pagopa.rtp.sender.service.rtp.SepaRequestToPayMapper;
@@ -18,7 +18,6 @@ import org.springframework.http.HttpStatusCode;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 
 
@@ -35,18 +34,25 @@ public class SendRtpHandler extends EpcApiInvokerHandler implements RequestHandl
   /**
    * Constructs a {@code SendRtpHandler} with required dependencies.
    *
-   * @param webClientFactory        Factory for creating web clients (with or without mTLS).
+   * @param webClientRegistry       Registry of pooled web clients (with or without mTLS).
    * @param epcClientFactory        Factory for creating API clients for EPC (European Payments Council) communication.
    * @param sepaRequestToPayMapper  Mapper for converting RTP requests into EPC-compliant format.
    * @param serviceProviderConfig   Configuration settings for the service provider.
+   * @param tspCallGuard            Circuit breaker and bulkhead guarding the calls to each debtor service provider.
+   * @param retryPolicyFactory      Factory of the retry policy of the EPC calls.
+   * @param concurrencyLimiter      Limiter bounding the concurrent calls to each debtor service provider.
    */
   public SendRtpHandler(
-      @NonNull final WebClientFactory webClientFactory,
+      @NonNull final WebClientRegistry webClientRegistry,
       @NonNull final OpenAPIClientFactory<DefaultApi> epcClientFactory,
       @NonNull final SepaRequestToPayMapper sepaRequestToPayMapper,
       @NonNull final ServiceProviderConfig serviceProviderConfig,
-      @NonNull final PagoPaConfigProperties pagoPaConfigProperties) {
-    super(webClientFactory, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig);
+      @NonNull final PagoPaConfigProperties pagoPaConfigProperties,
+      @NonNull final TspCallGuard tspCallGuard,
+      @NonNull final EpcRetryPolicyFactory retryPolicyFactory,
+      @NonNull final TspConcurrencyLimiter concurrencyLimiter) {
+    super(webClientRegistry, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, tspCallGuard,
+        retryPolicyFactory, concurrencyLimiter);
     this.pagoPaConfigProperties = Objects.requireNonNull(pagoPaConfigProperties);
   }
 
@@ -66,19 +72,20 @@ public class SendRtpHandler extends EpcApiInvokerHandler implements RequestHandl
         .flatMap(epcClient -> {
           final var rtpToSend = request.rtpToSend();
           final var sepaRequest = this.sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend);
-          final var basePath = request.serviceProviderFullData().tsp().serviceEndpoint();
           final var idempotencyKey = IdentifierUtils.generateDeterministicIdempotencyKey(
                   this.pagoPaConfigProperties.operationSlug().send(),
                   request.rtpToSend().resourceID().getId()
           );
 
-          epcClient.getApiClient().setBasePath(basePath);
-          this.injectTokenIntoEpcRequest(epcClient, request);
+          final var tokenContext = this.injectTokenIntoEpcContext(request);
 
-          return Mono.defer(() -> epcClient.postRequestToPayRequests(
+          final var epcCall = Mono.defer(() -> epcClient.postRequestToPayRequests(
                   idempotencyKey,
                   UUID.randomUUID().toString(),
-                  sepaRequest))
+                  sepaRequest));
+
+          return this.guardedAttempt(rtpToSend.serviceProviderDebtor(), epcCall)
+              .contextWrite(tokenContext)
               .doFirst(() -> log.info("Sending RTP to {}", rtpToSend.serviceProviderDebtor()))
               .doOnError(error -> {
                 log.error("Error occurred while sending RTP: {}", error);
@@ -88,32 +95,51 @@ public class SendRtpHandler extends EpcApiInvokerHandler implements RequestHandl
         .map(resp -> request.withResponse(TransactionStatus.ACTC))
         .doOnNext(resp -> log.info("Mapping sent RTP to {}", TransactionStatus.ACTC))
         .switchIfEmpty(Mono.just(request))
-        .onErrorResume(IllegalStateException.class, ex -> this.handleRetryError(ex, request))
+        .onErrorResume(TspCallNotPermittedException.class, ex -> this.handleNotPermitted(ex, request))
+        .onErrorResume(ex -> this.handleRetryError(ex, request))
         .doOnNext(resp -> log.info("Response: {}", resp.response()));
   }
 
 
   /**
-   * Handles the error that occurs when retrying the RTP request.
-   * If the error is a {@link WebClientResponseException} with a {@code HttpStatus.BAD_REQUEST} status code, the method
+   * Handles a call rejected by the {@link TspCallGuard} because the circuit of the debtor service
+   * provider is open or its bulkhead is full, updating the request with a
+   * {@code TransactionStatus.ERROR} status without contacting the provider.
+   *
+   * @param ex      The {@link TspCallNotPermittedException} raised by the guard
+   * @param request The {@link EpcRequest} that was being processed
+   * @return A {@code Mono<EpcRequest>} containing the updated {@code request}
+   */
+  @NonNull
+  private Mono<EpcRequest> handleNotPermitted(
+      @NonNull final TspCallNotPermittedException ex,
+      @NonNull final EpcRequest request) {
+
+    log.warn("Skipped sending RTP to {}: {}", request.rtpToSend().serviceProviderDebtor(), ex.getMessage());
+    return Mono.just(request.withResponse(TransactionStatus.ERROR));
+  }
+
+
+  /**
+   * Handles the error that occurs when sending the RTP request, either after exhausting the retries or
+   * straight away for failures that are not retried.
+   * If the failure is a {@link WebClientResponseException} with a {@code HttpStatus.BAD_REQUEST} status code, the method
    * updates the {@link EpcRequest} with a {@code TransactionStatus.RJCT} (Rejected) status. Otherwise, it updates
    * the request with an {@code TransactionStatus.ERROR} status.
    *
-   * @param ex      The {@link IllegalStateException} that occurred during the retry
+   * @param ex      The exception raised by the RTP request, possibly wrapping the last failure of the retries
    * @param request The {@link EpcRequest} that was being processed
    * @return A {@code Mono<EpcRequest>} containing the updated {@code request}
    * @throws NullPointerException if {@code ex} or {@code request} is {@code null}
    */
   @NonNull
   private Mono<EpcRequest> handleRetryError(
-      @NonNull final IllegalStateException ex,
+      @NonNull final Throwable ex,
       @NonNull final EpcRequest request) {
 
     log.warn("Handling error upon sending RTP to {}", request.serviceProviderFullData().tsp().serviceEndpoint());
 
-    final var statusCodeOptional = Optional.of(ex)
-        .filter(Exceptions::isRetryExhausted)
-        .map(Throwable::getCause)
+    final var statusCodeOptional = Optional.of(unwrapRetryExhausted(ex))
         .filter(WebClientResponseException.class::isInstance)
         .map(WebClientResponseException.class::cast)
         .map(WebClientResponseException::getStatusCode);
@@ -0,0 +1,26 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Guards the calls towards debtor service providers with a circuit breaker and a bulkhead, so that
+ * a failing or slow provider is not called further and cannot exhaust the resources shared with
+ * the others.
+ */
+public interface TspCallGuard {
+
+  /**
+   * Decorates a call towards the given debtor service provider. Each subscription to the returned
+   * {@link Mono} is one guarded attempt: it fails with a {@link TspCallNotPermittedException}
+   * without subscribing to {@code call} if the provider circuit is open or its bulkhead is full.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @param call                  the call to guard
+   * @param <T>                   the type emitted by the call
+   * @return the guarded call
+   */
+  @NonNull
+  <T> Mono<T> guard(@NonNull String serviceProviderDebtor, @NonNull Mono<T> call);
+}
@@ -0,0 +1,18 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+
+/**
+ * Exception signalling that a call towards a debtor service provider was rejected without being
+ * attempted, because its circuit is open or its bulkhead is full.
+ */
+public class TspCallNotPermittedException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link TspCallNotPermittedException} with the specified detail message.
+   *
+   * @param message the detail message, which is saved for later retrieval by the {@link Throwable#getMessage()} method
+   */
+  public TspCallNotPermittedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,175 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import org.springframework.lang.NonNull;
+
+
+/**
+ * Circuit breaker and bulkhead state of a single debtor service provider.
+ * <p>
+ * The circuit opens after a number of consecutive failures and rejects every call until the open
+ * duration has elapsed. It then turns half-open and lets a limited number of probe calls through:
+ * the circuit closes once all of them succeed and opens again as soon as one fails. Independently
+ * of the circuit state, the number of in-flight calls is bounded by a semaphore.
+ * </p>
+ */
+final class TspCircuitBreaker {
+
+  /**
+   * The state of the circuit.
+   */
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+
+  /**
+   * The outcome of a permission request.
+   */
+  enum Permission {
+    /** The call may proceed. */
+    GRANTED,
+    /** The call may proceed as a half-open probe. */
+    PROBE,
+    /** The call must be rejected. */
+    DENIED
+  }
+
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final int halfOpenMaxCalls;
+  private final Semaphore bulkhead;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private Instant openedAt;
+  private int probesInFlight;
+  private int probeSuccesses;
+
+
+  TspCircuitBreaker(
+      final int failureThreshold,
+      @NonNull final Duration openDuration,
+      final int halfOpenMaxCalls,
+      final int maxConcurrentCalls) {
+
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.halfOpenMaxCalls = halfOpenMaxCalls;
+    this.bulkhead = new Semaphore(maxConcurrentCalls);
+  }
+
+
+  /**
+   * Asks the circuit whether a call may proceed, turning an open circuit half-open once the open
+   * duration has elapsed.
+   *
+   * @param now the current instant
+   * @return the {@link Permission} granted to the call
+   */
+  @NonNull
+  synchronized Permission acquirePermission(@NonNull final Instant now) {
+    if (this.state == State.OPEN) {
+      if (now.isBefore(this.openedAt.plus(this.openDuration))) {
+        return Permission.DENIED;
+      }
+      this.state = State.HALF_OPEN;
+      this.probesInFlight = 0;
+      this.probeSuccesses = 0;
+    }
+
+    if (this.state == State.HALF_OPEN) {
+      if (this.probesInFlight + this.probeSuccesses >= this.halfOpenMaxCalls) {
+        return Permission.DENIED;
+      }
+      this.probesInFlight++;
+      return Permission.PROBE;
+    }
+
+    return Permission.GRANTED;
+  }
+
+
+  /**
+   * Records a successful call.
+   *
+   * @param permission the permission the call was granted
+   */
+  synchronized void onSuccess(@NonNull final Permission permission) {
+    if (permission == Permission.PROBE && this.state == State.HALF_OPEN) {
+      this.probesInFlight--;
+      if (++this.probeSuccesses >= this.halfOpenMaxCalls) {
+        this.state = State.CLOSED;
+        this.consecutiveFailures = 0;
+      }
+    } else if (permission == Permission.GRANTED && this.state == State.CLOSED) {
+      this.consecutiveFailures = 0;
+    }
+  }
+
+
+  /**
+   * Records a failed call, opening the circuit if needed.
+   *
+   * @param permission the permission the call was granted
+   * @param now        the current instant
+   */
+  synchronized void onFailure(@NonNull final Permission permission, @NonNull final Instant now) {
+    if (permission == Permission.PROBE && this.state == State.HALF_OPEN) {
+      this.open(now);
+    } else if (permission == Permission.GRANTED && this.state == State.CLOSED
+        && ++this.consecutiveFailures >= this.failureThreshold) {
+      this.open(now);
+    }
+  }
+
+
+  /**
+   * Gives back a permission whose call ended without an outcome (e.g. it was cancelled), so that
+   * a half-open circuit can let another probe through.
+   *
+   * @param permission the permission the call was granted
+   */
+  synchronized void releasePermission(@NonNull final Permission permission) {
+    if (permission == Permission.PROBE && this.state == State.HALF_OPEN) {
+      this.probesInFlight--;
+    }
+  }
+
+
+  /**
+   * @return {@code true} if a bulkhead slot was acquired, {@code false} if the bulkhead is full
+   */
+  boolean tryAcquireSlot() {
+    return this.bulkhead.tryAcquire();
+  }
+
+
+  /**
+   * Releases a previously acquired bulkhead slot.
+   */
+  void releaseSlot() {
+    this.bulkhead.release();
+  }
+
+
+  /**
+   * @return the current state of the circuit
+   */
+  @NonNull
+  synchronized State state() {
+    return this.state;
+  }
+
+
+  private void open(@NonNull final Instant now) {
+    this.state = State.OPEN;
+    this.openedAt = now;
+    this.consecutiveFailures = 0;
+  }
+}
@@ -0,0 +1,34 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import java.util.function.Predicate;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Bounds the number of concurrent exchanges with each debtor service provider with a limit that
+ * adapts to the latency and failures observed, so that each provider is sent as many RTPs as it
+ * can sustain. Each attempt of a call is a separate exchange, so that retry backoffs neither hold
+ * a permit nor count as latency.
+ */
+public interface TspConcurrencyLimiter {
+
+  /**
+   * Runs the given exchange within the concurrency limit of the debtor service provider, waiting
+   * for the limit if needed.
+   *
+   * @param serviceProviderDebtor the identifier of the debtor service provider
+   * @param exchange              the exchange to run
+   * @param isDropped             tells whether a failure denotes an overloaded provider; successful
+   *                              exchanges never do, and calls rejected by the {@link TspCallGuard}
+   *                              release their permit without being counted
+   * @param <T>                   the type emitted by the exchange
+   * @return the limited exchange, failing with a {@link TspCallNotPermittedException} if the
+   *     limit could not be acquired in time
+   */
+  @NonNull
+  <T> Mono<T> limit(
+      @NonNull String serviceProviderDebtor,
+      @NonNull Mono<T> exchange,
+      @NonNull Predicate<? super Throwable> isDropped);
+}
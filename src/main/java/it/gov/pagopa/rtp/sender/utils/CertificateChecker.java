@@ -48,19 +48,21 @@ public class CertificateChecker {
         .map(StringUtils::trimToNull)
         .orElseThrow(() -> new IllegalArgumentException("Couldn't parse Service Provider of Debtor id."));
 
-    return registryDataService.getRegistryData()
-        .flatMap(data -> Mono.justOrEmpty(data.get(serviceProviderDebtorId))
+    return registryDataService.getRegistrySnapshot()
+        .flatMap(snapshot -> Mono.justOrEmpty(snapshot.findServiceProvider(serviceProviderDebtorId))
             .switchIfEmpty(Mono.error(new ServiceProviderNotFoundException(
-                "No service provider found for creditor: " + serviceProviderDebtorId))))
-        .flatMap(provider -> {
-          String certificateServiceNumberRegistry = provider.tsp().certificateSerialNumber();
-          if (certificateServiceNumberRegistry.equalsIgnoreCase(certificateSerialNumber)) {
+                "No service provider found for creditor: " + serviceProviderDebtorId)))
+            .map(provider -> snapshot.findCertificateSerialNumber(serviceProviderDebtorId)))
+        .flatMap(certificateSerialNumberRegistry -> {
+          if (certificateSerialNumberRegistry
+              .filter(serialNumber -> serialNumber.equalsIgnoreCase(certificateSerialNumber))
+              .isPresent()) {
             log.info("Certificate verified successfully. Serial Number: {}",
-                certificateServiceNumberRegistry);
+                certificateSerialNumberRegistry.get());
             return Mono.just(requestBody);
           }
           log.warn("Certificate mismatch: expected {}, received {}",
-              certificateServiceNumberRegistry, sanitize(certificateSerialNumber));
+              certificateSerialNumberRegistry.orElse(null), sanitize(certificateSerialNumber));
           return Mono.error(new IncorrectCertificate());
         });
 
@@ -0,0 +1,64 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class BearerTokenContextFilterTest {
+
+  @Mock
+  private ExchangeFunction exchangeFunction;
+
+  private final BearerTokenContextFilter filter = new BearerTokenContextFilter();
+
+  private final ClientRequest request = ClientRequest
+      .create(HttpMethod.POST, URI.create("https://example.com/cb"))
+      .build();
+
+  @Test
+  void givenTokenInContext_whenFilter_thenAuthorizationHeaderIsSet() {
+    final var response = mock(ClientResponse.class);
+    when(exchangeFunction.exchange(any())).thenReturn(Mono.just(response));
+
+    StepVerifier.create(filter.filter(request, exchangeFunction)
+            .contextWrite(BearerTokenContextFilter.withBearerToken("token")))
+        .expectNext(response)
+        .verifyComplete();
+
+    final var captor = ArgumentCaptor.forClass(ClientRequest.class);
+    verify(exchangeFunction).exchange(captor.capture());
+    assertEquals("Bearer token", captor.getValue().headers().getFirst(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  void givenNoTokenInContext_whenFilter_thenRequestIsUnchanged() {
+    final var response = mock(ClientResponse.class);
+    when(exchangeFunction.exchange(any())).thenReturn(Mono.just(response));
+
+    StepVerifier.create(filter.filter(request, exchangeFunction))
+        .expectNext(response)
+        .verifyComplete();
+
+    final var captor = ArgumentCaptor.forClass(ClientRequest.class);
+    verify(exchangeFunction).exchange(captor.capture());
+    assertFalse(captor.getValue().headers().containsKey(HttpHeaders.AUTHORIZATION));
+  }
+}
@@ -2,11 +2,8 @@ package it.gov.pagopa.rtp.sender.configuration;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.CacheConfigProperties;
 
 import java.time.Duration;
@@ -46,9 +43,9 @@ class CacheConfigTest {
   @Test
   void givenValidCacheConfig_whenCacheManagerCreated_thenCachesRegisteredCorrectly() {
     when(cacheProperties.getParams()).thenReturn(cacheParams);
-    when(cacheFactory.createCache(anyLong(), any())).thenAnswer(invocation -> Caffeine.newBuilder()
-        .maximumSize(invocation.getArgument(0))
-        .expireAfterWrite(invocation.getArgument(1)));
+    when(cacheFactory.createCache(any(CacheConfigProperties.class)))
+        .thenAnswer(invocation -> new CaffeineCacheFactory().createCache(
+            invocation.<CacheConfigProperties>getArgument(0)));
 
     CacheManager cacheManager = cacheConfig.cacheManager();
     assertInstanceOf(CaffeineCacheManager.class, cacheManager);
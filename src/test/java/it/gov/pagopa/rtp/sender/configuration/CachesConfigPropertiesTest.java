@@ -0,0 +1,36 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.CacheConfigProperties;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CachesConfigPropertiesTest {
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  @Test
+  void givenSizeBoundedCache_whenValidate_thenNoViolations() {
+    final var properties = new CachesConfigProperties(List.of(
+        new CacheConfigProperties("cache", 10, Duration.ofMinutes(1))));
+
+    assertTrue(validator.validate(properties).isEmpty());
+  }
+
+  @Test
+  void givenMaximumSizeAndWeight_whenValidate_thenRejectCache() {
+    final var properties = new CachesConfigProperties(List.of(
+        new CacheConfigProperties("cache", 10, Duration.ofMinutes(1)).withMaximumWeight(100L)));
+
+    final var violations = validator.validate(properties);
+
+    assertEquals(1, violations.size());
+    assertEquals("maximum-size and maximum-weight are mutually exclusive",
+        violations.iterator().next().getMessage());
+  }
+}
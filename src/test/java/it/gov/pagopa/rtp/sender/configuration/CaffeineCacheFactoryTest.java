@@ -4,9 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.CacheConfigProperties;
+import it.gov.pagopa.rtp.sender.configuration.CachesConfigProperties.WeigherType;
 import it.gov.pagopa.rtp.sender.configuration.CaffeineCacheFactory;
 
 import java.time.Duration;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class CaffeineCacheFactoryTest {
@@ -36,4 +39,53 @@ class CaffeineCacheFactoryTest {
     assertNotNull(cache);
     assertEquals(expireAfterWrite, cache.build().policy().expireAfterWrite().orElseThrow().getExpiresAfter());
   }
-}
\ No newline at end of file
+
+  @Test
+  void givenValidParams_whenCreateCache_thenCacheRecordsStats() {
+
+    Caffeine<Object, Object> cache = caffeineCacheFactory.createCache(10, Duration.ofMinutes(1));
+
+    assertTrue(cache.build().policy().isRecordingStats());
+  }
+
+  @Test
+  void givenFullConfig_whenCreateCache_thenApplyEveryPolicy() {
+    CacheConfigProperties config = new CacheConfigProperties("cache", null, 1000L, WeigherType.SIZE,
+        Duration.ofMinutes(10), Duration.ofMinutes(5), 16, false);
+
+    var policy = caffeineCacheFactory.createCache(config)
+        .build()
+        .policy();
+
+    assertEquals(1000L, policy.eviction().orElseThrow().getMaximum());
+    assertTrue(policy.eviction().orElseThrow().isWeighted());
+    assertEquals(Duration.ofMinutes(10), policy.expireAfterWrite().orElseThrow().getExpiresAfter());
+    assertEquals(Duration.ofMinutes(5), policy.expireAfterAccess().orElseThrow().getExpiresAfter());
+    assertFalse(policy.isRecordingStats());
+  }
+
+  @Test
+  void givenSizeWeigher_whenCreateCache_thenEntriesWeighTheirLength() {
+    CacheConfigProperties config = new CacheConfigProperties("cache", null, 100L, null,
+        null, null, null, null);
+
+    var cache = caffeineCacheFactory.createCache(config).build();
+    cache.put("string", "12345");
+    cache.put("list", List.of(1, 2, 3));
+    cache.put("object", new Object());
+
+    var eviction = cache.policy().eviction().orElseThrow();
+    assertEquals(5, eviction.weightOf("string").orElseThrow());
+    assertEquals(3, eviction.weightOf("list").orElseThrow());
+    assertEquals(1, eviction.weightOf("object").orElseThrow());
+    assertTrue(cache.policy().isRecordingStats());
+  }
+
+  @Test
+  void givenMaximumSizeAndWeight_whenCreateCache_thenThrowIllegalStateException() {
+    CacheConfigProperties config = new CacheConfigProperties("cache", 10, Duration.ofMinutes(1))
+        .withMaximumWeight(100L);
+
+    assertThrows(IllegalStateException.class, () -> caffeineCacheFactory.createCache(config));
+  }
+}
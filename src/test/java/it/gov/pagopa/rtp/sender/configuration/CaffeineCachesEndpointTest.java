@@ -0,0 +1,101 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+class CaffeineCachesEndpointTest {
+
+  private CaffeineCacheManager cacheManager;
+  private CaffeineCachesEndpoint endpoint;
+
+
+  @BeforeEach
+  void setUp() {
+    final var cacheFactory = new CaffeineCacheFactory();
+
+    cacheManager = new CaffeineCacheManager();
+    cacheManager.registerCustomCache("testCache",
+        cacheFactory.createCache(100, Duration.ofMinutes(10)).build());
+    cacheManager.registerCustomCache("anotherCache",
+        cacheFactory.createCache(50, Duration.ofHours(1)).build());
+
+    endpoint = new CaffeineCachesEndpoint(cacheManager);
+  }
+
+
+  @Test
+  void givenCacheLookups_whenCaches_thenDescribeSizeAgeAndStats() {
+    final var cache = cacheManager.getCache("testCache");
+    cache.get("key", () -> "value");
+    cache.get("key", () -> "other");
+    cache.get("missing");
+
+    final var caches = endpoint.caches();
+
+    assertEquals(Set.of("testCache", "anotherCache"), caches.keySet());
+
+    final var descriptor = caches.get("testCache");
+    assertEquals(1, descriptor.size());
+    assertEquals(100L, descriptor.maximumSize());
+    assertEquals(Duration.ofMinutes(10), descriptor.expireAfterWrite());
+    assertNotNull(descriptor.oldestEntryAge());
+    assertEquals(1, descriptor.hitCount());
+    assertEquals(2, descriptor.missCount());
+    assertEquals(1, descriptor.loadSuccessCount());
+
+    assertEquals(0, caches.get("anotherCache").size());
+    assertNull(caches.get("anotherCache").oldestEntryAge());
+  }
+
+
+  @Test
+  void givenUnknownCache_whenCache_thenReturnNull() {
+    assertNull(endpoint.cache("unknown"));
+  }
+
+
+  @Test
+  void givenPopulatedCache_whenInvalidate_thenCacheIsEmpty() {
+    cacheManager.getCache("testCache").put("key", "value");
+    cacheManager.getCache("anotherCache").put("key", "value");
+
+    assertTrue(endpoint.invalidate("testCache"));
+
+    assertNull(cacheManager.getCache("testCache").get("key"));
+    assertEquals(1, endpoint.cache("anotherCache").size());
+  }
+
+
+  @Test
+  void givenPopulatedCaches_whenInvalidateAll_thenAllCachesAreEmpty() {
+    cacheManager.getCache("testCache").put("key", "value");
+    cacheManager.getCache("anotherCache").put("key", "value");
+
+    endpoint.invalidateAll();
+
+    assertEquals(0, endpoint.cache("testCache").size());
+    assertEquals(0, endpoint.cache("anotherCache").size());
+  }
+
+
+  @Test
+  void givenUnknownCache_whenInvalidate_thenReturnFalse() {
+    assertFalse(endpoint.invalidate("unknown"));
+  }
+
+
+  @Test
+  void givenNullCacheManager_whenConstruct_thenThrowNullPointerException() {
+    assertThrows(NullPointerException.class, () -> new CaffeineCachesEndpoint(null));
+  }
+}
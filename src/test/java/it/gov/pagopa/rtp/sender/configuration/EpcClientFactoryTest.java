@@ -0,0 +1,93 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send;
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@ExtendWith(MockitoExtension.class)
+class EpcClientFactoryTest {
+
+  @Mock
+  private ServiceProviderConfig serviceProviderConfig;
+
+  private final WebClient webClient = WebClient.create();
+
+  private EpcClientFactory epcClientFactory;
+
+  @BeforeEach
+  void setUp() {
+    epcClientFactory = new EpcClientFactory(serviceProviderConfig);
+  }
+
+  @Test
+  void givenMockUrl_whenCreateClient_thenBasePathIsMockUrl() {
+    when(serviceProviderConfig.send()).thenReturn(new Send("http://mock", null, 10000L, null));
+
+    final var client = epcClientFactory.createClient(webClient);
+
+    assertEquals("http://mock", client.getApiClient().getBasePath());
+  }
+
+  @Test
+  void givenNoMockUrl_whenCreateClient_thenThrowsIllegalStateException() {
+    when(serviceProviderConfig.send()).thenReturn(new Send(null, null, 10000L, null));
+
+    assertThrows(IllegalStateException.class, () -> epcClientFactory.createClient(webClient));
+  }
+
+  @Test
+  void givenSameWebClientAndBasePath_whenCreateClient_thenSameClientIsReused() {
+    final var first = epcClientFactory.createClient(webClient, "https://tsp.example.com");
+    final var second = epcClientFactory.createClient(webClient, "https://tsp.example.com");
+
+    assertSame(first, second);
+    assertEquals("https://tsp.example.com", first.getApiClient().getBasePath());
+  }
+
+  @Test
+  void givenDifferentBasePath_whenCreateClient_thenDifferentClientsAreCreated() {
+    final var first = epcClientFactory.createClient(webClient, "https://tsp1.example.com");
+    final var second = epcClientFactory.createClient(webClient, "https://tsp2.example.com");
+
+    assertNotSame(first, second);
+  }
+
+  @Test
+  void givenEndpointChangedEvent_whenCreateClient_thenOnlyClientsOfOldEndpointAreRecreated() {
+    final var tsp = new TechnicalServiceProvider(
+        "TSP1", "Tech Provider 1", "https://tsp.example.com", "cert123", null, true, null);
+
+    final var before = epcClientFactory.createClient(webClient, "https://tsp.example.com");
+    final var untouched = epcClientFactory.createClient(webClient, "https://other.example.com");
+    epcClientFactory.onTechnicalServiceProviderChanged(new TechnicalServiceProviderChangedEvent(
+        "TSP1", tsp, tsp.withServiceEndpoint("https://new.example.com"),
+        Set.of(Change.ENDPOINT_CHANGED)));
+
+    assertNotSame(before, epcClientFactory.createClient(webClient, "https://tsp.example.com"));
+    assertSame(untouched, epcClientFactory.createClient(webClient, "https://other.example.com"));
+  }
+
+  @Test
+  void givenSslContextReloadedEvent_whenCreateClient_thenClientIsRecreated() {
+    final var before = epcClientFactory.createClient(webClient, "https://tsp.example.com");
+    epcClientFactory.onSslContextReloaded(new SslContextReloadedEvent(null));
+    final var after = epcClientFactory.createClient(webClient, "https://tsp.example.com");
+
+    assertNotSame(before, after);
+  }
+}
@@ -0,0 +1,33 @@
+package it.gov.pagopa.rtp.sender.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class GdpProcessingPropertiesTest {
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  @Test
+  void givenResumeBelowPause_whenValidate_thenNoViolations() {
+    assertTrue(validator.validate(properties(1000, 999)).isEmpty());
+  }
+
+  @Test
+  void givenResumeNotBelowPause_whenValidate_thenRejectWaterMarks() {
+    final var violations = validator.validate(properties(500, 500));
+
+    assertEquals(1, violations.size());
+    assertEquals("resume-low-water-mark must be lower than pause-high-water-mark",
+        violations.iterator().next().getMessage());
+  }
+
+  private static GdpProcessingProperties properties(int pauseHighWaterMark, int resumeLowWaterMark) {
+    return new GdpProcessingProperties(16, 100, Duration.ofMillis(100), 100, Duration.ofSeconds(5),
+        pauseHighWaterMark, resumeLowWaterMark, Duration.ofSeconds(2));
+  }
+}
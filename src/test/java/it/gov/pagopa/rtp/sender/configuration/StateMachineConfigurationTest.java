@@ -33,7 +33,7 @@ class StateMachineConfigurationTest {
     final var retryConfig = new Retry(3, 1L, 0.1D);
 
     final var serviceProviderConfig = new ServiceProviderConfig(
-        null, null, new Send(null, retryConfig, null));
+        null, null, new Send(null, retryConfig, null, null));
 
 
     configuration = new StateMachineConfiguration(rtpDB, serviceProviderConfig);
@@ -2,14 +2,17 @@ package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import io.netty.handler.ssl.SslContext;
 import io.opentelemetry.api.OpenTelemetry;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.ConnectionPool;
 import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextFactory;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +20,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
 
 @ExtendWith(MockitoExtension.class)
 class DefaultWebClientFactoryTest {
@@ -30,21 +35,62 @@ class DefaultWebClientFactoryTest {
   @Mock
   private ServerOAuth2AuthorizedClientExchangeFilterFunction oauth2FilterFunction;
 
+  private final ConnectionProvider connectionProvider = ConnectionProvider.create("test", 1);
+  private final LoopResources loopResources = LoopResources.create("test");
+
   private DefaultWebClientFactory mtlsWebClientFactory;
 
   @BeforeEach
   void setUp() {
-    mtlsWebClientFactory = new DefaultWebClientFactory(sslContextFactory, config, OpenTelemetry.noop(), oauth2FilterFunction);
+    mtlsWebClientFactory = new DefaultWebClientFactory(sslContextFactory, config, OpenTelemetry.noop(),
+        oauth2FilterFunction, connectionProvider, loopResources);
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionProvider.dispose();
+    loopResources.dispose();
   }
 
   @Test
   void createMtlsWebClient_CreatesWebClientWithSslContext() {
     when(sslContextFactory.getSslContext()).thenReturn(sslContext);
-    when(config.send()).thenReturn(new Send(null, null, 10000L));
+    when(config.send()).thenReturn(new Send(null, null, 10000L, null));
 
     WebClient result = mtlsWebClientFactory.createMtlsWebClient();
 
     assertNotNull(result);
     verify(sslContextFactory).getSslContext();
   }
-}
\ No newline at end of file
+
+  @Test
+  void createSimpleWebClient_CreatesWebClientWithoutSslContext() {
+    when(config.send()).thenReturn(new Send(null, null, 10000L, ConnectionPool.defaults()));
+
+    WebClient result = mtlsWebClientFactory.createSimpleWebClient();
+
+    assertNotNull(result);
+    verifyNoInteractions(sslContextFactory);
+  }
+
+  @Test
+  void createHttp2MtlsWebClient_CreatesWebClientWithAlpnSslContext() {
+    when(sslContextFactory.getHttp2SslContext()).thenReturn(sslContext);
+    when(config.send()).thenReturn(new Send(null, null, 10000L, null));
+
+    WebClient result = mtlsWebClientFactory.createMtlsWebClient(true);
+
+    assertNotNull(result);
+    verify(sslContextFactory).getHttp2SslContext();
+  }
+
+  @Test
+  void createHttp2SimpleWebClient_CreatesWebClientWithoutSslContext() {
+    when(config.send()).thenReturn(new Send(null, null, 10000L, null));
+
+    WebClient result = mtlsWebClientFactory.createSimpleWebClient(true);
+
+    assertNotNull(result);
+    verifyNoInteractions(sslContextFactory);
+  }
+}
@@ -0,0 +1,140 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultWebClientRegistryTest {
+
+  @Mock
+  private WebClientFactory webClientFactory;
+
+  private DefaultWebClientRegistry webClientRegistry;
+
+  private final TechnicalServiceProvider mtlsTsp = new TechnicalServiceProvider(
+      "TSP1", "Tech Provider 1", "https://tsp1.example.com", "cert123", null, true, null);
+
+  private final TechnicalServiceProvider simpleTsp = new TechnicalServiceProvider(
+      "TSP2", "Tech Provider 2", "https://tsp2.example.com", "cert456", null, false, null);
+
+  @BeforeEach
+  void setUp() {
+    webClientRegistry = new DefaultWebClientRegistry(webClientFactory);
+  }
+
+  @Test
+  void givenSameTsp_whenGetWebClientTwice_thenSameClientIsReused() {
+    final var webClient = mock(WebClient.class);
+    when(webClientFactory.createMtlsWebClient(false)).thenReturn(webClient);
+
+    final var first = webClientRegistry.getWebClient(mtlsTsp);
+    final var second = webClientRegistry.getWebClient(mtlsTsp);
+
+    assertSame(webClient, first);
+    assertSame(first, second);
+    verify(webClientFactory, times(1)).createMtlsWebClient(false);
+  }
+
+  @Test
+  void givenMtlsDisabledTsp_whenGetWebClient_thenSimpleClientIsCreated() {
+    final var webClient = mock(WebClient.class);
+    when(webClientFactory.createSimpleWebClient(false)).thenReturn(webClient);
+
+    final var result = webClientRegistry.getWebClient(simpleTsp);
+
+    assertSame(webClient, result);
+    verify(webClientFactory).createSimpleWebClient(false);
+  }
+
+  @Test
+  void givenDifferentTsps_whenGetWebClient_thenDifferentClientsAreCreated() {
+    when(webClientFactory.createMtlsWebClient(false))
+        .thenReturn(mock(WebClient.class))
+        .thenReturn(mock(WebClient.class));
+
+    final var first = webClientRegistry.getWebClient(mtlsTsp);
+    final var second = webClientRegistry.getWebClient(
+        mtlsTsp.withServiceEndpoint("https://other.example.com"));
+
+    assertNotSame(first, second);
+    verify(webClientFactory, times(2)).createMtlsWebClient(false);
+  }
+
+  @Test
+  void givenTransportChangedEvent_whenGetWebClient_thenOnlyThatClientIsRecreated() {
+    when(webClientFactory.createMtlsWebClient(false))
+        .thenReturn(mock(WebClient.class))
+        .thenReturn(mock(WebClient.class));
+    when(webClientFactory.createSimpleWebClient(false)).thenReturn(mock(WebClient.class));
+
+    final var before = webClientRegistry.getWebClient(mtlsTsp);
+    final var untouched = webClientRegistry.getWebClient(simpleTsp);
+    webClientRegistry.onTechnicalServiceProviderChanged(new TechnicalServiceProviderChangedEvent(
+        "TSP1", mtlsTsp, mtlsTsp.withProtocols(List.of("h2")), Set.of(Change.TRANSPORT_CHANGED)));
+
+    assertNotSame(before, webClientRegistry.getWebClient(mtlsTsp));
+    assertSame(untouched, webClientRegistry.getWebClient(simpleTsp));
+    verify(webClientFactory, times(2)).createMtlsWebClient(false);
+  }
+
+  @Test
+  void givenCertificateRotatedEvent_whenGetWebClient_thenClientIsReused() {
+    when(webClientFactory.createMtlsWebClient(false)).thenReturn(mock(WebClient.class));
+
+    final var before = webClientRegistry.getWebClient(mtlsTsp);
+    webClientRegistry.onTechnicalServiceProviderChanged(new TechnicalServiceProviderChangedEvent(
+        "TSP1", mtlsTsp, mtlsTsp.withCertificateSerialNumber("rotated"),
+        Set.of(Change.CERTIFICATE_ROTATED)));
+
+    assertSame(before, webClientRegistry.getWebClient(mtlsTsp));
+    verify(webClientFactory, times(1)).createMtlsWebClient(false);
+  }
+
+  @Test
+  void givenSslContextReloadedEvent_whenGetWebClient_thenClientIsRecreated() {
+    when(webClientFactory.createMtlsWebClient(false))
+        .thenReturn(mock(WebClient.class))
+        .thenReturn(mock(WebClient.class));
+
+    final var before = webClientRegistry.getWebClient(mtlsTsp);
+    webClientRegistry.onSslContextReloaded(new SslContextReloadedEvent(null));
+    final var after = webClientRegistry.getWebClient(mtlsTsp);
+
+    assertNotSame(before, after);
+    verify(webClientFactory, times(2)).createMtlsWebClient(false);
+  }
+
+  @Test
+  void givenHttp2Tsp_whenGetWebClient_thenHttp2ClientIsCreated() {
+    final var webClient = mock(WebClient.class);
+    when(webClientFactory.createMtlsWebClient(true)).thenReturn(webClient);
+
+    final var result = webClientRegistry.getWebClient(mtlsTsp.withProtocols(List.of("h2", "http/1.1")));
+
+    assertSame(webClient, result);
+    verify(webClientFactory).createMtlsWebClient(true);
+  }
+
+  @Test
+  void givenNullTsp_whenGetWebClient_thenThrowsNullPointerException() {
+    assertThrows(NullPointerException.class, () -> webClientRegistry.getWebClient(null));
+  }
+}
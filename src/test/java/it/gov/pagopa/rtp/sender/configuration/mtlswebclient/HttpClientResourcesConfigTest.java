@@ -0,0 +1,86 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.ConnectionPool;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.ConnectionPool.HostPool;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HttpClientResourcesConfigTest {
+
+  @Test
+  void givenNoConnectionPoolConfig_whenResolveConnectionPool_thenDefaultsAreUsed() {
+    final var config = new ServiceProviderConfig(null, null, new Send(null, null, 10000L, null));
+
+    final var connectionPool = HttpClientResourcesConfig.resolveConnectionPool(config);
+
+    assertEquals(ConnectionPool.defaults(), connectionPool);
+  }
+
+  @Test
+  void givenPartialConnectionPoolConfig_whenResolveConnectionPool_thenMissingValuesAreDefaulted() {
+    final var partial = new ConnectionPool(10, null, null, null, null, null, null, null, null, null, null);
+    final var config = new ServiceProviderConfig(null, null, new Send(null, null, 10000L, partial));
+
+    final var connectionPool = HttpClientResourcesConfig.resolveConnectionPool(config);
+
+    assertEquals(10, connectionPool.maxConnections());
+    assertEquals(ConnectionPool.defaults().pendingAcquireMaxCount(), connectionPool.pendingAcquireMaxCount());
+    assertEquals(Duration.ofSeconds(5), connectionPool.connectTimeout());
+  }
+
+  @Test
+  void givenConnectionPoolConfig_whenCreateBeans_thenResourcesAreCreated() {
+    final var pool = new ConnectionPool(10, 20, Duration.ofSeconds(1), Duration.ofSeconds(10),
+        Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(1), 2, false, false, null);
+    final var resourcesConfig = new HttpClientResourcesConfig(
+        new ServiceProviderConfig(null, null, new Send(null, null, 10000L, pool)));
+
+    final var connectionProvider = resourcesConfig.outboundConnectionProvider();
+    final var loopResources = resourcesConfig.outboundLoopResources();
+
+    assertNotNull(connectionProvider);
+    assertNotNull(loopResources);
+    assertEquals(10, connectionProvider.maxConnections());
+
+    connectionProvider.dispose();
+    loopResources.dispose();
+  }
+
+  @Test
+  void givenHostOverrides_whenCreateConnectionProvider_thenPerHostLimitsAreApplied() {
+    final var pool = new ConnectionPool(10, null, null, null, null, null, null, null, null, false,
+        Map.of(
+            "https://tsp1.example.com/rtps", new HostPool(100, null, null),
+            "tsp2.example.com:8443", new HostPool(null, 5, Duration.ofSeconds(1))));
+    final var resourcesConfig = new HttpClientResourcesConfig(
+        new ServiceProviderConfig(null, null, new Send(null, null, 10000L, pool)));
+
+    final var connectionProvider = resourcesConfig.outboundConnectionProvider();
+
+    assertEquals(10, connectionProvider.maxConnections());
+    assertEquals(Map.of(
+            InetSocketAddress.createUnresolved("tsp1.example.com", 443), 100,
+            InetSocketAddress.createUnresolved("tsp2.example.com", 8443), 10),
+        connectionProvider.maxConnectionsPerHost());
+
+    connectionProvider.dispose();
+  }
+
+  @Test
+  void givenHostKeys_whenRemoteAddressOf_thenResolveHostAndPort() {
+    assertEquals(InetSocketAddress.createUnresolved("tsp.example.com", 80),
+        HttpClientResourcesConfig.remoteAddressOf("http://tsp.example.com/path"));
+    assertEquals(InetSocketAddress.createUnresolved("tsp.example.com", 443),
+        HttpClientResourcesConfig.remoteAddressOf("tsp.example.com"));
+    assertThrows(IllegalArgumentException.class,
+        () -> HttpClientResourcesConfig.remoteAddressOf("https:///rtps"));
+  }
+}
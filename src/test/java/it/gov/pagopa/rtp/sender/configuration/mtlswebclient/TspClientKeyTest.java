@@ -0,0 +1,41 @@
+package it.gov.pagopa.rtp.sender.configuration.mtlswebclient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TspClientKeyTest {
+
+  private final TechnicalServiceProvider tsp = new TechnicalServiceProvider(
+      "TSP1", "Tech Provider 1", "https://tsp1.example.com", "cert123", null, true, null);
+
+  @Test
+  void givenNoProtocols_whenOf_thenHttp2IsDisabled() {
+    assertFalse(TspClientKey.of(tsp).http2Enabled());
+  }
+
+  @Test
+  void givenH2ProtocolAndHttpsEndpoint_whenOf_thenHttp2IsEnabled() {
+    final var key = TspClientKey.of(tsp.withProtocols(List.of("H2", "http/1.1")));
+
+    assertTrue(key.http2Enabled());
+    assertTrue(key.mtlsEnabled());
+  }
+
+  @Test
+  void givenH2ProtocolAndPlainHttpEndpoint_whenOf_thenHttp2IsDisabled() {
+    final var key = TspClientKey.of(tsp
+        .withServiceEndpoint("http://tsp1.example.com")
+        .withProtocols(List.of("h2")));
+
+    assertFalse(key.http2Enabled());
+  }
+
+  @Test
+  void givenOnlyHttp11Protocol_whenOf_thenHttp2IsDisabled() {
+    assertFalse(TspClientKey.of(tsp.withProtocols(List.of("http/1.1"))).http2Enabled());
+  }
+}
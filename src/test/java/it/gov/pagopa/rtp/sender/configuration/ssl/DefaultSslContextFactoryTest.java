@@ -1,11 +1,22 @@
 package it.gov.pagopa.rtp.sender.configuration.ssl;
 
 import static org.junit.jupiter.api.Assertions.*;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.lang.NonNull;
 
 
@@ -83,4 +94,104 @@ class DefaultSslContextFactoryTest {
     assertThrows(SslContextCreationException.class, sslContextFactory::getSslContext);
   }
 
+  @Test
+  void givenValidSslProps_whenGetHttp2SslContext_thenReturnAlpnSslContext() {
+    final var sslContextFactory = new DefaultSslContextFactory(() -> this.sslContextProps);
+
+    final var sslContext = sslContextFactory.getHttp2SslContext();
+
+    assertNotNull(sslContext);
+    assertTrue(sslContext.applicationProtocolNegotiator().protocols().contains("h2"));
+    assertNotSame(sslContextFactory.getSslContext(), sslContext);
+  }
+
+  @Test
+  void givenUnchangedKeyMaterial_whenGetSslContextTwice_thenReturnSameSslContext() {
+    final var sslContextFactory = new DefaultSslContextFactory(() -> this.sslContextProps);
+    final var eventPublisher = mock(ApplicationEventPublisher.class);
+    sslContextFactory.setApplicationEventPublisher(eventPublisher);
+
+    final var first = sslContextFactory.getSslContext();
+    sslContextFactory.checkForRotation();
+    final var second = sslContextFactory.getSslContext();
+
+    assertSame(first, second);
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void givenRotatedTrustStore_whenCheckForRotation_thenReloadSslContextAndPublishEvent(
+      @TempDir final Path tempDir) throws IOException {
+
+    final var trustStore = Files.copy(
+        Path.of(this.sslContextProps.jksTrustStorePath()), tempDir.resolve("test.jks"));
+    final var inputSslContextProps = this.sslContextProps.withJksTrustStorePath(trustStore.toString());
+    final var sslContextFactory = new DefaultSslContextFactory(() -> inputSslContextProps);
+    final var eventPublisher = mock(ApplicationEventPublisher.class);
+    sslContextFactory.setApplicationEventPublisher(eventPublisher);
+
+    final var first = sslContextFactory.getSslContext();
+    Files.setLastModifiedTime(trustStore, FileTime.from(Instant.now().plusSeconds(60)));
+    sslContextFactory.checkForRotation();
+    final var second = sslContextFactory.getSslContext();
+
+    assertNotSame(first, second);
+    verify(eventPublisher).publishEvent(any(SslContextReloadedEvent.class));
+  }
+
+  @Test
+  void givenPfxPath_whenGetSslContext_thenReturnSslContextFromFile(
+      @TempDir final Path tempDir) throws IOException {
+
+    final var pfx = Files.writeString(tempDir.resolve("client.pfx.b64"), this.sslContextProps.pfxFile());
+    final var inputSslContextProps = this.sslContextProps.withPfxFile("").withPfxPath(pfx.toString());
+    final var sslContextFactory = new DefaultSslContextFactory(() -> inputSslContextProps);
+
+    assertNotNull(sslContextFactory.getSslContext());
+  }
+
+  @Test
+  void givenMissingPfxPath_whenGetSslContext_thenThrowSslContextCreationException() {
+    final var inputSslContextProps = this.sslContextProps.withPfxPath("/non/existent/path/client.pfx.b64");
+    final var sslContextFactory = new DefaultSslContextFactory(() -> inputSslContextProps);
+
+    assertThrows(SslContextCreationException.class, sslContextFactory::getSslContext);
+  }
+
+  @Test
+  void givenRotatedPfxFile_whenCheckForRotation_thenReloadSslContextAndPublishEvent(
+      @TempDir final Path tempDir) throws IOException {
+
+    final var pfx = Files.writeString(tempDir.resolve("client.pfx.b64"), this.sslContextProps.pfxFile());
+    final var inputSslContextProps = this.sslContextProps.withPfxFile("").withPfxPath(pfx.toString());
+    final var sslContextFactory = new DefaultSslContextFactory(() -> inputSslContextProps);
+    final var eventPublisher = mock(ApplicationEventPublisher.class);
+    sslContextFactory.setApplicationEventPublisher(eventPublisher);
+
+    final var first = sslContextFactory.getSslContext();
+    Files.setLastModifiedTime(pfx, FileTime.from(Instant.now().plusSeconds(60)));
+    sslContextFactory.checkForRotation();
+    final var second = sslContextFactory.getSslContext();
+
+    assertNotSame(first, second);
+    verify(eventPublisher).publishEvent(any(SslContextReloadedEvent.class));
+  }
+
+  @Test
+  void givenBrokenRotatedKeyMaterial_whenCheckForRotation_thenKeepPreviousSslContext(
+      @TempDir final Path tempDir) throws IOException {
+
+    final var trustStore = Files.copy(
+        Path.of(this.sslContextProps.jksTrustStorePath()), tempDir.resolve("test.jks"));
+    final var inputSslContextProps = this.sslContextProps.withJksTrustStorePath(trustStore.toString());
+    final var sslContextFactory = new DefaultSslContextFactory(() -> inputSslContextProps);
+
+    final var first = sslContextFactory.getSslContext();
+    Files.write(trustStore, new byte[]{0, 1, 2});
+    sslContextFactory.checkForRotation();
+    final var second = sslContextFactory.getSslContext();
+
+    assertSame(first, second);
+  }
+
 }
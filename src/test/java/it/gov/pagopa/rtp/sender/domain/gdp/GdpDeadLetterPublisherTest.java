@@ -0,0 +1,144 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpDeadLetterProperties;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.test.StepVerifier;
+
+
+@ExtendWith(MockitoExtension.class)
+class GdpDeadLetterPublisherTest {
+
+  @Mock
+  private StreamBridge streamBridge;
+
+  @Captor
+  private ArgumentCaptor<Message<GdpMessage>> deadLetterCaptor;
+
+  private GdpDeadLetterPublisher publisher;
+
+
+  @BeforeEach
+  void setUp() {
+    publisher = new GdpDeadLetterPublisher(streamBridge,
+        new GdpDeadLetterProperties("dlq", "parking-lot", 2, Duration.ofSeconds(1)));
+  }
+
+
+  @Test
+  void givenFailedMessage_whenPublish_thenSendToDeadLetterWithErrorMetadata() {
+    when(streamBridge.send(eq(GdpDeadLetterPublisher.DEAD_LETTER_BINDING), any()))
+        .thenReturn(true);
+
+    final var message = MessageBuilder.withPayload(gdpMessage(42L))
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "rtp-events")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 3)
+        .setHeader(KafkaHeaders.OFFSET, 128L)
+        .build();
+
+    StepVerifier.create(publisher.publish(message, new IllegalStateException("boom"), 0))
+        .verifyComplete();
+
+    verify(streamBridge).send(eq(GdpDeadLetterPublisher.DEAD_LETTER_BINDING), deadLetterCaptor.capture());
+    final var deadLetter = deadLetterCaptor.getValue();
+    final var headers = deadLetter.getHeaders();
+    assertEquals(message.getPayload(), deadLetter.getPayload());
+    assertEquals("42", headers.get(KafkaHeaders.KEY));
+    assertEquals("rtp-events", headers.get(GdpDeadLetterPublisher.ORIGINAL_TOPIC_HEADER));
+    assertEquals("3", headers.get(GdpDeadLetterPublisher.ORIGINAL_PARTITION_HEADER));
+    assertEquals("128", headers.get(GdpDeadLetterPublisher.ORIGINAL_OFFSET_HEADER));
+    assertEquals(IllegalStateException.class.getName(),
+        headers.get(GdpDeadLetterPublisher.EXCEPTION_CLASS_HEADER));
+    assertEquals("boom", headers.get(GdpDeadLetterPublisher.EXCEPTION_MESSAGE_HEADER));
+    assertEquals("0", headers.get(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER));
+  }
+
+
+  @Test
+  void givenReplayedMessage_whenPublish_thenKeepOriginalPosition() {
+    when(streamBridge.send(eq(GdpDeadLetterPublisher.DEAD_LETTER_BINDING), any()))
+        .thenReturn(true);
+
+    final var message = MessageBuilder.withPayload(gdpMessage(42L))
+        .setHeader(GdpDeadLetterPublisher.ORIGINAL_TOPIC_HEADER, "rtp-events".getBytes())
+        .setHeader(GdpDeadLetterPublisher.ORIGINAL_OFFSET_HEADER, "128")
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "rtp-events-dlq")
+        .setHeader(KafkaHeaders.OFFSET, 7L)
+        .build();
+
+    StepVerifier.create(publisher.publish(message, new IllegalStateException("boom"), 1))
+        .verifyComplete();
+
+    verify(streamBridge).send(eq(GdpDeadLetterPublisher.DEAD_LETTER_BINDING), deadLetterCaptor.capture());
+    final var headers = deadLetterCaptor.getValue().getHeaders();
+    assertEquals("rtp-events", headers.get(GdpDeadLetterPublisher.ORIGINAL_TOPIC_HEADER));
+    assertEquals("128", headers.get(GdpDeadLetterPublisher.ORIGINAL_OFFSET_HEADER));
+    assertEquals("1", headers.get(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER));
+  }
+
+
+  @Test
+  void givenReplayAttemptsExhausted_whenPublish_thenSendToParkingLot() {
+    when(streamBridge.send(eq(GdpDeadLetterPublisher.PARKING_LOT_BINDING), any()))
+        .thenReturn(true);
+
+    final var message = MessageBuilder.withPayload(gdpMessage(42L)).build();
+
+    StepVerifier.create(publisher.publish(message, new IllegalStateException("boom"), 2))
+        .verifyComplete();
+
+    verify(streamBridge).send(eq(GdpDeadLetterPublisher.PARKING_LOT_BINDING), any());
+  }
+
+
+  @Test
+  void givenSendRejected_whenPublish_thenError() {
+    when(streamBridge.send(anyString(), any()))
+        .thenReturn(false);
+
+    final var message = MessageBuilder.withPayload(gdpMessage(42L)).build();
+
+    StepVerifier.create(publisher.publish(message, new IllegalStateException("boom"), 0))
+        .expectError(IllegalStateException.class)
+        .verify();
+  }
+
+
+  @Test
+  void givenReplayAttemptsHeader_whenReadReplayAttempts_thenParseIt() {
+    assertEquals(2, GdpDeadLetterPublisher.replayAttemptsOf(MessageBuilder.withPayload("payload")
+        .setHeader(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER, "2".getBytes())
+        .build()));
+    assertEquals(0, GdpDeadLetterPublisher.replayAttemptsOf(MessageBuilder.withPayload("payload")
+        .setHeader(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER, "not-a-number")
+        .build()));
+    assertEquals(0, GdpDeadLetterPublisher.replayAttemptsOf(
+        MessageBuilder.withPayload("payload").build()));
+  }
+
+
+  private static GdpMessage gdpMessage(final long id) {
+    return GdpMessage.builder()
+        .id(id)
+        .operation(GdpMessage.Operation.CREATE)
+        .amount(100)
+        .build();
+  }
+}
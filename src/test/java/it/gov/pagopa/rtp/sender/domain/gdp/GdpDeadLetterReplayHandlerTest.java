@@ -0,0 +1,204 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpDeadLetterProperties;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+
+@ExtendWith(MockitoExtension.class)
+class GdpDeadLetterReplayHandlerTest {
+
+  @Mock
+  private MessageProcessor<GdpMessage, Mono<Rtp>> gdProcessor;
+
+  @Mock
+  private GdpDeadLetterPublisher deadLetterPublisher;
+
+  private GdpMessageSequencer messageSequencer;
+
+  private GdpDeadLetterReplayHandler replayHandler;
+
+
+  @BeforeEach
+  void setUp() {
+    messageSequencer = new GdpMessageSequencer();
+    replayHandler = new GdpDeadLetterReplayHandler(gdProcessor, deadLetterPublisher,
+        new GdpOffsetCommitter(
+            new GdpProcessingProperties(4, 100, Duration.ofMillis(100), 1, Duration.ofSeconds(5), 1000, 500,
+                Duration.ofSeconds(2))),
+        messageSequencer,
+        new GdpDeadLetterProperties("dlq", "parking-lot", 3, Duration.ofSeconds(1)));
+  }
+
+
+  @Test
+  void givenDeadLetters_whenReplayed_thenProcessedAtConfiguredRate() {
+    final var first = deadLetter(1L, null);
+    final var second = deadLetter(2L, null);
+    when(gdProcessor.processMessage(any())).thenReturn(Mono.empty());
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(first, second)))
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(1999))
+        .thenAwait(Duration.ofMillis(1))
+        .verifyComplete();
+
+    verify(gdProcessor).processMessage(first.getPayload());
+    verify(gdProcessor).processMessage(second.getPayload());
+    verifyNoInteractions(deadLetterPublisher);
+  }
+
+
+  @Test
+  void givenReplayFailsAgain_whenReplayed_thenPublishedWithIncrementedAttempts() {
+    final var message = deadLetter(1L, "1");
+    final var error = new IllegalStateException("boom");
+    when(gdProcessor.processMessage(message.getPayload())).thenReturn(Mono.error(error));
+    when(deadLetterPublisher.publish(message, error, 2)).thenReturn(Mono.empty());
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(message)))
+        .thenAwait(Duration.ofSeconds(1))
+        .verifyComplete();
+
+    verify(deadLetterPublisher).publish(message, error, 2);
+  }
+
+
+  @Test
+  void givenPublishFails_whenReplayed_thenFollowingMessagesReplayed() {
+    final var failing = deadLetter(1L, null);
+    final var following = deadLetter(2L, null);
+    when(gdProcessor.processMessage(failing.getPayload()))
+        .thenReturn(Mono.error(new IllegalStateException("boom")));
+    when(gdProcessor.processMessage(following.getPayload())).thenReturn(Mono.empty());
+    when(deadLetterPublisher.publish(eq(failing), any(), eq(1)))
+        .thenReturn(Mono.error(new IllegalStateException("broker down")));
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(failing, following)))
+        .thenAwait(Duration.ofSeconds(2))
+        .verifyComplete();
+
+    verify(gdProcessor).processMessage(following.getPayload());
+  }
+
+
+  @Test
+  void givenReplayed_whenCompleted_thenOffsetCommittedAfterProcessing() {
+    final var acknowledgment = mock(Acknowledgment.class);
+    final var message = acknowledgedDeadLetter(1L, 0L, acknowledgment);
+    when(gdProcessor.processMessage(message.getPayload())).thenReturn(Mono.empty());
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(message)))
+        .thenAwait(Duration.ofSeconds(1))
+        .verifyComplete();
+
+    final var inOrder = inOrder(gdProcessor, acknowledgment);
+    inOrder.verify(gdProcessor).processMessage(message.getPayload());
+    inOrder.verify(acknowledgment).acknowledge();
+  }
+
+
+  @Test
+  void givenPublishFails_whenReplayed_thenOffsetNotCommitted() {
+    final var acknowledgment = mock(Acknowledgment.class);
+    final var message = acknowledgedDeadLetter(1L, 0L, acknowledgment);
+    when(gdProcessor.processMessage(message.getPayload()))
+        .thenReturn(Mono.error(new IllegalStateException("boom")));
+    when(deadLetterPublisher.publish(eq(message), any(), eq(1)))
+        .thenReturn(Mono.error(new IllegalStateException("broker down")));
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(message)))
+        .thenAwait(Duration.ofSeconds(1))
+        .verifyComplete();
+
+    verify(acknowledgment, never()).acknowledge();
+  }
+
+
+  @Test
+  void givenLiveMessageOfSameIdInFlight_whenReplayed_thenReplayWaitsForIt() {
+    final var message = deadLetter(1L, null);
+    final var liveTurn = messageSequencer.acquire(1L);
+    when(gdProcessor.processMessage(message.getPayload())).thenReturn(Mono.empty());
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+            .apply(Flux.just(message)))
+        .thenAwait(Duration.ofSeconds(5))
+        .then(() -> verifyNoInteractions(gdProcessor))
+        .then(liveTurn::release)
+        .verifyComplete();
+
+    verify(gdProcessor).processMessage(message.getPayload());
+  }
+
+
+  @Test
+  void givenReplayInFlight_whenLiveMessageOfSameIdRun_thenItWaitsForTheReplay() {
+    final var message = deadLetter(1L, null);
+    final var replayed = new AtomicBoolean();
+    when(gdProcessor.processMessage(message.getPayload()))
+        .thenAnswer(invocation -> Mono.delay(Duration.ofSeconds(3))
+            .then(Mono.fromRunnable(() -> replayed.set(true))));
+
+    StepVerifier.withVirtualTime(() -> replayHandler.gdpDeadLetterReplay()
+                .apply(Flux.just(message))
+                .and(Mono.delay(Duration.ofSeconds(2))
+                    .then(Mono.defer(() -> messageSequencer.acquire(1L)
+                        .run(Mono.fromCallable(replayed::get))))
+                    .doOnNext(replayedFirst -> assertTrue(replayedFirst))
+                    .then()))
+        .thenAwait(Duration.ofSeconds(5))
+        .verifyComplete();
+  }
+
+
+  private static Message<GdpMessage> acknowledgedDeadLetter(
+      final long id, final long offset, final Acknowledgment acknowledgment) {
+    return MessageBuilder.fromMessage(deadLetter(id, null))
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "dlq")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 0)
+        .setHeader(KafkaHeaders.OFFSET, offset)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+        .build();
+  }
+
+
+  private static Message<GdpMessage> deadLetter(final long id, final String replayAttempts) {
+    return MessageBuilder.withPayload(GdpMessage.builder()
+            .id(id)
+            .operation(GdpMessage.Operation.UPDATE)
+            .amount(100)
+            .build())
+        .setHeader(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER, replayAttempts)
+        .build();
+  }
+}
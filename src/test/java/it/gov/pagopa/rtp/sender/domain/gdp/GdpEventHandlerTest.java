@@ -1,14 +1,37 @@
 package it.gov.pagopa.rtp.sender.domain.gdp;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import it.gov.pagopa.rtp.sender.configuration.GdpEventHubProperties;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import it.gov.pagopa.rtp.sender.service.rtp.PrefetchedRtps;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
 import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
@@ -30,12 +53,26 @@ class GdpEventHandlerTest {
   @Autowired
   private MessageProcessor<GdpMessage, Mono<Rtp>> messageProcessor;
 
+  @Autowired
+  private GdpRtpPrefetcher rtpPrefetcher;
+
+  @Autowired
+  private GdpDeadLetterPublisher deadLetterPublisher;
+
+  @Autowired
+  private OutputDestination outputDestination;
+
+  private final GdpFlowController flowController = mock(GdpFlowController.class);
+
   private GdpEventHandler gdpEventHandler;
 
 
   @BeforeEach
   void setUp() {
-    gdpEventHandler = new GdpEventHandler(messageProcessor);
+    outputDestination.clear();
+    gdpEventHandler = new GdpEventHandler(messageProcessor, rtpPrefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(4));
   }
 
 
@@ -72,10 +109,277 @@ class GdpEventHandlerTest {
   }
 
 
+  @Test
+  void givenMessagesWithSameId_whenConsumed_thenProcessedInOrderOneAtATime() {
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+    final var inFlight = new AtomicInteger();
+    final var maxInFlight = new AtomicInteger();
+
+    final MessageProcessor<GdpMessage, Mono<Rtp>> recordingProcessor = message -> Mono.defer(() -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          events.add("start " + message.id() + " " + message.operation());
+          return Mono.delay(Duration.ofMillis(message.operation() == GdpMessage.Operation.CREATE ? 100 : 10));
+        })
+        .doOnNext(tick -> {
+          events.add("end " + message.id() + " " + message.operation());
+          inFlight.decrementAndGet();
+        })
+        .then(Mono.<Rtp>empty());
+
+    final var handler = new GdpEventHandler(recordingProcessor, rtpPrefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(4));
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L), 0, 1L),
+        createKafkaMessage(createValidGdpMessage(1L, GdpMessage.Operation.UPDATE), 0, 2L),
+        createKafkaMessage(createValidGdpMessage(2L), 0, 3L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    final var sameIdEvents = events.stream()
+        .filter(event -> event.contains(" 1 "))
+        .toList();
+    assertEquals(List.of("start 1 CREATE", "end 1 CREATE", "start 1 UPDATE", "end 1 UPDATE"),
+        sameIdEvents);
+    assertTrue(events.indexOf("start 2 CREATE") < events.indexOf("end 1 CREATE"));
+    assertEquals(2, maxInFlight.get());
+  }
+
+  @Test
+  void givenSlowMessage_whenNextBatchConsumed_thenUnrelatedMessagesAreNotHeldBack() {
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+
+    final MessageProcessor<GdpMessage, Mono<Rtp>> recordingProcessor = message -> Mono.delay(
+            Duration.ofMillis(message.id() == 1L ? 500 : 10))
+        .doOnNext(tick -> events.add("end " + message.id()))
+        .then(Mono.<Rtp>empty());
+
+    final var handler = new GdpEventHandler(recordingProcessor, rtpPrefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), singleMessageBatches(4));
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L), 0, 1L),
+        createKafkaMessage(createValidGdpMessage(2L), 0, 2L),
+        createKafkaMessage(createValidGdpMessage(3L), 0, 3L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    assertEquals(3, events.size());
+    assertEquals("end 1", events.get(2));
+  }
+
+  @Test
+  void givenSameIdInFlightFromPreviousBatch_whenNextBatchConsumed_thenProcessedInOrderWithoutPrefetch() {
+    final var prefetcher = mock(GdpRtpPrefetcher.class);
+    final var prefetchedBatches = Collections.synchronizedList(new ArrayList<List<GdpMessage>>());
+    when(prefetcher.prefetch(anyList())).thenAnswer(invocation -> {
+      prefetchedBatches.add(invocation.getArgument(0));
+      return Mono.just(PrefetchedRtps.of("dispatcher", List.of(), Duration.ofSeconds(2)));
+    });
+
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+    final MessageProcessor<GdpMessage, Mono<Rtp>> recordingProcessor = message -> Mono.delay(
+            Duration.ofMillis(message.operation() == GdpMessage.Operation.CREATE ? 200 : 10))
+        .doOnNext(tick -> events.add("end " + message.id() + " " + message.operation()))
+        .then(Mono.<Rtp>empty());
+
+    final var handler = new GdpEventHandler(recordingProcessor, prefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), singleMessageBatches(4));
+    final var update = createValidGdpMessage(1L, GdpMessage.Operation.UPDATE);
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L), 0, 1L),
+        createKafkaMessage(update, 0, 2L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    assertEquals(List.of("end 1 CREATE", "end 1 UPDATE"), events);
+    assertEquals(2, prefetchedBatches.size());
+    assertTrue(prefetchedBatches.stream().noneMatch(batch -> batch.contains(update)));
+  }
+
+  @Test
+  void givenFailingMessage_whenConsumed_thenFollowingMessagesOfSameIdAreProcessed() {
+    final var processed = Collections.synchronizedList(new ArrayList<GdpMessage.Operation>());
+
+    final MessageProcessor<GdpMessage, Mono<Rtp>> failingProcessor = message -> {
+      processed.add(message.operation());
+      return message.operation() == GdpMessage.Operation.CREATE
+          ? Mono.error(new IllegalStateException("boom"))
+          : Mono.empty();
+    };
+
+    final var handler = new GdpEventHandler(failingProcessor, rtpPrefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(1));
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L), 0, 1L),
+        createKafkaMessage(createValidGdpMessage(1L, GdpMessage.Operation.DELETE), 0, 2L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    assertEquals(List.of(GdpMessage.Operation.CREATE, GdpMessage.Operation.DELETE), processed);
+
+    final var deadLetter = outputDestination.receive(1000, "test-dead-letter-topic");
+    assertNotNull(deadLetter);
+    assertEquals(IllegalStateException.class.getName(),
+        deadLetter.getHeaders().get(GdpDeadLetterPublisher.EXCEPTION_CLASS_HEADER));
+    assertEquals("boom", deadLetter.getHeaders().get(GdpDeadLetterPublisher.EXCEPTION_MESSAGE_HEADER));
+    assertEquals("0", deadLetter.getHeaders().get(GdpDeadLetterPublisher.REPLAY_ATTEMPTS_HEADER));
+    assertNull(outputDestination.receive(100, "test-dead-letter-topic"));
+  }
+
+
+  @Test
+  void givenBatch_whenConsumed_thenPrefetchedRtpsAvailableToProcessor() {
+    final var prefetched = PrefetchedRtps.of("dispatcher", List.of(), Duration.ofSeconds(2));
+    final var prefetcher = mock(GdpRtpPrefetcher.class);
+    when(prefetcher.prefetch(anyList())).thenReturn(Mono.just(prefetched));
+
+    final var seen = Collections.synchronizedList(new ArrayList<PrefetchedRtps>());
+    final MessageProcessor<GdpMessage, Mono<Rtp>> contextProcessor = message -> Mono.deferContextual(ctx -> {
+      seen.add(ctx.get(PrefetchedRtps.CONTEXT_KEY));
+      return Mono.<Rtp>empty();
+    });
+
+    final var handler = new GdpEventHandler(contextProcessor, prefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(2));
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L, GdpMessage.Operation.UPDATE), 0, 1L),
+        createKafkaMessage(createValidGdpMessage(2L, GdpMessage.Operation.DELETE), 0, 2L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    assertEquals(List.of(prefetched, prefetched), seen);
+  }
+
+  @Test
+  void givenFailingPrefetch_whenConsumed_thenMessagesProcessedWithoutPrefetchedRtps() {
+    final var prefetcher = mock(GdpRtpPrefetcher.class);
+    when(prefetcher.prefetch(anyList())).thenReturn(Mono.error(new IllegalStateException("boom")));
+
+    final var processed = Collections.synchronizedList(new ArrayList<Long>());
+    final MessageProcessor<GdpMessage, Mono<Rtp>> contextProcessor = message -> Mono.deferContextual(ctx -> {
+      assertTrue(ctx.getOrEmpty(PrefetchedRtps.CONTEXT_KEY).isEmpty());
+      processed.add(message.id());
+      return Mono.<Rtp>empty();
+    });
+
+    final var handler = new GdpEventHandler(contextProcessor, prefetcher,
+        offsetCommitter(), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(1));
+    final var messages = Flux.just(
+        createKafkaMessage(createValidGdpMessage(1L, GdpMessage.Operation.UPDATE), 0, 1L),
+        createKafkaMessage(createValidGdpMessage(2L, GdpMessage.Operation.DELETE), 0, 2L));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    assertEquals(List.of(1L, 2L), processed);
+  }
+
+
+  @Test
+  void givenAcknowledgedMessages_whenProcessed_thenLastContiguousOffsetCommittedAfterProcessing() {
+    final var acknowledgments = List.of(
+        mock(Acknowledgment.class), mock(Acknowledgment.class), mock(Acknowledgment.class));
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+
+    final MessageProcessor<GdpMessage, Mono<Rtp>> recordingProcessor = message -> Mono.fromRunnable(
+        () -> events.add("processed " + message.id()));
+    acknowledgments.forEach(acknowledgment -> doAnswer(invocation -> events.add("acknowledged"))
+        .when(acknowledgment).acknowledge());
+
+    final var handler = new GdpEventHandler(recordingProcessor, rtpPrefetcher,
+        new GdpOffsetCommitter(processingProperties(4, 3)), deadLetterPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(4, 3));
+    final var messages = Flux.just(
+        createAcknowledgedMessage(createValidGdpMessage(1L), 0L, acknowledgments.get(0)),
+        createAcknowledgedMessage(createValidGdpMessage(2L), 1L, acknowledgments.get(1)),
+        createAcknowledgedMessage(createValidGdpMessage(3L), 2L, acknowledgments.get(2)));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    verify(acknowledgments.get(2)).acknowledge();
+    verify(acknowledgments.get(0), never()).acknowledge();
+    verify(acknowledgments.get(1), never()).acknowledge();
+    assertEquals("acknowledged", events.get(events.size() - 1));
+    assertEquals(4, events.size());
+    verify(flowController, times(3)).onReceived();
+    verify(flowController, times(3)).onCompleted();
+  }
+
+
+  @Test
+  void givenDeadLetterPublishFailure_whenConsumed_thenOffsetIsNotCommitted() {
+    final var acknowledgments = List.of(mock(Acknowledgment.class), mock(Acknowledgment.class));
+    final var failingPublisher = mock(GdpDeadLetterPublisher.class);
+    when(failingPublisher.publish(any(), any(), anyInt()))
+        .thenReturn(Mono.error(new IllegalStateException("broker down")));
+
+    final MessageProcessor<GdpMessage, Mono<Rtp>> failingProcessor = message ->
+        message.id() == 1L ? Mono.error(new IllegalStateException("boom")) : Mono.empty();
+
+    final var handler = new GdpEventHandler(failingProcessor, rtpPrefetcher,
+        new GdpOffsetCommitter(processingProperties(4, 1)), failingPublisher, flowController,
+        new GdpMessageSequencer(), processingProperties(4, 1));
+    final var messages = Flux.just(
+        createAcknowledgedMessage(createValidGdpMessage(1L), 0L, acknowledgments.get(0)),
+        createAcknowledgedMessage(createValidGdpMessage(2L), 1L, acknowledgments.get(1)));
+
+    StepVerifier.create(handler.gdpMessageConsumer().apply(messages))
+        .verifyComplete();
+
+    verify(acknowledgments.get(0), never()).acknowledge();
+    verify(acknowledgments.get(1), never()).acknowledge();
+    verify(flowController, times(2)).onCompleted();
+  }
+
+
+  private static GdpProcessingProperties processingProperties(final int maxConcurrency) {
+    return processingProperties(maxConcurrency, 100);
+  }
+
+  private static GdpProcessingProperties processingProperties(
+      final int maxConcurrency, final int commitBatchSize) {
+    return new GdpProcessingProperties(maxConcurrency, 100, Duration.ofMillis(100),
+        commitBatchSize, Duration.ofSeconds(5), 1000, 500, Duration.ofSeconds(2));
+  }
+
+  private static GdpProcessingProperties singleMessageBatches(final int maxConcurrency) {
+    return new GdpProcessingProperties(maxConcurrency, 1, Duration.ofMillis(100),
+        100, Duration.ofSeconds(5), 1000, 500, Duration.ofSeconds(2));
+  }
+
+  private static GdpOffsetCommitter offsetCommitter() {
+    return new GdpOffsetCommitter(processingProperties(1));
+  }
+
+  private Message<GdpMessage> createAcknowledgedMessage(
+      final GdpMessage payload, final long offset, final Acknowledgment acknowledgment) {
+    return MessageBuilder.withPayload(payload)
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "rtp-events")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 0)
+        .setHeader(KafkaHeaders.OFFSET, offset)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+        .build();
+  }
+
   private GdpMessage createValidGdpMessage(final long id) {
+    return createValidGdpMessage(id, GdpMessage.Operation.CREATE);
+  }
+
+  private GdpMessage createValidGdpMessage(final long id, final GdpMessage.Operation operation) {
     return GdpMessage.builder()
         .id(id)
-        .operation(GdpMessage.Operation.CREATE)
+        .operation(operation)
         .timestamp(System.currentTimeMillis())
         .iuv("testIuv")
         .subject("testSubject")
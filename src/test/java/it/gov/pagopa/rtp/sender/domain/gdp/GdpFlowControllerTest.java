@@ -0,0 +1,137 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController.State;
+
+
+@ExtendWith(MockitoExtension.class)
+class GdpFlowControllerTest {
+
+  @Mock
+  private BindingsLifecycleController bindingsLifecycleController;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private GdpFlowController flowController;
+
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    flowController = new GdpFlowController(
+        new GdpProcessingProperties(4, 100, Duration.ofMillis(100), 100, Duration.ofSeconds(5), 3, 1,
+            Duration.ofSeconds(2)),
+        bindingsLifecycleController, meterRegistry);
+  }
+
+
+  @Test
+  void givenInFlightBelowHighWaterMark_whenReceived_thenKeepConsuming() {
+    flowController.onReceived();
+    flowController.onReceived();
+
+    assertFalse(flowController.isPaused());
+    assertEquals(2, gauge(GdpFlowController.IN_FLIGHT_METRIC));
+    assertEquals(0, gauge(GdpFlowController.PAUSED_METRIC));
+    verifyNoInteractions(bindingsLifecycleController);
+  }
+
+
+  @Test
+  void givenHighWaterMarkReached_whenReceived_thenPauseOnce() {
+    IntStream.range(0, 5).forEach(i -> flowController.onReceived());
+
+    assertTrue(flowController.isPaused());
+    assertEquals(5, flowController.inFlight());
+    assertEquals(1, gauge(GdpFlowController.PAUSED_METRIC));
+    assertEquals(1, meterRegistry.get(GdpFlowController.PAUSES_METRIC).counter().count());
+    verify(bindingsLifecycleController, times(1))
+        .changeState(GdpFlowController.BINDING_NAME, State.PAUSED);
+  }
+
+
+  @Test
+  void givenPaused_whenCompletedDownToLowWaterMark_thenResume() {
+    IntStream.range(0, 3).forEach(i -> flowController.onReceived());
+
+    flowController.onCompleted();
+    verify(bindingsLifecycleController, never())
+        .changeState(GdpFlowController.BINDING_NAME, State.RESUMED);
+
+    flowController.onCompleted();
+    flowController.onCompleted();
+
+    assertFalse(flowController.isPaused());
+    assertEquals(0, gauge(GdpFlowController.IN_FLIGHT_METRIC));
+    verify(bindingsLifecycleController, times(1))
+        .changeState(GdpFlowController.BINDING_NAME, State.RESUMED);
+  }
+
+
+  @Test
+  void givenBindingStateChangeFails_whenReceived_thenDoNotPropagate() {
+    doThrow(new IllegalStateException("boom"))
+        .when(bindingsLifecycleController).changeState(GdpFlowController.BINDING_NAME, State.PAUSED);
+
+    assertDoesNotThrow(() -> IntStream.range(0, 3).forEach(i -> flowController.onReceived()));
+    assertTrue(flowController.isPaused());
+  }
+
+
+  @Test
+  void givenCloseWaterMarks_whenConcurrentlyReceivedAndCompleted_thenStateChangesAlternateInOrder()
+      throws InterruptedException {
+    final var states = Collections.synchronizedList(new ArrayList<State>());
+    doAnswer(invocation -> states.add(invocation.getArgument(1)))
+        .when(bindingsLifecycleController).changeState(eq(GdpFlowController.BINDING_NAME), any());
+    final var closeController = new GdpFlowController(
+        new GdpProcessingProperties(4, 100, Duration.ofMillis(100), 100, Duration.ofSeconds(5), 2, 1,
+            Duration.ofSeconds(2)),
+        bindingsLifecycleController, new SimpleMeterRegistry());
+
+    final var executor = Executors.newFixedThreadPool(8);
+    IntStream.range(0, 8).forEach(thread -> executor.execute(() ->
+        IntStream.range(0, 10_000).forEach(i -> {
+          closeController.onReceived();
+          closeController.onCompleted();
+        })));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    assertEquals(0, closeController.inFlight());
+    assertFalse(closeController.isPaused());
+    IntStream.range(0, states.size()).forEach(i ->
+        assertEquals(i % 2 == 0 ? State.PAUSED : State.RESUMED, states.get(i)));
+  }
+
+
+  private double gauge(final String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+}
@@ -0,0 +1,103 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+
+class GdpMessageSequencerTest {
+
+  private GdpMessageSequencer sequencer;
+
+
+  @BeforeEach
+  void setUp() {
+    sequencer = new GdpMessageSequencer();
+  }
+
+
+  @Test
+  void givenTurnsOfSameId_whenRunConcurrently_thenProcessedInAcquisitionOrder() {
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+    final var first = sequencer.acquire(1L);
+    final var second = sequencer.acquire(1L);
+
+    final var secondRun = second.run(recorded(events, "second", Duration.ofMillis(10)));
+    final var firstRun = first.run(recorded(events, "first", Duration.ofMillis(100)));
+
+    StepVerifier.create(Mono.when(secondRun, firstRun))
+        .verifyComplete();
+
+    assertEquals(List.of("start first", "end first", "start second", "end second"), events);
+    assertTrue(first.isFirst());
+    assertFalse(second.isFirst());
+    assertEquals(0, sequencer.size());
+  }
+
+  @Test
+  void givenTurnsOfDifferentIds_whenRunConcurrently_thenNotWaitingForEachOther() {
+    final var events = Collections.synchronizedList(new ArrayList<String>());
+    final var slow = sequencer.acquire(1L);
+    final var fast = sequencer.acquire(2L);
+
+    StepVerifier.create(Mono.when(
+            slow.run(recorded(events, "slow", Duration.ofMillis(100))),
+            fast.run(recorded(events, "fast", Duration.ofMillis(10)))))
+        .verifyComplete();
+
+    assertTrue(fast.isFirst());
+    assertTrue(events.indexOf("end fast") < events.indexOf("end slow"));
+  }
+
+  @Test
+  void givenFailingTurn_whenRun_thenNextTurnOfSameIdIsProcessed() {
+    final var failing = sequencer.acquire(1L);
+    final var next = sequencer.acquire(1L);
+
+    StepVerifier.create(failing.run(Mono.error(new IllegalStateException("boom"))))
+        .verifyError(IllegalStateException.class);
+    StepVerifier.create(next.run(Mono.just("processed")))
+        .expectNext("processed")
+        .verifyComplete();
+
+    assertEquals(0, sequencer.size());
+  }
+
+  @Test
+  void givenReleasedTurn_whenNextTurnRun_thenProcessedWithoutWaiting() {
+    final var released = sequencer.acquire(1L);
+    final var next = sequencer.acquire(1L);
+
+    released.release();
+
+    StepVerifier.create(next.run(Mono.just("processed")))
+        .expectNext("processed")
+        .verifyComplete();
+  }
+
+  @Test
+  void givenNullProcessing_whenRun_thenThrowNullPointerException() {
+    final var turn = sequencer.acquire(1L);
+
+    assertThrows(NullPointerException.class, () -> turn.run(null));
+  }
+
+
+  private static Mono<String> recorded(
+      final List<String> events, final String name, final Duration duration) {
+    return Mono.fromRunnable(() -> events.add("start " + name))
+        .then(Mono.delay(duration))
+        .doOnNext(tick -> events.add("end " + name))
+        .thenReturn(name);
+  }
+}
@@ -0,0 +1,143 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+
+class GdpOffsetCommitterTest {
+
+  private GdpOffsetCommitter committer;
+
+
+  @BeforeEach
+  void setUp() {
+    committer = new GdpOffsetCommitter(new GdpProcessingProperties(
+        4, 100, Duration.ofMillis(100), 100, Duration.ofSeconds(5), 1000, 500, Duration.ofSeconds(2)));
+  }
+
+
+  @Test
+  void givenOutOfOrderCompletions_whenCommit_thenAcknowledgeLastContiguousOffset() {
+    final var first = message(0, 10L);
+    final var second = message(0, 11L);
+    final var third = message(0, 12L);
+    committer.track(first);
+    committer.track(second);
+    committer.track(third);
+
+    committer.complete(third);
+    committer.commit();
+    verifyNoInteractions(acknowledgment(first), acknowledgment(second), acknowledgment(third));
+
+    committer.complete(first);
+    committer.commit();
+    verify(acknowledgment(first)).acknowledge();
+
+    committer.complete(second);
+    committer.commit();
+    verify(acknowledgment(second), never()).acknowledge();
+    verify(acknowledgment(third)).acknowledge();
+  }
+
+
+  @Test
+  void givenNothingCompletedSinceLastCommit_whenCommit_thenAcknowledgeNothing() {
+    final var message = message(0, 1L);
+    committer.track(message);
+    committer.complete(message);
+
+    committer.commit();
+    committer.commit();
+
+    verify(acknowledgment(message), times(1)).acknowledge();
+  }
+
+
+  @Test
+  void givenPartitions_whenCommit_thenEachPartitionCommittedIndependently() {
+    final var blocked = message(0, 1L);
+    final var completed = message(1, 1L);
+    committer.track(blocked);
+    committer.track(completed);
+
+    committer.complete(completed);
+    committer.commit();
+
+    verify(acknowledgment(completed)).acknowledge();
+    verifyNoInteractions(acknowledgment(blocked));
+  }
+
+
+  @Test
+  void givenCommitBatchSizeReached_whenComplete_thenCommitWithoutWaitingForTimer() {
+    committer = new GdpOffsetCommitter(new GdpProcessingProperties(
+        4, 100, Duration.ofMillis(100), 2, Duration.ofSeconds(5), 1000, 500, Duration.ofSeconds(2)));
+    final var first = message(0, 1L);
+    final var second = message(0, 2L);
+    committer.track(first);
+    committer.track(second);
+
+    committer.complete(first);
+    verifyNoInteractions(acknowledgment(first));
+
+    committer.complete(second);
+    verify(acknowledgment(second)).acknowledge();
+  }
+
+
+  @Test
+  void givenRewoundPartition_whenTrack_thenDropPreviouslyTrackedOffsets() {
+    final var stale = message(0, 5L);
+    final var redelivered = message(0, 5L);
+    committer.track(stale);
+    committer.track(message(0, 6L));
+
+    committer.track(redelivered);
+    committer.complete(redelivered);
+    committer.commit();
+
+    verify(acknowledgment(redelivered)).acknowledge();
+    verifyNoInteractions(acknowledgment(stale));
+  }
+
+
+  @Test
+  void givenMessageWithoutAcknowledgment_whenTrackAndComplete_thenIgnored() {
+    final var message = MessageBuilder.withPayload("payload")
+        .setHeader(KafkaHeaders.OFFSET, 1L)
+        .build();
+
+    assertDoesNotThrow(() -> {
+      committer.track(message);
+      committer.complete(message);
+      committer.commit();
+    });
+  }
+
+
+  private static Message<String> message(final int partition, final long offset) {
+    return MessageBuilder.withPayload("payload")
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "rtp-events")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, partition)
+        .setHeader(KafkaHeaders.OFFSET, offset)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, mock(Acknowledgment.class))
+        .build();
+  }
+
+  private static Acknowledgment acknowledgment(final Message<?> message) {
+    return message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+  }
+}
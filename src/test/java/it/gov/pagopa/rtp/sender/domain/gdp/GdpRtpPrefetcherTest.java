@@ -0,0 +1,124 @@
+package it.gov.pagopa.rtp.sender.domain.gdp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.configuration.GdpEventHubProperties;
+import it.gov.pagopa.rtp.sender.configuration.GdpProcessingProperties;
+import it.gov.pagopa.rtp.sender.domain.gdp.GdpMessage.Operation;
+import it.gov.pagopa.rtp.sender.domain.rtp.ResourceID;
+import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
+import it.gov.pagopa.rtp.sender.service.rtp.SendRTPService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+
+@ExtendWith(MockitoExtension.class)
+class GdpRtpPrefetcherTest {
+
+  @Mock
+  private SendRTPService sendRTPService;
+
+  private GdpEventHubProperties gdpEventHubProperties;
+
+  private GdpRtpPrefetcher prefetcher;
+
+
+  @BeforeEach
+  void setUp() {
+    gdpEventHubProperties = new GdpEventHubProperties(
+        "test-name", "test-connection-string",
+        new GdpEventHubProperties.Consumer("test-topic", "test-consumer"));
+    prefetcher = new GdpRtpPrefetcher(sendRTPService, gdpEventHubProperties,
+        processingProperties(Duration.ofSeconds(2)));
+  }
+
+
+  @Test
+  void givenBatch_whenPrefetch_thenQueryOnlyIdsWhoseFirstOperationIsUpdateOrDelete() {
+    final var dispatcher = gdpEventHubProperties.eventDispatcher();
+    final var rtp = rtp(2L, dispatcher);
+
+    when(sendRTPService.findRtpsByCompositeKeys(argThat(ids -> Set.copyOf(ids).equals(Set.of(2L, 3L))),
+        eq(dispatcher)))
+        .thenReturn(Flux.just(rtp));
+
+    final var batch = List.of(
+        message(1L, Operation.CREATE),
+        message(1L, Operation.UPDATE),
+        message(2L, Operation.UPDATE),
+        message(3L, Operation.DELETE),
+        message(2L, Operation.DELETE));
+
+    StepVerifier.create(prefetcher.prefetch(batch))
+        .assertNext(prefetched -> {
+          assertEquals(1, prefetched.size());
+          assertEquals(rtp, prefetched.take(2L, dispatcher).orElseThrow());
+          assertTrue(prefetched.take(3L, dispatcher).isEmpty());
+        })
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenOnlyCreations_whenPrefetch_thenQueryNoIds() {
+    when(sendRTPService.findRtpsByCompositeKeys(List.of(), gdpEventHubProperties.eventDispatcher()))
+        .thenReturn(Flux.empty());
+
+    StepVerifier.create(prefetcher.prefetch(List.of(message(1L, Operation.CREATE))))
+        .assertNext(prefetched -> assertEquals(0, prefetched.size()))
+        .verifyComplete();
+
+    verify(sendRTPService).findRtpsByCompositeKeys(List.of(), gdpEventHubProperties.eventDispatcher());
+  }
+
+
+  @Test
+  void givenPrefetchOlderThanMaxAge_whenTake_thenRtpIsNotServed() {
+    final var dispatcher = gdpEventHubProperties.eventDispatcher();
+    prefetcher = new GdpRtpPrefetcher(sendRTPService, gdpEventHubProperties,
+        processingProperties(Duration.ZERO));
+
+    when(sendRTPService.findRtpsByCompositeKeys(List.of(2L), dispatcher))
+        .thenReturn(Flux.just(rtp(2L, dispatcher)));
+
+    StepVerifier.create(prefetcher.prefetch(List.of(message(2L, Operation.UPDATE))))
+        .assertNext(prefetched -> assertTrue(prefetched.take(2L, dispatcher).isEmpty()))
+        .verifyComplete();
+  }
+
+
+  private static GdpProcessingProperties processingProperties(final Duration prefetchMaxAge) {
+    return new GdpProcessingProperties(16, 100, Duration.ofMillis(100), 100, Duration.ofSeconds(5),
+        1000, 500, prefetchMaxAge);
+  }
+
+  private static Rtp rtp(final long operationId, final String dispatcher) {
+    return Rtp.builder()
+        .resourceID(new ResourceID(UUID.randomUUID()))
+        .operationId(operationId)
+        .eventDispatcher(dispatcher)
+        .build();
+  }
+
+  private static GdpMessage message(final long id, final Operation operation) {
+    return GdpMessage.builder()
+        .id(id)
+        .operation(operation)
+        .amount(100)
+        .build();
+  }
+}
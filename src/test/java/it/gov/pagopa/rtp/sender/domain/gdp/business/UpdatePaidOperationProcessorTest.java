@@ -8,6 +8,7 @@ import it.gov.pagopa.rtp.sender.domain.errors.RtpNotFoundException;
 import it.gov.pagopa.rtp.sender.domain.errors.ServiceProviderNotFoundException;
 import it.gov.pagopa.rtp.sender.domain.gdp.GdpMessage;
 import it.gov.pagopa.rtp.sender.domain.gdp.GdpMessage.Status;
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.rtp.ResourceID;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
@@ -77,8 +78,8 @@ class UpdatePaidOperationProcessorTest {
 
     when(sendRTPService.findRtpByCompositeKey(inputOperationId, "dispatcher"))
         .thenReturn(Mono.just(rtp));
-    when(registryDataService.getServiceProvidersByPspTaxCode())
-        .thenReturn(Mono.just(Map.of(inputPspTaxCode, serviceProvider)));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Map.of(), Map.of(inputPspTaxCode, serviceProvider), Map.of())));
     when(sendRTPService.updateRtpPaid(rtp))
         .thenReturn(Mono.just(updatedRtp));
 
@@ -115,8 +116,8 @@ class UpdatePaidOperationProcessorTest {
 
     when(sendRTPService.findRtpByCompositeKey(inputOperationId, "dispatcher"))
         .thenReturn(Mono.just(rtp));
-    when(registryDataService.getServiceProvidersByPspTaxCode())
-        .thenReturn(Mono.just(Map.of(inputPspTaxCode, serviceProvider)));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Map.of(), Map.of(inputPspTaxCode, serviceProvider), Map.of())));
     when(sendRTPService.updateRtpPaid(rtp))
         .thenReturn(Mono.error(expectedException));
 
@@ -158,8 +159,8 @@ class UpdatePaidOperationProcessorTest {
 
     when(sendRTPService.findRtpByCompositeKey(inputOperationId, "dispatcher"))
         .thenReturn(Mono.just(rtp));
-    when(registryDataService.getServiceProvidersByPspTaxCode())
-        .thenReturn(Mono.just(Map.of(inputPspTaxCode, serviceProvider)));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Map.of(), Map.of(inputPspTaxCode, serviceProvider), Map.of())));
     when(sendRTPService.updateRtpCancelPaid(rtp))
         .thenReturn(Mono.just(updatedRtp));
 
@@ -196,8 +197,8 @@ class UpdatePaidOperationProcessorTest {
 
     when(sendRTPService.findRtpByCompositeKey(inputOperationId, "dispatcher"))
         .thenReturn(Mono.just(rtp));
-    when(registryDataService.getServiceProvidersByPspTaxCode())
-        .thenReturn(Mono.just(Map.of(inputPspTaxCode, serviceProvider)));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Map.of(), Map.of(inputPspTaxCode, serviceProvider), Map.of())));
     when(sendRTPService.updateRtpCancelPaid(rtp))
         .thenReturn(Mono.error(expectedException));
 
@@ -274,8 +275,8 @@ class UpdatePaidOperationProcessorTest {
 
     when(sendRTPService.findRtpByCompositeKey(1L, "dispatcher"))
         .thenReturn(Mono.just(rtp));
-    when(registryDataService.getServiceProvidersByPspTaxCode())
-        .thenReturn(Mono.just(Map.of()));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Map.of(), Map.of(), Map.of())));
 
     final var result = processor.processOperation(message);
 
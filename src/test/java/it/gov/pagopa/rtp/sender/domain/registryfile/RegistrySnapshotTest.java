@@ -0,0 +1,53 @@
+package it.gov.pagopa.rtp.sender.domain.registryfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class RegistrySnapshotTest {
+
+  private static final TechnicalServiceProvider TSP = new TechnicalServiceProvider(
+      "TSP1", "Tech Provider 1", "https://endpoint.com", "cert123", null, true, null);
+
+  private static final ServiceProvider SP =
+      new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+
+  @Test
+  void givenIndexes_whenFind_thenLookUpTheMatchingIndex() {
+    final var snapshot = new RegistrySnapshot(
+        Map.of(
+            "SP1", new ServiceProviderFullData("SP1", "Service Provider 1", "psp_tax_code", TSP),
+            "SP2", new ServiceProviderFullData("SP2", "Service Provider 2", "psp_tax_code_2",
+                TSP.withCertificateSerialNumber(null))),
+        Map.of("psp_tax_code", SP),
+        Map.of("SP1", "cert123"));
+
+    assertEquals(Optional.of("cert123"), snapshot.findCertificateSerialNumber("SP1"));
+    assertTrue(snapshot.findCertificateSerialNumber("SP2").isEmpty());
+    assertTrue(snapshot.findCertificateSerialNumber(null).isEmpty());
+    assertEquals("SP2", snapshot.findServiceProvider("SP2").orElseThrow().spId());
+    assertEquals(Optional.of(SP), snapshot.findServiceProviderByPspTaxCode("psp_tax_code"));
+    assertTrue(snapshot.findServiceProviderByPspTaxCode("unknown").isEmpty());
+  }
+
+
+  @Test
+  void givenMutableMaps_whenCreated_thenSnapshotIsNotAffectedByLaterChanges() {
+    final var serviceProvidersById = new HashMap<String, ServiceProviderFullData>();
+    serviceProvidersById.put(
+        "SP1", new ServiceProviderFullData("SP1", "Service Provider 1", "psp_tax_code", TSP));
+
+    final var snapshot = new RegistrySnapshot(serviceProvidersById, Map.of(), Map.of());
+    serviceProvidersById.clear();
+
+    assertTrue(snapshot.findServiceProvider("SP1").isPresent());
+    final var view = snapshot.serviceProvidersById();
+    assertThrows(UnsupportedOperationException.class, view::clear);
+  }
+}
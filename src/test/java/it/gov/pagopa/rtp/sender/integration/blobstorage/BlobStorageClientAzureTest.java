@@ -1,24 +1,37 @@
 package it.gov.pagopa.rtp.sender.integration.blobstorage;
 
-import com.azure.core.util.BinaryData;
 import com.azure.storage.blob.BlobAsyncClient;
 import com.azure.storage.blob.BlobContainerAsyncClient;
 import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.models.BlobDownloadAsyncResponse;
+import com.azure.storage.blob.models.BlobDownloadHeaders;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import it.gov.pagopa.rtp.sender.configuration.BlobStorageConfig;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,7 +50,7 @@ class BlobStorageClientAzureTest {
     private BlobAsyncClient blobClient;
 
     @Mock
-    private BinaryData binaryData;
+    private BlobDownloadAsyncResponse downloadResponse;
 
     private BlobStorageClientAzure blobStorageClientAzure;
 
@@ -48,7 +61,7 @@ class BlobStorageClientAzureTest {
         when(blobStorageConfig.blobName()).thenReturn("testblob.json");
 
         // Create test instance
-        blobStorageClientAzure = new BlobStorageClientAzure(blobStorageConfig, blobServiceClient);
+        blobStorageClientAzure = new BlobStorageClientAzure(blobStorageConfig, blobServiceClient, new ObjectMapper());
     }
 
     @Test
@@ -56,8 +69,8 @@ class BlobStorageClientAzureTest {
         // Prepare test data
         ServiceProviderDataResponse expectedResponse = new ServiceProviderDataResponse(
             List.of(
-                new TechnicalServiceProvider("08992631005", "CBI S.c.p.a.", "https://api.cbi.it", "6A7672BD13DAEEBEA96A2D1D", null, true),
-                new TechnicalServiceProvider("BPPIITRRXXX", "Poste Italiane", "https://api.poste.it", "...", null, true)
+                new TechnicalServiceProvider("08992631005", "CBI S.c.p.a.", "https://api.cbi.it", "6A7672BD13DAEEBEA96A2D1D", null, true, null),
+                new TechnicalServiceProvider("BPPIITRRXXX", "Poste Italiane", "https://api.poste.it", "...", null, true, null)
             ),
             List.of(
                 new ServiceProvider("UNCRITMM", "UniCredit S.p.A.", "08992631005", "Unicredit tax code"),
@@ -68,8 +81,10 @@ class BlobStorageClientAzureTest {
         // Mock the blob storage chain
         when(blobServiceClient.getBlobContainerAsyncClient(anyString())).thenReturn(blobContainerClient);
         when(blobContainerClient.getBlobAsyncClient(anyString())).thenReturn(blobClient);
-        when(blobClient.downloadContent()).thenReturn(Mono.just(binaryData));
-        when(binaryData.toObject(ServiceProviderDataResponse.class)).thenReturn(expectedResponse);
+        when(blobClient.downloadStreamWithResponse(isNull(), isNull(), any(BlobRequestConditions.class), eq(false)))
+                .thenReturn(Mono.just(downloadResponse));
+        when(downloadResponse.getDeserializedHeaders()).thenReturn(new BlobDownloadHeaders());
+        when(downloadResponse.getValue()).thenReturn(chunked(expectedResponse));
 
         // Test
         Mono<ServiceProviderDataResponse> result = blobStorageClientAzure.getServiceProviderData();
@@ -82,8 +97,7 @@ class BlobStorageClientAzureTest {
         // Verify interactions
         verify(blobServiceClient).getBlobContainerAsyncClient("testcontainer");
         verify(blobContainerClient).getBlobAsyncClient("testblob.json");
-        verify(blobClient).downloadContent();
-        verify(binaryData).toObject(ServiceProviderDataResponse.class);
+        verify(blobClient).downloadStreamWithResponse(isNull(), isNull(), any(BlobRequestConditions.class), eq(false));
     }
 
     @Test
@@ -103,7 +117,7 @@ class BlobStorageClientAzureTest {
         // Verify interactions
         verify(blobServiceClient).getBlobContainerAsyncClient("testcontainer");
         verify(blobContainerClient, never()).getBlobAsyncClient(anyString());
-        verify(blobClient, never()).downloadContent();
+        verify(blobClient, never()).downloadStreamWithResponse(any(), any(), any(), anyBoolean());
     }
 
     @Test
@@ -113,7 +127,7 @@ class BlobStorageClientAzureTest {
             .thenReturn(blobContainerClient);
         when(blobContainerClient.getBlobAsyncClient(anyString()))
             .thenReturn(blobClient);
-        when(blobClient.downloadContent())
+        when(blobClient.downloadStreamWithResponse(isNull(), isNull(), any(BlobRequestConditions.class), eq(false)))
             .thenReturn(Mono.error(new RuntimeException("Download failed")));
 
         final var resultMono = blobStorageClientAzure.getServiceProviderData();
@@ -123,4 +137,56 @@ class BlobStorageClientAzureTest {
                 error.getMessage().equals("Download failed"))
             .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenUnchangedBlob_whenGetServiceProviderDataAgain_thenEmitNothingWithoutParsing() {
+        final var expectedResponse = new ServiceProviderDataResponse(List.of(), List.of(
+            new ServiceProvider("UNCRITMM", "UniCredit S.p.A.", "08992631005", "Unicredit tax code")));
+        final var notModified = mock(BlobStorageException.class);
+
+        when(blobServiceClient.getBlobContainerAsyncClient(anyString())).thenReturn(blobContainerClient);
+        when(blobContainerClient.getBlobAsyncClient(anyString())).thenReturn(blobClient);
+        when(blobClient.downloadStreamWithResponse(isNull(), isNull(), any(BlobRequestConditions.class), eq(false)))
+            .thenReturn(Mono.just(downloadResponse))
+            .thenReturn(Mono.error(notModified));
+        when(notModified.getStatusCode()).thenReturn(304);
+        when(downloadResponse.getDeserializedHeaders()).thenReturn(new BlobDownloadHeaders()
+            .setETag("\"etag-1\"")
+            .setLastModified(OffsetDateTime.parse("2025-01-01T00:00:00Z")));
+        when(downloadResponse.getValue()).thenReturn(chunked(expectedResponse));
+
+        StepVerifier.create(blobStorageClientAzure.getServiceProviderData())
+            .expectNext(expectedResponse)
+            .verifyComplete();
+        StepVerifier.create(blobStorageClientAzure.getServiceProviderData())
+            .verifyComplete();
+
+        verify(blobClient).downloadStreamWithResponse(isNull(), isNull(),
+            argThat(conditions -> "\"etag-1\"".equals(conditions.getIfNoneMatch())), eq(false));
+        verify(downloadResponse, times(1)).getValue();
+    }
+
+    @Test
+    void givenNotModifiedWithoutPreviousDownload_whenGetServiceProviderData_thenPropagateError() {
+        final var notModified = mock(BlobStorageException.class);
+
+        when(blobServiceClient.getBlobContainerAsyncClient(anyString())).thenReturn(blobContainerClient);
+        when(blobContainerClient.getBlobAsyncClient(anyString())).thenReturn(blobClient);
+        when(blobClient.downloadStreamWithResponse(isNull(), isNull(), any(BlobRequestConditions.class), eq(false)))
+            .thenReturn(Mono.error(notModified));
+
+        StepVerifier.create(blobStorageClientAzure.getServiceProviderData())
+            .expectErrorMatches(error -> error == notModified)
+            .verify();
+    }
+
+    private static Flux<ByteBuffer> chunked(final ServiceProviderDataResponse response) {
+        try {
+            final var json = new ObjectMapper().writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+            return Flux.range(0, (json.length + 15) / 16)
+                .map(i -> ByteBuffer.wrap(json, i * 16, Math.min(16, json.length - i * 16)).slice());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
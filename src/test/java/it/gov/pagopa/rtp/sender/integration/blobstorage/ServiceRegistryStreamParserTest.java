@@ -0,0 +1,101 @@
+package it.gov.pagopa.rtp.sender.integration.blobstorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.rtp.sender.domain.registryfile.OAuth2;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ServiceRegistryStreamParserTest {
+
+  private final ServiceRegistryStreamParser parser =
+      new ServiceRegistryStreamParser(new ObjectMapper());
+
+
+  @Test
+  void givenRegistrySplitInSmallChunks_whenParse_thenReturnAllEntries() throws JsonProcessingException {
+    final var registry = new ServiceProviderDataResponse(
+        List.of(
+            new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://tsp1.com", "cert1",
+                new OAuth2("https://tsp1.com/token", "POST", "FORM", "client", "kv", "env", "scope", false),
+                true, List.of("HTTP/2")),
+            new TechnicalServiceProvider("TSP2", "Tech Provider 2", "https://tsp2.com", "cert2",
+                null, false, null)),
+        List.of(
+            new ServiceProvider("SP1", "Service Provider 1", "TSP1", "tax1"),
+            new ServiceProvider("SP2", "Service Provider 2", "TSP2", "tax2")));
+
+    final var json = new ObjectMapper().writeValueAsString(registry);
+
+    StepVerifier.create(parser.parse(chunked(json, 7)))
+        .expectNext(registry)
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenUnknownFieldsAndReversedOrder_whenParse_thenSkipThem() {
+    final var json = """
+        {
+          "version": 3,
+          "metadata": {"sps": [{"id": "ignored"}], "tags": ["a", "b"]},
+          "sps": [
+            {"id": "SP1", "name": "Service Provider 1", "tsp_id": "TSP1", "psp_tax_code": "tax1",
+             "extra": {"nested": [1, 2, 3]}}
+          ],
+          "tsps": [
+            {"id": "TSP1", "name": "Tech Provider 1", "service_endpoint": "https://tsp1.com",
+             "certificate_serial_number": "cert1", "mtls_enabled": true, "unknown": null}
+          ]
+        }
+        """;
+
+    StepVerifier.create(parser.parse(chunked(json, 5)))
+        .assertNext(registry -> {
+          assertEquals(List.of(new ServiceProvider("SP1", "Service Provider 1", "TSP1", "tax1")),
+              registry.sps());
+          assertEquals(1, registry.tsps().size());
+          assertEquals("cert1", registry.tsps().get(0).certificateSerialNumber());
+          assertTrue(registry.tsps().get(0).mtlsEnabled());
+        })
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenTruncatedContent_whenParse_thenError() {
+    final var json = """
+        {"tsps": [], "sps": [{"id": "SP1", "name": "Service
+        """;
+
+    StepVerifier.create(parser.parse(chunked(json, 4)))
+        .expectError(JsonProcessingException.class)
+        .verify();
+  }
+
+
+  @Test
+  void givenMalformedContent_whenParse_thenError() {
+    StepVerifier.create(parser.parse(chunked("{\"tsps\": [}", 3)))
+        .expectError()
+        .verify();
+  }
+
+
+  private static Flux<ByteBuffer> chunked(final String json, final int chunkSize) {
+    final var bytes = json.getBytes(StandardCharsets.UTF_8);
+
+    return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+        .map(i -> ByteBuffer.wrap(
+            bytes, i * chunkSize, Math.min(chunkSize, bytes.length - i * chunkSize)).slice());
+  }
+}
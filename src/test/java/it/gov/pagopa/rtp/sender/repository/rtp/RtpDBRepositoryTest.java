@@ -281,6 +281,40 @@ class RtpDBRepositoryTest {
               .verify();
     }
 
+    @Test
+    void givenOperationIds_whenFindByOperationIds_thenReturnRtpsWithSingleQuery() {
+      final var dispatcher = "test-dispatcher";
+      final var operationIds = List.of(1L, 2L);
+      final var rtpEntities = operationIds.stream()
+              .map(operationId -> RtpEntity.builder()
+                      .resourceID(UUID.randomUUID())
+                      .operationId(operationId)
+                      .eventDispatcher(dispatcher)
+                      .noticeNumber("12345")
+                      .amount(BigDecimal.valueOf(200.00))
+                      .expiryDate(Instant.now())
+                      .savingDateTime(Instant.now())
+                      .status(RtpStatus.CREATED)
+                      .build())
+              .toList();
+
+      when(rtpDB.findAllByOperationIdInAndEventDispatcher(operationIds, dispatcher))
+              .thenReturn(Flux.fromIterable(rtpEntities));
+
+      StepVerifier.create(rtpDbRepository.findByOperationIdsAndEventDispatcher(operationIds, dispatcher))
+              .assertNext(rtp -> assertEquals(1L, rtp.operationId()))
+              .assertNext(rtp -> assertEquals(2L, rtp.operationId()))
+              .verifyComplete();
+    }
+
+    @Test
+    void givenNoOperationIds_whenFindByOperationIds_thenReturnEmptyWithoutQuery() {
+      StepVerifier.create(rtpDbRepository.findByOperationIdsAndEventDispatcher(List.of(), "dispatcher"))
+              .verifyComplete();
+
+      verifyNoInteractions(rtpDB);
+    }
+
   @Test
   void givenExistingRtpByNoticeNumber_whenFindByNoticeNumber_thenReturnsMappedRtp() {
     final var noticeNumber = "849244626700453217";
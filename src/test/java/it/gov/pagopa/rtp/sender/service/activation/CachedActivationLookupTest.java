@@ -0,0 +1,227 @@
+package it.gov.pagopa.rtp.sender.service.activation;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import it.gov.pagopa.rtp.sender.activateClient.api.ReadApi;
+import it.gov.pagopa.rtp.sender.activateClient.model.ActivationDto;
+import it.gov.pagopa.rtp.sender.activateClient.model.PayerDto;
+import it.gov.pagopa.rtp.sender.configuration.CaffeineCacheFactory;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Activation;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
+import it.gov.pagopa.rtp.sender.service.registryfile.ServiceProviderChangedEvent;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class CachedActivationLookupTest {
+
+  private static final String PAYER_ID = "RSSMRA85T10A562S";
+
+  @Mock
+  private ReadApi readApi;
+
+  private final ServiceProviderConfig serviceProviderConfig =
+      new ServiceProviderConfig("http://localhost:8080", new Activation("v1"), null);
+
+  private CachedActivationLookup activationLookup;
+
+
+  @BeforeEach
+  void setUp() {
+    final var cacheFactory = new CaffeineCacheFactory();
+    final var cacheManager = new CaffeineCacheManager();
+    cacheManager.setAsyncCacheMode(true);
+    cacheManager.registerCustomCache(CachedActivationLookup.ACTIVATIONS_CACHE,
+        cacheFactory.createCache(100, Duration.ofMinutes(1)).buildAsync());
+    cacheManager.registerCustomCache(CachedActivationLookup.NOT_FOUND_CACHE,
+        cacheFactory.createCache(100, Duration.ofMinutes(1)).buildAsync());
+
+    activationLookup = new CachedActivationLookup(readApi, serviceProviderConfig, cacheManager);
+  }
+
+
+  @Test
+  void givenCachedActivation_whenFindActivation_thenActivationServiceIsCalledOnce() {
+    final var activation = activation("SP1");
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.just(activation));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNext(activation)
+        .verifyComplete();
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNext(activation)
+        .verifyComplete();
+
+    verify(readApi, times(1)).findActivationByPayerId(any(), any(), any());
+  }
+
+
+  @Test
+  void givenConcurrentLookups_whenFindActivation_thenShareSingleCall() {
+    final var activation = activation("SP1");
+    final var response = Sinks.<ActivationDto>one();
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(response.asMono());
+
+    final var first = activationLookup.findActivationByPayerId(PAYER_ID);
+    final var second = activationLookup.findActivationByPayerId(PAYER_ID);
+
+    StepVerifier.create(first.zipWith(second))
+        .then(() -> response.tryEmitValue(activation))
+        .expectNextMatches(both -> both.getT1() == activation && both.getT2() == activation)
+        .verifyComplete();
+
+    verify(readApi, times(1)).findActivationByPayerId(any(), any(), any());
+  }
+
+
+  @Test
+  void givenNotActivatedPayer_whenFindActivation_thenCacheNotFound() {
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.error(new WebClientResponseException(404, "Not Found", null, null, null)));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .verifyComplete();
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .verifyComplete();
+
+    verify(readApi, times(1)).findActivationByPayerId(any(), any(), any());
+  }
+
+
+  @Test
+  void givenFailingActivationService_whenFindActivation_thenErrorIsNotCached() {
+    final var activation = activation("SP1");
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.error(new WebClientResponseException(500, "Error", null, null, null)))
+        .thenReturn(Mono.just(activation));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectError(WebClientResponseException.class)
+        .verify();
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNext(activation)
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenInvalidatedPayer_whenFindActivation_thenActivationServiceIsCalledAgain() {
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.error(new WebClientResponseException(404, "Not Found", null, null, null)))
+        .thenReturn(Mono.just(activation("SP1")));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .verifyComplete();
+
+    activationLookup.invalidate(PAYER_ID);
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenRemovedServiceProvider_whenFindActivation_thenActivationServiceIsCalledAgain() {
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.just(activation("SP1")))
+        .thenReturn(Mono.just(activation("SP2")));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNextMatches(activation -> activation.getPayer().getRtpSpId().equals("SP1"))
+        .verifyComplete();
+
+    activationLookup.onServiceProviderChanged(new ServiceProviderChangedEvent(
+        "SP1", new ServiceProviderFullData("SP1", "Service Provider 1", "tax", null), null));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNextMatches(activation -> activation.getPayer().getRtpSpId().equals("SP2"))
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenUndeclaredCaches_whenFindActivation_thenActivationServiceIsAlwaysCalled() {
+    activationLookup = new CachedActivationLookup(
+        readApi, serviceProviderConfig, new CaffeineCacheManager());
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Mono.just(activation("SP1")));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNextCount(1)
+        .verifyComplete();
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    verify(readApi, times(2)).findActivationByPayerId(any(), any(), any());
+  }
+
+
+  @Test
+  void givenUndeclaredCaches_whenConcurrentLookups_thenShareSingleInFlightCall() {
+    activationLookup = new CachedActivationLookup(
+        readApi, serviceProviderConfig, new CaffeineCacheManager());
+    final var activation = activation("SP1");
+    final var response = Sinks.<ActivationDto>one();
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(response.asMono())
+        .thenReturn(Mono.just(activation));
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID)
+            .zipWith(activationLookup.findActivationByPayerId(PAYER_ID)))
+        .then(() -> response.tryEmitValue(activation))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNext(activation)
+        .verifyComplete();
+
+    verify(readApi, times(2)).findActivationByPayerId(any(), any(), any());
+  }
+
+
+  @Test
+  void givenCancelledLookup_whenFindActivationAgain_thenNewCallIsStarted() {
+    activationLookup = new CachedActivationLookup(
+        readApi, serviceProviderConfig, new CaffeineCacheManager());
+    final var activation = activation("SP1");
+    when(readApi.findActivationByPayerId(any(), eq(PAYER_ID), eq("v1")))
+        .thenReturn(Sinks.<ActivationDto>one().asMono())
+        .thenReturn(Mono.just(activation));
+
+    activationLookup.findActivationByPayerId(PAYER_ID).subscribe().dispose();
+
+    StepVerifier.create(activationLookup.findActivationByPayerId(PAYER_ID))
+        .expectNext(activation)
+        .verifyComplete();
+  }
+
+
+  private static ActivationDto activation(String rtpSpId) {
+    final var payer = new PayerDto();
+    payer.setFiscalCode(PAYER_ID);
+    payer.setRtpSpId(rtpSpId);
+
+    final var activation = new ActivationDto();
+    activation.setPayer(payer);
+    return activation;
+  }
+}
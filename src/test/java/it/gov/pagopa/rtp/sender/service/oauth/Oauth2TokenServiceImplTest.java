@@ -13,14 +13,20 @@ import org.springframework.web.reactive.function.client.WebClient.RequestBodyUri
 import org.springframework.web.reactive.function.client.WebClient.RequestHeadersSpec;
 import org.springframework.web.reactive.function.client.WebClient.ResponseSpec;
 
+import it.gov.pagopa.rtp.sender.configuration.Oauth2TokenCacheProperties;
 import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.ssl.SslContextReloadedEvent;
+import it.gov.pagopa.rtp.sender.domain.registryfile.OAuth2;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -50,7 +56,8 @@ class Oauth2TokenServiceImplTest {
     
     @BeforeEach
     void setUp() {
-        oauth2TokenService = new Oauth2TokenServiceImpl(webClientFactory);
+        oauth2TokenService = new Oauth2TokenServiceImpl(
+            webClientFactory, new Oauth2TokenCacheProperties(Duration.ofSeconds(30), 1.0, 1000L));
     }
     
     @Test
@@ -61,8 +68,7 @@ class Oauth2TokenServiceImplTest {
         String scope = "test-scope";
         String accessToken = "fake-token-123";
         
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("access_token", accessToken);
+        Oauth2TokenResponse tokenResponse = new Oauth2TokenResponse(accessToken, 3600L);
         
         when(webClientFactory.createMtlsWebClient()).thenReturn(webClient);
         when(webClient.post()).thenReturn(requestBodyUriSpec);
@@ -71,7 +77,7 @@ class Oauth2TokenServiceImplTest {
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
         when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.just(responseMap));
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class)).thenReturn(Mono.just(tokenResponse));
         
         Mono<String> result = oauth2TokenService.getAccessToken(tokenUri, clientId, clientSecret, scope, true);
         
@@ -90,8 +96,7 @@ class Oauth2TokenServiceImplTest {
         String clientSecret = "test-secret";
         String accessToken = "fake-token-123";
         
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("access_token", accessToken);
+        Oauth2TokenResponse tokenResponse = new Oauth2TokenResponse(accessToken, 3600L);
         
         when(webClientFactory.createMtlsWebClient()).thenReturn(webClient);
         when(webClient.post()).thenReturn(requestBodyUriSpec);
@@ -100,7 +105,7 @@ class Oauth2TokenServiceImplTest {
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
         when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.just(responseMap));
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class)).thenReturn(Mono.just(tokenResponse));
         
         Mono<String> result = oauth2TokenService.getAccessToken(tokenUri, clientId, clientSecret, null, true);
         
@@ -150,7 +155,7 @@ class Oauth2TokenServiceImplTest {
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
         when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.error(new RuntimeException("Network error")));
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class)).thenReturn(Mono.error(new RuntimeException("Network error")));
         
         Mono<String> result = oauth2TokenService.getAccessToken(tokenUri, clientId, clientSecret, scope, true);
         
@@ -166,7 +171,7 @@ class Oauth2TokenServiceImplTest {
         String clientSecret = "test-secret";
         String scope = "test-scope";
         
-        Map<String, Object> responseMap = new HashMap<>();
+        Oauth2TokenResponse tokenResponse = new Oauth2TokenResponse(null, 3600L);
         
         when(webClientFactory.createSimpleWebClient()).thenReturn(webClient);
         when(webClient.post()).thenReturn(requestBodyUriSpec);
@@ -175,7 +180,7 @@ class Oauth2TokenServiceImplTest {
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
         when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.just(responseMap));
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class)).thenReturn(Mono.just(tokenResponse));
         
         Mono<String> result = oauth2TokenService.getAccessToken(tokenUri, clientId, clientSecret, scope, false);
         
@@ -183,4 +188,219 @@ class Oauth2TokenServiceImplTest {
             .expectError(NullPointerException.class)
             .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAccessTokenWhenTokenIsCachedDoesNotCallTokenEndpointAgain() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("cached-token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("cached-token")
+            .verifyComplete();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("cached-token")
+            .verifyComplete();
+
+        verify(webClient, times(1)).post();
+    }
+
+    @Test
+    void getAccessTokenWhenConcurrentMissesCallsTokenEndpointOnce() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("shared-token", 3600L))
+            .delayElement(Duration.ofMillis(100)));
+
+        StepVerifier.create(Mono.zip(
+                oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true),
+                oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true)))
+            .expectNextMatches(tokens -> tokens.getT1().equals("shared-token")
+                && tokens.getT2().equals("shared-token"))
+            .verifyComplete();
+
+        verify(webClient, times(1)).post();
+    }
+
+    @Test
+    void getAccessTokenWhenExpiresInMissingDoesNotCacheToken() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("uncached-token", null)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("uncached-token")
+            .verifyComplete();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("uncached-token")
+            .verifyComplete();
+
+        verify(webClient, times(2)).post();
+        verify(webClientFactory, times(1)).createMtlsWebClient();
+    }
+
+    @Test
+    void getAccessTokenWhenClientSecretRotatedRequestsNewToken() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "old-secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "new-secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+
+        verify(webClient, times(2)).post();
+        verify(requestBodySpec).header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getUrlEncoder()
+            .encodeToString("client:new-secret".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void getAccessTokenWhenMtlsFlagDiffersDoesNotShareToken() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("token", 3600L)));
+        when(webClientFactory.createSimpleWebClient()).thenReturn(webClient);
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", false))
+            .expectNext("token")
+            .verifyComplete();
+
+        verify(webClient, times(2)).post();
+        verify(webClientFactory, times(1)).createSimpleWebClient();
+    }
+
+    @Test
+    void givenSslContextReloaded_whenGetAccessToken_thenMtlsWebClientIsRebuilt() {
+        String tokenUri = "https://example.com/token";
+
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("uncached-token", null)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("uncached-token")
+            .verifyComplete();
+
+        ((Oauth2TokenServiceImpl) oauth2TokenService).onSslContextReloaded(
+            new SslContextReloadedEvent(null));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("uncached-token")
+            .verifyComplete();
+
+        verify(webClientFactory, times(2)).createMtlsWebClient();
+    }
+
+    @Test
+    void getAccessTokenWhenRequestFailsDoesNotCacheError() {
+        String tokenUri = "https://example.com/token";
+
+        when(webClientFactory.createMtlsWebClient()).thenReturn(webClient);
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(tokenUri)).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(eq(HttpHeaders.AUTHORIZATION), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class))
+            .thenReturn(Mono.error(new RuntimeException("Network error")))
+            .thenReturn(Mono.just(new Oauth2TokenResponse("recovered-token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectError(RuntimeException.class)
+            .verify();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("recovered-token")
+            .verifyComplete();
+    }
+
+    @Test
+    void getAccessTokenWhenRefreshIsDueRefreshesTokenInBackground() {
+        String tokenUri = "https://example.com/token";
+        oauth2TokenService = new Oauth2TokenServiceImpl(
+            webClientFactory, new Oauth2TokenCacheProperties(Duration.ofSeconds(30), 0.0, 1000L));
+
+        when(webClientFactory.createMtlsWebClient()).thenReturn(webClient);
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(tokenUri)).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(eq(HttpHeaders.AUTHORIZATION), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class))
+            .thenReturn(Mono.just(new Oauth2TokenResponse("first-token", 3600L)))
+            .thenReturn(Mono.just(new Oauth2TokenResponse("refreshed-token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("first-token")
+            .verifyComplete();
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("refreshed-token")
+            .verifyComplete();
+    }
+
+    @Test
+    void givenOauth2ChangedEvent_whenGetAccessToken_thenTokenIsRequestedAgain() {
+        String tokenUri = "https://example.com/token";
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+
+        ((Oauth2TokenServiceImpl) oauth2TokenService).onTechnicalServiceProviderChanged(
+            oauth2ChangedEvent(tokenUri, "client", "scope", Change.OAUTH2_CHANGED));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+
+        verify(responseSpec, times(2)).bodyToMono(Oauth2TokenResponse.class);
+    }
+
+    @Test
+    void givenEventOfOtherTsp_whenGetAccessToken_thenCachedTokenIsReused() {
+        String tokenUri = "https://example.com/token";
+        stubTokenEndpoint(tokenUri, Mono.just(new Oauth2TokenResponse("token", 3600L)));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+
+        final var serviceImpl = (Oauth2TokenServiceImpl) oauth2TokenService;
+        serviceImpl.onTechnicalServiceProviderChanged(
+            oauth2ChangedEvent(tokenUri, "other-client", "scope", Change.REMOVED));
+        serviceImpl.onTechnicalServiceProviderChanged(
+            oauth2ChangedEvent(tokenUri, "client", "scope", Change.CERTIFICATE_ROTATED));
+
+        StepVerifier.create(oauth2TokenService.getAccessToken(tokenUri, "client", "secret", "scope", true))
+            .expectNext("token")
+            .verifyComplete();
+
+        verify(responseSpec, times(1)).bodyToMono(Oauth2TokenResponse.class);
+    }
+
+    private static TechnicalServiceProviderChangedEvent oauth2ChangedEvent(
+        String tokenUri, String clientId, String scope, Change change) {
+
+        final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://tsp1.com",
+            "cert1", new OAuth2(tokenUri, "POST", "FORM", clientId, "kv", "env", scope, true),
+            true, null);
+        return new TechnicalServiceProviderChangedEvent("TSP1", tsp, tsp, Set.of(change));
+    }
+
+    private void stubTokenEndpoint(String tokenUri, Mono<Oauth2TokenResponse> response) {
+        when(webClientFactory.createMtlsWebClient()).thenReturn(webClient);
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(tokenUri)).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(eq(HttpHeaders.AUTHORIZATION), anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
+        when(requestBodySpec.body(any())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Oauth2TokenResponse.class)).thenReturn(response);
+    }
+}
@@ -0,0 +1,93 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import it.gov.pagopa.rtp.sender.configuration.RegistryDataProperties;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.integration.blobstorage.ServiceProviderDataResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+class FileRegistrySnapshotStoreTest {
+
+  private static final ServiceProviderDataResponse REGISTRY = new ServiceProviderDataResponse(
+      List.of(new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+          "cert123", null, true, null)),
+      List.of(new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code")));
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .enable(SerializationFeature.INDENT_OUTPUT);
+
+  @TempDir
+  Path tempDir;
+
+
+  @Test
+  void givenSavedRegistry_whenLoad_thenReturnIt() throws IOException {
+    final var snapshotPath = tempDir.resolve("nested").resolve("registry-snapshot.json");
+    final var store = storeAt(snapshotPath.toString());
+
+    StepVerifier.create(store.save(REGISTRY))
+        .verifyComplete();
+
+    assertFalse(Files.readString(snapshotPath).contains("\n"));
+    try (final var files = Files.list(snapshotPath.getParent())) {
+      assertTrue(files.allMatch(snapshotPath::equals));
+    }
+
+    StepVerifier.create(store.load())
+        .expectNext(REGISTRY)
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenMissingFile_whenLoad_thenEmpty() {
+    final var store = storeAt(tempDir.resolve("missing.json").toString());
+
+    StepVerifier.create(store.load())
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenCorruptedFile_whenLoad_thenError() throws IOException {
+    final var snapshotPath = tempDir.resolve("registry-snapshot.json");
+    Files.writeString(snapshotPath, "{\"tsps\": [");
+
+    StepVerifier.create(storeAt(snapshotPath.toString()).load())
+        .expectError(IOException.class)
+        .verify();
+  }
+
+
+  @Test
+  void givenBlankPath_whenSaveAndLoad_thenDoNothing() throws IOException {
+    final var store = storeAt(" ");
+
+    StepVerifier.create(store.save(REGISTRY))
+        .verifyComplete();
+    StepVerifier.create(store.load())
+        .verifyComplete();
+
+    try (final var files = Files.list(tempDir)) {
+      assertTrue(files.findAny().isEmpty());
+    }
+  }
+
+
+  private FileRegistrySnapshotStore storeAt(final String path) {
+    return new FileRegistrySnapshotStore(
+        new RegistryDataProperties(Duration.ofSeconds(30), path), objectMapper);
+  }
+}
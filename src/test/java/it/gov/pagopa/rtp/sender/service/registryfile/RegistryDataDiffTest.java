@@ -0,0 +1,118 @@
+package it.gov.pagopa.rtp.sender.service.registryfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.gov.pagopa.rtp.sender.domain.registryfile.OAuth2;
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class RegistryDataDiffTest {
+
+  private static final TechnicalServiceProvider TSP = new TechnicalServiceProvider(
+      "TSP1", "Tech Provider 1", "https://tsp1.com", "cert1",
+      new OAuth2("https://tsp1.com/token", "POST", "FORM", "client", "kv", "env", "scope", false),
+      true, List.of("HTTP/2"));
+
+
+  @Test
+  void givenSameRegistry_whenBetween_thenEmpty() {
+    final var snapshot = snapshotOf(serviceProvider("SP1", TSP));
+
+    assertTrue(RegistryDataDiff.between(snapshot, snapshotOf(serviceProvider("SP1", TSP))).isEmpty());
+  }
+
+
+  @Test
+  void givenRotatedCertificate_whenBetween_thenReportOnlyThatChange() {
+    final var rotated = TSP.withCertificateSerialNumber("cert2");
+
+    final var diff = RegistryDataDiff.between(
+        snapshotOf(serviceProvider("SP1", TSP)), snapshotOf(serviceProvider("SP1", rotated)));
+
+    assertEquals(
+        List.of(new TechnicalServiceProviderChangedEvent("TSP1", TSP, rotated,
+            Set.of(Change.CERTIFICATE_ROTATED))),
+        diff.technicalServiceProviderChanges());
+    assertEquals(1, diff.serviceProviderChanges().size());
+    assertFalse(diff.serviceProviderChanges().get(0).connectionChanged());
+    assertFalse(diff.technicalServiceProviderChanges().get(0).connectionChanged());
+  }
+
+
+  @Test
+  void givenChangedEndpointOauthAndTransport_whenBetween_thenReportAllChanges() {
+    final var changed = TSP.withServiceEndpoint("https://new.tsp1.com")
+        .withOauth2(TSP.oauth2().withScope("other-scope"))
+        .withMtlsEnabled(false);
+
+    final var diff = RegistryDataDiff.between(
+        snapshotOf(serviceProvider("SP1", TSP)), snapshotOf(serviceProvider("SP1", changed)));
+
+    final var event = diff.technicalServiceProviderChanges().get(0);
+    assertEquals(Set.of(Change.ENDPOINT_CHANGED, Change.OAUTH2_CHANGED, Change.TRANSPORT_CHANGED),
+        event.changes());
+    assertTrue(event.connectionChanged());
+    assertTrue(diff.serviceProviderChanges().get(0).connectionChanged());
+  }
+
+
+  @Test
+  void givenAddedAndRemovedProviders_whenBetween_thenReportThem() {
+    final var otherTsp = TSP.withId("TSP2").withServiceEndpoint("https://tsp2.com");
+
+    final var diff = RegistryDataDiff.between(
+        snapshotOf(serviceProvider("SP1", TSP)), snapshotOf(serviceProvider("SP2", otherTsp)));
+
+    assertEquals(2, diff.serviceProviderChanges().size());
+    assertTrue(diff.serviceProviderChanges().stream()
+        .anyMatch(event -> event.serviceProviderId().equals("SP1") && event.removed()));
+    assertTrue(diff.serviceProviderChanges().stream()
+        .anyMatch(event -> event.serviceProviderId().equals("SP2") && event.previous() == null));
+
+    assertEquals(2, diff.technicalServiceProviderChanges().size());
+    assertTrue(diff.technicalServiceProviderChanges().stream()
+        .anyMatch(event -> event.tspId().equals("TSP1")
+            && event.changes().equals(Set.of(Change.REMOVED))));
+    assertTrue(diff.technicalServiceProviderChanges().stream()
+        .anyMatch(event -> event.tspId().equals("TSP2")
+            && event.changes().equals(Set.of(Change.ADDED))));
+  }
+
+
+  @Test
+  void givenRenamedServiceProvider_whenBetween_thenConnectionIsUnchanged() {
+    final var before = serviceProvider("SP1", TSP);
+
+    final var diff = RegistryDataDiff.between(
+        snapshotOf(before), snapshotOf(before.withSpName("Renamed")));
+
+    assertTrue(diff.technicalServiceProviderChanges().isEmpty());
+    assertEquals(1, diff.serviceProviderChanges().size());
+    assertFalse(diff.serviceProviderChanges().get(0).removed());
+    assertFalse(diff.serviceProviderChanges().get(0).connectionChanged());
+  }
+
+
+  private static ServiceProviderFullData serviceProvider(
+      String spId, TechnicalServiceProvider tsp) {
+
+    return new ServiceProviderFullData(spId, "Service Provider", "tax_" + spId, tsp);
+  }
+
+  private static RegistrySnapshot snapshotOf(ServiceProviderFullData serviceProvider) {
+    return new RegistrySnapshot(
+        Map.of(serviceProvider.spId(), serviceProvider),
+        Map.of(serviceProvider.pspTaxCode(), new ServiceProvider(serviceProvider.spId(),
+            serviceProvider.spName(), serviceProvider.tsp().id(), serviceProvider.pspTaxCode())),
+        Map.of());
+  }
+}
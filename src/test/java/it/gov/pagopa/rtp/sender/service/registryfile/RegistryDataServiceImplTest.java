@@ -1,25 +1,36 @@
 package it.gov.pagopa.rtp.sender.service.registryfile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.TimeoutException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import it.gov.pagopa.rtp.sender.configuration.RegistryDataProperties;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.integration.blobstorage.BlobStorageClient;
 import it.gov.pagopa.rtp.sender.integration.blobstorage.ServiceProviderDataResponse;
+import it.gov.pagopa.rtp.sender.service.registryfile.TechnicalServiceProviderChangedEvent.Change;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,18 +39,26 @@ class RegistryDataServiceImplTest {
   @Mock
   private BlobStorageClient blobStorageClient;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private RegistrySnapshotStore snapshotStore;
+
   private RegistryDataServiceImpl registryDataService;
 
   @BeforeEach
   void setUp() {
-    registryDataService = new RegistryDataServiceImpl(blobStorageClient);
+    lenient().when(snapshotStore.save(any())).thenReturn(Mono.empty());
+    registryDataService = new RegistryDataServiceImpl(blobStorageClient, eventPublisher, snapshotStore,
+        new RegistryDataProperties(Duration.ofSeconds(30), ""));
   }
 
   @Test
   void givenValidResponse_whenGetRegistryData_thenReturnTransformedData() {
 
     var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
-        "cert123", null, true);
+        "cert123", null, true, null);
     var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
     var serviceProviderDataResponse = new ServiceProviderDataResponse(List.of(tsp), List.of(sp));
 
@@ -85,7 +104,7 @@ class RegistryDataServiceImplTest {
 
     ServiceProviderDataResponse mockResponse = new ServiceProviderDataResponse(
         List.of(new TechnicalServiceProvider("TSP1", "Technical Service Provider 1",
-            "https://example.com", "123456", null, false)),
+            "https://example.com", "123456", null, false, null)),
         List.of(new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code"))
     );
 
@@ -107,6 +126,36 @@ class RegistryDataServiceImplTest {
   }
 
 
+  @Test
+  void givenStalledDownload_whenGetRegistryData_thenFailWithTimeout() {
+    when(blobStorageClient.getServiceProviderData()).thenReturn(Mono.never());
+
+    StepVerifier.withVirtualTime(() -> registryDataService.getRegistryData())
+        .thenAwait(Duration.ofSeconds(30))
+        .expectError(TimeoutException.class)
+        .verify();
+  }
+
+
+  @Test
+  void givenStalledDownload_whenRefreshRegistryData_thenKeepCurrentSnapshot() {
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(), List.of(sp))))
+        .thenReturn(Mono.never());
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    StepVerifier.withVirtualTime(() -> registryDataService.refreshRegistryData())
+        .thenAwait(Duration.ofSeconds(30))
+        .verifyComplete();
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .assertNext(map -> assertTrue(map.containsKey("SP1")))
+        .verifyComplete();
+  }
+
+
   @Test
   void givenNonEmptyServiceProviderList_whenGetServiceProvidersByPspTaxCode_thenReturnMappedResult() {
     final var sp1 = new ServiceProvider("sp1", "Provider One", "tsp1", "pspTaxCode1");
@@ -163,5 +212,267 @@ class RegistryDataServiceImplTest {
         .verify();
   }
 
-}
 
+  @Test
+  void givenSameRegistryData_whenReloaded_thenNoChangeEventPublished() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))));
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .expectNextCount(1)
+        .verifyComplete();
+    StepVerifier.create(registryDataService.getRegistryData())
+        .expectNextCount(1)
+        .verifyComplete();
+
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+
+  @Test
+  void givenNotModifiedBlob_whenReloaded_thenCurrentSnapshotKeptWithoutPersisting() {
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(), List.of(sp))))
+        .thenReturn(Mono.empty());
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    final var loaded = registryDataService.getRegistrySnapshot().block();
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    StepVerifier.create(registryDataService.getRegistrySnapshot())
+        .expectNextMatches(current -> current == loaded)
+        .verifyComplete();
+    verify(snapshotStore, times(1)).save(any());
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+
+  @Test
+  void givenChangedRegistryData_whenReloaded_thenNewDataServed() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var rotatedTsp = tsp.withCertificateSerialNumber("cert456");
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))))
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(rotatedTsp), List.of(sp))));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .assertNext(map -> assertEquals("cert456", map.get("SP1").tsp().certificateSerialNumber()))
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenRotatedCertificate_whenReloaded_thenTypedChangeEventsPublished() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var rotatedTsp = tsp.withCertificateSerialNumber("cert456");
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))))
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(rotatedTsp), List.of(sp))));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    verify(eventPublisher).publishEvent(new TechnicalServiceProviderChangedEvent(
+        "TSP1", tsp, rotatedTsp, Set.of(Change.CERTIFICATE_ROTATED)));
+    verify(eventPublisher).publishEvent(new ServiceProviderChangedEvent("SP1",
+        new ServiceProviderFullData("SP1", "Service Provider 1", "psp_tax_code", tsp),
+        new ServiceProviderFullData("SP1", "Service Provider 1", "psp_tax_code", rotatedTsp)));
+  }
+
+
+  @Test
+  void givenLoadedSnapshot_whenGetRegistryData_thenServeFromMemory() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .expectNextMatches(map -> map.containsKey("SP1"))
+        .verifyComplete();
+    StepVerifier.create(registryDataService.getServiceProvidersByPspTaxCode())
+        .assertNext(map -> assertEquals(sp, map.get("psp_tax_code")))
+        .verifyComplete();
+
+    verify(blobStorageClient, times(1)).getServiceProviderData();
+  }
+
+
+  @Test
+  void givenSingleDownload_whenGetRegistrySnapshot_thenAllViewsAreConsistent() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))));
+
+    StepVerifier.create(registryDataService.getRegistrySnapshot())
+        .assertNext(snapshot -> {
+          assertEquals("TSP1", snapshot.findServiceProvider("SP1").orElseThrow().tsp().id());
+          assertEquals(sp, snapshot.findServiceProviderByPspTaxCode("psp_tax_code").orElseThrow());
+          assertEquals("cert123", snapshot.findCertificateSerialNumber("SP1").orElseThrow());
+        })
+        .verifyComplete();
+
+    verify(blobStorageClient, times(1)).getServiceProviderData();
+  }
+
+
+  @Test
+  void givenFailingRefresh_whenRefreshRegistryData_thenKeepPreviousSnapshot() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))))
+        .thenReturn(Mono.error(new RuntimeException("Blob unavailable")));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .assertNext(map -> assertEquals("cert123", map.get("SP1").tsp().certificateSerialNumber()))
+        .verifyComplete();
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+
+  @Test
+  void givenNoSnapshot_whenConcurrentCallers_thenShareSingleLoad() {
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+    final var pending = Sinks.<ServiceProviderDataResponse>one();
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(pending.asMono());
+
+    final var first = registryDataService.getRegistryData().toFuture();
+    final var second = registryDataService.getServiceProvidersByPspTaxCode().toFuture();
+
+    pending.tryEmitValue(new ServiceProviderDataResponse(Collections.emptyList(), List.of(sp)));
+
+    assertTrue(first.join().containsKey("SP1"));
+    assertEquals(sp, second.join().get("psp_tax_code"));
+    verify(blobStorageClient, times(1)).getServiceProviderData();
+  }
+
+
+  @Test
+  void givenNewAndUnchangedRegistry_whenRefreshed_thenPersistOnlyNewOne() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+    final var rawData = new ServiceProviderDataResponse(List.of(tsp), List.of(sp));
+
+    when(blobStorageClient.getServiceProviderData()).thenReturn(Mono.just(rawData));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+
+    verify(snapshotStore, times(1)).save(rawData);
+  }
+
+
+  @Test
+  void givenFailingPersistence_whenRefreshed_thenServeLoadedSnapshot() {
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(), List.of(sp))));
+    when(snapshotStore.save(any())).thenReturn(Mono.error(new IllegalStateException("Disk full")));
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .expectNextMatches(map -> map.containsKey("SP1"))
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenLocalSnapshot_whenRestored_thenServeItWithoutBlob() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(snapshotStore.load())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))));
+
+    registryDataService.restoreLocalSnapshot();
+
+    StepVerifier.create(registryDataService.getRegistrySnapshot())
+        .assertNext(snapshot ->
+            assertEquals("cert123", snapshot.findCertificateSerialNumber("SP1").orElseThrow()))
+        .verifyComplete();
+    verify(blobStorageClient, never()).getServiceProviderData();
+  }
+
+
+  @Test
+  void givenSnapshotAlreadyLoadedFromBlob_whenRestored_thenKeepBlobSnapshot() {
+    final var tsp = new TechnicalServiceProvider("TSP1", "Tech Provider 1", "https://endpoint.com",
+        "cert123", null, true, null);
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(tsp), List.of(sp))));
+    when(snapshotStore.load())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(
+            List.of(tsp.withCertificateSerialNumber("stale")), List.of(sp))));
+
+    StepVerifier.create(registryDataService.refreshRegistryData())
+        .verifyComplete();
+    registryDataService.restoreLocalSnapshot();
+
+    StepVerifier.create(registryDataService.getRegistrySnapshot())
+        .assertNext(snapshot ->
+            assertEquals("cert123", snapshot.findCertificateSerialNumber("SP1").orElseThrow()))
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenUnreadableLocalSnapshot_whenRestored_thenFallBackToBlob() {
+    final var sp = new ServiceProvider("SP1", "Service Provider 1", "TSP1", "psp_tax_code");
+
+    when(snapshotStore.load()).thenReturn(Mono.error(new IllegalStateException("Corrupted")));
+    when(blobStorageClient.getServiceProviderData())
+        .thenReturn(Mono.just(new ServiceProviderDataResponse(List.of(), List.of(sp))));
+
+    registryDataService.restoreLocalSnapshot();
+
+    StepVerifier.create(registryDataService.getRegistryData())
+        .expectNextMatches(map -> map.containsKey("SP1"))
+        .verifyComplete();
+  }
+
+}
@@ -17,12 +17,16 @@ import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.Retry;
 import it.gov.pagopa.rtp.sender.domain.errors.MessageBadFormed;
 import it.gov.pagopa.rtp.sender.domain.errors.PayerNotActivatedException;
 import it.gov.pagopa.rtp.sender.domain.errors.RtpNotFoundException;
+import it.gov.pagopa.rtp.sender.domain.errors.ServiceProviderNotFoundException;
 import it.gov.pagopa.rtp.sender.domain.rtp.*;
 import it.gov.pagopa.rtp.sender.epcClient.model.SepaRequestToPayRequestResourceDto;
+import it.gov.pagopa.rtp.sender.service.activation.ActivationLookup;
+import it.gov.pagopa.rtp.sender.service.activation.CachedActivationLookup;
 import it.gov.pagopa.rtp.sender.service.rtp.handler.SendRtpProcessor;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,6 +36,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.lang.NonNull;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
@@ -48,7 +53,7 @@ class SendRTPServiceTest {
   private final ServiceProviderConfig serviceProviderConfig = new ServiceProviderConfig(
       "http://localhost:8080",
       new Activation("http://localhost:8080"),
-      new Send("v1", new Retry(3, 100, 0.75), 10000L));
+      new Send("v1", new Retry(3, 100, 0.75), 10000L, null));
   @Mock
   private RtpRepository rtpRepository;
   @Mock
@@ -79,9 +84,9 @@ class SendRTPServiceTest {
 
   @BeforeEach
   void setUp() {
-    sendRTPService = new SendRTPServiceImpl(sepaRequestToPayMapper, readApi,
-        serviceProviderConfig, rtpRepository,
-        objectMapper, sendRtpProcessor, rtpStatusUpdater);
+    sendRTPService = new SendRTPServiceImpl(sepaRequestToPayMapper,
+        new CachedActivationLookup(readApi, serviceProviderConfig, new CaffeineCacheManager()),
+        rtpRepository, objectMapper, sendRtpProcessor, rtpStatusUpdater);
     inputRtp = Rtp.builder().noticeNumber(noticeNumber).amount(amount).description(description)
         .expiryDate(expiryDate)
         .payerId(payerId).payeeName(payeeName).payeeId(payeeId)
@@ -182,6 +187,24 @@ class SendRTPServiceTest {
     verify(readApi, times(1)).findActivationByPayerId(any(), any(), any());
   }
 
+  @Test
+  void givenServiceProviderNotFound_whenSend_thenInvalidateCachedActivation() {
+    final var activationLookup = mock(ActivationLookup.class);
+    final var service = new SendRTPServiceImpl(sepaRequestToPayMapper, activationLookup,
+        rtpRepository, objectMapper, sendRtpProcessor, rtpStatusUpdater);
+
+    when(activationLookup.findActivationByPayerId(payerId)).thenReturn(Mono.just(mockActivationDto()));
+    when(rtpRepository.save(any())).thenReturn(Mono.just(mockRtp()));
+    when(sendRtpProcessor.sendRtpToServiceProviderDebtor(any()))
+        .thenReturn(Mono.error(new ServiceProviderNotFoundException("not found")));
+
+    StepVerifier.create(service.send(inputRtp))
+        .expectError(ServiceProviderNotFoundException.class)
+        .verify();
+
+    verify(activationLookup).invalidate(payerId);
+  }
+
   @Test
   void givenInternalErrorOnExternalSendWhenSendThenPropagateMonoError() {
     var fakeActivationDto = mockActivationDto();
@@ -399,6 +422,80 @@ class SendRTPServiceTest {
             .verify();
   }
 
+  @Test
+  void givenPrefetchedRtp_whenFindByCompositeKey_thenServeItOnceWithoutQuery() {
+    final var operationId = 200L;
+    final var dispatcher = "dispatcherA";
+    final var prefetchedRtp = Rtp.builder()
+            .resourceID(new ResourceID(UUID.randomUUID()))
+            .operationId(operationId)
+            .eventDispatcher(dispatcher)
+            .build();
+    final var storedRtp = Rtp.builder()
+            .resourceID(new ResourceID(UUID.randomUUID()))
+            .operationId(operationId)
+            .eventDispatcher(dispatcher)
+            .build();
+    final var prefetched = PrefetchedRtps.of(dispatcher, List.of(prefetchedRtp), Duration.ofSeconds(2));
+
+    when(rtpRepository.findByOperationIdAndEventDispatcher(operationId, dispatcher))
+            .thenReturn(Mono.just(storedRtp));
+
+    StepVerifier.create(sendRTPService.findRtpByCompositeKey(operationId, dispatcher)
+                    .contextWrite(ctx -> ctx.put(PrefetchedRtps.CONTEXT_KEY, prefetched)))
+            .expectNext(prefetchedRtp)
+            .verifyComplete();
+
+    verify(rtpRepository, never()).findByOperationIdAndEventDispatcher(operationId, dispatcher);
+
+    StepVerifier.create(sendRTPService.findRtpByCompositeKey(operationId, dispatcher)
+                    .contextWrite(ctx -> ctx.put(PrefetchedRtps.CONTEXT_KEY, prefetched)))
+            .expectNext(storedRtp)
+            .verifyComplete();
+  }
+
+  @Test
+  void givenExpiredPrefetchedRtp_whenFindByCompositeKey_thenReadFromRepository() {
+    final var operationId = 200L;
+    final var dispatcher = "dispatcherA";
+    final var prefetchedRtp = Rtp.builder()
+            .resourceID(new ResourceID(UUID.randomUUID()))
+            .operationId(operationId)
+            .eventDispatcher(dispatcher)
+            .build();
+    final var storedRtp = Rtp.builder()
+            .resourceID(new ResourceID(UUID.randomUUID()))
+            .operationId(operationId)
+            .eventDispatcher(dispatcher)
+            .build();
+    final var prefetched = PrefetchedRtps.of(dispatcher, List.of(prefetchedRtp), Duration.ZERO);
+
+    when(rtpRepository.findByOperationIdAndEventDispatcher(operationId, dispatcher))
+            .thenReturn(Mono.just(storedRtp));
+
+    StepVerifier.create(sendRTPService.findRtpByCompositeKey(operationId, dispatcher)
+                    .contextWrite(ctx -> ctx.put(PrefetchedRtps.CONTEXT_KEY, prefetched)))
+            .expectNext(storedRtp)
+            .verifyComplete();
+  }
+
+  @Test
+  void givenOperationIds_whenFindByCompositeKeys_thenDelegateToRepository() {
+    final var dispatcher = "dispatcherA";
+    final var operationIds = List.of(1L, 2L);
+    final var rtp = Rtp.builder()
+            .resourceID(new ResourceID(UUID.randomUUID()))
+            .operationId(1L)
+            .build();
+
+    when(rtpRepository.findByOperationIdsAndEventDispatcher(operationIds, dispatcher))
+            .thenReturn(Flux.just(rtp));
+
+    StepVerifier.create(sendRTPService.findRtpsByCompositeKeys(operationIds, dispatcher))
+            .expectNext(rtp)
+            .verifyComplete();
+  }
+
   @Test
   void whenRepositoryFails_thenPropagateError() {
     final var operationId = 321L;
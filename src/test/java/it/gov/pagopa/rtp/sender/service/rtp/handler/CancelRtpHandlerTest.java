@@ -1,7 +1,10 @@
 package it.gov.pagopa.rtp.sender.service.rtp.handler;
 
+import it.gov.pagopa.rtp.sender.configuration.EpcHedgingProperties;
+import it.gov.pagopa.rtp.sender.configuration.EpcRetryProperties;
 import it.gov.pagopa.rtp.sender.configuration.PagoPaConfigProperties;
 import it.gov.pagopa.rtp.sender.domain.rtp.TransactionStatus;
+import java.time.Duration;
 import java.util.HashSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,17 +12,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import it.gov.pagopa.rtp.sender.configuration.OpenAPIClientFactory;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
-import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientRegistry;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.rtp.ResourceID;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
-import it.gov.pagopa.rtp.sender.epcClient.invoker.ApiClient;
 import it.gov.pagopa.rtp.sender.epcClient.model.SepaRequestToPayCancellationRequestResourceDto;
 import it.gov.pagopa.rtp.sender.epcClient.model.SynchronousRequestToPayCancellationResponseDto;
 import it.gov.pagopa.rtp.sender.service.rtp.SepaRequestToPayMapper;
@@ -40,9 +43,13 @@ class CancelRtpHandlerTest {
   private static final long MAX_ATTEMPTS = 3L;
   private static final long BACKOFF_MIN_DURATION = 100L;
   private static final double BACKOFF_JITTER = 0.5;
+  private static final EpcRetryProperties RETRY_PROPERTIES =
+      new EpcRetryProperties(0.1, Duration.ofSeconds(10), 10, Duration.ofSeconds(1));
+  private static final EpcHedgingProperties HEDGING_PROPERTIES = new EpcHedgingProperties(
+      false, 0.95, Duration.ofSeconds(1), Duration.ofMillis(100), Duration.ofSeconds(5), 20);
 
   @Mock
-  private WebClientFactory webClientFactory;
+  private WebClientRegistry webClientRegistry;
 
   @Mock
   private OpenAPIClientFactory<DefaultApi> epcClientFactory;
@@ -56,9 +63,6 @@ class CancelRtpHandlerTest {
   @Mock
   private DefaultApi epcClient;
 
-  @Mock
-  private ApiClient apiClient;
-
   @Mock
   private ServiceProviderConfig.Send.Retry retryConfig;
 
@@ -68,6 +72,12 @@ class CancelRtpHandlerTest {
   @Mock
   private PagoPaConfigProperties.OperationSlug operationSlug;
 
+  @Mock
+  private TspCallGuard tspCallGuard;
+
+  @Mock
+  private TspConcurrencyLimiter concurrencyLimiter;
+
   private CancelRtpHandler cancelRtpHandler;
 
   @BeforeEach
@@ -80,7 +90,14 @@ class CancelRtpHandlerTest {
     lenient().when(pagoPaConfigProperties.operationSlug()).thenReturn(operationSlug);
     lenient().when(operationSlug.cancel()).thenReturn("cancel");
 
-    cancelRtpHandler = new CancelRtpHandler(webClientFactory, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, pagoPaConfigProperties);
+    lenient().when(tspCallGuard.guard(any(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+    lenient().when(concurrencyLimiter.limit(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+
+    cancelRtpHandler = new CancelRtpHandler(webClientRegistry, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, pagoPaConfigProperties, tspCallGuard,
+        new EpcRetryPolicyFactory(serviceProviderConfig, RETRY_PROPERTIES), concurrencyLimiter,
+        new EpcHedgingPolicy(HEDGING_PROPERTIES));
   }
 
   @Test
@@ -109,17 +126,15 @@ class CancelRtpHandlerTest {
         .thenReturn("https://example.com");
     when(tsp.mtlsEnabled())
         .thenReturn(true);
-    when(epcClientFactory.createClient(any()))
+    when(epcClientFactory.createClient(any(), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayCancellationRequest(any(), any(), any(), eq(sepaRequest)))
         .thenReturn(Mono.just(sepaResponse));
     when(request.withResponse(transactionStatus))
         .thenReturn(request);
-    when(webClientFactory.createMtlsWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
 
     final var result = cancelRtpHandler.handle(request);
@@ -154,12 +169,10 @@ class CancelRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.mtlsEnabled())
         .thenReturn(false);
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayCancellationRequest(any(), any(), any(), eq(sepaRequest)))
@@ -173,7 +186,7 @@ class CancelRtpHandlerTest {
         .expectNext(request)
         .verifyComplete();
 
-    verify(webClientFactory).createSimpleWebClient();
+    verify(webClientRegistry).getWebClient(tsp);
   }
 
   @Test
@@ -196,12 +209,10 @@ class CancelRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.serviceEndpoint())
         .thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayCancellationRequest(any(), any(), any(), any()))
@@ -244,12 +255,10 @@ class CancelRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.serviceEndpoint())
         .thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel))
         .thenReturn(sepaRequest);
 
@@ -258,7 +267,7 @@ class CancelRtpHandlerTest {
         .thenAnswer(
             invocation -> {
               if (shouldFail.getAndSet(false)) {
-                throw new RuntimeException("Simulated call failure");
+                throw WebClientResponseException.create(503, "Simulated call failure", null, null, null);
               }
               return Mono.just(sepaResponse);
             }
@@ -299,15 +308,13 @@ class CancelRtpHandlerTest {
         .thenReturn("https://example.com");
     when(tsp.mtlsEnabled())
         .thenReturn(true);
-    when(epcClientFactory.createClient(any()))
+    when(epcClientFactory.createClient(any(), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel))
         .thenReturn(sepaRequest);
     when(request.withResponse(transactionStatus))
         .thenReturn(request);
-    when(webClientFactory.createMtlsWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
 
     final var retryCounter = new AtomicInteger();
@@ -315,7 +322,7 @@ class CancelRtpHandlerTest {
         .thenAnswer(
             invocation -> {
               if (retryCounter.getAndIncrement() < numRetries - 1) {
-                throw new RuntimeException("Simulated call failure");
+                throw WebClientResponseException.create(503, "Simulated call failure", null, null, null);
               }
               return Mono.just(sepaResponse);
             }
@@ -349,9 +356,8 @@ class CancelRtpHandlerTest {
     when(request.serviceProviderFullData()).thenReturn(providerData);
     when(providerData.tsp()).thenReturn(tsp);
     when(tsp.serviceEndpoint()).thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient()).thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient)).thenReturn(epcClient);
-    when(epcClient.getApiClient()).thenReturn(apiClient);
+    when(webClientRegistry.getWebClient(tsp)).thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any())).thenReturn(epcClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel)).thenReturn(sepaRequest);
 
     WebClientResponseException cause = WebClientResponseException.create(
@@ -383,9 +389,8 @@ class CancelRtpHandlerTest {
     when(request.serviceProviderFullData()).thenReturn(providerData);
     when(providerData.tsp()).thenReturn(tsp);
     when(tsp.serviceEndpoint()).thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient()).thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient)).thenReturn(epcClient);
-    when(epcClient.getApiClient()).thenReturn(apiClient);
+    when(webClientRegistry.getWebClient(tsp)).thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any())).thenReturn(epcClient);
     when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel)).thenReturn(sepaRequest);
 
     WebClientResponseException cause = WebClientResponseException.create(
@@ -401,4 +406,72 @@ class CancelRtpHandlerTest {
         .expectNext(request)
         .verifyComplete();
   }
-}
\ No newline at end of file
+
+  @Test
+  void givenNonHttpFailure_whenHandleRtpCancellation_thenReturnErrorStatus() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToCancel = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var sepaRequest = mock(SepaRequestToPayCancellationRequestResourceDto.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToCancel.resourceID()).thenReturn(resourceId);
+    when(request.rtpToSend()).thenReturn(rtpToCancel);
+    when(request.serviceProviderFullData()).thenReturn(providerData);
+    when(providerData.tsp()).thenReturn(tsp);
+    when(tsp.serviceEndpoint()).thenReturn("https://example.com");
+    when(webClientRegistry.getWebClient(tsp)).thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any())).thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToCancel)).thenReturn(sepaRequest);
+    when(epcClient.postRequestToPayCancellationRequest(any(), any(), any(), any()))
+        .thenReturn(Mono.error(new DecodingException("Malformed response body")));
+    when(request.withResponse(TransactionStatus.ERROR)).thenReturn(request);
+
+    StepVerifier.create(cancelRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(epcClient, times(1)).postRequestToPayCancellationRequest(any(), any(), any(), any());
+  }
+
+  @Test
+  void givenCallNotPermitted_whenHandleRtpCancellation_thenFailFastWithError() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToSend = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToSend.resourceID())
+        .thenReturn(resourceId);
+    when(rtpToSend.serviceProviderDebtor())
+        .thenReturn("DEBTOR_SP");
+    when(request.rtpToSend())
+        .thenReturn(rtpToSend);
+    when(request.serviceProviderFullData())
+        .thenReturn(providerData);
+    when(providerData.tsp())
+        .thenReturn(tsp);
+    when(webClientRegistry.getWebClient(tsp))
+        .thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any()))
+        .thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToCancel(rtpToSend))
+        .thenReturn(mock(SepaRequestToPayCancellationRequestResourceDto.class));
+    when(tspCallGuard.guard(eq("DEBTOR_SP"), any()))
+        .thenReturn(Mono.error(new TspCallNotPermittedException("Circuit open")));
+    when(request.withResponse(TransactionStatus.ERROR))
+        .thenReturn(request);
+
+    StepVerifier.create(cancelRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(tspCallGuard, times(1)).guard(eq("DEBTOR_SP"), any());
+    verify(epcClient, never()).postRequestToPayCancellationRequest(any(), any(), any(), any());
+  }
+
+}
@@ -0,0 +1,223 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import it.gov.pagopa.rtp.sender.configuration.TspResilienceProperties;
+import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
+import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
+import it.gov.pagopa.rtp.sender.service.registryfile.ServiceProviderChangedEvent;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class DefaultTspCallGuardTest {
+
+  private static final String DEBTOR = "DEBTOR_SP";
+  private static final String OTHER_DEBTOR = "OTHER_SP";
+
+
+  @Test
+  void givenFailuresBelowThreshold_whenGuard_thenCallsAreAttempted() {
+    final var guard = guard(3, Duration.ofMinutes(1), 1, 10);
+    final var attempts = new AtomicInteger();
+
+    failTimes(guard, DEBTOR, attempts, 2);
+
+    StepVerifier.create(guard.guard(DEBTOR, counting(attempts, Mono.just("ok"))))
+        .expectNext("ok")
+        .verifyComplete();
+
+    assertEquals(3, attempts.get());
+  }
+
+
+  @Test
+  void givenConsecutiveFailures_whenGuard_thenCircuitOpensAndRejectsCalls() {
+    final var guard = guard(3, Duration.ofMinutes(1), 1, 10);
+    final var attempts = new AtomicInteger();
+
+    failTimes(guard, DEBTOR, attempts, 3);
+
+    StepVerifier.create(guard.guard(DEBTOR, counting(attempts, Mono.just("ok"))))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+
+    assertEquals(3, attempts.get());
+  }
+
+
+  @Test
+  void givenOpenCircuit_whenGuardOtherDebtor_thenCallIsAttempted() {
+    final var guard = guard(1, Duration.ofMinutes(1), 1, 10);
+
+    failTimes(guard, DEBTOR, new AtomicInteger(), 1);
+
+    StepVerifier.create(guard.guard(OTHER_DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenClientErrors_whenGuard_thenCircuitStaysClosed() {
+    final var guard = guard(1, Duration.ofMinutes(1), 1, 10);
+    final var badRequest = WebClientResponseException.create(
+        HttpStatus.BAD_REQUEST.value(), "Bad Request", HttpHeaders.EMPTY, null, null);
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.error(badRequest)))
+        .expectError(WebClientResponseException.class)
+        .verify();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenElapsedOpenDuration_whenProbeSucceeds_thenCircuitCloses() {
+    final var guard = guard(1, Duration.ZERO, 1, 10);
+
+    failTimes(guard, DEBTOR, new AtomicInteger(), 1);
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("probe")))
+        .expectNext("probe")
+        .verifyComplete();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenHalfOpenCircuit_whenProbeInFlight_thenOtherCallsAreRejected() {
+    final var guard = guard(1, Duration.ZERO, 1, 10);
+    final var probe = Sinks.<String>one();
+
+    failTimes(guard, DEBTOR, new AtomicInteger(), 1);
+
+    final var probeCall = guard.guard(DEBTOR, probe.asMono()).subscribe();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+
+    probe.tryEmitValue("probe");
+    probeCall.dispose();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenFullBulkhead_whenGuard_thenCallIsRejectedUntilSlotIsReleased() {
+    final var guard = guard(5, Duration.ofMinutes(1), 1, 1);
+    final var pending = Sinks.<String>one();
+
+    final var inFlight = guard.guard(DEBTOR, pending.asMono()).subscribe();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+
+    StepVerifier.create(guard.guard(OTHER_DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+
+    inFlight.dispose();
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenEndpointChangedEvent_whenGuard_thenCircuitIsReset() {
+    final var guard = guard(1, Duration.ofMinutes(1), 1, 10);
+
+    failTimes(guard, DEBTOR, new AtomicInteger(), 1);
+
+    guard.onServiceProviderChanged(new ServiceProviderChangedEvent(DEBTOR,
+        serviceProvider("https://old.tsp.com"), serviceProvider("https://new.tsp.com")));
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenNameChangedEvent_whenGuard_thenCircuitStaysOpen() {
+    final var guard = guard(1, Duration.ofMinutes(1), 1, 10);
+    final var before = serviceProvider("https://tsp.com");
+
+    failTimes(guard, DEBTOR, new AtomicInteger(), 1);
+
+    guard.onServiceProviderChanged(new ServiceProviderChangedEvent(DEBTOR,
+        before, before.withSpName("Renamed Service Provider")));
+
+    StepVerifier.create(guard.guard(DEBTOR, Mono.just("ok")))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+  }
+
+
+  @Test
+  void givenDisabledGuard_whenGuard_thenCallIsReturnedAsIs() {
+    final var properties = new TspResilienceProperties(false, 1, Duration.ofMinutes(1), 1, 1);
+    final var guard = new DefaultTspCallGuard(properties);
+    final var call = Mono.just("ok");
+
+    assertEquals(call, guard.guard(DEBTOR, call));
+  }
+
+
+  @Test
+  void givenNullDebtor_whenGuard_thenThrowNullPointerException() {
+    final var guard = guard(1, Duration.ofMinutes(1), 1, 1);
+    final var call = Mono.just("ok");
+
+    assertThrows(NullPointerException.class, () -> guard.guard(null, call));
+  }
+
+
+  private static DefaultTspCallGuard guard(
+      int failureThreshold, Duration openDuration, int halfOpenMaxCalls, int maxConcurrentCalls) {
+
+    return new DefaultTspCallGuard(new TspResilienceProperties(
+        true, failureThreshold, openDuration, halfOpenMaxCalls, maxConcurrentCalls));
+  }
+
+  private static ServiceProviderFullData serviceProvider(String serviceEndpoint) {
+    return new ServiceProviderFullData(DEBTOR, "Service Provider", "tax", new TechnicalServiceProvider(
+        "TSP1", "Tech Provider 1", serviceEndpoint, "cert1", null, true, null));
+  }
+
+  private static <T> Mono<T> counting(AtomicInteger attempts, Mono<T> call) {
+    return Mono.defer(() -> {
+      attempts.incrementAndGet();
+      return call;
+    });
+  }
+
+  private static void failTimes(
+      DefaultTspCallGuard guard, String debtor, AtomicInteger attempts, int times) {
+
+    for (int i = 0; i < times; i++) {
+      StepVerifier.create(guard.guard(debtor, counting(attempts, Mono.error(new RuntimeException("down")))))
+          .expectError(RuntimeException.class)
+          .verify();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.rtp.sender.configuration.TspConcurrencyLimitProperties;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class DefaultTspConcurrencyLimiterTest {
+
+  private static final String DEBTOR = "DEBTOR_SP";
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+
+  @Test
+  void givenFreeLimit_whenLimit_thenExchangeRunsAndMetricsAreExported() {
+    final var limiter = limiter(4, 1, 10, 10, Duration.ofSeconds(1));
+
+    StepVerifier.create(limiter.limit(DEBTOR, Mono.just("ok"), error -> false))
+        .expectNext("ok")
+        .verifyComplete();
+
+    assertEquals(4, gauge(DefaultTspConcurrencyLimiter.LIMIT_METRIC));
+    assertEquals(0, gauge(DefaultTspConcurrencyLimiter.IN_FLIGHT_METRIC));
+  }
+
+
+  @Test
+  void givenReachedLimit_whenLimit_thenExchangeWaitsForRelease() {
+    final var limiter = limiter(1, 1, 1, 10, Duration.ofSeconds(5));
+    final var pending = Sinks.<String>one();
+    final var started = new AtomicBoolean();
+
+    final var first = limiter.limit(DEBTOR, pending.asMono(), error -> false).subscribe();
+    final var second = limiter.limit(DEBTOR, Mono.fromCallable(() -> {
+      started.set(true);
+      return "second";
+    }), error -> false);
+
+    StepVerifier.create(second)
+        .then(() -> {
+          assertFalse(started.get());
+          assertEquals(1, gauge(DefaultTspConcurrencyLimiter.QUEUE_METRIC));
+          pending.tryEmitValue("first");
+        })
+        .expectNext("second")
+        .verifyComplete();
+
+    assertTrue(started.get());
+    first.dispose();
+  }
+
+
+  @Test
+  void givenFullQueue_whenLimit_thenRejectAndCount() {
+    final var limiter = limiter(1, 1, 1, 0, Duration.ofSeconds(5));
+    final var inFlight = limiter.limit(DEBTOR, Sinks.<String>one().asMono(), error -> false)
+        .subscribe();
+
+    StepVerifier.create(limiter.limit(DEBTOR, Mono.just("ok"), error -> false))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+
+    assertEquals(1, counter(DefaultTspConcurrencyLimiter.REJECTIONS_METRIC));
+    inFlight.dispose();
+    assertEquals(0, gauge(DefaultTspConcurrencyLimiter.IN_FLIGHT_METRIC));
+  }
+
+
+  @Test
+  void givenLimitNotFreedInTime_whenLimit_thenReject() {
+    final var limiter = limiter(1, 1, 1, 10, Duration.ofMillis(50));
+    final var inFlight = limiter.limit(DEBTOR, Sinks.<String>one().asMono(), error -> false)
+        .subscribe();
+
+    StepVerifier.create(limiter.limit(DEBTOR, Mono.just("ok"), error -> false))
+        .expectError(TspCallNotPermittedException.class)
+        .verify(Duration.ofSeconds(5));
+
+    assertEquals(0, gauge(DefaultTspConcurrencyLimiter.QUEUE_METRIC));
+    assertEquals(1, counter(DefaultTspConcurrencyLimiter.REJECTIONS_METRIC));
+    inFlight.dispose();
+  }
+
+
+  @Test
+  void givenDroppedExchanges_whenLimit_thenLimitDecreases() {
+    final var limiter = limiter(10, 1, 20, 10, Duration.ofSeconds(1));
+
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(limiter.limit(DEBTOR, Mono.error(new IllegalStateException("down")),
+              IllegalStateException.class::isInstance))
+          .expectError(IllegalStateException.class)
+          .verify();
+    }
+
+    assertEquals(8, gauge(DefaultTspConcurrencyLimiter.LIMIT_METRIC));
+  }
+
+
+  @Test
+  void givenRejectedOrNotDroppedFailures_whenLimit_thenLimitIsUnchanged() {
+    final var limiter = limiter(10, 1, 20, 10, Duration.ofSeconds(1));
+
+    StepVerifier.create(limiter.limit(DEBTOR,
+            Mono.error(new TspCallNotPermittedException("Circuit open")), error -> true))
+        .expectError(TspCallNotPermittedException.class)
+        .verify();
+    StepVerifier.create(limiter.limit(DEBTOR,
+            Mono.error(new IllegalArgumentException("bad request")), error -> false))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+
+    assertEquals(10, gauge(DefaultTspConcurrencyLimiter.LIMIT_METRIC));
+    assertEquals(0, gauge(DefaultTspConcurrencyLimiter.IN_FLIGHT_METRIC));
+  }
+
+
+  @Test
+  void givenSuccessfulExchanges_whenLimitIsInUse_thenLimitIncreases() {
+    final var limiter = limiter(1, 1, 5, 10, Duration.ofSeconds(1));
+
+    for (int i = 0; i < 3; i++) {
+      StepVerifier.create(limiter.limit(DEBTOR, Mono.just("ok"), error -> false))
+          .expectNext("ok")
+          .verifyComplete();
+    }
+
+    // sequential exchanges keep a single permit in use: the limit stops growing at 3
+    assertEquals(3, gauge(DefaultTspConcurrencyLimiter.LIMIT_METRIC));
+  }
+
+
+  @Test
+  void givenDisabledLimiter_whenLimit_thenExchangeIsReturnedAsIs() {
+    final var properties = new TspConcurrencyLimitProperties(
+        false, 1, 1, 1, 0.9, Duration.ofSeconds(1), 0, Duration.ofSeconds(1));
+    final var limiter = new DefaultTspConcurrencyLimiter(properties, meterRegistry);
+    final var exchange = Mono.just("ok");
+
+    assertEquals(exchange, limiter.limit(DEBTOR, exchange, error -> false));
+  }
+
+
+  private DefaultTspConcurrencyLimiter limiter(
+      int initialLimit, int minLimit, int maxLimit, int maxQueueSize, Duration acquireTimeout) {
+
+    return new DefaultTspConcurrencyLimiter(
+        new TspConcurrencyLimitProperties(true, initialLimit, minLimit, maxLimit, 0.9,
+            Duration.ofSeconds(1), maxQueueSize, acquireTimeout),
+        meterRegistry);
+  }
+
+  private double gauge(String name) {
+    return meterRegistry.get(name)
+        .tag(DefaultTspConcurrencyLimiter.SERVICE_PROVIDER_TAG, DEBTOR)
+        .gauge()
+        .value();
+  }
+
+  private double counter(String name) {
+    return meterRegistry.get(name)
+        .tag(DefaultTspConcurrencyLimiter.SERVICE_PROVIDER_TAG, DEBTOR)
+        .counter()
+        .count();
+  }
+}
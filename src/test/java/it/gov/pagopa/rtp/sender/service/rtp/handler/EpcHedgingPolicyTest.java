@@ -0,0 +1,154 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.gov.pagopa.rtp.sender.configuration.EpcHedgingProperties;
+import it.gov.pagopa.rtp.sender.service.rtp.handler.EpcHedgingPolicy.LatencyWindow;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class EpcHedgingPolicyTest {
+
+  private static final String DEBTOR = "DEBTOR_SP";
+  private static final Duration INITIAL_DELAY = Duration.ofSeconds(1);
+
+  private final EpcHedgingPolicy policy = new EpcHedgingPolicy(properties(true));
+
+
+  @Test
+  void givenDisabledHedging_whenHedge_thenCallIsReturnedAsIs() {
+    final var disabledPolicy = new EpcHedgingPolicy(properties(false));
+    final var call = Mono.just("ok");
+
+    assertSame(call, disabledPolicy.hedge(DEBTOR, call));
+  }
+
+
+  @Test
+  void givenContextWithoutHedging_whenHedge_thenSendSingleRequest() {
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.withVirtualTime(() -> policy.hedge(DEBTOR, slowThenFast(attempts)))
+        .expectSubscription()
+        .thenAwait(Duration.ofSeconds(10))
+        .expectNext("primary")
+        .verifyComplete();
+
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  void givenSlowPrimary_whenHedge_thenUseHedgeAndCancelPrimary() {
+    final var attempts = new AtomicInteger();
+    final var primaryCancelled = new AtomicBoolean();
+
+    StepVerifier.withVirtualTime(() -> policy.hedge(DEBTOR, Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(10)).thenReturn("primary")
+                    .doOnCancel(() -> primaryCancelled.set(true))
+                : Mono.just("hedge")))
+            .contextWrite(EpcHedgingPolicy.withHedging()))
+        .expectSubscription()
+        .expectNoEvent(INITIAL_DELAY.minusMillis(1))
+        .thenAwait(Duration.ofMillis(1))
+        .expectNext("hedge")
+        .verifyComplete();
+
+    assertEquals(2, attempts.get());
+    assertTrue(primaryCancelled.get());
+  }
+
+
+  @Test
+  void givenFastPrimary_whenHedge_thenNoHedgeIsSent() {
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.withVirtualTime(() -> policy.hedge(DEBTOR, Mono.fromCallable(() -> {
+              attempts.incrementAndGet();
+              return "primary";
+            }))
+            .contextWrite(EpcHedgingPolicy.withHedging()))
+        .expectSubscription()
+        .expectNext("primary")
+        .verifyComplete();
+
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  void givenPrimaryFailingEarly_whenHedge_thenPropagateFailureImmediatelyWithoutHedging() {
+    final var attempts = new AtomicInteger();
+    final var scheduler = VirtualTimeScheduler.create();
+
+    StepVerifier.withVirtualTime(() -> policy.hedge(DEBTOR, Mono.<String>defer(() -> {
+              attempts.incrementAndGet();
+              return Mono.delay(Duration.ofMillis(100))
+                  .then(Mono.<String>error(new IllegalArgumentException("primary failure")));
+            }))
+            .contextWrite(EpcHedgingPolicy.withHedging()), () -> scheduler, Long.MAX_VALUE)
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(99))
+        .thenAwait(Duration.ofMillis(1))
+        .expectErrorMessage("primary failure")
+        .verify();
+
+    assertEquals(100, scheduler.now(TimeUnit.MILLISECONDS));
+    scheduler.advanceTimeBy(INITIAL_DELAY);
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  void givenBothRequestsFailing_whenHedge_thenPropagatePrimaryFailure() {
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.withVirtualTime(() -> policy.hedge(DEBTOR, Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(2)).then(Mono.<String>error(new IllegalStateException("primary failure")))
+                : Mono.<String>error(new IllegalStateException("hedge failure"))))
+            .contextWrite(EpcHedgingPolicy.withHedging()))
+        .expectSubscription()
+        .thenAwait(Duration.ofSeconds(2))
+        .expectErrorMessage("primary failure")
+        .verify();
+
+    assertEquals(2, attempts.get());
+  }
+
+
+  @Test
+  void givenObservedLatencies_whenHedgeDelay_thenUsePercentileWithinBounds() {
+    final var window = new LatencyWindow(100);
+
+    assertEquals(INITIAL_DELAY, policy.hedgeDelay(window));
+
+    for (int i = 1; i <= 20; i++) {
+      window.record(Duration.ofMillis(i * 100L).toNanos());
+    }
+    assertEquals(Duration.ofMillis(1900), policy.hedgeDelay(window));
+
+    window.record(Duration.ofMinutes(1).toNanos());
+    window.record(Duration.ofMinutes(1).toNanos());
+    assertEquals(Duration.ofSeconds(5), policy.hedgeDelay(window));
+  }
+
+
+  private static Mono<String> slowThenFast(AtomicInteger attempts) {
+    return Mono.defer(() -> attempts.incrementAndGet() == 1
+        ? Mono.delay(Duration.ofSeconds(10)).thenReturn("primary")
+        : Mono.just("hedge"));
+  }
+
+  private static EpcHedgingProperties properties(boolean enabled) {
+    return new EpcHedgingProperties(
+        enabled, 0.95, INITIAL_DELAY, Duration.ofMillis(100), Duration.ofSeconds(5), 20);
+  }
+}
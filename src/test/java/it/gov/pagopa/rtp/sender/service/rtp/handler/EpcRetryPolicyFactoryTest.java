@@ -0,0 +1,135 @@
+package it.gov.pagopa.rtp.sender.service.rtp.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.gov.pagopa.rtp.sender.configuration.EpcRetryProperties;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send;
+import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig.Send.Retry;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class EpcRetryPolicyFactoryTest {
+
+  private static final long MAX_ATTEMPTS = 3L;
+
+
+  @Test
+  void givenFailures_whenIsRetryable_thenOnlySafeFailuresAreRetried() {
+    assertTrue(EpcRetryPolicyFactory.isRetryable(responseException(500, HttpHeaders.EMPTY)));
+    assertTrue(EpcRetryPolicyFactory.isRetryable(responseException(503, HttpHeaders.EMPTY)));
+    assertTrue(EpcRetryPolicyFactory.isRetryable(responseException(429, HttpHeaders.EMPTY)));
+    assertTrue(EpcRetryPolicyFactory.isRetryable(new WebClientRequestException(
+        new IOException("Connection refused"), HttpMethod.POST, URI.create("https://tsp"), HttpHeaders.EMPTY)));
+    assertTrue(EpcRetryPolicyFactory.isRetryable(new TimeoutException()));
+
+    assertFalse(EpcRetryPolicyFactory.isRetryable(responseException(400, HttpHeaders.EMPTY)));
+    assertFalse(EpcRetryPolicyFactory.isRetryable(responseException(404, HttpHeaders.EMPTY)));
+    assertFalse(EpcRetryPolicyFactory.isRetryable(new IllegalArgumentException()));
+  }
+
+
+  @Test
+  void givenRetryableFailure_whenRetry_thenRetryUpToMaxAttempts() {
+    final var factory = factory(0.1, 10);
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.create(failing(attempts, responseException(503, HttpHeaders.EMPTY))
+            .retryWhen(factory.create()))
+        .expectErrorMatches(error -> Exceptions.isRetryExhausted(error)
+            && error.getCause() instanceof WebClientResponseException)
+        .verify(Duration.ofSeconds(5));
+
+    assertEquals(MAX_ATTEMPTS + 1, attempts.get());
+  }
+
+
+  @Test
+  void givenNonRetryableFailure_whenRetry_thenPropagateWithoutRetrying() {
+    final var factory = factory(0.1, 10);
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.create(failing(attempts, responseException(400, HttpHeaders.EMPTY))
+            .retryWhen(factory.create()))
+        .expectError(WebClientResponseException.BadRequest.class)
+        .verify();
+
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  void givenExhaustedBudget_whenRetry_thenStopRetrying() {
+    final var factory = factory(0.0, 1);
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.create(failing(attempts, responseException(503, HttpHeaders.EMPTY))
+            .retryWhen(factory.create()))
+        .expectErrorMatches(Exceptions::isRetryExhausted)
+        .verify(Duration.ofSeconds(5));
+
+    assertEquals(2, attempts.get());
+  }
+
+
+  @Test
+  void givenTooManyRequestsWithRetryAfter_whenRetry_thenWaitRequestedDelay() {
+    final var factory = factory(0.1, 10);
+    final var headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, "20");
+    final var attempts = new AtomicInteger();
+
+    StepVerifier.withVirtualTime(() -> Mono.defer(() -> attempts.getAndIncrement() == 0
+                ? Mono.<String>error(responseException(429, headers))
+                : Mono.just("ok"))
+            .retryWhen(factory.create()))
+        .expectSubscription()
+        .expectNoEvent(Duration.ofSeconds(19))
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNext("ok")
+        .verifyComplete();
+  }
+
+
+  @Test
+  void givenRetryAfterValues_whenParse_thenReturnDelay() {
+    assertEquals(Optional.of(Duration.ofSeconds(120)), EpcRetryPolicyFactory.parseRetryAfter(" 120 "));
+    assertEquals(Optional.of(Duration.ZERO),
+        EpcRetryPolicyFactory.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    assertEquals(Optional.empty(), EpcRetryPolicyFactory.parseRetryAfter("soon"));
+  }
+
+
+  private static EpcRetryPolicyFactory factory(double budgetRatio, int budgetMinRetries) {
+    final var config = new ServiceProviderConfig(null, null,
+        new Send(null, new Retry(MAX_ATTEMPTS, 10, 0.5), 10000L, null));
+
+    return new EpcRetryPolicyFactory(config,
+        new EpcRetryProperties(budgetRatio, Duration.ofSeconds(10), budgetMinRetries, Duration.ofMinutes(1)));
+  }
+
+  private static Mono<String> failing(AtomicInteger attempts, Throwable failure) {
+    return Mono.defer(() -> {
+      attempts.incrementAndGet();
+      return Mono.error(failure);
+    });
+  }
+
+  private static WebClientResponseException responseException(int status, HttpHeaders headers) {
+    return WebClientResponseException.create(status, "status " + status, headers, null, null);
+  }
+}
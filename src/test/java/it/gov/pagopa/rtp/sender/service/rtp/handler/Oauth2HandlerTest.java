@@ -45,7 +45,7 @@ class Oauth2HandlerTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, true);
+        oauth2Data, true, null);
     final var serviceProviderData = new ServiceProviderFullData("spId", "spName", "psp_tax_code",  tspData);
     final var request = new EpcRequest(rtpToSend, serviceProviderData, null, null);
 
@@ -76,7 +76,7 @@ class Oauth2HandlerTest {
   void givenRequestWithoutOauth2_whenHandle_thenSkipTokenRetrieval() {
     final var rtpToSend = mock(Rtp.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        null, true);
+        null, true, null);
     final var serviceProviderData = new ServiceProviderFullData("spId", "spName", "psp_tax_code", tspData);
     final var request = new EpcRequest(rtpToSend, serviceProviderData, null, null);
 
@@ -95,7 +95,7 @@ class Oauth2HandlerTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, true);
+        oauth2Data, true, null);
     final var serviceProviderData = new ServiceProviderFullData("spId", "spName", "psp_tax_code", tspData);
     final var request = new EpcRequest(rtpToSend, serviceProviderData, null, null);
 
@@ -12,6 +12,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import it.gov.pagopa.rtp.sender.domain.errors.ServiceProviderNotFoundException;
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
@@ -38,14 +39,14 @@ class RegistryDataHandlerTest {
     final var rtpToSend = mock(Rtp.class);
     final var request = new EpcRequest(rtpToSend, null, null, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code",
-        new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret", null, true));
+        new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret", null, true, null));
 
     final var expectedRequest = new EpcRequest(rtpToSend, serviceProviderData, null, null);
 
     when(rtpToSend.serviceProviderDebtor())
         .thenReturn(spId);
-    when(registryDataService.getRegistryData()).
-        thenReturn(Mono.just(Map.of(spId, serviceProviderData)));
+    when(registryDataService.getRegistrySnapshot()).
+        thenReturn(Mono.just(new RegistrySnapshot(Map.of(spId, serviceProviderData), Map.of(), Map.of())));
 
     final var result = registryDataHandler.handle(request);
 
@@ -61,7 +62,8 @@ class RegistryDataHandlerTest {
     final var request = new EpcRequest(rtpToSend, null, null, null);
 
     when(rtpToSend.serviceProviderDebtor()).thenReturn("unknown-debtor");
-    when(registryDataService.getRegistryData()).thenReturn(Mono.just(Collections.emptyMap()));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap())));
 
     final var result = registryDataHandler.handle(request);
 
@@ -76,7 +78,7 @@ class RegistryDataHandlerTest {
 
     final var rtpToSend = mock(Rtp.class);
     final var request = new EpcRequest(rtpToSend, null, null, null);
-    when(registryDataService.getRegistryData()).thenReturn(Mono.error(new RuntimeException("Service failure")));
+    when(registryDataService.getRegistrySnapshot()).thenReturn(Mono.error(new RuntimeException("Service failure")));
 
     final var result = registryDataHandler.handle(request);
 
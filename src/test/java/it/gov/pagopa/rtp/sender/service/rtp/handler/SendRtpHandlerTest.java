@@ -6,12 +6,15 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import it.gov.pagopa.rtp.sender.configuration.EpcRetryProperties;
 import it.gov.pagopa.rtp.sender.configuration.PagoPaConfigProperties;
 import it.gov.pagopa.rtp.sender.domain.rtp.TransactionStatus;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -21,17 +24,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import it.gov.pagopa.rtp.sender.configuration.OpenAPIClientFactory;
 import it.gov.pagopa.rtp.sender.configuration.ServiceProviderConfig;
-import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientFactory;
+import it.gov.pagopa.rtp.sender.configuration.mtlswebclient.WebClientRegistry;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.domain.rtp.ResourceID;
 import it.gov.pagopa.rtp.sender.domain.rtp.Rtp;
 import it.gov.pagopa.rtp.sender.epcClient.api.DefaultApi;
-import it.gov.pagopa.rtp.sender.epcClient.invoker.ApiClient;
 import it.gov.pagopa.rtp.sender.epcClient.model.SepaRequestToPayRequestResourceDto;
 import it.gov.pagopa.rtp.sender.epcClient.model.SynchronousSepaRequestToPayCreationResponseDto;
 import it.gov.pagopa.rtp.sender.service.rtp.SepaRequestToPayMapper;
@@ -44,10 +48,12 @@ class SendRtpHandlerTest {
   private static final long MAX_ATTEMPTS = 3L;
   private static final long BACKOFF_MIN_DURATION = 100L;
   private static final double BACKOFF_JITTER = 0.5;
+  private static final EpcRetryProperties RETRY_PROPERTIES =
+      new EpcRetryProperties(0.1, Duration.ofSeconds(10), 10, Duration.ofSeconds(1));
 
 
   @Mock
-  private WebClientFactory webClientFactory;
+  private WebClientRegistry webClientRegistry;
 
   @Mock
   private OpenAPIClientFactory<DefaultApi> epcClientFactory;
@@ -61,8 +67,6 @@ class SendRtpHandlerTest {
   @Mock
   private DefaultApi epcClient;
 
-  @Mock
-  private ApiClient apiClient;
 
   @Mock
   private ServiceProviderConfig.Send.Retry retryConfig;
@@ -73,6 +77,12 @@ class SendRtpHandlerTest {
   @Mock
   private PagoPaConfigProperties.OperationSlug operationSlug;
 
+  @Mock
+  private TspCallGuard tspCallGuard;
+
+  @Mock
+  private TspConcurrencyLimiter concurrencyLimiter;
+
   private SendRtpHandler sendRtpHandler;
 
   @BeforeEach
@@ -85,7 +95,13 @@ class SendRtpHandlerTest {
     lenient().when(pagoPaConfigProperties.operationSlug()).thenReturn(operationSlug);
     lenient().when(operationSlug.send()).thenReturn("send");
 
-    sendRtpHandler = new SendRtpHandler(webClientFactory, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, pagoPaConfigProperties);
+    lenient().when(tspCallGuard.guard(any(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+    lenient().when(concurrencyLimiter.limit(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+
+    sendRtpHandler = new SendRtpHandler(webClientRegistry, epcClientFactory, sepaRequestToPayMapper, serviceProviderConfig, pagoPaConfigProperties, tspCallGuard,
+        new EpcRetryPolicyFactory(serviceProviderConfig, RETRY_PROPERTIES), concurrencyLimiter);
   }
 
   @Test
@@ -112,17 +128,15 @@ class SendRtpHandlerTest {
         .thenReturn("https://example.com");
     when(tsp.mtlsEnabled())
         .thenReturn(true);
-    when(epcClientFactory.createClient(any()))
+    when(epcClientFactory.createClient(any(), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayRequests(any(), any(), eq(sepaRequest)))
         .thenReturn(Mono.just(sepaResponse));
     when(request.withResponse(transactionStatus))
         .thenReturn(request);
-    when(webClientFactory.createMtlsWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
 
     final var result = sendRtpHandler.handle(request);
@@ -157,12 +171,10 @@ class SendRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.mtlsEnabled())
         .thenReturn(false);
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayRequests(any(), any(), eq(sepaRequest)))
@@ -176,7 +188,7 @@ class SendRtpHandlerTest {
         .expectNext(request)
         .verifyComplete();
 
-    verify(webClientFactory).createSimpleWebClient();
+    verify(webClientRegistry).getWebClient(tsp);
   }
 
   @Test
@@ -199,16 +211,14 @@ class SendRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.serviceEndpoint())
         .thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
         .thenReturn(sepaRequest);
     when(epcClient.postRequestToPayRequests(any(), any(), any()))
-        .thenReturn(Mono.error(new RuntimeException("Simulated Failure")));
+        .thenReturn(Mono.error(WebClientResponseException.create(503, "Simulated Failure", null, null, null)));
 
     final var result = sendRtpHandler.handle(request);
 
@@ -247,12 +257,10 @@ class SendRtpHandlerTest {
         .thenReturn(tsp);
     when(tsp.serviceEndpoint())
         .thenReturn("https://example.com");
-    when(webClientFactory.createSimpleWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
-    when(epcClientFactory.createClient(webClient))
+    when(epcClientFactory.createClient(eq(webClient), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
         .thenReturn(sepaRequest);
 
@@ -261,7 +269,7 @@ class SendRtpHandlerTest {
         .thenAnswer(
             invocation -> {
               if (shouldFail.getAndSet(false)) {
-                throw new RuntimeException("Simulated call failure");
+                throw WebClientResponseException.create(503, "Simulated call failure", null, null, null);
               }
               return Mono.just(sepaResponse);
             }
@@ -302,15 +310,13 @@ class SendRtpHandlerTest {
         .thenReturn("https://example.com");
     when(tsp.mtlsEnabled())
         .thenReturn(true);
-    when(epcClientFactory.createClient(any()))
+    when(epcClientFactory.createClient(any(), any()))
         .thenReturn(epcClient);
-    when(epcClient.getApiClient())
-        .thenReturn(apiClient);
     when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
         .thenReturn(sepaRequest);
     when(request.withResponse(transactionStatus))
         .thenReturn(request);
-    when(webClientFactory.createMtlsWebClient())
+    when(webClientRegistry.getWebClient(tsp))
         .thenReturn(webClient);
 
     final var retryCounter = new AtomicInteger();
@@ -318,7 +324,7 @@ class SendRtpHandlerTest {
         .thenAnswer(
             invocation -> {
               if (retryCounter.getAndIncrement() < numRetries - 1) {
-                throw new RuntimeException("Simulated call failure");
+                throw WebClientResponseException.create(503, "Simulated call failure", null, null, null);
               }
               return Mono.just(sepaResponse);
             }
@@ -337,4 +343,156 @@ class SendRtpHandlerTest {
     assertEquals(numRetries, new HashSet<>(capturedRequestIds).size());
   }
 
+  @Test
+  void givenBadRequestResponse_whenHandleRtpSend_thenRejectWithoutRetrying() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToSend = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var sepaRequest = mock(SepaRequestToPayRequestResourceDto.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToSend.resourceID())
+        .thenReturn(resourceId);
+    when(request.rtpToSend())
+        .thenReturn(rtpToSend);
+    when(request.serviceProviderFullData())
+        .thenReturn(providerData);
+    when(providerData.tsp())
+        .thenReturn(tsp);
+    when(tsp.serviceEndpoint())
+        .thenReturn("https://example.com");
+    when(webClientRegistry.getWebClient(tsp))
+        .thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any()))
+        .thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
+        .thenReturn(sepaRequest);
+    when(epcClient.postRequestToPayRequests(any(), any(), any()))
+        .thenReturn(Mono.error(WebClientResponseException.create(400, "Bad Request", null, null, null)));
+    when(request.withResponse(TransactionStatus.RJCT))
+        .thenReturn(request);
+
+    StepVerifier.create(sendRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(epcClient, times(1)).postRequestToPayRequests(any(), any(), any());
+  }
+
+  @Test
+  void givenNonHttpFailure_whenHandleRtpSend_thenErrorWithoutRetrying() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToSend = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var sepaRequest = mock(SepaRequestToPayRequestResourceDto.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToSend.resourceID())
+        .thenReturn(resourceId);
+    when(request.rtpToSend())
+        .thenReturn(rtpToSend);
+    when(request.serviceProviderFullData())
+        .thenReturn(providerData);
+    when(providerData.tsp())
+        .thenReturn(tsp);
+    when(tsp.serviceEndpoint())
+        .thenReturn("https://example.com");
+    when(webClientRegistry.getWebClient(tsp))
+        .thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any()))
+        .thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
+        .thenReturn(sepaRequest);
+    when(epcClient.postRequestToPayRequests(any(), any(), any()))
+        .thenReturn(Mono.error(new DecodingException("Malformed response body")));
+    when(request.withResponse(TransactionStatus.ERROR))
+        .thenReturn(request);
+
+    StepVerifier.create(sendRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(epcClient, times(1)).postRequestToPayRequests(any(), any(), any());
+  }
+
+  @Test
+  void givenConcurrencyLimitNotAcquired_whenHandleRtpSend_thenFailFastWithError() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToSend = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToSend.resourceID())
+        .thenReturn(resourceId);
+    when(rtpToSend.serviceProviderDebtor())
+        .thenReturn("DEBTOR_SP");
+    when(request.rtpToSend())
+        .thenReturn(rtpToSend);
+    when(request.serviceProviderFullData())
+        .thenReturn(providerData);
+    when(providerData.tsp())
+        .thenReturn(tsp);
+    when(webClientRegistry.getWebClient(tsp))
+        .thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any()))
+        .thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
+        .thenReturn(mock(SepaRequestToPayRequestResourceDto.class));
+    when(concurrencyLimiter.limit(eq("DEBTOR_SP"), any(), any()))
+        .thenReturn(Mono.error(new TspCallNotPermittedException("Limit not acquired")));
+    when(request.withResponse(TransactionStatus.ERROR))
+        .thenReturn(request);
+
+    StepVerifier.create(sendRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(concurrencyLimiter, times(1)).limit(eq("DEBTOR_SP"), any(), any());
+    verify(epcClient, never()).postRequestToPayRequests(any(), any(), any());
+  }
+
+  @Test
+  void givenCallNotPermitted_whenHandleRtpSend_thenFailFastWithError() {
+    final var resourceId = ResourceID.createNew();
+    final var request = mock(EpcRequest.class);
+    final var rtpToSend = mock(Rtp.class);
+    final var providerData = mock(ServiceProviderFullData.class);
+    final var tsp = mock(TechnicalServiceProvider.class);
+    final var webClient = mock(WebClient.class);
+
+    when(rtpToSend.resourceID())
+        .thenReturn(resourceId);
+    when(rtpToSend.serviceProviderDebtor())
+        .thenReturn("DEBTOR_SP");
+    when(request.rtpToSend())
+        .thenReturn(rtpToSend);
+    when(request.serviceProviderFullData())
+        .thenReturn(providerData);
+    when(providerData.tsp())
+        .thenReturn(tsp);
+    when(webClientRegistry.getWebClient(tsp))
+        .thenReturn(webClient);
+    when(epcClientFactory.createClient(eq(webClient), any()))
+        .thenReturn(epcClient);
+    when(sepaRequestToPayMapper.toEpcRequestToPay(rtpToSend))
+        .thenReturn(mock(SepaRequestToPayRequestResourceDto.class));
+    when(tspCallGuard.guard(eq("DEBTOR_SP"), any()))
+        .thenReturn(Mono.error(new TspCallNotPermittedException("Circuit open")));
+    when(request.withResponse(TransactionStatus.ERROR))
+        .thenReturn(request);
+
+    StepVerifier.create(sendRtpHandler.handle(request))
+        .expectNext(request)
+        .verifyComplete();
+
+    verify(tspCallGuard, times(1)).guard(eq("DEBTOR_SP"), any());
+    verify(epcClient, never()).postRequestToPayRequests(any(), any(), any());
+  }
+
 }
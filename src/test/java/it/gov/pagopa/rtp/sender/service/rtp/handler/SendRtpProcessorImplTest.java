@@ -51,7 +51,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -109,7 +109,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -141,7 +141,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -177,7 +177,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -212,7 +212,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -274,7 +274,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -308,7 +308,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
@@ -345,7 +345,7 @@ class SendRtpProcessorImplTest {
     final var rtpToSend = mock(Rtp.class);
     final var oauth2Data = mock(OAuth2.class);
     final var tspData = new TechnicalServiceProvider("tspId", "tspName", "tspUrl", "tspSecret",
-        oauth2Data, false);
+        oauth2Data, false, null);
     final var serviceProviderData = new ServiceProviderFullData(spId, "spName", "psp_tax_code", tspData);
     final var inputEpcRequest = new EpcRequest(rtpToSend, null, null, null);
     final var epcRequestWithRegistryData = new EpcRequest(rtpToSend, serviceProviderData, null, null);
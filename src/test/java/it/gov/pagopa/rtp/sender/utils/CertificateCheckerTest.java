@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import it.gov.pagopa.rtp.sender.domain.errors.IncorrectCertificate;
 import it.gov.pagopa.rtp.sender.domain.errors.ServiceProviderNotFoundException;
+import it.gov.pagopa.rtp.sender.domain.registryfile.RegistrySnapshot;
 import it.gov.pagopa.rtp.sender.domain.registryfile.ServiceProviderFullData;
 import it.gov.pagopa.rtp.sender.domain.registryfile.TechnicalServiceProvider;
 import it.gov.pagopa.rtp.sender.service.registryfile.RegistryDataService;
@@ -47,12 +48,14 @@ class CertificateCheckerTest {
 
     Map<String, ServiceProviderFullData> registryDataMap = new HashMap<>();
     TechnicalServiceProvider tsp = new TechnicalServiceProvider("fakeTSPId", "fakeTSPName",
-        "serviceProviderDebtorId", validCertificateSerialNumber, null, true);
+        "serviceProviderDebtorId", validCertificateSerialNumber, null, true, null);
     ServiceProviderFullData serviceProviderFullData = new ServiceProviderFullData("fakeServiceProviderId",
         "fakeServiceProvider", "psp_tax_code", tsp);
     registryDataMap.put(serviceProviderDebtorId, serviceProviderFullData);
 
-    when(registryDataService.getRegistryData()).thenReturn(Mono.just(registryDataMap));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(registryDataMap, Map.of(),
+            Map.of(serviceProviderDebtorId, validCertificateSerialNumber))));
   }
 
   @Test
@@ -91,7 +94,7 @@ class CertificateCheckerTest {
   void verifyRequestCertificateWithNonExistentServiceProviderShouldThrowServiceProviderNotFoundException() {
     Map<String, ServiceProviderFullData> registryDataMap = new HashMap<>();
     TechnicalServiceProvider tsp = new TechnicalServiceProvider("otherTSPId", "otherTSPName",
-        "otherServiceProviderDebtorId", "otherCertSerialNumber", null, true);
+        "otherServiceProviderDebtorId", "otherCertSerialNumber", null, true, null);
     ServiceProviderFullData serviceProviderFullData = new ServiceProviderFullData("otherServiceProviderId",
         "otherServiceProvider", "psp_tax_code", tsp);
 
@@ -99,7 +102,9 @@ class CertificateCheckerTest {
     String differentBIC = "DIFFERENTBIC";
     registryDataMap.put(differentBIC, serviceProviderFullData);
 
-    when(registryDataService.getRegistryData()).thenReturn(Mono.just(registryDataMap));
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(registryDataMap, Map.of(),
+            Map.of(differentBIC, "otherCertSerialNumber"))));
 
     Mono<JsonNode> result = certificateChecker
         .verifyRequestCertificate(requestBody, validCertificateSerialNumber);
@@ -110,6 +115,25 @@ class CertificateCheckerTest {
         .verify();
   }
 
+  @Test
+  void verifyRequestCertificateWithoutRegisteredCertificateShouldThrowIncorrectCertificate() {
+    TechnicalServiceProvider tsp = new TechnicalServiceProvider("fakeTSPId", "fakeTSPName",
+        "serviceProviderDebtorId", null, null, true, null);
+    ServiceProviderFullData serviceProviderFullData = new ServiceProviderFullData("fakeServiceProviderId",
+        "fakeServiceProvider", "psp_tax_code", tsp);
+
+    when(registryDataService.getRegistrySnapshot())
+        .thenReturn(Mono.just(new RegistrySnapshot(
+            Map.of(serviceProviderDebtorId, serviceProviderFullData), Map.of(), Map.of())));
+
+    Mono<JsonNode> result = certificateChecker
+        .verifyRequestCertificate(requestBody, validCertificateSerialNumber);
+
+    StepVerifier.create(result)
+        .expectError(IncorrectCertificate.class)
+        .verify();
+  }
+
   private JsonNode createMockRequestBody(String serviceProviderDebtorId) {
     final var baseJson = """
         {